@@ -0,0 +1,196 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.alineumsoft.zenwk.security.auth.jwt.ActiveTokenRegistry;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationFilter;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.TokenRevocationService;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwtCache;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * <p>
+ * Benchmarks del camino critico JWT: emision, parseo, validacion y el filtro de autenticacion. Se
+ * miden con conjuntos de claims pequeno, mediano y grande, con los perfiles de claims full y
+ * compact y con la cache de tokens verificados deshabilitada y habilitada. Las subclases fijan el
+ * numero de hilos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AbstractJwtBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class AbstractJwtBenchmark {
+  /**
+   * Usuario de los tokens verificados
+   */
+  private static final String USERNAME = "bench-user";
+  /**
+   * Usuario de los tokens emitidos en el benchmark, para no reemplazar el token activo de USERNAME
+   */
+  private static final String GENERATE_USERNAME = "bench-generate";
+
+  /**
+   * Tamano de los claims: small (1 rol, 2 urls) | medium (2 roles, 20 urls) | large (5 roles, 200
+   * urls)
+   */
+  @Param({"small", "medium", "large"})
+  public String claimSet;
+  /**
+   * Cache de tokens verificados
+   */
+  @Param({"false", "true"})
+  public boolean verifiedCache;
+  /**
+   * Perfil de claims: full (roles y urls en el token) | compact (ids de rol resueltos con el
+   * snapshot de permisos)
+   */
+  @Param({"full", "compact"})
+  public String claimsProfile;
+
+  private JwtProvider jwtProvider;
+  private JwtAuthenticationFilter filter;
+  private UserDetails userDetails;
+  private UserDetails generateUserDetails;
+  private List<String> urls;
+  private String token;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Construye el proveedor con sus componentes reales;
+   * solo los repositorios se reemplazan por mocks.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    String secret = Base64.getEncoder()
+        .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+    JwtKeyHolder keyHolder = new JwtKeyHolder(secret, new StandardEnvironment());
+    RolePermissionRepository rolePermRepo = mock(RolePermissionRepository.class);
+    PermissionSnapshotHolder permissionSnapshotHolder =
+        new PermissionSnapshotHolder(rolePermRepo, 8);
+    jwtProvider = new JwtProvider(mock(LogSecurityRepository.class), keyHolder,
+        new VerifiedJwtCache(verifiedCache, 10000, keyHolder, new SimpleMeterRegistry()),
+        new ActiveTokenRegistry(100000, false),
+        new TokenRevocationService(mock(RevokedTokenRepository.class), 100000, 0.01),
+        permissionSnapshotHolder);
+    ReflectionTestUtils.setField(jwtProvider, "expirationTime", TimeUnit.DAYS.toMillis(1));
+    ReflectionTestUtils.setField(jwtProvider, "claimsProfile", claimsProfile);
+    filter = new JwtAuthenticationFilter(jwtProvider);
+
+    int roleCount = "small".equals(claimSet) ? 1 : "medium".equals(claimSet) ? 2 : 5;
+    int urlCount = "small".equals(claimSet) ? 2 : "medium".equals(claimSet) ? 20 : 200;
+    List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+    authorities.add(new SimpleGrantedAuthority("ADMIN"));
+    for (int i = 1; i < roleCount; i++) {
+      authorities.add(new SimpleGrantedAuthority("ROLE_" + i));
+    }
+    urls = new ArrayList<>();
+    List<Object[]> roleResources = new ArrayList<>();
+    for (int i = 0; i < urlCount; i++) {
+      urls.add("/api/resource-" + i + "/7");
+      roleResources.add(new Object[] {1L, "ADMIN", "/api/resource-" + i + "/{id}"});
+    }
+    for (int i = 1; i < roleCount; i++) {
+      roleResources.add(new Object[] {i + 1L, "ROLE_" + i, "/api/resource-0/{id}"});
+    }
+    when(rolePermRepo.findAllRoleResources()).thenReturn(roleResources);
+    permissionSnapshotHolder.refresh();
+    userDetails = new User(USERNAME, "", authorities);
+    generateUserDetails = new User(GENERATE_USERNAME, "", authorities);
+    token = jwtProvider.generateToken(userDetails, urls, 7L, 9L, UserStateEnum.ACTIVE,
+        "bench@mail.com");
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtProvider.generateToken(generateUserDetails, urls, 7L, 9L, UserStateEnum.ACTIVE,
+        "bench@mail.com");
+  }
+
+  @Benchmark
+  public Claims extractAllClaims() {
+    return jwtProvider.extractAllClaims(token);
+  }
+
+  @Benchmark
+  public boolean validateToken() {
+    return jwtProvider.validateToken(token, USERNAME);
+  }
+
+  @Benchmark
+  public Optional<UserDetails> extractUserDetails() {
+    return jwtProvider.extractUserDetails(token);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Camino completo del filtro: lectura de la cookie,
+   * verificacion y validateAuthenticate. El request se crea en cada invocacion porque guarda el
+   * token verificado como atributo.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   * @throws IOException
+   */
+  @Benchmark
+  public boolean validateAuthenticate() throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/resource-0/7");
+    request.setCookies(new Cookie(AuthConfigConstants.ZENWK_JWT, token));
+    try {
+      VerifiedJwt jwt = jwtProvider.verifyRequest(request,
+          jwtProvider.extractJwtFromCookie(request).orElseThrow());
+      return filter.validateAuthenticate(request, new MockHttpServletResponse(), jwt);
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+  }
+}
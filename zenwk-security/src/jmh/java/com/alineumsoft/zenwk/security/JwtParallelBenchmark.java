@@ -0,0 +1,17 @@
+package com.alineumsoft.zenwk.security;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * <p>
+ * Benchmarks del camino critico JWT con hilos concurrentes sobre el mismo proveedor, para medir la
+ * contencion en las caches y registros compartidos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwtParallelBenchmark
+ */
+@Threads(4)
+public class JwtParallelBenchmark extends AbstractJwtBenchmark {
+}
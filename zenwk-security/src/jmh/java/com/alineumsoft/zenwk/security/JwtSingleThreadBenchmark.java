@@ -0,0 +1,16 @@
+package com.alineumsoft.zenwk.security;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * <p>
+ * Benchmarks del camino critico JWT con un solo hilo.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwtSingleThreadBenchmark
+ */
+@Threads(1)
+public class JwtSingleThreadBenchmark extends AbstractJwtBenchmark {
+}
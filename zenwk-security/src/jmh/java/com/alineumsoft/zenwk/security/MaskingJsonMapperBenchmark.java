@@ -0,0 +1,122 @@
+package com.alineumsoft.zenwk.security;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.alineumsoft.zenwk.security.common.component.MaskingJsonMapper;
+import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
+import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import com.alineumsoft.zenwk.security.user.dto.UserDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * <p>
+ * Compara el JSON de los logs con el mapper compartido de una sola pasada frente al anterior, que
+ * creaba un ObjectMapper por llamada, serializaba, leia el resultado a un Map para enmascarar el
+ * password y volvia a serializar.
+ * </p>
+ *
+ * <pre>
+ * ./gradlew jmh -PjmhIncludes=MaskingJsonMapperBenchmark
+ * </pre>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class MaskingJsonMapperBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class MaskingJsonMapperBenchmark {
+  /**
+   * Cuerpo serializado: user (UserDTO de registro) | nested (mapa con objetos y listas anidadas)
+   */
+  @Param({"user", "nested"})
+  private String payload;
+
+  private Object value;
+  private MaskingJsonMapper mapper;
+
+  /**
+   * <p>
+   * <b> General </b> Crea el cuerpo a serializar
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Setup
+  public void setUp() {
+    mapper = MaskingJsonMapper.getDefault();
+    UserDTO user = new UserDTO();
+    user.setId(15L);
+    user.setIdPerson(27L);
+    user.setUsername("jperez");
+    user.setPassword("Secreta#2024");
+    user.setEmail("jperez@zenwk.com");
+    user.setState(UserStateEnum.ACTIVE);
+    if ("nested".equals(payload)) {
+      Map<String, Object> body = new LinkedHashMap<>();
+      body.put("user", user);
+      body.put("roles", List.of("USER", "ADMIN"));
+      body.put("filters", Map.of("state", "ACTIVE", "page", 0, "size", 20));
+      body.put(GeneralConstants.FIELD_PASSWORD, "Secreta#2024");
+      value = body;
+    } else {
+      value = user;
+    }
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Mapper compartido, enmascara en la misma serializacion
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   * @throws JsonProcessingException
+   */
+  @Benchmark
+  public String masking() throws JsonProcessingException {
+    return mapper.write(value);
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Implementacion anterior de ApiRestHelper.getJson
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   * @throws JsonProcessingException
+   */
+  @Benchmark
+  public String legacy() throws JsonProcessingException {
+    ObjectMapper objectMapper = new ObjectMapper();
+    String json = objectMapper.writeValueAsString(value);
+    Map<String, Object> jsonMap =
+        objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+    if (jsonMap.containsKey(GeneralConstants.FIELD_PASSWORD)) {
+      jsonMap.put(GeneralConstants.FIELD_PASSWORD, GeneralConstants.VALUE_SENSITY_MASK);
+    }
+    return objectMapper.writeValueAsString(jsonMap);
+  }
+}
@@ -0,0 +1,170 @@
+package com.alineumsoft.zenwk.security;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import com.alineumsoft.zenwk.security.config.XSSRequestWrapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * <p>
+ * Compara el wrapper XSS memorizado con el anterior, que escapaba el valor en cada lectura. Cada
+ * invocacion crea el wrapper de una solicitud y lee sus parametros como lo hacen el data binding y
+ * los controladores: getParameter dos veces, getParameterValues y getParameterMap.
+ * </p>
+ *
+ * <pre>
+ * ./gradlew jmh -PjmhIncludes=XSSRequestWrapperBenchmark
+ * </pre>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class XSSRequestWrapperBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class XSSRequestWrapperBenchmark {
+  /**
+   * Query de la solicitud: ascii (paginacion y filtros) | accents (nombres con tildes) | html
+   * (valores con caracteres a escapar)
+   */
+  @Param({"ascii", "accents", "html"})
+  private String query;
+
+  /**
+   * Solicitud con los parametros de la query
+   */
+  private MockHttpServletRequest request;
+  /**
+   * Nombres de los parametros leidos
+   */
+  private String[] names;
+
+  /**
+   * <p>
+   * <b> CU001_XX_Filtro_XSS </b> Crea la solicitud con los parametros de la query
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Setup
+  public void setUp() {
+    request = new MockHttpServletRequest("GET", "/api/users");
+    request.addParameter("page", "0");
+    request.addParameter("size", "20");
+    request.addParameter("sort", "creationDate,desc");
+    request.addParameter("state", "ACTIVE");
+    request.addParameter("role", "USER", "ADMIN");
+    switch (query) {
+      case "accents" -> {
+        request.addParameter("firstName", "José Andrés");
+        request.addParameter("lastName", "Peña Muñoz");
+      }
+      case "html" -> {
+        request.addParameter("firstName", "<script>alert(1)</script>");
+        request.addParameter("lastName", "Smith & \"Sons\"");
+      }
+      default -> {
+        request.addParameter("firstName", "Jose");
+        request.addParameter("lastName", "Pena");
+      }
+    }
+    names = request.getParameterMap().keySet().toArray(new String[0]);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_XX_Filtro_XSS </b> Wrapper con memorizacion por solicitud
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param blackhole
+   */
+  @Benchmark
+  public void memoized(Blackhole blackhole) {
+    read(new XSSRequestWrapper(request), blackhole);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_XX_Filtro_XSS </b> Wrapper anterior, escapa en cada lectura
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param blackhole
+   */
+  @Benchmark
+  public void legacy(Blackhole blackhole) {
+    read(new LegacyXSSRequestWrapper(request), blackhole);
+  }
+
+  /**
+   * Lecturas de los parametros de una solicitud
+   */
+  private void read(HttpServletRequest wrapper, Blackhole blackhole) {
+    for (String name : names) {
+      blackhole.consume(wrapper.getParameter(name));
+      blackhole.consume(wrapper.getParameter(name));
+      blackhole.consume(wrapper.getParameterValues(name));
+    }
+    blackhole.consume(wrapper.getParameterMap());
+  }
+
+  /**
+   * Copia del wrapper anterior a la memorizacion, como linea base
+   */
+  private static final class LegacyXSSRequestWrapper extends HttpServletRequestWrapper {
+
+    LegacyXSSRequestWrapper(HttpServletRequest request) {
+      super(request);
+    }
+
+    @Override
+    public String getParameter(String name) {
+      if ("password".equalsIgnoreCase(name)) {
+        return super.getParameter(name);
+      }
+      return sanitize(super.getParameter(name));
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+      String[] values = super.getParameterValues(name);
+      if (values == null)
+        return new String[0];
+      if ("password".equalsIgnoreCase(name)) {
+        return values;
+      }
+      String[] sanitized = new String[values.length];
+      for (int i = 0; i < values.length; i++) {
+        sanitized[i] = sanitize(values[i]);
+      }
+      return sanitized;
+    }
+
+    private String sanitize(String input) {
+      if (input == null)
+        return null;
+      return StringEscapeUtils.escapeHtml4(input);
+    }
+  }
+}
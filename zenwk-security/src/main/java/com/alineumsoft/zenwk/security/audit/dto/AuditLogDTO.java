@@ -0,0 +1,36 @@
+package com.alineumsoft.zenwk.security.audit.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Log de auditoria de la consulta <code>/api/audit/logs</code>
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditLogDTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogDTO implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private Long id;
+  private LocalDateTime creationDate;
+  private String userCreation;
+  private String serviceName;
+  private String method;
+  private String url;
+  private Integer statusCode;
+  private String request;
+  private String response;
+  private String errorMessage;
+  private String ipAddress;
+  private String userAgent;
+  private String executionTime;
+}
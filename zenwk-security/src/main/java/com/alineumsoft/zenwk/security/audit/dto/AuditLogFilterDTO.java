@@ -0,0 +1,53 @@
+package com.alineumsoft.zenwk.security.audit.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import org.springframework.format.annotation.DateTimeFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Filtros de la consulta de logs de auditoria, recibidos como parametros de la URL. Todos son
+ * opcionales; el rango de fechas es [from, to).
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditLogFilterDTO
+ */
+@Data
+@NoArgsConstructor
+public class AuditLogFilterDTO implements Serializable {
+  private static final long serialVersionUID = 1L;
+  /**
+   * Usuario que genero el log (logsecuseusercreation)
+   */
+  private String user;
+  /**
+   * Accion de seguridad, por nombre (ROLE_LIST) o codigo (ROLE.LIST)
+   */
+  private String action;
+  /**
+   * Codigo de estado HTTP
+   */
+  private Integer status;
+  /**
+   * Fecha de creacion inicial, incluida
+   */
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private LocalDateTime from;
+  /**
+   * Fecha de creacion final, excluida
+   */
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  private LocalDateTime to;
+  /**
+   * nextCursor de la pagina anterior; vacio para la primera pagina
+   */
+  private String cursor;
+  /**
+   * Tamano de la pagina
+   */
+  private Integer size;
+}
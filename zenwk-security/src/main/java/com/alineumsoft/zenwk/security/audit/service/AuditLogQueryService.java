@@ -0,0 +1,265 @@
+package com.alineumsoft.zenwk.security.audit.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import com.alineumsoft.zenwk.security.audit.dto.AuditLogDTO;
+import com.alineumsoft.zenwk.security.audit.dto.AuditLogFilterDTO;
+import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
+import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
+import com.alineumsoft.zenwk.security.common.helper.ApiRestSecurityHelper;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
+import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Consulta de <code>log_sec</code> con paginacion por llave (keyset): las paginas se ordenan por
+ * (fecha de creacion, id) descendente y cada una continua desde el ultimo registro de la anterior,
+ * cuya llave viaja en un cursor opaco. No se usa OFFSET ni se cuenta el total, de modo que el
+ * costo de una pagina no depende de su posicion. La pagina (a lo sumo MAX_SIZE filas) se lee
+ * completa antes de escribir la respuesta, asi un error de la consulta no deja una respuesta 200
+ * truncada.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditLogQueryService
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditLogQueryService extends ApiRestSecurityHelper {
+  /**
+   * Tamano de pagina sin parametro
+   */
+  private static final int DEFAULT_SIZE = 50;
+  /**
+   * Tamano de pagina maximo
+   */
+  private static final int MAX_SIZE = 500;
+  /**
+   * Columnas de la consulta; los logs sin fecha de creacion no tienen llave de paginacion
+   */
+  private static final String SELECT_SQL = "SELECT logsecuseid, logsecusecreationdate,"
+      + " logsecuseusercreation, logsecuseservicename, logsecusemethod, logsecuseurl,"
+      + " logsecusestatuscode, logsecuserequest, logsecuseresponse, logsecuseerrormessage,"
+      + " logsecuseipaddress, logsecuseuseragent, logsecuseexecutiontime FROM log_sec"
+      + " WHERE logsecusecreationdate IS NOT NULL";
+  /**
+   * Orden de la llave, igual al de los indices idx_log_sec_*
+   */
+  private static final String ORDER_SQL =
+      " ORDER BY logsecusecreationdate DESC, logsecuseid DESC LIMIT ?";
+  /**
+   * Separador de la fecha y el id dentro del cursor
+   */
+  private static final char CURSOR_SEPARATOR = '|';
+  private static final String FIELD_LOGS = "logs";
+  private static final String FIELD_NEXT_CURSOR = "nextCursor";
+  /**
+   * Acceso a log_sec
+   */
+  private final JdbcTemplate jdbcTemplate;
+  /**
+   * Mapper de la aplicacion, para escribir la respuesta
+   */
+  private final ObjectMapper objectMapper;
+  /**
+   * Repositorio utilizado para el log
+   */
+  private final LogSecurityRepository logSecRepo;
+
+  /**
+   * <p>
+   * <b> General </b> Escribe en la respuesta una pagina de logs de auditoria:
+   * <code>{"logs": [...], "nextCursor": "..."}</code>, con nextCursor null en la ultima pagina.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param filter
+   * @param request
+   * @param response
+   * @param userDetails
+   */
+  public void findLogs(AuditLogFilterDTO filter, HttpServletRequest request,
+      HttpServletResponse response, UserDetails userDetails) {
+    LogSecurity logSec = initializeLog(request, userDetails.getUsername(), getJson(filter),
+        notBody, SecurityActionEnum.AUDIT_LOG_LIST.name());
+    try {
+      response.setStatus(HttpStatus.OK.value());
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+      writeLogs(filter, response.getOutputStream());
+      saveSuccessLog(HttpStatus.OK.value(), logSec, logSecRepo);
+    } catch (IOException e) {
+      setLogSecurityError(new UncheckedIOException(e), logSec);
+      throw new TechnicalException(e.getMessage(), e, logSecRepo, logSec);
+    } catch (RuntimeException e) {
+      setLogSecurityError(e, logSec);
+      if (isFunctionalException(e)) {
+        throw new FunctionalException(e.getMessage(), e.getCause(), logSecRepo, logSec);
+      }
+      throw new TechnicalException(e.getMessage(), e.getCause(), logSecRepo, logSec);
+    }
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Consulta la pagina y la escribe como JSON en la salida. Nada se escribe si
+   * el cursor es invalido o la consulta falla.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param filter
+   * @param out
+   * @return nextCursor, null en la ultima pagina
+   * @throws IOException
+   */
+  public String writeLogs(AuditLogFilterDTO filter, OutputStream out) throws IOException {
+    int size = filter.getSize() != null ? Math.min(Math.max(filter.getSize(), 1), MAX_SIZE)
+        : DEFAULT_SIZE;
+    List<Object> args = new ArrayList<>();
+    StringBuilder sql = new StringBuilder(SELECT_SQL);
+    appendCondition(sql, args, " AND logsecuseusercreation = ?", filter.getUser());
+    if (filter.getAction() != null && !filter.getAction().isBlank()) {
+      List<String> serviceNames = resolveAction(filter.getAction());
+      sql.append(" AND logsecuseservicename IN (")
+          .append(String.join(", ", Collections.nCopies(serviceNames.size(), "?"))).append(')');
+      args.addAll(serviceNames);
+    }
+    appendCondition(sql, args, " AND logsecusestatuscode = ?", filter.getStatus());
+    appendCondition(sql, args, " AND logsecusecreationdate >= ?",
+        filter.getFrom() != null ? Timestamp.valueOf(filter.getFrom()) : null);
+    appendCondition(sql, args, " AND logsecusecreationdate < ?",
+        filter.getTo() != null ? Timestamp.valueOf(filter.getTo()) : null);
+    if (filter.getCursor() != null && !filter.getCursor().isBlank()) {
+      Object[] key = decodeCursor(filter.getCursor());
+      sql.append(" AND (logsecusecreationdate, logsecuseid) < (?, ?)");
+      args.add(key[0]);
+      args.add(key[1]);
+    }
+    sql.append(ORDER_SQL);
+    // Una fila adicional indica si existe una pagina siguiente
+    args.add(size + 1);
+    PageReader page = new PageReader(size);
+    jdbcTemplate.query(sql.toString(), page, args.toArray());
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.writeStartObject();
+      generator.writeArrayFieldStart(FIELD_LOGS);
+      for (AuditLogDTO dto : page.logs) {
+        generator.writeObject(dto);
+      }
+      generator.writeEndArray();
+      generator.writeStringField(FIELD_NEXT_CURSOR, page.nextCursor);
+      generator.writeEndObject();
+      return page.nextCursor;
+    }
+  }
+
+  /**
+   * Agrega la condicion cuando el filtro tiene valor
+   */
+  private static void appendCondition(StringBuilder sql, List<Object> args, String condition,
+      Object value) {
+    Object arg = value instanceof String text ? text.trim() : value;
+    if (arg != null && !"".equals(arg)) {
+      sql.append(condition);
+      args.add(arg);
+    }
+  }
+
+  /**
+   * Los servicios guardan la accion por su codigo (USER.GET) o por su nombre (ROLE_LIST); el
+   * filtro acepta cualquiera de los dos y busca ambos
+   */
+  private static List<String> resolveAction(String action) {
+    String value = action.trim();
+    for (SecurityActionEnum actionEnum : SecurityActionEnum.values()) {
+      if (actionEnum.getCode().equalsIgnoreCase(value)
+          || actionEnum.name().equalsIgnoreCase(value)) {
+        return List.of(actionEnum.getCode(), actionEnum.name());
+      }
+    }
+    return List.of(value);
+  }
+
+  /**
+   * Cursor opaco con la llave del ultimo log de la pagina
+   */
+  private static String encodeCursor(LocalDateTime creationDate, long id) {
+    String key = creationDate.toString() + CURSOR_SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Llave del cursor: fecha de creacion e id
+   */
+  private static Object[] decodeCursor(String cursor) {
+    try {
+      String key = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+      int separator = key.indexOf(CURSOR_SEPARATOR);
+      return new Object[] {Timestamp.valueOf(LocalDateTime.parse(key.substring(0, separator))),
+          Long.parseLong(key.substring(separator + 1))};
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          SecurityExceptionEnum.FUNC_AUDIT_CURSOR_INVALID.getCodeMessage(cursor));
+    }
+  }
+
+  /**
+   * Lee las filas de la pagina; la fila size + 1 solo confirma que hay otra pagina
+   */
+  private static final class PageReader implements RowCallbackHandler {
+    private final int size;
+    private final List<AuditLogDTO> logs = new ArrayList<>();
+    private int rows;
+    private LocalDateTime lastCreationDate;
+    private long lastId;
+    private String nextCursor;
+
+    private PageReader(int size) {
+      this.size = size;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+      if (rows++ == size) {
+        nextCursor = encodeCursor(lastCreationDate, lastId);
+        return;
+      }
+      lastId = rs.getLong(1);
+      lastCreationDate = rs.getTimestamp(2).toLocalDateTime();
+      Integer status = rs.getInt(7);
+      if (rs.wasNull()) {
+        status = null;
+      }
+      logs.add(new AuditLogDTO(lastId, lastCreationDate, rs.getString(3), rs.getString(4),
+          rs.getString(5), rs.getString(6), status, rs.getString(8), rs.getString(9),
+          rs.getString(10), rs.getString(11), rs.getString(12), rs.getString(13)));
+    }
+  }
+}
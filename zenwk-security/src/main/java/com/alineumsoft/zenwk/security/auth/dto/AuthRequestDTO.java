@@ -1,6 +1,7 @@
 package com.alineumsoft.zenwk.security.auth.dto;
 
 import java.io.Serializable;
+import com.alineumsoft.zenwk.security.config.XSSExempt;
 import com.alineumsoft.zenwk.security.constants.DtoValidationKeys;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -30,6 +31,7 @@ public class AuthRequestDTO implements Serializable {
   /**
    * password
    */
+  @XSSExempt
   @NotNull(message = DtoValidationKeys.USER_PASSWORD_NOT_NULL)
   private String password;
 
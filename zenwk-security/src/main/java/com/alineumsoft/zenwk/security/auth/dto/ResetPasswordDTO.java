@@ -2,6 +2,7 @@ package com.alineumsoft.zenwk.security.auth.dto;
 
 import java.io.Serializable;
 import com.alineumsoft.zenwk.security.common.constants.RegexConstants;
+import com.alineumsoft.zenwk.security.config.XSSExempt;
 import com.alineumsoft.zenwk.security.constants.DtoValidationKeys;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
@@ -22,6 +23,7 @@ public class ResetPasswordDTO implements Serializable {
   @JsonInclude(JsonInclude.Include.NON_NULL)
   @Pattern(regexp = RegexConstants.PASSWORD, message = DtoValidationKeys.USER_PASSWORD_INVALID)
   @Size(max = 64, message = DtoValidationKeys.USER_PASSWORD_MAX_LENGTH)
+  @XSSExempt
   @NotNull(message = DtoValidationKeys.USER_PASSWORD_NOT_NULL)
   String password;
   /**
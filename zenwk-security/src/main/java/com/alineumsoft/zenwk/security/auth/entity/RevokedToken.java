@@ -0,0 +1,75 @@
+package com.alineumsoft.zenwk.security.auth.entity;
+
+import java.time.LocalDateTime;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Tabla de tokens JWT revocados (logout / refresh), identificados por su jti. Se conserva hasta la
+ * expiracion del token y permite compartir la revocacion entre nodos.
+ * </p>
+ * 
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RevokedToken
+ */
+@Entity
+@Data
+@Table(name = "sec_revoked_token",
+    indexes = {@Index(name = "idx_sec_revoked_token_exp", columnList = "secrevtokexpirationdate"),
+        @Index(name = "idx_sec_revoked_token_creation", columnList = "secrevtokcreationdate")})
+@NoArgsConstructor
+public class RevokedToken {
+  /**
+   * Id
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "secrevtokid")
+  private Long id;
+  /**
+   * Identificador unico del token
+   */
+  @Column(name = "secrevtokjti", nullable = false, unique = true, length = 64)
+  private String jti;
+  /**
+   * Usuario del token
+   */
+  @Column(name = "secrevtokusername")
+  private String username;
+  /**
+   * Fecha de expiracion del token
+   */
+  @Column(name = "secrevtokexpirationdate", nullable = false)
+  private LocalDateTime expirationDate;
+  /**
+   * Fecha de revocacion
+   */
+  @Column(name = "secrevtokcreationdate", nullable = false)
+  private LocalDateTime creationDate;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   * 
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param jti
+   * @param username
+   * @param expirationDate
+   */
+  public RevokedToken(String jti, String username, LocalDateTime expirationDate) {
+    this.jti = jti;
+    this.username = username;
+    this.expirationDate = expirationDate;
+    this.creationDate = LocalDateTime.now();
+  }
+}
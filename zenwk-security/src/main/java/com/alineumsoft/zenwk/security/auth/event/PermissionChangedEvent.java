@@ -0,0 +1,29 @@
+package com.alineumsoft.zenwk.security.auth.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * <p>
+ * Evento publicado cuando cambian los roles, los permisos o su asignacion, para recargar el
+ * snapshot de permisos en memoria.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class PermissionChangedEvent
+ */
+public class PermissionChangedEvent extends ApplicationEvent {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * <p>
+   * <b> Constructor </b>
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param source
+   */
+  public PermissionChangedEvent(Object source) {
+    super(source);
+  }
+}
@@ -0,0 +1,37 @@
+package com.alineumsoft.zenwk.security.auth.event;
+
+import org.springframework.context.ApplicationEvent;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Evento publicado cuando cambian los roles asignados a un usuario, para que el refresh del JWT
+ * vuelva a consultar sus permisos en la base de datos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class UserRolesChangedEvent
+ */
+@Getter
+public class UserRolesChangedEvent extends ApplicationEvent {
+  private static final long serialVersionUID = 1L;
+  /**
+   * Id del usuario
+   */
+  private final Long idUser;
+
+  /**
+   * <p>
+   * <b> Constructor </b>
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param source
+   * @param idUser
+   */
+  public UserRolesChangedEvent(Object source, Long idUser) {
+    super(source);
+    this.idUser = idUser;
+  }
+}
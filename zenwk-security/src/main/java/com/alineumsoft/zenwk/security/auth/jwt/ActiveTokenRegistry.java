@@ -0,0 +1,166 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REGISTRY_MAXIMUM_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REGISTRY_REJECT_SUPERSEDED;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REGISTRY_SWEEP_INTERVAL;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Registro concurrente del token activo por usuario (usuario -> jti/expiracion). Las lecturas no
+ * toman bloqueos y las entradas se eliminan cuando el token expira, ya sea al consultarlas o en el
+ * barrido periodico. El tamano del registro esta acotado; si se alcanza el limite, el usuario no se
+ * registra y sus tokens se aceptan como si no hubiera un token activo conocido.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class ActiveTokenRegistry
+ */
+@Component
+@Slf4j
+public class ActiveTokenRegistry {
+  /**
+   * Token activo por usuario
+   */
+  private final ConcurrentMap<String, ActiveToken> activeTokens = new ConcurrentHashMap<>();
+  /**
+   * Numero maximo de usuarios registrados
+   */
+  private final long maximumSize;
+  /**
+   * Indica si los tokens reemplazados por uno mas reciente deben rechazarse
+   */
+  private final boolean rejectSuperseded;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param maximumSize
+   * @param rejectSuperseded
+   */
+  public ActiveTokenRegistry(@Value(JWT_REGISTRY_MAXIMUM_SIZE) long maximumSize,
+      @Value(JWT_REGISTRY_REJECT_SUPERSEDED) boolean rejectSuperseded) {
+    this.maximumSize = maximumSize;
+    this.rejectSuperseded = rejectSuperseded;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Registra el token emitido como el activo del usuario.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param username
+   * @param jti
+   * @param expiration
+   */
+  public void register(String username, String jti, Date expiration) {
+    if (username == null || jti == null || expiration == null) {
+      return;
+    }
+    if (!activeTokens.containsKey(username) && activeTokens.size() >= maximumSize) {
+      sweep();
+      if (activeTokens.size() >= maximumSize) {
+        log.warn("ActiveTokenRegistry.register() - limite alcanzado ({}), usuario no registrado",
+            maximumSize);
+        return;
+      }
+    }
+    activeTokens.put(username, new ActiveToken(jti, expiration.getTime()));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el token fue reemplazado por otro emitido
+   * despues para el mismo usuario. Si el usuario no esta en el registro el token se acepta.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param username
+   * @param jti
+   * @return
+   */
+  public boolean isSuperseded(String username, String jti) {
+    if (!rejectSuperseded || username == null || jti == null) {
+      return false;
+    }
+    ActiveToken active = activeTokens.get(username);
+    if (active == null) {
+      return false;
+    }
+    if (active.isExpired(System.currentTimeMillis())) {
+      activeTokens.remove(username, active);
+      return false;
+    }
+    return !active.getJti().equals(jti);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Elimina el registro del usuario solo si el token
+   * activo es el indicado, para no borrar un token emitido de forma concurrente.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param username
+   * @param jti
+   */
+  public void remove(String username, String jti) {
+    if (username == null) {
+      return;
+    }
+    activeTokens.computeIfPresent(username,
+        (key, active) -> jti == null || active.getJti().equals(jti) ? null : active);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Elimina las entradas cuyo token ya expiro
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Scheduled(fixedDelayString = JWT_REGISTRY_SWEEP_INTERVAL)
+  public void sweep() {
+    long now = System.currentTimeMillis();
+    activeTokens.values().removeIf(active -> active.isExpired(now));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Numero de usuarios registrados
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public int size() {
+    return activeTokens.size();
+  }
+
+  /**
+   * Token activo inmutable
+   */
+  @Getter
+  @RequiredArgsConstructor
+  private static final class ActiveToken {
+    private final String jti;
+    private final long expiresAt;
+
+    boolean isExpired(long now) {
+      return expiresAt <= now;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * Filtro de Bloom concurrente para los jti revocados. Una respuesta negativa es definitiva y se
+ * obtiene sin reservar memoria: los hashes se calculan directamente sobre los caracteres del jti.
+ * Una respuesta positiva debe confirmarse contra el conjunto exacto.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JtiBloomFilter
+ */
+public final class JtiBloomFilter {
+  /**
+   * Semilla FNV-1a de 64 bits
+   */
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  /**
+   * Primo FNV-1a de 64 bits
+   */
+  private static final long FNV_PRIME = 0x100000001b3L;
+  /**
+   * Semilla del segundo hash
+   */
+  private static final long SECOND_SEED = 0x9e3779b97f4a7c15L;
+  /**
+   * Bits del filtro
+   */
+  private final AtomicLongArray bits;
+  /**
+   * Numero de bits
+   */
+  private final long numBits;
+  /**
+   * Numero de funciones hash
+   */
+  private final int numHashes;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Dimensiona el filtro para el numero de elementos y la
+   * tasa de falsos positivos esperados
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param expectedInsertions
+   * @param falsePositiveRate
+   */
+  public JtiBloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1L, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.max(1L, (m + 63) >>> 6);
+    this.bits = new AtomicLongArray(words);
+    this.numBits = (long) words << 6;
+    this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Agrega el jti al filtro
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jti
+   */
+  public void put(String jti) {
+    long h1 = fnv1a(jti);
+    long h2 = secondHash(jti);
+    for (int i = 0; i < numHashes; i++) {
+      long index = Long.remainderUnsigned(h1 + i * h2, numBits);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el jti podria estar en el filtro. Si
+   * retorna false, el jti no fue agregado.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jti
+   * @return
+   */
+  public boolean mightContain(String jti) {
+    long h1 = fnv1a(jti);
+    long h2 = secondHash(jti);
+    for (int i = 0; i < numHashes; i++) {
+      long index = Long.remainderUnsigned(h1 + i * h2, numBits);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Numero de bits del filtro
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public long bitSize() {
+    return numBits;
+  }
+
+  /**
+   * Hash FNV-1a sobre los caracteres
+   */
+  private static long fnv1a(String value) {
+    long hash = FNV_OFFSET;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Segundo hash independiente (polinomial con mezcla final de murmur3), forzado a impar para
+   * recorrer todas las posiciones
+   */
+  private static long secondHash(String value) {
+    long hash = SECOND_SEED;
+    for (int i = 0; i < value.length(); i++) {
+      hash = 31 * hash + value.charAt(i);
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash | 1L;
+  }
+}
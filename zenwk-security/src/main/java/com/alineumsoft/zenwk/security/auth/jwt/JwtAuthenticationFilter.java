@@ -11,7 +11,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
-import com.alineumsoft.zenwk.security.config.util.ConfigUtils;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
 import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
 import com.alineumsoft.zenwk.security.enums.RoleEnum;
 import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
@@ -66,7 +66,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     String username = null;
     try {
       // 1. Enpoints públicos
-      if (ConfigUtils.isPublicEndpoint(request.getRequestURI())) {
+      if (EndpointMatcher.isPublic(request)) {
         filterChain.doFilter(request, response);
         return;
       }
@@ -75,9 +75,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
       if (token == null) {
         return;
       }
-      // 3. Validación de la autenticación
-      username = jwtProvider.extractAllClaims(token).getSubject();
-      if (validateAuthenticate(request, response, token, username)) {
+      // 3. Validación de la autenticación, la firma se verifica una sola vez por
+      // solicitud y los claims quedan disponibles en el request
+      VerifiedJwt jwt = jwtProvider.verifyRequest(request, token);
+      username = jwt.getSubject();
+      if (validateAuthenticate(request, response, jwt)) {
         filterChain.doFilter(request, response);
       }
     } catch (Exception e) {
@@ -123,27 +125,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param request
    * @param response
-   * @param token
+   * @param jwt
    * @return
    * @throws IOException
    */
   public boolean validateAuthenticate(HttpServletRequest request, HttpServletResponse response,
-      String token, String username) throws IOException {
+      VerifiedJwt jwt) throws IOException {
+    String username = jwt.getSubject();
     if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      UserDetails userDetails = jwtProvider.extractUserDetails(token).orElse(null);
+      UserDetails userDetails = jwt.toUserDetails().orElse(null);
 
-      if (userDetails == null || !jwtProvider.validateToken(token, username)) {
+      if (userDetails == null || !jwtProvider.validateToken(jwt, username)
+          || jwtProvider.isRevoked(jwt) || jwtProvider.isSuperseded(jwt)) {
         jwtProvider.sendErrorResponse(username, request, response,
             HttpServletResponse.SC_UNAUTHORIZED, SecurityExceptionEnum.FUNC_AUTH_TOKEN_JWT_INVALID);
         return false;
 
-      } else if (!validateRolUser(token, request)) {
+      } else if (!validateRolUser(jwt, request)) {
         jwtProvider.sendErrorResponse(username, request, response, HttpServletResponse.SC_FORBIDDEN,
             SecurityExceptionEnum.FUNC_AUTH_URI_FORBIDDEN);
         return false;
 
       } else {
-        authenticateUser(userDetails, request);
+        authenticateUser(userDetails, jwt, request);
       }
     }
     return true;
@@ -159,11 +163,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param userDetails
+   * @param jwt
    * @param request
    */
-  private void authenticateUser(UserDetails userDetails, HttpServletRequest request) {
+  private void authenticateUser(UserDetails userDetails, VerifiedJwt jwt,
+      HttpServletRequest request) {
     UsernamePasswordAuthenticationToken authToken =
-        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        new JwtAuthenticationToken(userDetails, userDetails.getAuthorities(), jwt.getRoleSetId());
     setAuthenticationDetails(authToken, request);
     SecurityContextHolder.getContext().setAuthentication(authToken);
   }
@@ -177,19 +183,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
-   * @param token
+   * @param jwt
    * @param request
    * @return
    */
-  public boolean validateRolUser(String token, HttpServletRequest request) {
-    List<String> roles = jwtProvider.extractAuthorities(token);
-    String uri = request.getRequestURI();
+  public boolean validateRolUser(VerifiedJwt jwt, HttpServletRequest request) {
+    List<String> roles = jwt.getRoles();
+    String uri = EndpointMatcher.lookupPath(request);
     // Si el el rol user esta presente se inspeccionan que las uri correpondan a los
     // ids asociados a ese usuario
     if ((roles.contains((RoleEnum.USER.name())) || roles.contains((RoleEnum.NEW_USER.name())))
         && (HttpMethodResourceEnum.USER_CREATE.getResource().equals(uri)
             || HttpMethodResourceEnum.PERSON_CREATE.getResource().equals(uri))) {
-      return jwtProvider.extractUrlsAllowedRolUser(token).contains(uri);
+      return jwt.getUrlsAllowedRolUser().contains(uri);
     }
     return true;
   }
@@ -0,0 +1,44 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import java.util.Collection;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import com.alineumsoft.zenwk.security.config.authorization.RoleSetIds;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Autenticacion de una solicitud con JWT. Ademas de los datos de
+ * {@link UsernamePasswordAuthenticationToken} lleva el id del conjunto de roles
+ * ({@link RoleSetIds}) calculado al verificar el token, con el que se memorizan las decisiones de
+ * autorizacion.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwtAuthenticationToken
+ */
+@Getter
+public class JwtAuthenticationToken extends UsernamePasswordAuthenticationToken {
+  private static final long serialVersionUID = 1L;
+  /**
+   * Id del conjunto de roles del token
+   */
+  private final int roleSetId;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor de una autenticacion ya validada
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param principal
+   * @param authorities
+   * @param roleSetId
+   */
+  public JwtAuthenticationToken(Object principal,
+      Collection<? extends GrantedAuthority> authorities, int roleSetId) {
+    super(principal, null, authorities);
+    this.roleSetId = roleSetId;
+  }
+}
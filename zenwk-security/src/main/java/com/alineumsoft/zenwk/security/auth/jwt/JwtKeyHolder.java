@@ -0,0 +1,338 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_SECRET_KEY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_SECRET_PROPERTY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_SIGNING_PREFIX;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Contenedor de las claves de firma y del parser JWT. Ambos se construyen una sola vez al iniciar y
+ * se comparten entre hilos; el parser de jjwt es inmutable una vez construido. Con HS256 se usa el
+ * secreto compartido; con ES256 se firma con el anillo de claves y se incluye el header
+ * <code>kid</code>, de modo que otros servicios verifican con el JWKS publicado. Cuando el secreto
+ * o las claves cambian, se publica un nuevo material de forma atomica.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwtKeyHolder
+ */
+@Component
+@Slf4j
+public class JwtKeyHolder {
+  /**
+   * Claves y parser vigentes
+   */
+  private final AtomicReference<SigningMaterial> material = new AtomicReference<>();
+  /**
+   * Entorno para releer el secreto y las claves cuando cambia la configuracion
+   */
+  private final Environment environment;
+  /**
+   * Acciones a ejecutar cuando cambia la clave (p.ej. limpiar caches de tokens verificados)
+   */
+  private final List<Runnable> rotationListeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param secretKey
+   * @param environment
+   */
+  public JwtKeyHolder(@Value(JWT_SECRET_KEY) String secretKey, Environment environment) {
+    this.environment = environment;
+    this.material.set(buildMaterial(secretKey, bindSigningProperties(), null));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Clave vigente para firmar los tokens: el secreto
+   * HMAC con HS256 o la clave privada EC con ES256
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public Key getSignInKey() {
+    SigningMaterial current = material.get();
+    return current.isEs256() ? current.getSigningKey().getPrivateKey() : current.getHmacKey();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Secreto HMAC vigente (base64), para derivar otras
+   * claves que deben rotar con el del JWT
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public String getSecretKey() {
+    return material.get().getSecretKey();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Firma el token con la clave vigente. Con ES256 se
+   * agrega el header kid para que el verificador seleccione la clave publica.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param builder
+   * @return
+   */
+  public JwtBuilder sign(JwtBuilder builder) {
+    SigningMaterial current = material.get();
+    if (!current.isEs256()) {
+      return builder.signWith(current.getHmacKey(), SignatureAlgorithm.HS256);
+    }
+    JwtKeyRing.RingKey signingKey = current.getSigningKey();
+    return builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid())
+        .signWith(signingKey.getPrivateKey(), SignatureAlgorithm.ES256);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Parser vigente, configurado con la clave de firma
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public JwtParser getParser() {
+    return material.get().getParser();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Claves publicas vigentes en formato JWK. Con HS256 la
+   * lista es vacia: el secreto compartido no se publica.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public List<Map<String, Object>> getJwks() {
+    SigningMaterial current = material.get();
+    return current.isEs256() ? current.getKeyRing().toJwks(Instant.now())
+        : Collections.emptyList();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Segundos que los clientes pueden cachear el JWKS
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public long getJwksMaxAge() {
+    return material.get().getProperties().getJwksMaxAge();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Reemplaza el secreto HMAC y el parser. Las
+   * solicitudes en curso terminan con el material que ya habian leido.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param secretKey
+   */
+  public void rotate(String secretKey) {
+    SigningMaterial current = material.get();
+    publish(buildMaterial(secretKey, current.getProperties(), current));
+    log.info("JwtKeyHolder.rotate() - clave de firma JWT actualizada");
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Vuelve a cargar el algoritmo y el anillo de claves
+   * desde la configuracion
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  public void reloadSigningKeys() {
+    SigningMaterial current = material.get();
+    publish(buildMaterial(current.getSecretKey(), bindSigningProperties(), current));
+    log.info("JwtKeyHolder.reloadSigningKeys() - anillo de claves JWT actualizado");
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Registra una accion a ejecutar despues de cada
+   * rotacion de la clave
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param listener
+   */
+  public void addRotationListener(Runnable listener) {
+    rotationListeners.add(listener);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Actualiza las claves cuando el servidor de
+   * configuracion notifica el cambio del secreto o del anillo de claves.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param event
+   */
+  @EventListener
+  public void onEnvironmentChange(EnvironmentChangeEvent event) {
+    if (event.getKeys().contains(JWT_SECRET_PROPERTY)) {
+      rotate(environment.getProperty(JWT_SECRET_PROPERTY));
+    }
+    if (event.getKeys().stream().anyMatch(key -> key.startsWith(JWT_SIGNING_PREFIX))) {
+      reloadSigningKeys();
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Publica el nuevo material y notifica a los
+   * interesados
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param next
+   */
+  private void publish(SigningMaterial next) {
+    material.set(next);
+    rotationListeners.forEach(Runnable::run);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Lee la configuracion de firma del entorno
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  private JwtSigningProperties bindSigningProperties() {
+    return Binder.get(environment).bind(JWT_SIGNING_PREFIX, JwtSigningProperties.class)
+        .orElseGet(JwtSigningProperties::new);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Decodifica las claves y construye el parser una sola
+   * vez. El parser selecciona la clave por el algoritmo y el kid del header. Con ES256 sin claves
+   * configuradas se conserva la clave en memoria del material anterior, si tampoco tenia claves,
+   * para que recargar la configuracion no invalide los tokens emitidos.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param secretKey
+   * @param properties
+   * @param previous material vigente, null al iniciar
+   * @return
+   */
+  private static SigningMaterial buildMaterial(String secretKey,
+      JwtSigningProperties properties, SigningMaterial previous) {
+    boolean es256 = SignatureAlgorithm.ES256.getValue().equalsIgnoreCase(properties.getAlgorithm());
+    // JWT requiere una clave binaria para la firma. HMAC con SHA-256.
+    Key hmacKey = !es256 || properties.isAcceptHs256()
+        ? Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey))
+        : null;
+    JwtKeyRing keyRing = null;
+    if (es256) {
+      if (properties.getKeys().isEmpty() && isEphemeral(previous)) {
+        keyRing = previous.getKeyRing();
+      } else if (properties.getKeys().isEmpty()) {
+        log.warn("JwtKeyHolder - ES256 sin claves configuradas, se genera una clave en memoria "
+            + "valida solo para este nodo y hasta su reinicio; no es apta para produccion");
+        keyRing = JwtKeyRing.generate();
+      } else {
+        keyRing = JwtKeyRing.fromProperties(properties.getKeys());
+      }
+    }
+    JwtParser parser =
+        Jwts.parserBuilder().setSigningKeyResolver(new KeyResolver(hmacKey, keyRing)).build();
+    return new SigningMaterial(secretKey, properties, hmacKey, keyRing, parser);
+  }
+
+  /**
+   * Indica si el material usa una clave ES256 generada en memoria
+   */
+  private static boolean isEphemeral(SigningMaterial material) {
+    return material != null && material.isEs256() && material.getProperties().getKeys().isEmpty();
+  }
+
+  /**
+   * Selecciona la clave de verificacion segun el header del token
+   */
+  @RequiredArgsConstructor
+  private static final class KeyResolver extends SigningKeyResolverAdapter {
+    private final Key hmacKey;
+    private final JwtKeyRing keyRing;
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+      String algorithm = header.getAlgorithm();
+      if (SignatureAlgorithm.HS256.getValue().equals(algorithm) && hmacKey != null) {
+        return hmacKey;
+      }
+      if (SignatureAlgorithm.ES256.getValue().equals(algorithm) && keyRing != null) {
+        return keyRing.findVerificationKey(header.getKeyId(), Instant.now()).orElseThrow(
+            () -> new UnsupportedJwtException("kid JWT desconocido: " + header.getKeyId()));
+      }
+      throw new UnsupportedJwtException("Algoritmo JWT no aceptado: " + algorithm);
+    }
+  }
+
+  /**
+   * Material inmutable de firma y verificacion
+   */
+  @Getter
+  @RequiredArgsConstructor
+  private static final class SigningMaterial {
+    private final String secretKey;
+    private final JwtSigningProperties properties;
+    private final Key hmacKey;
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+
+    boolean isEs256() {
+      return keyRing != null;
+    }
+
+    JwtKeyRing.RingKey getSigningKey() {
+      return keyRing.findSigningKey(Instant.now()).orElseThrow(
+          () -> new IllegalStateException("No hay una clave ES256 vigente para firmar"));
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Anillo inmutable de claves EC P-256 para ES256. La clave de firma es la mas reciente cuyo
+ * <code>notBefore</code> ya paso; las demas siguen verificando (y publicandose en el JWKS) hasta su
+ * <code>notAfter</code>, lo que permite rotar con periodos de validez superpuestos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwtKeyRing
+ */
+public final class JwtKeyRing {
+  /**
+   * Tamano en bytes de las coordenadas P-256
+   */
+  private static final int P256_COORDINATE_SIZE = 32;
+  /**
+   * Claves del anillo por kid
+   */
+  private final Map<String, RingKey> keys;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param keys
+   */
+  private JwtKeyRing(Map<String, RingKey> keys) {
+    this.keys = keys;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Construye el anillo decodificando las claves
+   * configuradas. Una clave invalida detiene la carga para no firmar con una configuracion parcial.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param properties
+   * @return
+   */
+  public static JwtKeyRing fromProperties(List<JwtSigningProperties.KeyProperties> properties) {
+    Map<String, RingKey> keys = new LinkedHashMap<>();
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance("EC");
+      for (JwtSigningProperties.KeyProperties key : properties) {
+        if (key.getKid() == null || key.getPublicKey() == null) {
+          throw new IllegalStateException("Clave JWT sin kid o clave publica");
+        }
+        PublicKey publicKey = keyFactory
+            .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(key.getPublicKey())));
+        PrivateKey privateKey = key.getPrivateKey() != null ? keyFactory.generatePrivate(
+            new PKCS8EncodedKeySpec(Base64.getDecoder().decode(key.getPrivateKey()))) : null;
+        keys.put(key.getKid(), new RingKey(key.getKid(), privateKey, (ECPublicKey) publicKey,
+            key.getNotBefore(), key.getNotAfter()));
+      }
+    } catch (GeneralSecurityException | IllegalArgumentException | ClassCastException e) {
+      throw new IllegalStateException("Clave JWT invalida: " + e.getMessage(), e);
+    }
+    return new JwtKeyRing(Map.copyOf(keys));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Anillo con una clave generada en memoria. Solo es
+   * valido para un unico nodo: los demas servicios la obtienen del JWKS, pero otro nodo de este
+   * servicio no podria verificar sus tokens. {@link JwtKeyHolder} la conserva al recargar la
+   * configuracion, pero se pierde al reiniciar, por lo que no es apta para produccion.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public static JwtKeyRing generate() {
+    KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+    String kid = UUID.randomUUID().toString();
+    return new JwtKeyRing(Map.of(kid, new RingKey(kid, keyPair.getPrivate(),
+        (ECPublicKey) keyPair.getPublic(), null, null)));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Clave de firma vigente: la mas reciente con clave
+   * privada, ya iniciada y no vencida
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param now
+   * @return
+   */
+  public Optional<RingKey> findSigningKey(Instant now) {
+    return keys.values().stream()
+        .filter(key -> key.getPrivateKey() != null && key.isActive(now) && key.isValid(now))
+        .max(Comparator.comparing(key -> key.getNotBefore() != null ? key.getNotBefore()
+            : Instant.EPOCH));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Clave publica para verificar el kid indicado
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param kid
+   * @param now
+   * @return
+   */
+  public Optional<Key> findVerificationKey(String kid, Instant now) {
+    if (kid == null) {
+      return Optional.empty();
+    }
+    RingKey key = keys.get(kid);
+    return key != null && key.isValid(now) ? Optional.of(key.getPublicKey()) : Optional.empty();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Claves publicas vigentes en formato JWK (RFC 7517),
+   * incluidas las que aun no firman
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param now
+   * @return
+   */
+  public List<Map<String, Object>> toJwks(Instant now) {
+    return keys.values().stream().filter(key -> key.isValid(now))
+        .sorted(Comparator.comparing(RingKey::getKid)).map(JwtKeyRing::toJwk).toList();
+  }
+
+  /**
+   * Convierte la clave publica EC al formato JWK
+   */
+  private static Map<String, Object> toJwk(RingKey key) {
+    Map<String, Object> jwk = new LinkedHashMap<>();
+    jwk.put("kty", "EC");
+    jwk.put("crv", "P-256");
+    jwk.put("kid", key.getKid());
+    jwk.put("use", "sig");
+    jwk.put("alg", SignatureAlgorithm.ES256.getValue());
+    jwk.put("x", toBase64Url(key.getPublicKey().getW().getAffineX()));
+    jwk.put("y", toBase64Url(key.getPublicKey().getW().getAffineY()));
+    return jwk;
+  }
+
+  /**
+   * Coordenada sin signo de 32 bytes en base64url sin relleno
+   */
+  private static String toBase64Url(BigInteger coordinate) {
+    byte[] bytes = coordinate.toByteArray();
+    byte[] fixed = new byte[P256_COORDINATE_SIZE];
+    int length = Math.min(bytes.length, P256_COORDINATE_SIZE);
+    System.arraycopy(bytes, bytes.length - length, fixed, P256_COORDINATE_SIZE - length, length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(fixed);
+  }
+
+  /**
+   * Clave inmutable del anillo
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  public static final class RingKey {
+    private final String kid;
+    private final PrivateKey privateKey;
+    private final ECPublicKey publicKey;
+    private final Instant notBefore;
+    private final Instant notAfter;
+
+    boolean isActive(Instant now) {
+      return notBefore == null || !notBefore.isAfter(now);
+    }
+
+    boolean isValid(Instant now) {
+      return notAfter == null || notAfter.isAfter(now);
+    }
+  }
+}
@@ -3,29 +3,29 @@ package com.alineumsoft.zenwk.security.auth.jwt;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUTHORIZATION_BEARER;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.HEADER_AUTHORIZATION;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.INDEX_TOKEN;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_CLAIMS_LOADED_AT;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_CLAIMS_PROFILE;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_EXPIRATION_TIME;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ID_PERSON;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ID_USER;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_PERMISSION_VERSION;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ROLE_IDS;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ROLES;
-import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_SECRET_KEY;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_URLS_ALLOWED_ROL_USER;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_USER_EMAIL;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_USER_STATE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.REQUEST_VERIFIED_JWT;
 import java.io.IOException;
-import java.security.Key;
 import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.UUID;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
@@ -36,17 +36,15 @@ import com.alineumsoft.zenwk.security.common.exception.dto.ErrorResponseDTO;
 import com.alineumsoft.zenwk.security.common.exception.enums.CoreExceptionEnum;
 import com.alineumsoft.zenwk.security.common.helper.ApiRestSecurityHelper;
 import com.alineumsoft.zenwk.security.common.util.LocalDateTimeUtil;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContext;
 import com.alineumsoft.zenwk.security.entity.LogSecurity;
 import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
 import com.alineumsoft.zenwk.security.enums.UserStateEnum;
 import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -71,20 +69,40 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * Enum para error general
    */
   private static final CoreExceptionEnum generalError = CoreExceptionEnum.FUNC_COMMON_ERROR_GENERAL;
+  /**
+   * Perfil de claims compacto
+   */
+  private static final String JWT_PROFILE_COMPACT = "compact";
   /**
    * Tiempo de expiracion del token
    */
   @Value(JWT_EXPIRATION_TIME)
   private Long expirationTime;
   /**
-   * Clave secreta
+   * Perfil de claims del token: full | compact
+   */
+  @Value(JWT_CLAIMS_PROFILE)
+  private String claimsProfile;
+  /**
+   * Clave de firma y parser compartidos
+   */
+  private final JwtKeyHolder keyHolder;
+  /**
+   * Cache de tokens ya verificados
+   */
+  private final VerifiedJwtCache verifiedJwtCache;
+  /**
+   * Token activo por usuario
+   */
+  private final ActiveTokenRegistry activeTokenRegistry;
+  /**
+   * Lista de tokens revocados
    */
-  @Value(JWT_SECRET_KEY)
-  private String secretKey;
+  private final TokenRevocationService tokenRevocationService;
   /**
-   * Cache en memoria para los token
+   * Snapshot de permisos para los tokens compactos
    */
-  private Map<String, String> cacheToken = new HashMap<>();
+  private final PermissionSnapshotHolder permissionSnapshotHolder;
 
   /**
    * 
@@ -94,9 +112,22 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * 
    * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
    * @param logSecRepo
+   * @param keyHolder
+   * @param verifiedJwtCache
+   * @param activeTokenRegistry
+   * @param tokenRevocationService
+   * @param permissionSnapshotHolder
    */
-  public JwtProvider(LogSecurityRepository logSecRepo) {
+  public JwtProvider(LogSecurityRepository logSecRepo, JwtKeyHolder keyHolder,
+      VerifiedJwtCache verifiedJwtCache, ActiveTokenRegistry activeTokenRegistry,
+      TokenRevocationService tokenRevocationService,
+      PermissionSnapshotHolder permissionSnapshotHolder) {
     this.logSecRepo = logSecRepo;
+    this.keyHolder = keyHolder;
+    this.verifiedJwtCache = verifiedJwtCache;
+    this.activeTokenRegistry = activeTokenRegistry;
+    this.tokenRevocationService = tokenRevocationService;
+    this.permissionSnapshotHolder = permissionSnapshotHolder;
   }
 
   /**
@@ -114,67 +145,219 @@ public class JwtProvider extends ApiRestSecurityHelper {
    */
   public String generateToken(UserDetails userDetails, List<String> listAllowedUrlsForUserRole,
       Long idUser, UserStateEnum userState, String email) {
+    return generateToken(userDetails, listAllowedUrlsForUserRole, idUser, null, userState, email);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Generación del token. Con el perfil compact los roles
+   * y urls se reemplazan por los ids de rol y la version del snapshot de permisos; si algun rol aun
+   * no esta en el snapshot se emite el token completo.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param userDetails
+   * @param listAllowedUrlsForUserRole
+   * @param idUser
+   * @param idPerson
+   * @param userState
+   * @param email
+   * @return
+   */
+  public String generateToken(UserDetails userDetails, List<String> listAllowedUrlsForUserRole,
+      Long idUser, Long idPerson, UserStateEnum userState, String email) {
+    return buildToken(userDetails, listAllowedUrlsForUserRole, idUser, idPerson, userState, email,
+        new Date());
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Emite un nuevo token con los roles, urls y datos del
+   * usuario del token actual, sin consultar la base de datos. Se conserva la fecha de carga de los
+   * claims para que su antiguedad no se renueve con cada refresh.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param userDetails
+   * @param jwt
+   * @return
+   */
+  public String reissueToken(UserDetails userDetails, VerifiedJwt jwt) {
+    return buildToken(userDetails, jwt.getUrlsAllowedRolUser(), jwt.getIdUser(), jwt.getIdPerson(),
+        jwt.getUserState(), jwt.getEmail(), jwt.getClaimsLoadedAt());
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Construye y firma el token. Se incluye la version del
+   * snapshot de permisos y la fecha de carga de los claims para decidir en el refresh si los
+   * roles y urls siguen vigentes.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param userDetails
+   * @param listAllowedUrlsForUserRole
+   * @param idUser
+   * @param idPerson
+   * @param userState
+   * @param email
+   * @param claimsLoadedAt
+   * @return
+   */
+  private String buildToken(UserDetails userDetails, List<String> listAllowedUrlsForUserRole,
+      Long idUser, Long idPerson, UserStateEnum userState, String email, Date claimsLoadedAt) {
     // Se agrega valor extra al calim, para agregar roles
     Map<String, Object> extraClaim = new HashMap<>();
     List<String> listRoles =
         userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
-    // Roles del usuario
-    extraClaim.put(JWT_ROLES, listRoles);
-    // Se agregan los permisos por operacion
-    extraClaim.put(JWT_URLS_ALLOWED_ROL_USER, listAllowedUrlsForUserRole);
+    PermissionSnapshot snapshot = permissionSnapshotHolder.getCurrent();
+    Optional<List<Long>> roleIds =
+        isCompactProfile() ? snapshot.findRoleIds(listRoles) : Optional.empty();
+    if (roleIds.isPresent()) {
+      // Los roles y urls se resuelven desde el snapshot al verificar el token
+      extraClaim.put(JWT_ROLE_IDS, roleIds.get());
+    } else {
+      // Roles del usuario
+      extraClaim.put(JWT_ROLES, listRoles);
+      // Se agregan los permisos por operacion
+      extraClaim.put(JWT_URLS_ALLOWED_ROL_USER, listAllowedUrlsForUserRole);
+    }
+    // Version de permisos con la que se emitio el token (antes de la primera carga no hay version)
+    if (snapshot.size() > 0) {
+      extraClaim.put(JWT_PERMISSION_VERSION, Long.toHexString(snapshot.getVersion()));
+    }
+    if (claimsLoadedAt != null) {
+      extraClaim.put(JWT_CLAIMS_LOADED_AT, claimsLoadedAt.getTime());
+    }
     // Se almacena el id del usuario
     extraClaim.put(JWT_ID_USER, idUser);
+    // Id de la persona, necesario para resolver las urls {id} de persona
+    if (idPerson != null) {
+      extraClaim.put(JWT_ID_PERSON, idPerson);
+    }
     // estado del usuario
     extraClaim.put(JWT_USER_STATE, userState);
     // Email del usuario
     extraClaim.put(JWT_USER_EMAIL, email);
 
+    // Identificador unico del token
+    String jti = UUID.randomUUID().toString();
+    Date expiration = getDateExpiration();
     // Generacion del token.
-    String token = Jwts.builder().setClaims(new HashMap<>()).addClaims(extraClaim)
-        .setSubject(userDetails.getUsername()).setIssuedAt(new Date(System.currentTimeMillis()))
-        .setExpiration(getDateExpiration())
-        // La firma evita que el token pueda ser modificado sin ser detectado.
-        .signWith(getSignInKey(), SignatureAlgorithm.HS256).compact();
-    // Se actualiza cache.
-    cacheToken.put(userDetails.getUsername(), token);
+    JwtBuilder builder = Jwts.builder().setClaims(new HashMap<>()).addClaims(extraClaim)
+        .setId(jti).setSubject(userDetails.getUsername())
+        .setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(expiration);
+    // La firma evita que el token pueda ser modificado sin ser detectado.
+    String token = keyHolder.sign(builder).compact();
+    // El token emitido pasa a ser el activo del usuario.
+    activeTokenRegistry.register(userDetails.getUsername(), jti, expiration);
     return token;
   }
 
   /**
    * <p>
-   * <b> CU001_Seguridad_Creacion_Usuario </b> Se encarga de generar una clave secreta (Key) para
-   * firmar y validar los tokens JWT.
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Extracción del claims a partir de dl token jwt
    * </p>
-   * Garantiza:
-   * <li>La clave para firmar los JWT esté en el formato correcto.</li>
-   * <li>Se use un algoritmo seguro (HMAC SHA-256 o superior).</li>
-   * <li>El mismo secreto se use para firmar y validar tokens.</li>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
    * @return
    */
-  private Key getSignInKey() {
-    // JWT requiere una clave binaria para la firma.
-    byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-    // Crea una instancia de Key utilizando HMAC con SHA (normalmente SHA-256).
-    return Keys.hmacShaKeyFor(keyBytes);
+  public Claims extractAllClaims(String token) {
+    // Si el token es invalido, expirado o alterado, lanzará una excepcion
+    // (JwtException u otra relacionada). El parser se comparte entre solicitudes.
+    return keyHolder.getParser()
+        // Parsea y valida el token
+        .parseClaimsJws(token).getBody();
   }
 
   /**
    * <p>
-   * <b> CU001_Seguridad_Creacion_Usuario </b> Extracción del claims a partir de dl token jwt
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Verifica la firma del token una sola vez y retorna
+   * sus claims tipados. Si la cache esta habilitada, un token ya verificado se resuelve por su
+   * digest sin repetir la verificacion.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param token
    * @return
    */
-  public Claims extractAllClaims(String token) {
-    // Si el token es invalido, expirado o alterado, lanzará una excepcion
-    // (JwtException u otra relacionada)
-    return Jwts.parserBuilder().setSigningKey(getSignInKey()).build()
-        // Parsea y valida el token
-        .parseClaimsJws(token).getBody();
+  public VerifiedJwt verify(String token) {
+    return verifiedJwtCache.get(token,
+        t -> resolvePermissions(VerifiedJwt.from(t, extractAllClaims(t))));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Para un token compacto, resuelve los roles y urls
+   * desde el snapshot de la version con la que fue emitido. Si esa version ya no se conserva se usa
+   * el snapshot vigente.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   * @return
+   */
+  private VerifiedJwt resolvePermissions(VerifiedJwt jwt) {
+    if (!jwt.isCompact()) {
+      return jwt;
+    }
+    PermissionSnapshot snapshot = permissionSnapshotHolder.find(jwt.getPermissionVersion())
+        .orElseGet(permissionSnapshotHolder::getCurrent);
+    return jwt.withPermissions(snapshot.getRoleNames(jwt.getRoleIds()),
+        snapshot.getAllowedUrls(jwt.getRoleIds(), jwt.getIdUser(), jwt.getIdPerson()));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si los tokens se emiten con el perfil compact
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  private boolean isCompactProfile() {
+    return JWT_PROFILE_COMPACT.equalsIgnoreCase(claimsProfile);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Verifica el token y lo deja disponible en el request
+   * para los filtros y servicios posteriores. Si el request ya contiene el mismo token verificado,
+   * no se vuelve a verificar la firma.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @param token
+   * @return
+   */
+  public VerifiedJwt verifyRequest(HttpServletRequest request, String token) {
+    Object current = request.getAttribute(REQUEST_VERIFIED_JWT);
+    if (current instanceof VerifiedJwt verified && verified.getToken().equals(token)) {
+      return verified;
+    }
+    VerifiedJwt verified = verify(token);
+    request.setAttribute(REQUEST_VERIFIED_JWT, verified);
+    return verified;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Obtiene el token verificado del request. Si ningun
+   * filtro lo verifico (p.ej. endpoints publicos), se verifica la cookie en este punto.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public Optional<VerifiedJwt> resolveVerifiedJwt(HttpServletRequest request) {
+    Object current = request.getAttribute(REQUEST_VERIFIED_JWT);
+    if (current instanceof VerifiedJwt verified) {
+      return Optional.of(verified);
+    }
+    return extractJwtFromCookie(request).map(token -> verifyRequest(request, token));
   }
 
   /**
@@ -191,16 +374,55 @@ public class JwtProvider extends ApiRestSecurityHelper {
    */
   public boolean validateToken(String token, String username) {
     try {
-      final Claims claim = extractAllClaims(token);
-      String tokenUsername = claim.getSubject();
-      Date tokenExpired = claim.getExpiration();
-      return username.equals(tokenUsername) && !tokenExpired.before(new Date());
+      return validateToken(verify(token), username);
     } catch (JwtException | IllegalArgumentException e) {
       log.error(CommonMessageConstants.LOG_MSG_EXCEPTION, e.getMessage());
       return false;
     }
   }
 
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Valida un token ya verificado comparando el usuario
+   * y la expiracion, sin volver a verificar la firma.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   * @param username
+   * @return
+   */
+  public boolean validateToken(VerifiedJwt jwt, String username) {
+    return username.equals(jwt.getSubject()) && !jwt.isExpired(new Date());
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el token fue reemplazado por uno emitido
+   * despues para el mismo usuario, sin consultar la base de datos.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   * @return
+   */
+  public boolean isSuperseded(VerifiedJwt jwt) {
+    return activeTokenRegistry.isSuperseded(jwt.getSubject(), jwt.getId());
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el token fue revocado por logout o refresh
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   * @return
+   */
+  public boolean isRevoked(VerifiedJwt jwt) {
+    return tokenRevocationService.isRevoked(jwt.getId());
+  }
+
   /**
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Invalida el token de un usuario removiéndolo del
@@ -213,17 +435,30 @@ public class JwtProvider extends ApiRestSecurityHelper {
    */
   public void invalidateToken(String token) {
     try {
-      Claims claims = extractAllClaims(token);
-      String username = claims.getSubject();
-      if (username != null) {
-        cacheToken.remove(username);
-        log.info("Token invalidado para el usuario: {}", username);
-      }
+      invalidateToken(verify(token));
     } catch (JwtException | IllegalArgumentException e) {
       log.warn("Intento de invalidación de un token inválido: {}", e.getMessage());
     }
   }
 
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Invalida un token ya verificado en la solicitud
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   */
+  public void invalidateToken(VerifiedJwt jwt) {
+    tokenRevocationService.revoke(jwt);
+    verifiedJwtCache.invalidate(jwt.getToken());
+    String username = jwt.getSubject();
+    if (username != null) {
+      activeTokenRegistry.remove(username, jwt.getId());
+      log.info("Token invalidado para el usuario: {}", username);
+    }
+  }
+
   /**
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Una hora de expiració para el token
@@ -247,18 +482,8 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @param token
    * @return
    */
-  @SuppressWarnings("unchecked")
   public Optional<UserDetails> extractUserDetails(String token) {
-    Claims claims = extractAllClaims(token);
-    String username = claims.getSubject();
-    List<String> roles = (List<String>) claims.get(JWT_ROLES);
-
-    if (username != null && roles != null) {
-      Collection<GrantedAuthority> authorities =
-          roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
-      return Optional.of(new User(username, "", authorities));
-    }
-    return Optional.empty();
+    return verify(token).toUserDetails();
   }
 
   /**
@@ -270,11 +495,8 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @param token
    * @return
    */
-  @SuppressWarnings("unchecked")
   public List<String> extractAuthorities(String token) {
-    Claims claims = extractAllClaims(token);
-    List<String> roles = (List<String>) claims.get(JWT_ROLES);
-    return roles != null ? roles : Collections.emptyList();
+    return verify(token).getRoles();
   }
 
   /**
@@ -287,11 +509,8 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @param token
    * @return
    */
-  @SuppressWarnings("unchecked")
   public List<String> extractUrlsAllowedRolUser(String token) {
-    Claims claims = extractAllClaims(token);
-    List<String> urlsAllowed = (List<String>) claims.get(JWT_URLS_ALLOWED_ROL_USER);
-    return urlsAllowed != null ? urlsAllowed : Collections.emptyList();
+    return verify(token).getUrlsAllowedRolUser();
   }
 
   /**
@@ -317,7 +536,7 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * 
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Extrae el token JWT desde la cookie httpOnly desde la
-   * solicitud
+   * solicitud. Las cookies se leen una sola vez en el {@link RequestSecurityContext}.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -325,16 +544,10 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @return
    */
   public Optional<String> extractJwtFromCookie(HttpServletRequest request) {
-    if (request.getCookies() != null) {
-      for (Cookie cookie : request.getCookies()) {
-        if (AuthConfigConstants.ZENWK_JWT.equals(cookie.getName())) {
-          return Optional.of(cookie.getValue());
-        }
-      }
-    }
-    return Optional.empty();
+    return Optional.ofNullable(RequestSecurityContext.from(request).getJwt());
   }
 
+
   /**
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Escribe el mensaje de error en el objeto reponse
@@ -437,8 +650,7 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @return
    */
   public Long extractIdUser(String token) {
-    Claims claims = extractAllClaims(token);
-    return Long.parseLong(claims.get(JWT_ID_USER).toString());
+    return verify(token).getIdUser();
   }
 
   /**
@@ -451,9 +663,7 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @return
    */
   public UserStateEnum extractUserState(String token) {
-    Claims claims = extractAllClaims(token);
-    return UserStateEnum.valueOf(claims.get(JWT_USER_STATE).toString());
-
+    return verify(token).getUserState();
   }
 
 
@@ -467,9 +677,7 @@ public class JwtProvider extends ApiRestSecurityHelper {
    * @return
    */
   public String extractUserEmail(String token) {
-    Claims claims = extractAllClaims(token);
-    return claims.get(JWT_USER_EMAIL).toString();
-
+    return verify(token).getEmail();
   }
 
 }
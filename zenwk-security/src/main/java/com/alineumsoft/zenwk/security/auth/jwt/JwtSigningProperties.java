@@ -0,0 +1,69 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * <p>
+ * Configuracion de firma de los JWT (<code>security.jwt.signing</code>). Con HS256 se usa el
+ * secreto compartido <code>security.jwt.secret</code>; con ES256 se firma con el anillo de claves
+ * configurado y las claves publicas se publican en <code>/.well-known/jwks.json</code>.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwtSigningProperties
+ */
+@Getter
+@Setter
+public class JwtSigningProperties {
+  /**
+   * Algoritmo de firma: HS256 (compatibilidad) | ES256
+   */
+  private String algorithm = "HS256";
+  /**
+   * Con ES256, acepta los tokens HS256 emitidos antes del cambio de algoritmo
+   */
+  private boolean acceptHs256 = true;
+  /**
+   * Segundos que los clientes pueden cachear el JWKS
+   */
+  private long jwksMaxAge = 300;
+  /**
+   * Anillo de claves EC P-256
+   */
+  private List<KeyProperties> keys = new ArrayList<>();
+
+  /**
+   * Clave del anillo. Una clave sin privada solo verifica; una clave con <code>notBefore</code>
+   * futuro se publica antes de usarse para firmar, y una con <code>notAfter</code> se sigue
+   * publicando hasta esa fecha para los tokens ya emitidos.
+   */
+  @Getter
+  @Setter
+  public static class KeyProperties {
+    /**
+     * Identificador de la clave (header kid)
+     */
+    private String kid;
+    /**
+     * Clave privada PKCS#8 en base64
+     */
+    private String privateKey;
+    /**
+     * Clave publica X.509 en base64
+     */
+    private String publicKey;
+    /**
+     * Inicio de uso para firmar
+     */
+    private Instant notBefore;
+    /**
+     * Fin de la validez para verificar
+     */
+    private Instant notAfter;
+  }
+}
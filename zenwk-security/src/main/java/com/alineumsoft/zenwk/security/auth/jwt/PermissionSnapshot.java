@@ -0,0 +1,209 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.enums.RoleEnum;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Snapshot inmutable de roles y recursos permitidos por rol. La version es un hash del contenido,
+ * por lo que dos nodos con los mismos datos calculan la misma version y un token compacto emitido
+ * en un nodo se resuelve igual en cualquier otro.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class PermissionSnapshot
+ */
+public final class PermissionSnapshot {
+  /**
+   * Snapshot sin datos, usado antes de la primera carga
+   */
+  public static final PermissionSnapshot EMPTY = new PermissionSnapshot(Collections.emptyList());
+  /**
+   * Semilla FNV-1a de 64 bits
+   */
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  /**
+   * Primo FNV-1a de 64 bits
+   */
+  private static final long FNV_PRIME = 0x100000001b3L;
+  /**
+   * Version del snapshot
+   */
+  @Getter
+  private final long version;
+  /**
+   * Id del rol -> nombre
+   */
+  private final Map<Long, String> roleNames;
+  /**
+   * Nombre del rol -> id
+   */
+  private final Map<String, Long> roleIds;
+  /**
+   * Id del rol -> recursos permitidos
+   */
+  private final Map<Long, List<String>> resources;
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Construye el snapshot a partir de las filas (id del
+   * rol, nombre del rol, recurso). El recurso es null para los roles sin permisos.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param rows
+   */
+  public PermissionSnapshot(List<Object[]> rows) {
+    // Orden estable para que la version no dependa del orden de la consulta
+    Map<Long, String> names = new TreeMap<>();
+    Map<Long, Set<String>> resourcesByRole = new TreeMap<>();
+    for (Object[] row : rows) {
+      Long roleId = ((Number) row[0]).longValue();
+      names.put(roleId, (String) row[1]);
+      Set<String> roleResources = resourcesByRole.computeIfAbsent(roleId, k -> new TreeSet<>());
+      if (row[2] != null) {
+        roleResources.add((String) row[2]);
+      }
+    }
+    Map<String, Long> ids = new HashMap<>();
+    Map<Long, List<String>> resourcesCopy = new HashMap<>();
+    long hash = FNV_OFFSET;
+    for (Map.Entry<Long, String> role : names.entrySet()) {
+      ids.put(role.getValue(), role.getKey());
+      resourcesCopy.put(role.getKey(), List.copyOf(resourcesByRole.get(role.getKey())));
+      hash = fnv1a(hash, role.getKey() + ":" + role.getValue());
+      for (String resource : resourcesByRole.get(role.getKey())) {
+        hash = fnv1a(hash, resource);
+      }
+    }
+    this.version = hash;
+    this.roleNames = Collections.unmodifiableMap(new HashMap<>(names));
+    this.roleIds = Collections.unmodifiableMap(ids);
+    this.resources = Collections.unmodifiableMap(resourcesCopy);
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Ids de los roles indicados. Si algun rol no existe en
+   * el snapshot retorna un Optional vacio.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param names
+   * @return
+   */
+  public Optional<List<Long>> findRoleIds(Collection<String> names) {
+    List<Long> ids = new ArrayList<>(names.size());
+    for (String name : names) {
+      Long id = roleIds.get(name);
+      if (id == null) {
+        return Optional.empty();
+      }
+      ids.add(id);
+    }
+    return Optional.of(ids);
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Nombres de los roles indicados. Los ids que ya no
+   * existen se ignoran.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param ids
+   * @return
+   */
+  public List<String> getRoleNames(List<Long> ids) {
+    return ids.stream().map(roleNames::get).filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Urls permitidas para los roles indicados. Para los
+   * roles USER y NEW_USER el parametro {id} se reemplaza con el id del usuario o de la persona,
+   * como en <code>PermissionService.listAllowedUrlsForUserRole</code>.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param ids
+   * @param idUser
+   * @param idPerson
+   * @return
+   */
+  public List<String> getAllowedUrls(List<Long> ids, Long idUser, Long idPerson) {
+    Set<String> urls = new LinkedHashSet<>();
+    ids.forEach(id -> urls.addAll(resources.getOrDefault(id, Collections.emptyList())));
+    List<String> names = getRoleNames(ids);
+    if (!names.contains(RoleEnum.USER.name()) && !names.contains(RoleEnum.NEW_USER.name())) {
+      return List.copyOf(urls);
+    }
+    return urls.stream()
+        .map(url -> url.contains(AuthConfigConstants.ID) ? expandUrl(url, idUser, idPerson) : url)
+        .filter(Objects::nonNull).toList();
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Reemplaza el parametro {id} de la url con el id del
+   * usuario o de la persona segun el recurso. Retorna null si no hay id para el recurso.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param url
+   * @param idUser
+   * @param idPerson
+   * @return
+   */
+  public static String expandUrl(String url, Long idUser, Long idPerson) {
+    String updateUrl = null;
+    if (url.contains(AuthConfigConstants.URL_USER) && idUser != null) {
+      updateUrl = url.replace(AuthConfigConstants.ID, idUser.toString());
+    }
+    if (url.contains(AuthConfigConstants.URL_PERSON) && url.contains(AuthConfigConstants.ID)
+        && idPerson != null) {
+      updateUrl = url.replace(AuthConfigConstants.ID, idPerson.toString());
+    }
+    return updateUrl;
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Numero de roles del snapshot
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public int size() {
+    return roleNames.size();
+  }
+
+  /**
+   * Hash FNV-1a acumulado sobre los bytes del valor
+   */
+  private static long fnv1a(long hash, String value) {
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    // Separador para que "ab" + "c" y "a" + "bc" no colisionen
+    hash ^= 0xff;
+    return hash * FNV_PRIME;
+  }
+}
@@ -0,0 +1,142 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_PERMISSION_SNAPSHOT_HISTORY_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_PERMISSION_SNAPSHOT_REFRESH_INTERVAL;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Mantiene el snapshot de permisos vigente y las ultimas versiones, para resolver los tokens
+ * compactos por la version con la que fueron emitidos. El snapshot se recarga periodicamente y
+ * cuando se publica un {@link PermissionChangedEvent}; las lecturas no toman bloqueos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class PermissionSnapshotHolder
+ */
+@Component
+@Slf4j
+public class PermissionSnapshotHolder {
+  /**
+   * Repositorio para la consulta de roles y recursos
+   */
+  private final RolePermissionRepository rolePermRepo;
+  /**
+   * Snapshot vigente
+   */
+  private final AtomicReference<PermissionSnapshot> current =
+      new AtomicReference<>(PermissionSnapshot.EMPTY);
+  /**
+   * Versiones cargadas (copia inmutable que se reemplaza en cada recarga)
+   */
+  private final AtomicReference<Map<Long, PermissionSnapshot>> history =
+      new AtomicReference<>(Collections.emptyMap());
+  /**
+   * Numero de versiones que se conservan
+   */
+  private final int historySize;
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param rolePermRepo
+   * @param historySize
+   */
+  public PermissionSnapshotHolder(RolePermissionRepository rolePermRepo,
+      @Value(JWT_PERMISSION_SNAPSHOT_HISTORY_SIZE) int historySize) {
+    this.rolePermRepo = rolePermRepo;
+    this.historySize = Math.max(1, historySize);
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Recarga el snapshot desde la base de datos. Si la
+   * version no cambio se conserva el snapshot actual; si cambio, se agrega al historial descartando
+   * la version mas antigua.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Scheduled(fixedDelayString = JWT_PERMISSION_SNAPSHOT_REFRESH_INTERVAL)
+  public synchronized void refresh() {
+    try {
+      PermissionSnapshot loaded = new PermissionSnapshot(rolePermRepo.findAllRoleResources());
+      if (loaded.getVersion() != current.get().getVersion()) {
+        Map<Long, PermissionSnapshot> versions = new LinkedHashMap<>(history.get());
+        versions.remove(loaded.getVersion());
+        versions.put(loaded.getVersion(), loaded);
+        Iterator<Long> oldest = versions.keySet().iterator();
+        while (versions.size() > historySize) {
+          oldest.next();
+          oldest.remove();
+        }
+        history.set(Collections.unmodifiableMap(versions));
+        current.set(loaded);
+        log.info("PermissionSnapshotHolder.refresh() - version {} con {} roles",
+            Long.toHexString(loaded.getVersion()), loaded.size());
+      }
+    } catch (DataAccessException e) {
+      log.warn("PermissionSnapshotHolder.refresh() - no fue posible cargar los permisos: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Recarga el snapshot cuando cambian los permisos
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param event
+   */
+  @EventListener
+  public void onPermissionChanged(PermissionChangedEvent event) {
+    refresh();
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Snapshot vigente
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public PermissionSnapshot getCurrent() {
+    return current.get();
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Snapshot de la version indicada, si aun se conserva
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param version
+   * @return
+   */
+  public Optional<PermissionSnapshot> find(long version) {
+    PermissionSnapshot snapshot = current.get();
+    if (snapshot.getVersion() == version) {
+      return Optional.of(snapshot);
+    }
+    return Optional.ofNullable(history.get().get(version));
+  }
+}
@@ -0,0 +1,125 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REFRESH_MAX_CLAIMS_AGE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REFRESH_METRIC_NAME;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.auth.event.UserRolesChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * <p>
+ * Decide si el refresh del JWT puede reutilizar los roles y urls del token sin consultar la base
+ * de datos. Se reutilizan cuando la version del snapshot de permisos del token es la vigente, los
+ * roles del usuario no cambiaron despues de cargarlos y su carga no supera la antiguedad maxima.
+ * La antiguedad maxima acota el tiempo en que otro nodo desconoce un cambio de roles del usuario.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RefreshClaimsPolicy
+ */
+@Component
+public class RefreshClaimsPolicy {
+  /**
+   * Snapshot de permisos vigente
+   */
+  private final PermissionSnapshotHolder permissionSnapshotHolder;
+  /**
+   * Antiguedad maxima en milisegundos de los roles y urls del token
+   */
+  private final long maxClaimsAge;
+  /**
+   * Id del usuario -> fecha del ultimo cambio de roles. Pasada la antiguedad maxima el cambio ya
+   * no es necesario: ningun token con claims anteriores se reutiliza.
+   */
+  private final Cache<Long, Date> roleChanges;
+  /**
+   * Refresh resueltos con los claims del token
+   */
+  private final Counter tokenRefreshes;
+  /**
+   * Refresh resueltos con la base de datos
+   */
+  private final Counter databaseRefreshes;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param permissionSnapshotHolder
+   * @param maxClaimsAge
+   * @param meterRegistry
+   */
+  public RefreshClaimsPolicy(PermissionSnapshotHolder permissionSnapshotHolder,
+      @Value(JWT_REFRESH_MAX_CLAIMS_AGE) long maxClaimsAge, MeterRegistry meterRegistry) {
+    this.permissionSnapshotHolder = permissionSnapshotHolder;
+    this.maxClaimsAge = maxClaimsAge;
+    this.roleChanges = Caffeine.newBuilder()
+        .expireAfterWrite(Math.max(1, maxClaimsAge), TimeUnit.MILLISECONDS).build();
+    this.tokenRefreshes = Counter.builder(JWT_REFRESH_METRIC_NAME).tag("source", "token")
+        .description("Refresh de JWT sin consulta a la base de datos").register(meterRegistry);
+    this.databaseRefreshes = Counter.builder(JWT_REFRESH_METRIC_NAME).tag("source", "database")
+        .description("Refresh de JWT con consulta a la base de datos").register(meterRegistry);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si los roles y urls del token siguen vigentes.
+   * Un token sin persona asociada siempre se recarga: la persona pudo crearse despues de emitirlo,
+   * lo que cambia el estado, el rol y las urls del usuario.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   * @return
+   */
+  public boolean canReuseClaims(VerifiedJwt jwt) {
+    Date loadedAt = jwt.getClaimsLoadedAt();
+    if (loadedAt == null || jwt.getPermissionVersion() == null || jwt.getIdPerson() == null
+        || System.currentTimeMillis() - loadedAt.getTime() > maxClaimsAge) {
+      return false;
+    }
+    PermissionSnapshot current = permissionSnapshotHolder.getCurrent();
+    if (current.size() == 0 || current.getVersion() != jwt.getPermissionVersion()) {
+      return false;
+    }
+    Date changedAt = roleChanges.getIfPresent(jwt.getIdUser());
+    return changedAt == null || changedAt.before(loadedAt);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Registra el origen de los claims de un refresh
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param fromToken
+   */
+  public void recordRefresh(boolean fromToken) {
+    (fromToken ? tokenRefreshes : databaseRefreshes).increment();
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Registra el cambio de roles del usuario
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param event
+   */
+  @EventListener
+  public void onUserRolesChanged(UserRolesChangedEvent event) {
+    if (event.getIdUser() != null) {
+      roleChanges.put(event.getIdUser(), new Date());
+    }
+  }
+}
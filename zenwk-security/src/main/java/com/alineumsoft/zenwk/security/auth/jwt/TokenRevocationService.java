@@ -0,0 +1,226 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REVOCATION_EXPECTED_INSERTIONS;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REVOCATION_FALSE_POSITIVE_RATE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REVOCATION_SWEEP_INTERVAL;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_REVOCATION_SYNC_INTERVAL;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.auth.entity.RevokedToken;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Lista de tokens revocados por jti. Cada solicitud consulta primero un filtro de Bloom en memoria;
+ * solo si este responde que el jti podria estar revocado se consulta el conjunto exacto. La tabla
+ * <code>sec_revoked_token</code> da durabilidad y comparte las revocaciones entre nodos mediante una
+ * sincronizacion periodica.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class TokenRevocationService
+ */
+@Component
+@Slf4j
+public class TokenRevocationService {
+  /**
+   * Margen para no perder revocaciones de otros nodos por diferencias de reloj
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 5;
+  /**
+   * Fecha inicial de sincronizacion (carga completa)
+   */
+  private static final LocalDateTime SYNC_FROM_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+  /**
+   * Repositorio de tokens revocados
+   */
+  private final RevokedTokenRepository revokedTokenRepo;
+  /**
+   * jti revocado -> expiracion del token en milisegundos
+   */
+  private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+  /**
+   * Filtro de Bloom vigente
+   */
+  private final AtomicReference<JtiBloomFilter> bloomFilter = new AtomicReference<>();
+  /**
+   * Elementos esperados del filtro
+   */
+  private final long expectedInsertions;
+  /**
+   * Tasa de falsos positivos del filtro
+   */
+  private final double falsePositiveRate;
+  /**
+   * Ultima sincronizacion con la base de datos
+   */
+  private volatile LocalDateTime lastSync = SYNC_FROM_START;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param revokedTokenRepo
+   * @param expectedInsertions
+   * @param falsePositiveRate
+   */
+  public TokenRevocationService(RevokedTokenRepository revokedTokenRepo,
+      @Value(JWT_REVOCATION_EXPECTED_INSERTIONS) long expectedInsertions,
+      @Value(JWT_REVOCATION_FALSE_POSITIVE_RATE) double falsePositiveRate) {
+    this.revokedTokenRepo = revokedTokenRepo;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveRate = falsePositiveRate;
+    this.bloomFilter.set(new JtiBloomFilter(expectedInsertions, falsePositiveRate));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Revoca el token hasta su expiracion. Los tokens sin
+   * jti (emitidos antes de incluir el claim) no se pueden revocar y expiran normalmente.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jwt
+   */
+  public void revoke(VerifiedJwt jwt) {
+    if (jwt.getId() == null || jwt.getExpiration() == null) {
+      log.warn("TokenRevocationService.revoke() - token sin jti, no se puede revocar: {}",
+          jwt.getSubject());
+      return;
+    }
+    if (addLocal(jwt.getId(), jwt.getExpiration().getTime())) {
+      try {
+        revokedTokenRepo.save(new RevokedToken(jwt.getId(), jwt.getSubject(),
+            LocalDateTime.ofInstant(jwt.getExpiration().toInstant(), ZoneId.systemDefault())));
+      } catch (DataIntegrityViolationException e) {
+        // Otro nodo ya registro la revocacion del mismo token
+        log.debug("TokenRevocationService.revoke() - jti ya registrado: {}", jwt.getId());
+      }
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el jti esta revocado. Cuando el filtro de
+   * Bloom responde que no, la consulta no reserva memoria.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jti
+   * @return
+   */
+  public boolean isRevoked(String jti) {
+    if (jti == null || !bloomFilter.get().mightContain(jti)) {
+      return false;
+    }
+    return revoked.containsKey(jti);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Elimina los jti cuyo token ya expiro y reconstruye el
+   * filtro de Bloom, que no admite eliminaciones.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Scheduled(fixedDelayString = JWT_REVOCATION_SWEEP_INTERVAL)
+  public synchronized void sweep() {
+    long now = System.currentTimeMillis();
+    revoked.values().removeIf(expiration -> expiration <= now);
+    rebuildBloomFilter();
+    try {
+      int deleted = revokedTokenRepo.deleteExpired(LocalDateTime.now());
+      log.debug("TokenRevocationService.sweep() - revocaciones expiradas eliminadas: {}", deleted);
+    } catch (DataAccessException e) {
+      log.warn("TokenRevocationService.sweep() - no fue posible depurar la tabla: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Carga las revocaciones registradas por este u otros
+   * nodos desde la ultima sincronizacion. La primera ejecucion carga todas las vigentes.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Scheduled(fixedDelayString = JWT_REVOCATION_SYNC_INTERVAL)
+  public void sync() {
+    LocalDateTime startedAt = LocalDateTime.now();
+    try {
+      List<RevokedToken> tokens = revokedTokenRepo.findByCreationDateAfterAndExpirationDateAfter(
+          lastSync.minusSeconds(SYNC_OVERLAP_SECONDS), startedAt);
+      for (RevokedToken token : tokens) {
+        addLocal(token.getJti(),
+            token.getExpirationDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+      }
+      lastSync = startedAt;
+    } catch (DataAccessException e) {
+      log.warn("TokenRevocationService.sync() - no fue posible sincronizar: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Numero de jti revocados en memoria
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public int size() {
+    return revoked.size();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Agrega el jti al conjunto exacto y luego al filtro.
+   * El orden garantiza que una reconstruccion concurrente del filtro no lo pierda.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jti
+   * @param expiration
+   * @return true si el jti no estaba revocado
+   */
+  private boolean addLocal(String jti, long expiration) {
+    if (expiration <= System.currentTimeMillis()) {
+      return false;
+    }
+    boolean added = revoked.putIfAbsent(jti, expiration) == null;
+    bloomFilter.get().put(jti);
+    return added;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Reconstruye el filtro con los jti vigentes. El filtro
+   * nuevo se publica y luego se vuelve a recorrer el conjunto, asi los jti agregados durante la
+   * reconstruccion quedan en el filtro nuevo.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  private void rebuildBloomFilter() {
+    long capacity = Math.max(expectedInsertions, revoked.size() * 2L);
+    JtiBloomFilter rebuilt = new JtiBloomFilter(capacity, falsePositiveRate);
+    revoked.keySet().forEach(rebuilt::put);
+    bloomFilter.set(rebuilt);
+    revoked.keySet().forEach(rebuilt::put);
+  }
+}
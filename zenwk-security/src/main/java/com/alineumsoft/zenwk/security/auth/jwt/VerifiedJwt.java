@@ -0,0 +1,211 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_CLAIMS_LOADED_AT;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ID_PERSON;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ID_USER;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_PERMISSION_VERSION;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ROLE_IDS;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ROLES;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_URLS_ALLOWED_ROL_USER;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_USER_EMAIL;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_USER_STATE;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import com.alineumsoft.zenwk.security.config.authorization.RoleSetIds;
+import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import io.jsonwebtoken.Claims;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Claims de un JWT cuya firma ya fue verificada. Se construye una sola vez por solicitud y se
+ * comparte entre los filtros y servicios mediante un atributo del request, evitando volver a
+ * parsear y verificar la cookie.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class VerifiedJwt
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class VerifiedJwt {
+  /**
+   * Token original
+   */
+  private final String token;
+  /**
+   * Identificador unico del token (jti)
+   */
+  private final String id;
+  /**
+   * Usuario (subject)
+   */
+  private final String subject;
+  /**
+   * Roles del usuario
+   */
+  private final List<String> roles;
+  /**
+   * Urls permitidas para el rol user
+   */
+  private final List<String> urlsAllowedRolUser;
+  /**
+   * Id del usuario
+   */
+  private final Long idUser;
+  /**
+   * Id de la persona asociada al usuario
+   */
+  private final Long idPerson;
+  /**
+   * Ids de los roles (perfil compact)
+   */
+  private final List<Long> roleIds;
+  /**
+   * Indica si el token trae el claim rid, es decir, si se emitio con el perfil compact
+   */
+  private final boolean compact;
+  /**
+   * Version del snapshot de permisos con la que se emitio el token
+   */
+  private final Long permissionVersion;
+  /**
+   * Fecha en que los roles y urls se cargaron desde la base de datos
+   */
+  private final Date claimsLoadedAt;
+  /**
+   * Estado del usuario
+   */
+  private final UserStateEnum userState;
+  /**
+   * Email del usuario
+   */
+  private final String email;
+  /**
+   * Fecha de emision
+   */
+  private final Date issuedAt;
+  /**
+   * Fecha de expiracion
+   */
+  private final Date expiration;
+  /**
+   * Id del conjunto de roles ({@link RoleSetIds}), calculado una sola vez por token verificado
+   */
+  private final int roleSetId;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Construye el contexto a partir de los claims ya
+   * verificados.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   * @param claims
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  public static VerifiedJwt from(String token, Claims claims) {
+    List<String> roles = (List<String>) claims.get(JWT_ROLES);
+    List<String> urls = (List<String>) claims.get(JWT_URLS_ALLOWED_ROL_USER);
+    List<String> roleNames = roles != null ? List.copyOf(roles) : Collections.emptyList();
+    List<Number> roleIds = (List<Number>) claims.get(JWT_ROLE_IDS);
+    Object version = claims.get(JWT_PERMISSION_VERSION);
+    Long claimsLoadedAt = toLong(claims.get(JWT_CLAIMS_LOADED_AT));
+    Object userState = claims.get(JWT_USER_STATE);
+    Object email = claims.get(JWT_USER_EMAIL);
+    return new VerifiedJwt(token, claims.getId(), claims.getSubject(), roleNames,
+        urls != null ? List.copyOf(urls) : Collections.emptyList(),
+        toLong(claims.get(JWT_ID_USER)), toLong(claims.get(JWT_ID_PERSON)),
+        roleIds != null ? roleIds.stream().map(Number::longValue).toList()
+            : Collections.emptyList(),
+        roleIds != null,
+        version != null ? Long.parseUnsignedLong(version.toString(), 16) : null,
+        claimsLoadedAt != null ? new Date(claimsLoadedAt) : null,
+        userState != null ? UserStateEnum.valueOf(userState.toString()) : null,
+        email != null ? email.toString() : null, claims.getIssuedAt(), claims.getExpiration(),
+        RoleSetIds.of(roleNames));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el token fue emitido con el perfil compact,
+   * es decir, con el claim rid en lugar de roles y urls. No se deduce de la version de permisos ni
+   * de los roles vacios: un token full de un usuario sin roles tambien trae la version.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public boolean isCompact() {
+    return compact;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Copia del token con los roles y urls resueltos desde
+   * el snapshot de permisos
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param resolvedRoles
+   * @param resolvedUrls
+   * @return
+   */
+  public VerifiedJwt withPermissions(List<String> resolvedRoles, List<String> resolvedUrls) {
+    List<String> roleNames = List.copyOf(resolvedRoles);
+    return new VerifiedJwt(token, id, subject, roleNames, List.copyOf(resolvedUrls), idUser,
+        idPerson, roleIds, compact, permissionVersion, claimsLoadedAt, userState, email, issuedAt,
+        expiration, RoleSetIds.of(roleNames));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Construye el UserDetails a partir de los roles del
+   * token, si no un Optional vacio
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public Optional<UserDetails> toUserDetails() {
+    if (subject == null) {
+      return Optional.empty();
+    }
+    Collection<GrantedAuthority> authorities =
+        roles.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+    return Optional.of(new User(subject, "", authorities));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si el token ya expiro respecto a la fecha dada
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param now
+   * @return
+   */
+  public boolean isExpired(Date now) {
+    return expiration == null || expiration.before(now);
+  }
+
+  /**
+   * Convierte un claim numerico a Long
+   */
+  private static Long toLong(Object value) {
+    return value != null ? Long.valueOf(value.toString()) : null;
+  }
+}
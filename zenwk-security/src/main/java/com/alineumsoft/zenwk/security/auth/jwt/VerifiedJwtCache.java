@@ -0,0 +1,182 @@
+package com.alineumsoft.zenwk.security.auth.jwt;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_CACHE_ENABLED;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_CACHE_MAXIMUM_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_CACHE_METRIC_NAME;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Cache acotada de tokens JWT ya verificados. La llave es el digest SHA-256 del token, de modo que
+ * el token en claro no queda retenido en memoria. Cada entrada expira como maximo en el
+ * <code>exp</code> del token y se elimina al invalidar el token.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class VerifiedJwtCache
+ */
+@Component
+@Slf4j
+public class VerifiedJwtCache {
+  /**
+   * Algoritmo del digest
+   */
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+  /**
+   * Digest por hilo, MessageDigest no es thread-safe
+   */
+  private static final ThreadLocal<MessageDigest> DIGEST =
+      ThreadLocal.withInitial(VerifiedJwtCache::newDigest);
+  /**
+   * Indica si la cache esta habilitada
+   */
+  private final boolean enabled;
+  /**
+   * Cache digest -> token verificado
+   */
+  private final Cache<String, VerifiedJwt> cache;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param enabled
+   * @param maximumSize
+   * @param keyHolder
+   * @param meterRegistry
+   */
+  public VerifiedJwtCache(@Value(JWT_CACHE_ENABLED) boolean enabled,
+      @Value(JWT_CACHE_MAXIMUM_SIZE) long maximumSize, JwtKeyHolder keyHolder,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder().maximumSize(maximumSize).expireAfter(new UntilTokenExpiry())
+        .recordStats().build();
+    if (enabled) {
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, JWT_CACHE_METRIC_NAME);
+      // Un token verificado con la clave anterior no debe seguir siendo aceptado
+      keyHolder.addRotationListener(cache::invalidateAll);
+    }
+    log.info("VerifiedJwtCache - habilitada: {}, tamano maximo: {}", enabled, maximumSize);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Retorna el token verificado desde la cache o lo
+   * verifica con la funcion dada. Si la verificacion falla no se almacena nada.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   * @param verifier
+   * @return
+   */
+  public VerifiedJwt get(String token, Function<String, VerifiedJwt> verifier) {
+    if (!enabled) {
+      return verifier.apply(token);
+    }
+    return cache.get(digest(token), key -> verifier.apply(token));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Elimina el token de la cache, se invoca al
+   * invalidarlo para que la siguiente solicitud vuelva a pasar por la verificacion.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   */
+  public void invalidate(String token) {
+    if (enabled && token != null) {
+      cache.invalidate(digest(token));
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Numero aproximado de entradas en la cache
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Digest del token en Base64
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   * @return
+   */
+  private static String digest(String token) {
+    MessageDigest md = DIGEST.get();
+    md.reset();
+    return Base64.getEncoder()
+        .encodeToString(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Instancia del digest
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Expiracion de cada entrada limitada al exp del token
+   */
+  private static final class UntilTokenExpiry implements Expiry<String, VerifiedJwt> {
+
+    @Override
+    public long expireAfterCreate(String key, VerifiedJwt value, long currentTime) {
+      if (value.getExpiration() == null) {
+        return 0L;
+      }
+      long millis = value.getExpiration().getTime() - System.currentTimeMillis();
+      return millis > 0 ? TimeUnit.MILLISECONDS.toNanos(millis) : 0L;
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, VerifiedJwt value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(String key, VerifiedJwt value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
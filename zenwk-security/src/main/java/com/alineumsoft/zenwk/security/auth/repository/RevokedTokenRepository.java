@@ -0,0 +1,49 @@
+package com.alineumsoft.zenwk.security.auth.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.alineumsoft.zenwk.security.auth.entity.RevokedToken;
+
+/**
+ * <p>
+ * Repositorio de los tokens JWT revocados.
+ * </p>
+ * 
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RevokedTokenRepository
+ */
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Tokens revocados aun vigentes, registrados despues de
+   * la fecha dada. Se usa para la carga inicial y la sincronizacion entre nodos.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param creationDate
+   * @param now
+   * @return
+   */
+  public List<RevokedToken> findByCreationDateAfterAndExpirationDateAfter(
+      LocalDateTime creationDate, LocalDateTime now);
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Elimina los tokens revocados que ya expiraron
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param now
+   * @return
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM RevokedToken rt WHERE rt.expirationDate < :now")
+  public int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -14,16 +14,21 @@ import com.alineumsoft.zenwk.security.auth.dto.AuthResponseDTO;
 import com.alineumsoft.zenwk.security.auth.dto.ResetPasswordDTO;
 import com.alineumsoft.zenwk.security.auth.entity.Token;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.RefreshClaimsPolicy;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.auth.repository.TokenRepository;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
+import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
 import com.alineumsoft.zenwk.security.common.helper.ApiRestSecurityHelper;
+import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
 import com.alineumsoft.zenwk.security.common.util.CryptoUtil;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContext;
 import com.alineumsoft.zenwk.security.entity.LogSecurity;
 import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
 import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
-import com.alineumsoft.zenwk.security.enums.UserStateEnum;
 import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 import com.alineumsoft.zenwk.security.user.dto.UserDTO;
 import com.alineumsoft.zenwk.security.user.entity.User;
@@ -79,6 +84,14 @@ public class AuthService extends ApiRestSecurityHelper {
    * Servicio para gestión del token
    */
   private final TokenRepository tokenRepository;
+  /**
+   * Politica de reutilizacion de los claims en el refresh del jwt
+   */
+  private final RefreshClaimsPolicy refreshClaimsPolicy;
+  /**
+   * Servicio común para la gestión del token csrf
+   */
+  private final CsrfTokenCommonService csrfTokenCommonService;
 
   /**
    * 
@@ -107,12 +120,12 @@ public class AuthService extends ApiRestSecurityHelper {
       User user = userService.findByUsername(username);
       List<String> roles = permissionService.listAllowedUrlsForUserRole(username);
       // Se genera el token con los permisos
-      outDTO.setToken(jwtProvider.generateToken(userDetails, roles, user.getId(), user.getState(),
-          user.getEmail()));
+      Long idPerson = user.getPerson() != null ? user.getPerson().getId() : null;
+      outDTO.setToken(jwtProvider.generateToken(userDetails, roles, user.getId(), idPerson,
+          user.getState(), user.getEmail()));
       outDTO.setUserId(user.getId());
 
-      setLogSecuritySuccesfull(HttpStatus.OK.value(), logSec);
-      logSecRepo.save(logSec);
+      saveSuccessLog(HttpStatus.OK.value(), logSec, logSecRepo);
       log.info(" - [api/auth/login] - AuthService.authenticate() - [Succes]");
       return outDTO;
     } catch (RuntimeException e) {
@@ -135,10 +148,10 @@ public class AuthService extends ApiRestSecurityHelper {
         CommonMessageConstants.NOT_APPLICABLE_BODY, CommonMessageConstants.NOT_APPLICABLE_BODY,
         SecurityActionEnum.AUTH_LOGOUT.getCode());
     try {
-      String token = jwtProvider.extractJwtFromCookie(request).orElseThrow();
-      jwtProvider.invalidateToken(token);
-      setLogSecuritySuccesfull(HttpStatus.OK.value(), logSec);
-      logSecRepo.save(logSec);
+      VerifiedJwt jwt = jwtProvider.resolveVerifiedJwt(request).orElseThrow();
+      jwtProvider.invalidateToken(jwt);
+      revokeCsrfToken(request, jwt);
+      saveSuccessLog(HttpStatus.OK.value(), logSec, logSecRepo);
     } catch (RuntimeException e) {
       log.error(CommonMessageConstants.LOG_MSG_EXCEPTION, e);
       setLogSecurityError(e, logSec);
@@ -146,6 +159,26 @@ public class AuthService extends ApiRestSecurityHelper {
     }
   }
 
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Cierre_Sesion </b> Revoca el token csrf guardado de la sesion. Los tokens
+   * firmados quedan invalidos con la revocacion del jti del jwt.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @param jwt
+   */
+  private void revokeCsrfToken(HttpServletRequest request, VerifiedJwt jwt) {
+    String code = RequestSecurityContext.from(request).getCsrfToken();
+    if (code != null && !code.startsWith(StatelessCsrfTokenService.TOKEN_PREFIX)) {
+      TokenDTO dto = new TokenDTO();
+      dto.setEmail(jwt.getEmail());
+      dto.setCode(code);
+      csrfTokenCommonService.revokeCsrfToken(dto);
+    }
+  }
+
   /**
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Recupera el mensaje del error
@@ -198,8 +231,7 @@ public class AuthService extends ApiRestSecurityHelper {
       // Se invoca el api que actualiza el usuario
       boolean isUpdateUser = userService.updateUser(request, user.getId(), userDTO, null, null);
 
-      setLogSecuritySuccesfull(HttpStatus.OK.value(), logSecurity);
-      logSecRepo.save(logSecurity);
+      saveSuccessLog(HttpStatus.OK.value(), logSecurity, logSecRepo);
 
       return isUpdateUser;
     } catch (RuntimeException e) {
@@ -296,20 +328,28 @@ public class AuthService extends ApiRestSecurityHelper {
 
     try {
       AuthResponseDTO outDTO = new AuthResponseDTO();
-      String token = jwtProvider.extractJwtFromCookie(request).orElseThrow();
-      Long idUser = jwtProvider.extractIdUser(token);
-      String email = jwtProvider.extractUserEmail(token);
-      UserStateEnum state = jwtProvider.extractUserState(token);
-      List<String> roles = permissionService.listAllowedUrlsForUserRole(username);
+      VerifiedJwt jwt = jwtProvider.resolveVerifiedJwt(request).orElseThrow();
+      Long idUser = jwt.getIdUser();
+      boolean reuseClaims = refreshClaimsPolicy.canReuseClaims(jwt);
+      List<String> roles = null;
+      Long idPerson = jwt.getIdPerson();
+      if (!reuseClaims) {
+        roles = permissionService.listAllowedUrlsForUserRole(username);
+        // La persona puede haberse creado despues de emitir el token
+        idPerson = idPerson != null ? idPerson : findIdPerson(username);
+      }
 
       // Si invalida token jwt actual cuando se emite uno nuevo.
-      jwtProvider.invalidateToken(token);
+      jwtProvider.invalidateToken(jwt);
 
-      outDTO.setToken(jwtProvider.generateToken(userDetails, roles, idUser, state, email));
+      // Si los permisos no cambiaron desde que se cargaron se reutilizan los claims del token
+      outDTO.setToken(reuseClaims ? jwtProvider.reissueToken(userDetails, jwt)
+          : jwtProvider.generateToken(userDetails, roles, idUser, idPerson, jwt.getUserState(),
+              jwt.getEmail()));
       outDTO.setUserId(idUser);
+      refreshClaimsPolicy.recordRefresh(reuseClaims);
 
-      setLogSecuritySuccesfull(HttpStatus.OK.value(), logSec);
-      logSecRepo.save(logSec);
+      saveSuccessLog(HttpStatus.OK.value(), logSec, logSecRepo);
       // Se retorna el nuevo jwt
       return outDTO;
     } catch (RuntimeException e) {
@@ -319,4 +359,18 @@ public class AuthService extends ApiRestSecurityHelper {
     }
   }
 
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Consulta el id de la persona asociada al usuario
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param username
+   * @return
+   */
+  private Long findIdPerson(String username) {
+    User user = userService.findByUsername(username);
+    return user != null && user.getPerson() != null ? user.getPerson().getId() : null;
+  }
+
 }
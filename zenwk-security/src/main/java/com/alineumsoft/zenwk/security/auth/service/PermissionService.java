@@ -7,6 +7,7 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -17,6 +18,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import com.alineumsoft.zenwk.security.auth.dto.PagePermissionDTO;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshot;
 import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
 import com.alineumsoft.zenwk.security.common.enums.PermissionOperationEnum;
@@ -76,6 +79,10 @@ public class PermissionService extends ApiRestSecurityHelper {
    * PermissionRepository
    */
   private final PermissionRepository permissionRepo;
+  /**
+   * Publicador de eventos
+   */
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * <p>
@@ -87,13 +94,16 @@ public class PermissionService extends ApiRestSecurityHelper {
    * @param userService
    * @param logSecRepo
    * @param permissionRepo
+   * @param eventPublisher
    */
   public PermissionService(RolePermissionRepository rolePermRepo, @Lazy UserService userService,
-      LogSecurityRepository logSecRepo, PermissionRepository permissionRepo) {
+      LogSecurityRepository logSecRepo, PermissionRepository permissionRepo,
+      ApplicationEventPublisher eventPublisher) {
     this.rolePermRepo = rolePermRepo;
     this.userService = userService;
     this.logSecRepo = logSecRepo;
     this.permissionRepo = permissionRepo;
+    this.eventPublisher = eventPublisher;
   }
 
   /**
@@ -157,15 +167,8 @@ public class PermissionService extends ApiRestSecurityHelper {
    * @return
    */
   private String generatedUrlFromId(User user, String url) {
-    String updateUrl = null;
-    if (url.contains(AuthConfigConstants.URL_USER) && user.getId() != null) {
-      updateUrl = url.replace(AuthConfigConstants.ID, user.getId().toString());
-    }
-    if (url.contains(AuthConfigConstants.URL_PERSON) && url.contains(AuthConfigConstants.ID)
-        && user.getPerson() != null && user.getPerson().getId() != null) {
-      updateUrl = url.replace(AuthConfigConstants.ID, user.getPerson().getId().toString());
-    }
-    return updateUrl;
+    Long idPerson = user.getPerson() != null ? user.getPerson().getId() : null;
+    return PermissionSnapshot.expandUrl(url, user.getId(), idPerson);
   }
 
   /**
@@ -248,6 +251,7 @@ public class PermissionService extends ApiRestSecurityHelper {
         permissionTarget.setModificationDate(LocalDateTime.now());
         permissionTarget.setModificationUser(username);
         permissionRepo.save(permissionTarget);
+        eventPublisher.publishEvent(new PermissionChangedEvent(this));
         saveSuccessLog(HttpStatus.NO_CONTENT.value(), logSec, logSecRepo);
       }
     } catch (RuntimeException e) {
@@ -275,6 +279,7 @@ public class PermissionService extends ApiRestSecurityHelper {
       // Si el permiso ya esta asignado a un rol no se puede elminar, primero se debe
       // desasignar.
       permissionRepo.delete(findPermissionById(id));
+      eventPublisher.publishEvent(new PermissionChangedEvent(this));
       saveSuccessLog(HttpStatus.NO_CONTENT.value(), logSec, logSecRepo);
     } catch (RuntimeException e) {
       setLogSecurityError(e, logSec);
@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -15,6 +16,8 @@ import com.alineumsoft.zenwk.security.auth.dto.PagePermissionRolesDTO;
 import com.alineumsoft.zenwk.security.auth.dto.PageRoleDTO;
 import com.alineumsoft.zenwk.security.auth.dto.PageRolePermissionsDTO;
 import com.alineumsoft.zenwk.security.auth.dto.RoleUserDTO;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
+import com.alineumsoft.zenwk.security.auth.event.UserRolesChangedEvent;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
@@ -73,6 +76,10 @@ public class RoleAssignmentService extends ApiRestSecurityHelper {
    * Repositorio utilizado para el log
    */
   private final LogSecurityRepository logSecRepo;
+  /**
+   * Publicador de eventos
+   */
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * <p>
@@ -92,7 +99,9 @@ public class RoleAssignmentService extends ApiRestSecurityHelper {
       Role role = roleService.findRoleByName(dto.getNameRole());
       dto.setIdRole(role.getId());
       deleteRolNewUser(dto.getIdUser());
-      return rolUserRepo.save(convertToEntityRoleUser(dto));
+      RoleUser roleUser = rolUserRepo.save(convertToEntityRoleUser(dto));
+      eventPublisher.publishEvent(new UserRolesChangedEvent(this, dto.getIdUser()));
+      return roleUser;
     } catch (RuntimeException e) {
       log.info(CommonMessageConstants.LOG_MSG_EXCEPTION, e);
       LogSecurity logSec = initializeLog(request, dto.getUsername(), notFound, notFound, notFound);
@@ -148,6 +157,7 @@ public class RoleAssignmentService extends ApiRestSecurityHelper {
       User user = new User();
       user.setId(idUser);
       rolUserRepo.deleteByUser(user);
+      eventPublisher.publishEvent(new UserRolesChangedEvent(this, idUser));
       return true;
     } catch (RuntimeException e) {
       throw new EntityNotFoundException(e.getMessage());
@@ -238,6 +248,7 @@ public class RoleAssignmentService extends ApiRestSecurityHelper {
         assignmentPermission =
             new RolePermission(null, role, permission, LocalDateTime.now(), username);
         rolPermissionRepo.save(assignmentPermission);
+        eventPublisher.publishEvent(new PermissionChangedEvent(this));
       } else {
         throw new EntityExistsException(SecurityExceptionEnum.FUNC_ROLE_ASSIGNMENT_PERMISSION_EXISTS
             .getCodeMessage(assignmentPermission.getPermission().getName(),
@@ -275,6 +286,7 @@ public class RoleAssignmentService extends ApiRestSecurityHelper {
           getAssignmentPermissionToRol(role, permission).orElse(null);
       if (assignmentPermission != null) {
         rolPermissionRepo.delete(assignmentPermission);
+        eventPublisher.publishEvent(new PermissionChangedEvent(this));
       } else {
         throw new EntityExistsException(
             SecurityExceptionEnum.FUNC_ROLE_ASSIGNMENT_PERMISSION_NOT_EXISTS
@@ -2,6 +2,7 @@ package com.alineumsoft.zenwk.security.auth.service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -12,6 +13,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import com.alineumsoft.zenwk.security.auth.dto.PageRoleDTO;
 import com.alineumsoft.zenwk.security.auth.dto.RoleDTO;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
 import com.alineumsoft.zenwk.security.common.exception.enums.CoreExceptionEnum;
@@ -55,6 +57,10 @@ public class RoleService extends ApiRestSecurityHelper {
    * Repositorio utilizado para el log
    */
   private final LogSecurityRepository logSecRepo;
+  /**
+   * Publicador de eventos
+   */
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * <p>
@@ -80,6 +86,7 @@ public class RoleService extends ApiRestSecurityHelper {
       role.setCreationUser(username);
       role.setCreationDate(LocalDateTime.now());
       role = roleRepository.save(role);
+      eventPublisher.publishEvent(new PermissionChangedEvent(this));
       saveSuccessLog(HttpStatus.OK.value(), logSec, logSecRepo);
       return role.getId();
     } catch (RuntimeException e) {
@@ -112,6 +119,7 @@ public class RoleService extends ApiRestSecurityHelper {
         roleTarget.setModificationUser(username);
         roleTarget.setModificationDate(LocalDateTime.now());
         roleRepository.save(roleTarget);
+        eventPublisher.publishEvent(new PermissionChangedEvent(this));
       }
       saveSuccessLog(HttpStatus.NO_CONTENT.value(), logSec, logSecRepo);
     } catch (RuntimeException e) {
@@ -208,6 +216,7 @@ public class RoleService extends ApiRestSecurityHelper {
     try {
       Role role = findRoleById(roleId);
       roleRepository.delete(role);
+      eventPublisher.publishEvent(new PermissionChangedEvent(this));
       saveSuccessLog(HttpStatus.NO_CONTENT.value(), logSec, logSecRepo);
     } catch (RuntimeException e) {
       setLogSecurityError(e, logSec);
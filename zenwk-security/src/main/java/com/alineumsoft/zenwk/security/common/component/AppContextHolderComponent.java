@@ -41,4 +41,18 @@ public class AppContextHolderComponent implements ApplicationContextAware {
   public static <T> T getBean(Class<T> clazz) {
     return context.getBean(clazz);
   }
+
+  /**
+   * <p>
+   * <b> General: </b> Obtiene el bean o null si no hay contexto o el bean no esta registrado
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param <T>
+   * @param clazz
+   * @return
+   */
+  public static <T> T getBeanIfAvailable(Class<T> clazz) {
+    return context != null ? context.getBeanProvider(clazz).getIfAvailable() : null;
+  }
 }
@@ -0,0 +1,26 @@
+package com.alineumsoft.zenwk.security.common.component;
+
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+
+/**
+ * <p>
+ * Destino de los logs de error de las excepciones de negocio. La implementacion no debe bloquear
+ * ni lanzar excepciones en el hilo de la solicitud.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditLogSink
+ */
+public interface AuditLogSink {
+
+  /**
+   * <p>
+   * <b> General </b> Recibe el log de error para persistirlo fuera del hilo de la solicitud
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSec
+   */
+  void submit(LogSecurity logSec);
+}
@@ -0,0 +1,414 @@
+package com.alineumsoft.zenwk.security.common.component;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_ASYNC_ENABLED;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_BATCH_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_BLOCK_TIMEOUT;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_FLUSH_INTERVAL;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_METRIC_NAME;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_OVERFLOW_POLICY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_QUEUE_CAPACITY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SAMPLE_RATE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SHUTDOWN_TIMEOUT;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.common.enums.AuditOverflowPolicyEnum;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Escritor asincrono de <code>log_sec</code>. Las solicitudes encolan una copia del log en una
+ * cola acotada sin bloqueos y un unico hilo la inserta por lotes JDBC al completar
+ * <code>batch-size</code> o cada <code>flush-interval</code>. Cuando la cola esta llena se aplica
+ * la {@link AuditOverflowPolicyEnum} configurada. Al detener la aplicacion se vacia la cola; los
+ * logs que llegan despues, o con el escritor deshabilitado, se guardan en linea con el
+ * repositorio.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditLogWriter
+ */
+@Component
+@Slf4j
+public class AuditLogWriter implements SmartLifecycle {
+  /**
+   * Insercion de un log, la llave se genera en la base de datos. Tambien la usa
+   * {@link SegmentAuditLogSink}
+   */
+  static final String INSERT_SQL = "INSERT INTO log_sec (logsecusemethod,"
+      + " logsecusestatuscode, logsecuseurl, logsecuserequest, logsecuseresponse,"
+      + " logsecuseerrormessage, logsecusecreationdate, logsecuseusercreation,"
+      + " logsecuseipaddress, logsecuseuseragent, logsecuseexecutiontime, logsecuseservicename)"
+      + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  /**
+   * Espera del productor entre intentos con la politica block
+   */
+  private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+  /**
+   * Nombre del hilo escritor
+   */
+  private static final String THREAD_NAME = "audit-log-writer";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final LogSecurityRepository logSecRepo;
+  private final boolean enabled;
+  private final int capacity;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final AuditOverflowPolicyEnum overflowPolicy;
+  private final long blockTimeoutNanos;
+  private final int sampleRate;
+  private final long shutdownTimeout;
+  /**
+   * Cola de logs pendientes; su tamano se lleva en depth porque size() recorre la cola
+   */
+  private final Queue<AuditRow> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger depth = new AtomicInteger();
+  /**
+   * Logs exitosos vistos sobre el umbral de muestreo
+   */
+  private final AtomicLong sampled = new AtomicLong();
+  private final Counter written;
+  private final Counter droppedOverflow;
+  private final Counter droppedSampled;
+  private final Counter droppedError;
+  private final Counter inline;
+  private volatile boolean running;
+  private volatile Thread writer;
+
+  /**
+   * <p>
+   * <b> General </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param jdbcTemplate
+   * @param logSecRepo
+   * @param meterRegistry
+   * @param enabled
+   * @param capacity
+   * @param batchSize
+   * @param flushInterval
+   * @param overflowPolicy
+   * @param blockTimeout
+   * @param sampleRate
+   * @param shutdownTimeout
+   */
+  public AuditLogWriter(JdbcTemplate jdbcTemplate, LogSecurityRepository logSecRepo,
+      MeterRegistry meterRegistry, @Value(AUDIT_ASYNC_ENABLED) boolean enabled,
+      @Value(AUDIT_QUEUE_CAPACITY) int capacity, @Value(AUDIT_BATCH_SIZE) int batchSize,
+      @Value(AUDIT_FLUSH_INTERVAL) long flushInterval,
+      @Value(AUDIT_OVERFLOW_POLICY) String overflowPolicy,
+      @Value(AUDIT_BLOCK_TIMEOUT) long blockTimeout, @Value(AUDIT_SAMPLE_RATE) int sampleRate,
+      @Value(AUDIT_SHUTDOWN_TIMEOUT) long shutdownTimeout) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.logSecRepo = logSecRepo;
+    this.enabled = enabled;
+    this.capacity = Math.max(1, capacity);
+    this.batchSize = Math.max(1, Math.min(batchSize, this.capacity));
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+    this.overflowPolicy = AuditOverflowPolicyEnum.from(overflowPolicy);
+    this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeout);
+    this.sampleRate = Math.max(1, sampleRate);
+    this.shutdownTimeout = shutdownTimeout;
+    Gauge.builder(AUDIT_METRIC_NAME + ".queue", depth, AtomicInteger::get)
+        .description("Logs de auditoria pendientes de escritura").register(meterRegistry);
+    this.written = Counter.builder(AUDIT_METRIC_NAME + ".written")
+        .description("Logs de auditoria insertados por el escritor").register(meterRegistry);
+    this.droppedOverflow = dropped(meterRegistry, "overflow");
+    this.droppedSampled = dropped(meterRegistry, "sampled");
+    this.droppedError = dropped(meterRegistry, "error");
+    this.inline = Counter.builder(AUDIT_METRIC_NAME + ".inline")
+        .description("Logs de auditoria guardados en el hilo de la solicitud")
+        .register(meterRegistry);
+    log.info("AuditLogWriter - habilitado: {}, capacidad: {}, lote: {}, politica: {}", enabled,
+        this.capacity, this.batchSize, this.overflowPolicy);
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Encola el log para su escritura. Se copian sus valores, de modo que los
+   * cambios posteriores sobre la entidad no se reflejan.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSec
+   */
+  public void write(LogSecurity logSec) {
+    if (!running) {
+      saveInline(logSec);
+      return;
+    }
+    AuditRow row = new AuditRow(logSec);
+    if (overflowPolicy == AuditOverflowPolicyEnum.SAMPLE && !row.isError()
+        && depth.get() >= capacity - capacity / 4
+        && sampled.getAndIncrement() % sampleRate != 0) {
+      droppedSampled.increment();
+      return;
+    }
+    if (tryEnqueue(row)) {
+      return;
+    }
+    switch (overflowPolicy) {
+      case BLOCK -> enqueueBlocking(row, logSec);
+      case DROP_OLDEST -> enqueueDroppingOldest(row);
+      default -> droppedOverflow.increment();
+    }
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Logs pendientes en la cola
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public int getQueueDepth() {
+    return depth.get();
+  }
+
+  @Override
+  public void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    Thread thread = new Thread(this::runWriter, THREAD_NAME);
+    thread.setDaemon(true);
+    writer = thread;
+    thread.start();
+  }
+
+  @Override
+  public void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    Thread thread = writer;
+    LockSupport.unpark(thread);
+    try {
+      thread.join(shutdownTimeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (thread.isAlive()) {
+      log.warn("AuditLogWriter.stop() - la cola no se vacio en {} ms, pendientes: {}",
+          shutdownTimeout, depth.get());
+    } else {
+      // Logs encolados mientras el escritor terminaba
+      flush();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Se detiene despues del servidor web, cuando ya no hay solicitudes en curso
+   */
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4096;
+  }
+
+  /**
+   * Ciclo del hilo escritor: espera un lote completo o el intervalo y vacia la cola
+   */
+  private void runWriter() {
+    while (running) {
+      if (depth.get() < batchSize) {
+        LockSupport.parkNanos(this, flushIntervalNanos);
+      }
+      flush();
+    }
+    flush();
+  }
+
+  /**
+   * Inserta por lotes los logs de la cola
+   */
+  private void flush() {
+    List<AuditRow> batch = new ArrayList<>(batchSize);
+    AuditRow row;
+    while ((row = queue.poll()) != null) {
+      depth.decrementAndGet();
+      batch.add(row);
+      if (batch.size() == batchSize) {
+        insert(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      insert(batch);
+    }
+  }
+
+  /**
+   * Insercion JDBC por lotes, un error descarta el lote
+   */
+  private void insert(List<AuditRow> batch) {
+    try {
+      jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+          batch.get(i).bind(ps);
+        }
+
+        @Override
+        public int getBatchSize() {
+          return batch.size();
+        }
+      });
+      written.increment(batch.size());
+    } catch (DataAccessException e) {
+      droppedError.increment(batch.size());
+      log.error("AuditLogWriter.insert() - lote de {} logs descartado: {}", batch.size(),
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Reserva un espacio en la cola sin bloquear
+   */
+  private boolean tryEnqueue(AuditRow row) {
+    int current;
+    do {
+      current = depth.get();
+      if (current >= capacity) {
+        return false;
+      }
+    } while (!depth.compareAndSet(current, current + 1));
+    queue.offer(row);
+    if (current + 1 >= batchSize) {
+      LockSupport.unpark(writer);
+    }
+    return true;
+  }
+
+  /**
+   * Politica block: espera espacio hasta block-timeout y luego guarda en linea
+   */
+  private void enqueueBlocking(AuditRow row, LogSecurity logSec) {
+    long deadline = System.nanoTime() + blockTimeoutNanos;
+    do {
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+      if (tryEnqueue(row)) {
+        return;
+      }
+    } while (running && System.nanoTime() < deadline);
+    saveInline(logSec);
+  }
+
+  /**
+   * Politica drop-oldest: el log nuevo reemplaza al mas antiguo
+   */
+  private void enqueueDroppingOldest(AuditRow row) {
+    while (!tryEnqueue(row)) {
+      if (queue.poll() != null) {
+        // El espacio del descartado pasa al nuevo, depth no cambia
+        droppedOverflow.increment();
+        queue.offer(row);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Escritura en el hilo de la solicitud
+   */
+  private void saveInline(LogSecurity logSec) {
+    inline.increment();
+    logSecRepo.save(logSec);
+  }
+
+  /**
+   * Contador de logs descartados por motivo
+   */
+  private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder(AUDIT_METRIC_NAME + ".dropped").tag("reason", reason)
+        .description("Logs de auditoria descartados").register(meterRegistry);
+  }
+
+  /**
+   * Copia inmutable de los valores del log, compartida con {@link SegmentAuditLogSink}
+   */
+  static final class AuditRow {
+    private final String method;
+    private final Integer statusCode;
+    private final String url;
+    private final String request;
+    private final String response;
+    private final String errorMessage;
+    private final LocalDateTime creationDate;
+    private final String userCreation;
+    private final String ipAddress;
+    private final String userAgent;
+    private final String executionTime;
+    private final String serviceName;
+
+    AuditRow(LogSecurity logSec) {
+      this.method = logSec.getMethod();
+      this.statusCode = logSec.getStatusCode();
+      this.url = logSec.getUrl();
+      this.request = logSec.getRequest();
+      this.response = logSec.getResponse();
+      this.errorMessage = logSec.getErrorMessage();
+      this.creationDate = logSec.getCreationDate();
+      this.userCreation = logSec.getUserCreation();
+      this.ipAddress = logSec.getIpAddress();
+      this.userAgent = logSec.getUserAgent();
+      this.executionTime = logSec.getExecutionTime();
+      this.serviceName = logSec.getServiceName();
+    }
+
+    private boolean isError() {
+      return statusCode != null && statusCode >= 400;
+    }
+
+    void bind(PreparedStatement ps) throws SQLException {
+      ps.setString(1, method);
+      if (statusCode != null) {
+        ps.setInt(2, statusCode);
+      } else {
+        ps.setNull(2, Types.INTEGER);
+      }
+      ps.setString(3, url);
+      ps.setString(4, request);
+      ps.setString(5, response);
+      ps.setString(6, errorMessage);
+      ps.setTimestamp(7, creationDate != null ? Timestamp.valueOf(creationDate) : null);
+      ps.setString(8, userCreation);
+      ps.setString(9, ipAddress);
+      ps.setString(10, userAgent);
+      ps.setString(11, executionTime);
+      ps.setString(12, serviceName);
+    }
+  }
+}
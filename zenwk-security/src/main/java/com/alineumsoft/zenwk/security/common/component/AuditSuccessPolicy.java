@@ -0,0 +1,324 @@
+package com.alineumsoft.zenwk.security.common.component;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SUCCESS_AGGREGATE_INTERVAL;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SUCCESS_METRIC_NAME;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SUCCESS_POLICIES;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SUCCESS_SAMPLE_RATE;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
+import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
+import com.alineumsoft.zenwk.security.common.enums.AuditSuccessModeEnum;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Politica de persistencia de los logs exitosos por accion (SecurityActionEnum): full guarda cada
+ * log, sample uno de cada N y aggregate acumula los logs del intervalo y guarda un solo registro
+ * por accion con el total y los percentiles de latencia. Los modos sample y aggregate solo aplican
+ * a las acciones de lectura; las escrituras, la autenticacion y la consulta de auditoria siempre
+ * se guardan completas aunque la configuracion indique otro modo.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditSuccessPolicy
+ */
+@Component
+@Slf4j
+public class AuditSuccessPolicy {
+  /**
+   * Acciones de lectura que admiten sample o aggregate
+   */
+  private static final Set<SecurityActionEnum> READ_ACTIONS = EnumSet.of(
+      SecurityActionEnum.USER_GET, SecurityActionEnum.USER_ME_JWT, SecurityActionEnum.USER_LIST,
+      SecurityActionEnum.USER_LIST_ROLES, SecurityActionEnum.USER_GET_EMAIL,
+      SecurityActionEnum.PERSON_GET, SecurityActionEnum.PERSON_LIST, SecurityActionEnum.ROLE_GET,
+      SecurityActionEnum.ROLE_LIST, SecurityActionEnum.ROLE_LIST_PERMISSIONS,
+      SecurityActionEnum.PERMISSION_GET, SecurityActionEnum.PERMISSION_LIST,
+      SecurityActionEnum.PERMISSION_LIST_ROLES);
+  /**
+   * Latencias conservadas por accion e intervalo para los percentiles
+   */
+  private static final int RESERVOIR_SIZE = 1024;
+  /**
+   * Separadores de la configuracion
+   */
+  private static final String ENTRY_SEPARATOR = ",";
+  private static final char MODE_SEPARATOR = '=';
+  private static final char RATE_SEPARATOR = ':';
+
+  private final AuditLogWriter auditLogWriter;
+  /**
+   * Politica por serviceName del log, registrada con el codigo (USER.GET) y con el nombre
+   * (ROLE_LIST) de la accion porque los servicios guardan una u otra forma; sin entrada la accion
+   * es full
+   */
+  private final Map<String, ActionPolicy> policies = new HashMap<>();
+  /**
+   * Acumulado del intervalo en curso por codigo de la accion
+   */
+  private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+  /**
+   * <p>
+   * <b> General </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param auditLogWriter
+   * @param meterRegistry
+   * @param policies
+   * @param sampleRate
+   */
+  public AuditSuccessPolicy(AuditLogWriter auditLogWriter, MeterRegistry meterRegistry,
+      @Value(AUDIT_SUCCESS_POLICIES) String policies,
+      @Value(AUDIT_SUCCESS_SAMPLE_RATE) int sampleRate) {
+    this.auditLogWriter = auditLogWriter;
+    for (String entry : policies.split(ENTRY_SEPARATOR)) {
+      if (!entry.isBlank()) {
+        addPolicy(entry.trim(), sampleRate, meterRegistry);
+      }
+    }
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Indica si el log exitoso se guarda. En sample cuenta el log y en aggregate lo
+   * acumula en el intervalo en curso; en ambos casos el log omitido queda en la metrica
+   * zenwk.audit.success.skipped.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSec
+   * @return
+   */
+  public boolean shouldPersist(LogSecurity logSec) {
+    ActionPolicy policy = policies.get(logSec.getServiceName());
+    if (policy == null) {
+      return true;
+    }
+    if (policy.mode == AuditSuccessModeEnum.SAMPLE) {
+      if (policy.seen.getAndIncrement() % policy.rate == 0) {
+        return true;
+      }
+    } else {
+      long latencyMillis = latencyMillis(logSec.getExecutionTime());
+      while (!buckets.computeIfAbsent(policy.action.getCode(), code -> new Bucket())
+          .record(latencyMillis)) {
+        // El intervalo se cerro durante el flush; el log va al siguiente
+      }
+    }
+    policy.skipped.increment();
+    return false;
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Cierra el intervalo en curso y guarda un registro por accion agregada
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Scheduled(fixedRateString = AUDIT_SUCCESS_AGGREGATE_INTERVAL,
+      initialDelayString = AUDIT_SUCCESS_AGGREGATE_INTERVAL)
+  public void flush() {
+    LocalDateTime to = LocalDateTime.now();
+    for (String code : buckets.keySet()) {
+      Bucket bucket = buckets.remove(code);
+      if (bucket != null && bucket.close() > 0) {
+        write(code, bucket, to);
+      }
+    }
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Guarda los agregados pendientes al detener la aplicacion
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+
+  /**
+   * Registra la politica de una entrada ACCION=modo[:N]; fuera de las lecturas queda en full
+   */
+  private void addPolicy(String entry, int sampleRate, MeterRegistry meterRegistry) {
+    int modeIndex = entry.indexOf(MODE_SEPARATOR);
+    if (modeIndex < 0) {
+      throw new IllegalArgumentException("security.audit.success.policies: " + entry);
+    }
+    SecurityActionEnum action =
+        SecurityActionEnum.valueOf(entry.substring(0, modeIndex).trim().toUpperCase());
+    String mode = entry.substring(modeIndex + 1);
+    int rateIndex = mode.indexOf(RATE_SEPARATOR);
+    int rate = sampleRate;
+    if (rateIndex >= 0) {
+      rate = Integer.parseInt(mode.substring(rateIndex + 1).trim());
+      mode = mode.substring(0, rateIndex);
+    }
+    AuditSuccessModeEnum modeEnum = AuditSuccessModeEnum.from(mode);
+    if (modeEnum == AuditSuccessModeEnum.FULL) {
+      return;
+    }
+    if (!READ_ACTIONS.contains(action)) {
+      log.warn("AuditSuccessPolicy - {} no es una accion de lectura, se guarda completa", action);
+      return;
+    }
+    if (modeEnum == AuditSuccessModeEnum.SAMPLE && rate <= 1) {
+      return;
+    }
+    Counter skipped = Counter.builder(AUDIT_SUCCESS_METRIC_NAME + ".skipped")
+        .tag("action", action.name()).tag("mode", modeEnum.name().toLowerCase(Locale.ROOT))
+        .description("Logs exitosos no guardados por la politica").register(meterRegistry);
+    ActionPolicy policy = new ActionPolicy(action, modeEnum, rate, skipped);
+    policies.put(action.getCode(), policy);
+    policies.put(action.name(), policy);
+  }
+
+  /**
+   * Registro del intervalo: request con el resumen y executionTime con el p50
+   */
+  private void write(String code, Bucket bucket, LocalDateTime to) {
+    long[] latencies = bucket.latencies();
+    LogSecurity logSec = new LogSecurity();
+    logSec.setCreationDate(bucket.from);
+    logSec.setServiceName(code);
+    logSec.setStatusCode(HttpStatus.OK.value());
+    logSec.setMethod(GeneralConstants.AUTO_GENERATED_EVENT);
+    logSec.setUrl(GeneralConstants.AUTO_GENERATED_EVENT);
+    logSec.setUserCreation(GeneralConstants.AUTO_GENERATED_EVENT);
+    logSec.setIpAddress(GeneralConstants.AUTO_GENERATED_EVENT);
+    logSec.setUserAgent(GeneralConstants.AUTO_GENERATED_EVENT);
+    logSec.setRequest(String.format(Locale.ROOT,
+        "{\"mode\":\"aggregate\",\"from\":\"%s\",\"to\":\"%s\",\"count\":%d,\"p50Ms\":%d,"
+            + "\"p95Ms\":%d,\"p99Ms\":%d,\"maxMs\":%d}",
+        bucket.from, to.truncatedTo(ChronoUnit.MILLIS), bucket.count, percentile(latencies, 50),
+        percentile(latencies, 95), percentile(latencies, 99), bucket.max));
+    logSec.setResponse(CommonMessageConstants.NOT_APPLICABLE_BODY);
+    logSec.setErrorMessage(CommonMessageConstants.REQUEST_SUCCESSFUL);
+    logSec.setExecutionTime(BigDecimal.valueOf(percentile(latencies, 50), 3).toPlainString()
+        .concat(GeneralConstants.TIMER_SEG));
+    SegmentAuditLogSink segmentSink =
+        AppContextHolderComponent.getBeanIfAvailable(SegmentAuditLogSink.class);
+    if (segmentSink != null) {
+      segmentSink.submit(logSec);
+    } else {
+      auditLogWriter.write(logSec);
+    }
+  }
+
+  /**
+   * Milisegundos de un executionTime "segundos(s)"; -1 si el log no tiene tiempo
+   */
+  private static long latencyMillis(String executionTime) {
+    if (executionTime == null || !executionTime.endsWith(GeneralConstants.TIMER_SEG)) {
+      return -1;
+    }
+    try {
+      return new BigDecimal(executionTime.substring(0,
+          executionTime.length() - GeneralConstants.TIMER_SEG.length())).movePointRight(3)
+          .longValue();
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Percentil por rango mas cercano de las latencias ordenadas; 0 sin latencias
+   */
+  private static long percentile(long[] sorted, int percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  /**
+   * Politica de una accion; seen cuenta los logs para el muestreo
+   */
+  private static final class ActionPolicy {
+    private final SecurityActionEnum action;
+    private final AuditSuccessModeEnum mode;
+    private final int rate;
+    private final Counter skipped;
+    private final AtomicLong seen = new AtomicLong();
+
+    private ActionPolicy(SecurityActionEnum action, AuditSuccessModeEnum mode, int rate,
+        Counter skipped) {
+      this.action = action;
+      this.mode = mode;
+      this.rate = rate;
+      this.skipped = skipped;
+    }
+  }
+
+  /**
+   * Acumulado de una accion en el intervalo: total, maximo y una muestra uniforme (reservoir) de
+   * las latencias. Una vez cerrado no admite mas logs.
+   */
+  private static final class Bucket {
+    private final LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    private final long[] reservoir = new long[RESERVOIR_SIZE];
+    private long count;
+    private long timed;
+    private long max;
+    private boolean closed;
+
+    private synchronized boolean record(long latencyMillis) {
+      if (closed) {
+        return false;
+      }
+      count++;
+      if (latencyMillis >= 0) {
+        max = Math.max(max, latencyMillis);
+        if (timed < RESERVOIR_SIZE) {
+          reservoir[(int) timed] = latencyMillis;
+        } else {
+          long index = ThreadLocalRandom.current().nextLong(timed + 1);
+          if (index < RESERVOIR_SIZE) {
+            reservoir[(int) index] = latencyMillis;
+          }
+        }
+        timed++;
+      }
+      return true;
+    }
+
+    private synchronized long close() {
+      closed = true;
+      return count;
+    }
+
+    private synchronized long[] latencies() {
+      long[] sorted = Arrays.copyOf(reservoir, (int) Math.min(timed, RESERVOIR_SIZE));
+      Arrays.sort(sorted);
+      return sorted;
+    }
+  }
+}
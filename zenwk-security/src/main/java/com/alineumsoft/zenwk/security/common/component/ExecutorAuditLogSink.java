@@ -0,0 +1,206 @@
+package com.alineumsoft.zenwk.security.common.component;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_ERROR_METRIC_NAME;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_ERROR_QUEUE_CAPACITY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_ERROR_THREADS;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SHUTDOWN_TIMEOUT;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SINK;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * {@link AuditLogSink} con un ejecutor propio de hilos y cola acotados. Mientras un log espera en
+ * la cola, los errores repetidos con la misma llave (servicio, estado, usuario, mensaje) se agrupan
+ * en ese registro y se anota el numero de repeticiones. Con la cola llena el log se descarta, de
+ * modo que una base de datos lenta o caida no bloquea las solicitudes. Es el sink por defecto
+ * (<code>security.audit.sink: executor</code>).
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class ExecutorAuditLogSink
+ */
+@Component
+@ConditionalOnProperty(name = AUDIT_SINK, havingValue = "executor", matchIfMissing = true)
+@Slf4j
+public class ExecutorAuditLogSink implements AuditLogSink {
+  /**
+   * Prefijo del nombre de los hilos
+   */
+  private static final String THREAD_NAME = "audit-error-log-";
+  /**
+   * Separador de los campos de la llave
+   */
+  private static final char SEPARATOR = '|';
+
+  private final LogSecurityRepository logSecRepo;
+  private final ThreadPoolExecutor executor;
+  private final long shutdownTimeout;
+  /**
+   * Logs pendientes de escritura por llave
+   */
+  private final ConcurrentMap<String, PendingLog> pending = new ConcurrentHashMap<>();
+  private final Counter queued;
+  private final Counter coalesced;
+  private final Counter written;
+  private final Counter droppedRejected;
+  private final Counter droppedError;
+
+  /**
+   * <p>
+   * <b> General </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSecRepo
+   * @param meterRegistry
+   * @param threads
+   * @param queueCapacity
+   * @param shutdownTimeout
+   */
+  public ExecutorAuditLogSink(LogSecurityRepository logSecRepo, MeterRegistry meterRegistry,
+      @Value(AUDIT_ERROR_THREADS) int threads,
+      @Value(AUDIT_ERROR_QUEUE_CAPACITY) int queueCapacity,
+      @Value(AUDIT_SHUTDOWN_TIMEOUT) long shutdownTimeout) {
+    this.logSecRepo = logSecRepo;
+    this.shutdownTimeout = shutdownTimeout;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60L,
+        TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+          Thread thread = new Thread(runnable, THREAD_NAME + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    this.executor.allowCoreThreadTimeOut(true);
+    Gauge.builder(AUDIT_ERROR_METRIC_NAME + ".pending", pending, ConcurrentMap::size)
+        .description("Logs de error pendientes de escritura").register(meterRegistry);
+    this.queued = Counter.builder(AUDIT_ERROR_METRIC_NAME + ".queued")
+        .description("Logs de error encolados").register(meterRegistry);
+    this.coalesced = Counter.builder(AUDIT_ERROR_METRIC_NAME + ".coalesced")
+        .description("Logs de error agrupados con uno pendiente").register(meterRegistry);
+    this.written = Counter.builder(AUDIT_ERROR_METRIC_NAME + ".written")
+        .description("Logs de error guardados").register(meterRegistry);
+    this.droppedRejected = dropped(meterRegistry, "rejected");
+    this.droppedError = dropped(meterRegistry, "error");
+  }
+
+  /**
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSec
+   * @see com.alineumsoft.zenwk.security.common.component.AuditLogSink#submit(com.alineumsoft.zenwk.security.entity.LogSecurity)
+   */
+  @Override
+  public void submit(LogSecurity logSec) {
+    String key = key(logSec);
+    PendingLog created = new PendingLog(logSec);
+    PendingLog current = pending.compute(key, (k, existing) -> {
+      if (existing == null) {
+        return created;
+      }
+      existing.repetitions++;
+      return existing;
+    });
+    if (current != created) {
+      coalesced.increment();
+      return;
+    }
+    try {
+      executor.execute(() -> write(key));
+      queued.increment();
+    } catch (RejectedExecutionException e) {
+      PendingLog rejected = pending.remove(key);
+      droppedRejected.increment(rejected != null ? rejected.repetitions : 1);
+      log.warn("ExecutorAuditLogSink.submit() - cola llena, log descartado: {}",
+          logSec.getServiceName());
+    }
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Espera la escritura de los logs pendientes al detener la aplicacion
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(shutdownTimeout, TimeUnit.MILLISECONDS)) {
+        log.warn("ExecutorAuditLogSink.shutdown() - logs de error sin guardar: {}",
+            pending.size());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Guarda el log pendiente de la llave con el numero de repeticiones agrupadas
+   */
+  private void write(String key) {
+    PendingLog pendingLog = pending.remove(key);
+    if (pendingLog == null) {
+      return;
+    }
+    LogSecurity logSec = pendingLog.logSec;
+    if (pendingLog.repetitions > 1) {
+      logSec.setErrorMessage(
+          logSec.getErrorMessage() + " [repeticiones: " + pendingLog.repetitions + "]");
+    }
+    try {
+      logSecRepo.save(logSec);
+      written.increment();
+    } catch (RuntimeException e) {
+      droppedError.increment(pendingLog.repetitions);
+      log.error("ExecutorAuditLogSink.write() - no fue posible guardar el log de error: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Llave de agrupacion: servicio | estado | usuario | mensaje
+   */
+  private static String key(LogSecurity logSec) {
+    return new StringBuilder().append(logSec.getServiceName()).append(SEPARATOR)
+        .append(logSec.getStatusCode()).append(SEPARATOR).append(logSec.getUserCreation())
+        .append(SEPARATOR).append(logSec.getErrorMessage()).toString();
+  }
+
+  /**
+   * Contador de logs descartados por motivo
+   */
+  private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+    return Counter.builder(AUDIT_ERROR_METRIC_NAME + ".dropped").tag("reason", reason)
+        .description("Logs de error descartados").register(meterRegistry);
+  }
+
+  /**
+   * Log pendiente y numero de errores que representa; las repeticiones solo cambian dentro de
+   * ConcurrentMap.compute y se leen despues de remove
+   */
+  private static final class PendingLog {
+    private final LogSecurity logSec;
+    private int repetitions = 1;
+
+    private PendingLog(LogSecurity logSec) {
+      this.logSec = logSec;
+    }
+  }
+}
@@ -0,0 +1,415 @@
+package com.alineumsoft.zenwk.security.common.component;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_JSON_MAX_VALUE_LENGTH;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_JSON_SENSITIVE_FIELDS;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * <p>
+ * Serializa objetos a JSON para los logs con un mapper compartido y en una sola pasada: un
+ * {@link JsonGenerator} delegado reemplaza por la mascara el valor de los campos sensibles, a
+ * cualquier profundidad y sin distinguir mayusculas, y recorta los textos largos. Los beans reciben
+ * la instancia configurada por inyeccion; las clases que no son beans usan la de valores por
+ * defecto con {@link #getDefault()}.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class MaskingJsonMapper
+ */
+@Component
+public class MaskingJsonMapper {
+  /**
+   * Campos sensibles sin configuracion
+   */
+  private static final List<String> DEFAULT_SENSITIVE_FIELDS =
+      List.of(GeneralConstants.FIELD_PASSWORD, "currentPassword", "newPassword",
+          "confirmPassword", "token", "codeToken", "refreshToken", "secret", "authorization");
+  /**
+   * Longitud maxima de un texto sin configuracion
+   */
+  private static final int DEFAULT_MAX_VALUE_LENGTH = 1000;
+  /**
+   * Mapper compartido, thread-safe una vez configurado
+   */
+  private static final JsonMapper MAPPER = JsonMapper.builder().addModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+  /**
+   * Instancia usada por {@link #getDefault()}. El bean no la reemplaza, de modo que el resultado no
+   * depende del orden en que se inicia el contexto
+   */
+  private static final MaskingJsonMapper DEFAULT =
+      new MaskingJsonMapper(DEFAULT_SENSITIVE_FIELDS, DEFAULT_MAX_VALUE_LENGTH);
+
+  /**
+   * Nombres sensibles, sin distinguir mayusculas
+   */
+  private final NavigableSet<String> sensitiveFields =
+      new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+  /**
+   * Longitud maxima de un texto; 0 o menos no recorta
+   */
+  private final int maxValueLength;
+
+  /**
+   * <p>
+   * <b> General </b> Constructor del bean con los campos sensibles configurados
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param sensitiveFields
+   * @param maxValueLength
+   */
+  public MaskingJsonMapper(@Value(AUDIT_JSON_SENSITIVE_FIELDS) String sensitiveFields,
+      @Value(AUDIT_JSON_MAX_VALUE_LENGTH) int maxValueLength) {
+    this(List.of(sensitiveFields.split(",")), maxValueLength);
+  }
+
+  /**
+   * Constructor con los nombres sensibles ya separados
+   */
+  private MaskingJsonMapper(Collection<String> sensitiveFields, int maxValueLength) {
+    sensitiveFields.stream().map(String::trim).filter(name -> !name.isEmpty())
+        .forEach(this.sensitiveFields::add);
+    this.maxValueLength = maxValueLength;
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Instancia independiente con los campos y la longitud dados
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param sensitiveFields
+   * @param maxValueLength
+   * @return
+   */
+  public static MaskingJsonMapper of(Collection<String> sensitiveFields, int maxValueLength) {
+    return new MaskingJsonMapper(sensitiveFields, maxValueLength);
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Instancia con los valores por defecto, para las clases que no son beans
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public static MaskingJsonMapper getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * <p>
+   * <b> General </b> JSON del valor con los campos sensibles enmascarados y los textos recortados
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param value
+   * @return
+   * @throws JsonProcessingException
+   */
+  public String write(Object value) throws JsonProcessingException {
+    StringWriter writer = new StringWriter();
+    try (JsonGenerator generator =
+        new MaskingJsonGenerator(MAPPER.getFactory().createGenerator(writer))) {
+      MAPPER.writeValue(generator, value);
+    } catch (JsonProcessingException e) {
+      throw e;
+    } catch (IOException e) {
+      throw JsonMappingException.fromUnexpectedIOE(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Generador que enmascara el valor de los campos sensibles y recorta los textos
+   */
+  private final class MaskingJsonGenerator extends JsonGeneratorDelegate {
+    /**
+     * El siguiente valor pertenece a un campo sensible
+     */
+    private boolean maskNext;
+    /**
+     * Profundidad del objeto o arreglo sensible que se omite; 0 si no se omite nada
+     */
+    private int skipDepth;
+
+    private MaskingJsonGenerator(JsonGenerator delegate) {
+      super(delegate, false);
+    }
+
+    /**
+     * Indica si el valor se omite o se reemplaza por la mascara
+     */
+    private boolean replaced() throws IOException {
+      if (skipDepth > 0) {
+        return true;
+      }
+      if (maskNext) {
+        maskNext = false;
+        delegate.writeString(GeneralConstants.VALUE_SENSITY_MASK);
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Apertura de objeto o arreglo: dentro de un valor sensible se omite completo
+     */
+    private boolean skipStart() throws IOException {
+      if (skipDepth > 0) {
+        skipDepth++;
+        return true;
+      }
+      if (maskNext) {
+        replaced();
+        skipDepth = 1;
+        return true;
+      }
+      return false;
+    }
+
+    private boolean skipEnd() {
+      if (skipDepth > 0) {
+        skipDepth--;
+        return true;
+      }
+      return false;
+    }
+
+    private String truncate(String value) {
+      if (maxValueLength <= 0 || value == null || value.length() <= maxValueLength) {
+        return value;
+      }
+      return value.substring(0, maxValueLength) + "...[" + value.length() + "]";
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+      if (skipDepth == 0) {
+        maskNext = sensitiveFields.contains(name);
+        delegate.writeFieldName(name);
+      }
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+      if (skipDepth == 0) {
+        maskNext = sensitiveFields.contains(name.getValue());
+        delegate.writeFieldName(name);
+      }
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartObject();
+      }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartObject(forValue);
+      }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartObject(forValue, size);
+      }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+      if (!skipEnd()) {
+        delegate.writeEndObject();
+      }
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartArray();
+      }
+    }
+
+    @Override
+    public void writeStartArray(int size) throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartArray(size);
+      }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartArray(forValue);
+      }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+      if (!skipStart()) {
+        delegate.writeStartArray(forValue, size);
+      }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+      if (!skipEnd()) {
+        delegate.writeEndArray();
+      }
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+      if (!replaced()) {
+        delegate.writeString(truncate(text));
+      }
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+      if (!replaced()) {
+        delegate.writeString(truncate(new String(text, offset, len)));
+      }
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+      if (!replaced()) {
+        delegate.writeString(truncate(text.getValue()));
+      }
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+      if (!replaced()) {
+        delegate.writeString(reader, len);
+      }
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+      if (!replaced()) {
+        delegate.writeRawUTF8String(text, offset, length);
+      }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+      if (!replaced()) {
+        delegate.writeUTF8String(text, offset, length);
+      }
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+      if (!replaced()) {
+        delegate.writeRawValue(text);
+      }
+    }
+
+    @Override
+    public void writeBinary(Base64Variant variant, byte[] data, int offset, int len)
+        throws IOException {
+      if (!replaced()) {
+        delegate.writeBinary(variant, data, offset, len);
+      }
+    }
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(v);
+      }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+      if (!replaced()) {
+        delegate.writeNumber(encodedValue);
+      }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+      if (!replaced()) {
+        delegate.writeBoolean(state);
+      }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+      if (!replaced()) {
+        delegate.writeNull();
+      }
+    }
+  }
+}
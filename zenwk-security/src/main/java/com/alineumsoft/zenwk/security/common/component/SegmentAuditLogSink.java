@@ -0,0 +1,423 @@
+package com.alineumsoft.zenwk.security.common.component;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_BATCH_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_DEAD_LETTER_DIRECTORY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_DIRECTORY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_EXPORT_DIRECTORY;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_MAX_ATTEMPTS;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_METRIC_NAME;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_SHIP_INTERVAL;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_SHIP_MODE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SEGMENT_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SHUTDOWN_TIMEOUT;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUDIT_SINK;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.alineumsoft.zenwk.security.common.component.AuditLogWriter.AuditRow;
+import com.alineumsoft.zenwk.security.common.enums.AuditSegmentShipModeEnum;
+import com.alineumsoft.zenwk.security.common.util.AuditSegmentUtil;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * {@link AuditLogSink} en archivos de solo anexado. Los logs de exito y de error se escriben como
+ * registros con longitud y CRC ({@link AuditSegmentUtil}) en un segmento mapeado en memoria, sin
+ * tomar conexiones del pool; al llenarse, el segmento se sella y se abre el siguiente. Un hilo
+ * sincroniza el segmento activo con el disco cada <code>ship-interval</code> y envia los sellados:
+ * los carga por lotes en <code>log_sec</code> en una transaccion por segmento, o los mueve al
+ * directorio de exportacion. Un segmento que falla <code>max-attempts</code> ciclos seguidos se
+ * mueve al directorio dead-letter para no bloquear los siguientes. Al iniciar, el ultimo segmento
+ * de una ejecucion interrumpida se recorta a su ultimo registro completo y queda sellado. La
+ * entrega es al menos una vez: una caida entre la carga y la eliminacion de un segmento lo vuelve
+ * a cargar.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class SegmentAuditLogSink
+ */
+@Component
+@ConditionalOnProperty(name = AUDIT_SINK, havingValue = "segment")
+@Slf4j
+public class SegmentAuditLogSink implements AuditLogSink, SmartLifecycle {
+  /**
+   * Nombre del hilo de envio
+   */
+  private static final String THREAD_NAME = "audit-segment-shipper";
+  /**
+   * Tamano minimo de un segmento
+   */
+  private static final int MIN_SEGMENT_SIZE = 4096;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final LogSecurityRepository logSecRepo;
+  private final Path directory;
+  private final int segmentSize;
+  private final AuditSegmentShipModeEnum shipMode;
+  private final Path exportDirectory;
+  private final long shipIntervalNanos;
+  private final int batchSize;
+  private final long shutdownTimeout;
+  private final int maxAttempts;
+  private final Path deadLetterDirectory;
+  /**
+   * Protege el segmento activo
+   */
+  private final Object lock = new Object();
+  /**
+   * Segmentos sellados pendientes de envio
+   */
+  private final AtomicInteger sealed = new AtomicInteger();
+  /**
+   * Intentos fallidos por segmento; solo lo usa el hilo de envio
+   */
+  private final Map<Path, Integer> attempts = new HashMap<>();
+  private final Counter appended;
+  private final Counter rotated;
+  private final Counter shipped;
+  private final Counter exported;
+  private final Counter inline;
+  private final Counter deadLettered;
+  private MappedByteBuffer active;
+  private long activeSequence;
+  /**
+   * Los segmentos con secuencia menor estan sellados
+   */
+  private volatile long sealedBelow;
+  private volatile boolean running;
+  private volatile Thread shipper;
+
+  /**
+   * <p>
+   * <b> General </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param jdbcTemplate
+   * @param transactionTemplate
+   * @param logSecRepo
+   * @param meterRegistry
+   * @param directory
+   * @param segmentSize
+   * @param shipMode
+   * @param exportDirectory
+   * @param shipInterval
+   * @param batchSize
+   * @param shutdownTimeout
+   * @param maxAttempts
+   * @param deadLetterDirectory
+   */
+  public SegmentAuditLogSink(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+      LogSecurityRepository logSecRepo, MeterRegistry meterRegistry,
+      @Value(AUDIT_SEGMENT_DIRECTORY) String directory,
+      @Value(AUDIT_SEGMENT_SIZE) int segmentSize,
+      @Value(AUDIT_SEGMENT_SHIP_MODE) String shipMode,
+      @Value(AUDIT_SEGMENT_EXPORT_DIRECTORY) String exportDirectory,
+      @Value(AUDIT_SEGMENT_SHIP_INTERVAL) long shipInterval,
+      @Value(AUDIT_BATCH_SIZE) int batchSize,
+      @Value(AUDIT_SHUTDOWN_TIMEOUT) long shutdownTimeout,
+      @Value(AUDIT_SEGMENT_MAX_ATTEMPTS) int maxAttempts,
+      @Value(AUDIT_SEGMENT_DEAD_LETTER_DIRECTORY) String deadLetterDirectory) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.logSecRepo = logSecRepo;
+    this.directory = Path.of(directory);
+    this.segmentSize = Math.max(MIN_SEGMENT_SIZE, segmentSize);
+    this.shipMode = AuditSegmentShipModeEnum.from(shipMode);
+    this.exportDirectory = Path.of(exportDirectory);
+    this.shipIntervalNanos = TimeUnit.MILLISECONDS.toNanos(shipInterval);
+    this.batchSize = Math.max(1, batchSize);
+    this.shutdownTimeout = shutdownTimeout;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.deadLetterDirectory = Path.of(deadLetterDirectory);
+    Gauge.builder(AUDIT_SEGMENT_METRIC_NAME + ".sealed", sealed, AtomicInteger::get)
+        .description("Segmentos sellados pendientes de envio").register(meterRegistry);
+    this.appended = Counter.builder(AUDIT_SEGMENT_METRIC_NAME + ".appended")
+        .description("Logs escritos en el segmento activo").register(meterRegistry);
+    this.rotated = Counter.builder(AUDIT_SEGMENT_METRIC_NAME + ".rotated")
+        .description("Segmentos sellados por llenarse").register(meterRegistry);
+    this.shipped = Counter.builder(AUDIT_SEGMENT_METRIC_NAME + ".shipped")
+        .description("Logs cargados en log_sec desde los segmentos").register(meterRegistry);
+    this.exported = Counter.builder(AUDIT_SEGMENT_METRIC_NAME + ".exported")
+        .description("Segmentos movidos al directorio de exportacion").register(meterRegistry);
+    this.inline = Counter.builder(AUDIT_SEGMENT_METRIC_NAME + ".inline")
+        .description("Logs guardados con el repositorio en el hilo de la solicitud")
+        .register(meterRegistry);
+    this.deadLettered = Counter.builder(AUDIT_SEGMENT_METRIC_NAME + ".dead-lettered")
+        .description("Segmentos movidos a dead-letter tras agotar los intentos")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSec
+   * @see com.alineumsoft.zenwk.security.common.component.AuditLogSink#submit(com.alineumsoft.zenwk.security.entity.LogSecurity)
+   */
+  @Override
+  public void submit(LogSecurity logSec) {
+    byte[] record = AuditSegmentUtil.encode(logSec);
+    synchronized (lock) {
+      if (running && append(record)) {
+        appended.increment();
+        return;
+      }
+    }
+    inline.increment();
+    logSecRepo.save(logSec);
+  }
+
+  @Override
+  public void start() {
+    if (running) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory);
+      long sequence = recover();
+      synchronized (lock) {
+        active = map(sequence);
+        activeSequence = sequence;
+        sealedBelow = sequence;
+        running = true;
+      }
+    } catch (IOException e) {
+      log.error("SegmentAuditLogSink.start() - sin segmentos en {}, se guarda en linea: {}",
+          directory, e.getMessage());
+      return;
+    }
+    Thread thread = new Thread(this::runShipper, THREAD_NAME);
+    thread.setDaemon(true);
+    shipper = thread;
+    thread.start();
+    log.info("SegmentAuditLogSink - directorio: {}, segmento: {} bytes, envio: {}", directory,
+        segmentSize, shipMode);
+  }
+
+  /**
+   * Sella el segmento activo y espera el envio de los pendientes
+   */
+  @Override
+  public void stop() {
+    synchronized (lock) {
+      if (!running) {
+        return;
+      }
+      running = false;
+      active.force();
+      sealedBelow = activeSequence + 1;
+    }
+    Thread thread = shipper;
+    LockSupport.unpark(thread);
+    try {
+      thread.join(shutdownTimeout);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (thread.isAlive()) {
+      log.warn("SegmentAuditLogSink.stop() - segmentos sin enviar en {} ms: {}", shutdownTimeout,
+          sealed.get());
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Se detiene despues del servidor web, cuando ya no hay solicitudes en curso
+   */
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4096;
+  }
+
+  /**
+   * Anexa el registro al segmento activo, sellandolo si no hay espacio. La longitud se escribe al
+   * final, de modo que un registro a medio escribir se lee como fin de datos.
+   */
+  private boolean append(byte[] record) {
+    if (record.length > segmentSize) {
+      return false;
+    }
+    if (active.remaining() < record.length) {
+      try {
+        rotate();
+      } catch (IOException e) {
+        log.error("SegmentAuditLogSink.append() - no fue posible abrir el segmento: {}",
+            e.getMessage());
+        return false;
+      }
+    }
+    int position = active.position();
+    active.put(position + Integer.BYTES, record, Integer.BYTES, record.length - Integer.BYTES);
+    active.put(position, record, 0, Integer.BYTES);
+    active.position(position + record.length);
+    return true;
+  }
+
+  /**
+   * Sella el segmento activo y abre el siguiente
+   */
+  private void rotate() throws IOException {
+    MappedByteBuffer next = map(activeSequence + 1);
+    active.force();
+    active = next;
+    activeSequence++;
+    sealedBelow = activeSequence;
+    rotated.increment();
+    LockSupport.unpark(shipper);
+  }
+
+  /**
+   * Crea y mapea el segmento de la secuencia
+   */
+  private MappedByteBuffer map(long sequence) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(directory.resolve(AuditSegmentUtil.segmentName(sequence)),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  /**
+   * Recorta el ultimo segmento a su ultimo registro completo, o lo elimina si no tiene ninguno, y
+   * devuelve la secuencia del nuevo segmento activo
+   */
+  private long recover() throws IOException {
+    List<Path> segments = AuditSegmentUtil.segments(directory);
+    if (segments.isEmpty()) {
+      return 0;
+    }
+    Path last = segments.get(segments.size() - 1);
+    int end = AuditSegmentUtil.scan(ByteBuffer.wrap(Files.readAllBytes(last)), null);
+    if (end == 0) {
+      Files.delete(last);
+    } else {
+      try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+        channel.truncate(end);
+        channel.force(true);
+      }
+    }
+    log.info("SegmentAuditLogSink.recover() - segmento {} recuperado con {} bytes",
+        last.getFileName(), end);
+    return AuditSegmentUtil.sequence(last) + 1;
+  }
+
+  /**
+   * Ciclo del hilo de envio: sincroniza el segmento activo y envia los sellados
+   */
+  private void runShipper() {
+    while (running) {
+      LockSupport.parkNanos(this, shipIntervalNanos);
+      MappedByteBuffer buffer;
+      synchronized (lock) {
+        buffer = running ? active : null;
+      }
+      if (buffer != null) {
+        buffer.force();
+      }
+      ship();
+    }
+    ship();
+  }
+
+  /**
+   * Envia en orden los segmentos sellados; ante un error se reintenta en el siguiente ciclo, hasta
+   * max-attempts veces por segmento
+   */
+  private void ship() {
+    List<Path> pending;
+    try {
+      long below = sealedBelow;
+      pending = AuditSegmentUtil.segments(directory).stream()
+          .filter(segment -> AuditSegmentUtil.sequence(segment) < below).toList();
+    } catch (IOException e) {
+      log.error("SegmentAuditLogSink.ship() - no fue posible listar {}: {}", directory,
+          e.getMessage());
+      return;
+    }
+    sealed.set(pending.size());
+    for (Path segment : pending) {
+      try {
+        if (shipMode == AuditSegmentShipModeEnum.EXPORT) {
+          Files.createDirectories(exportDirectory);
+          Files.move(segment, exportDirectory.resolve(segment.getFileName()));
+          exported.increment();
+        } else {
+          load(segment);
+          Files.delete(segment);
+        }
+        attempts.remove(segment);
+        sealed.decrementAndGet();
+      } catch (IOException | RuntimeException e) {
+        int failures = attempts.merge(segment, 1, Integer::sum);
+        log.error("SegmentAuditLogSink.ship() - segmento {} pendiente, intento {} de {}: {}",
+            segment.getFileName(), failures, maxAttempts, e.getMessage());
+        if (failures < maxAttempts || !deadLetter(segment)) {
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Mueve el segmento que agoto sus intentos al directorio dead-letter, para revisarlo o cargarlo
+   * a mano, y permite continuar con los siguientes
+   */
+  private boolean deadLetter(Path segment) {
+    try {
+      Files.createDirectories(deadLetterDirectory);
+      Files.move(segment, deadLetterDirectory.resolve(segment.getFileName()));
+    } catch (IOException e) {
+      log.error("SegmentAuditLogSink.deadLetter() - no fue posible mover {}: {}",
+          segment.getFileName(), e.getMessage());
+      return false;
+    }
+    attempts.remove(segment);
+    sealed.decrementAndGet();
+    deadLettered.increment();
+    log.error("SegmentAuditLogSink.deadLetter() - segmento {} movido a {}", segment.getFileName(),
+        deadLetterDirectory);
+    return true;
+  }
+
+  /**
+   * Carga los registros del segmento en log_sec, todo o nada
+   */
+  private void load(Path segment) throws IOException {
+    List<AuditRow> rows = new ArrayList<>();
+    AuditSegmentUtil.scan(ByteBuffer.wrap(Files.readAllBytes(segment)),
+        logSec -> rows.add(new AuditRow(logSec)));
+    if (!rows.isEmpty()) {
+      transactionTemplate.executeWithoutResult(status -> jdbcTemplate
+          .batchUpdate(AuditLogWriter.INSERT_SQL, rows, batchSize, (ps, row) -> row.bind(ps)));
+      shipped.increment(rows.size());
+    }
+  }
+}
@@ -22,11 +22,49 @@ public final class AuthConfigConstants {
   public static final int INDEX_TOKEN = 7;
   public static final String JWT_EXPIRATION_TIME = "${security.jwt.expiration-time}";
   public static final String JWT_SECRET_KEY = "${security.jwt.secret}";
+  public static final String JWT_SECRET_PROPERTY = "security.jwt.secret";
+  public static final String JWT_SIGNING_PREFIX = "security.jwt.signing";
+  public static final String JWT_CACHE_ENABLED = "${security.jwt.cache.enabled:false}";
+  public static final String JWT_CACHE_MAXIMUM_SIZE = "${security.jwt.cache.maximum-size:10000}";
+  public static final String JWT_CACHE_METRIC_NAME = "zenwk.jwt.verified";
+  public static final String JWT_REGISTRY_MAXIMUM_SIZE =
+      "${security.jwt.registry.maximum-size:100000}";
+  public static final String JWT_REGISTRY_REJECT_SUPERSEDED =
+      "${security.jwt.registry.reject-superseded:false}";
+  public static final String JWT_REGISTRY_SWEEP_INTERVAL =
+      "${security.jwt.registry.sweep-interval:60000}";
+  public static final String JWT_REVOCATION_EXPECTED_INSERTIONS =
+      "${security.jwt.revocation.expected-insertions:100000}";
+  public static final String JWT_REVOCATION_FALSE_POSITIVE_RATE =
+      "${security.jwt.revocation.false-positive-rate:0.01}";
+  public static final String JWT_REVOCATION_SWEEP_INTERVAL =
+      "${security.jwt.revocation.sweep-interval:300000}";
+  public static final String JWT_REVOCATION_SYNC_INTERVAL =
+      "${security.jwt.revocation.sync-interval:30000}";
+  public static final String JWT_CLAIMS_PROFILE = "${security.jwt.claims-profile:full}";
+  public static final String JWT_PERMISSION_SNAPSHOT_REFRESH_INTERVAL =
+      "${security.jwt.permission-snapshot.refresh-interval:60000}";
+  public static final String JWT_PERMISSION_SNAPSHOT_HISTORY_SIZE =
+      "${security.jwt.permission-snapshot.history-size:8}";
+  public static final String JWT_REFRESH_MAX_CLAIMS_AGE =
+      "${security.jwt.refresh.max-claims-age:900000}";
+  public static final String JWT_REFRESH_METRIC_NAME = "zenwk.jwt.refresh";
+  public static final String AUTHORIZATION_MATRIX_REFRESH_INTERVAL =
+      "${security.authorization.refresh-interval:60000}";
+  public static final String AUTHORIZATION_DECISION_CACHE_MAXIMUM_SIZE =
+      "${security.authorization.decision-cache.maximum-size:10000}";
+  public static final String AUTHORIZATION_DECISION_METRIC_NAME = "zenwk.authorization.decisions";
   public static final String JWT_ROLES = "roles";
   public static final String JWT_URLS_ALLOWED_ROL_USER = "urlsRolUser";
   public static final String JWT_ID_USER = "idUser";
   public static final String JWT_USER_STATE = "idState";
   public static final String JWT_USER_EMAIL = "email";
+  public static final String JWT_ID_PERSON = "idPerson";
+  public static final String JWT_ROLE_IDS = "rid";
+  public static final String JWT_PERMISSION_VERSION = "psv";
+  public static final String JWT_CLAIMS_LOADED_AT = "cla";
+  public static final String REQUEST_VERIFIED_JWT = "zenwk.verifiedJwt";
+  public static final String REQUEST_SECURITY_CONTEXT = "zenwk.requestSecurityContext";
   /**
    * class: PermissionService
    */
@@ -43,6 +81,70 @@ public final class AuthConfigConstants {
    */
   public static final String X_XSRF_TOKEN = "X-XSRF-TOKEN";
   public static final String X_USER_EMAIL = "X-USER-EMAIL";
+  public static final String CSRF_MODE = "${security.csrf.mode:persisted}";
+  public static final String CSRF_MODE_STATELESS = "stateless";
+  public static final String CSRF_SIGNING_KEY = "${security.csrf.signing-key:}";
+  public static final String CSRF_CACHE_ENABLED = "${security.csrf.cache.enabled:true}";
+  public static final String CSRF_CACHE_MAXIMUM_SIZE = "${security.csrf.cache.maximum-size:10000}";
+  public static final String CSRF_CACHE_TTL = "${security.csrf.cache.ttl:60000}";
+  public static final String CSRF_CACHE_METRIC_NAME = "zenwk.csrf.tokens";
+  public static final String CSRF_DB_FALLBACK_METRIC_NAME = "zenwk.csrf.db.fallbacks";
+  public static final String CSRF_SWEEP_INTERVAL = "${security.csrf.sweep-interval:3600000}";
+  /**
+   * class: AuditLogWriter
+   */
+  public static final String AUDIT_ASYNC_ENABLED = "${security.audit.async.enabled:true}";
+  public static final String AUDIT_QUEUE_CAPACITY = "${security.audit.queue-capacity:10000}";
+  public static final String AUDIT_BATCH_SIZE = "${security.audit.batch-size:100}";
+  public static final String AUDIT_FLUSH_INTERVAL = "${security.audit.flush-interval:500}";
+  public static final String AUDIT_OVERFLOW_POLICY = "${security.audit.overflow-policy:block}";
+  public static final String AUDIT_BLOCK_TIMEOUT = "${security.audit.block-timeout:200}";
+  public static final String AUDIT_SAMPLE_RATE = "${security.audit.sample-rate:10}";
+  public static final String AUDIT_SHUTDOWN_TIMEOUT = "${security.audit.shutdown-timeout:10000}";
+  public static final String AUDIT_METRIC_NAME = "zenwk.audit.log";
+  /**
+   * class: ExecutorAuditLogSink
+   */
+  public static final String AUDIT_ERROR_THREADS = "${security.audit.error.threads:2}";
+  public static final String AUDIT_ERROR_QUEUE_CAPACITY =
+      "${security.audit.error.queue-capacity:1000}";
+  public static final String AUDIT_ERROR_METRIC_NAME = "zenwk.audit.error";
+  /**
+   * class: SegmentAuditLogSink. AUDIT_SINK es el nombre de la propiedad (executor | segment) para
+   * ConditionalOnProperty
+   */
+  public static final String AUDIT_SINK = "security.audit.sink";
+  public static final String AUDIT_SEGMENT_DIRECTORY =
+      "${security.audit.segment.directory:audit-segments}";
+  public static final String AUDIT_SEGMENT_SIZE = "${security.audit.segment.size:16777216}";
+  public static final String AUDIT_SEGMENT_SHIP_MODE =
+      "${security.audit.segment.ship-mode:database}";
+  public static final String AUDIT_SEGMENT_EXPORT_DIRECTORY =
+      "${security.audit.segment.export-directory:audit-segments/export}";
+  public static final String AUDIT_SEGMENT_SHIP_INTERVAL =
+      "${security.audit.segment.ship-interval:5000}";
+  public static final String AUDIT_SEGMENT_MAX_ATTEMPTS =
+      "${security.audit.segment.max-attempts:5}";
+  public static final String AUDIT_SEGMENT_DEAD_LETTER_DIRECTORY =
+      "${security.audit.segment.dead-letter-directory:audit-segments/dead-letter}";
+  public static final String AUDIT_SEGMENT_METRIC_NAME = "zenwk.audit.segment";
+  /**
+   * class: MaskingJsonMapper
+   */
+  public static final String AUDIT_JSON_SENSITIVE_FIELDS = "${security.audit.json.sensitive-fields:"
+      + "password,currentPassword,newPassword,confirmPassword,token,codeToken,refreshToken,secret,"
+      + "authorization}";
+  public static final String AUDIT_JSON_MAX_VALUE_LENGTH =
+      "${security.audit.json.max-value-length:1000}";
+  /**
+   * class: AuditSuccessPolicy
+   */
+  public static final String AUDIT_SUCCESS_POLICIES = "${security.audit.success.policies:}";
+  public static final String AUDIT_SUCCESS_SAMPLE_RATE =
+      "${security.audit.success.sample-rate:10}";
+  public static final String AUDIT_SUCCESS_AGGREGATE_INTERVAL =
+      "${security.audit.success.aggregate-interval:60000}";
+  public static final String AUDIT_SUCCESS_METRIC_NAME = "zenwk.audit.success";
   /**
    * class: CsrfController
    */
@@ -2,11 +2,13 @@ package com.alineumsoft.zenwk.security.common.entity;
 
 import java.time.LocalDateTime;
 import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
+import com.alineumsoft.zenwk.security.common.util.CryptoUtil;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -23,7 +25,12 @@ import lombok.NoArgsConstructor;
 @Data
 @Entity
 @NoArgsConstructor
-@Table(name = "sec_csrf_token")
+@Table(name = "sec_csrf_token", indexes = {
+    @Index(name = "idx_sec_csrf_token_email_hash",
+        columnList = "seccsrtokemail, seccsrtokcodehash"),
+    @Index(name = "uk_sec_csrf_token_session", columnList = "seccsrtokemail, seccsrtoksessionid",
+        unique = true),
+    @Index(name = "idx_sec_csrf_token_exp", columnList = "sectoexpirationdate")})
 public class CsrfToken {
   /**
    * id
@@ -33,10 +40,10 @@ public class CsrfToken {
   @Column(name = "seccsrtokid")
   private Long id;
   /**
-   * Codigo del token
+   * Digest SHA-256 (hex) del codigo del token, el codigo en claro no se guarda
    */
-  @Column(name = "seccsrtokcode")
-  private String code;
+  @Column(name = "seccsrtokcodehash", length = 64, nullable = false)
+  private String codeHash;
   /**
    * Correo del usuario
    */
@@ -50,6 +57,11 @@ public class CsrfToken {
 
   @Column(name = "seccsrtokuseragent")
   private String userAgent;
+  /**
+   * Sesion a la que pertenece el token: jti del JWT. Nulo si la solicitud no trae un JWT con jti
+   */
+  @Column(name = "seccsrtoksessionid", length = 64)
+  private String sessionId;
   /**
    * Fecha de creación
    */
@@ -76,15 +88,31 @@ public class CsrfToken {
    * @param dto
    * @param username
    * @param userAgent
+   * @param sessionId
    */
-  public CsrfToken(TokenDTO dto, String username, String userAgent) {
+  public CsrfToken(TokenDTO dto, String username, String userAgent, String sessionId) {
     this.email = dto.getEmail();
-    this.code = dto.getCode();
-    this.expirationDate = dto.getExpirationDate();
+    this.userAgent = userAgent;
+    this.sessionId = sessionId;
     this.createUser = username;
     this.creationDate = LocalDateTime.now();
-    this.userAgent = userAgent;
+    renew(dto);
+  }
 
+  /**
+   * 
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Reemplaza el codigo y la expiracion
+   * del token de la sesion (email, jti), que se actualiza en lugar de insertar una fila
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param dto
+   */
+  public void renew(TokenDTO dto) {
+    this.codeHash = CryptoUtil.sha256Hex(dto.getCode());
+    this.expirationDate = dto.getExpirationDate();
+    this.revoked = false;
   }
 
 
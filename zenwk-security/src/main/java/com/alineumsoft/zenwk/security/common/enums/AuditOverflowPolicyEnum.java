@@ -0,0 +1,39 @@
+package com.alineumsoft.zenwk.security.common.enums;
+
+/**
+ * <p>
+ * Politica del escritor de logs de auditoria cuando la cola alcanza su capacidad
+ * </p>
+ * 
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditOverflowPolicyEnum
+ */
+public enum AuditOverflowPolicyEnum {
+  /**
+   * La solicitud espera espacio en la cola; al vencer la espera el log se guarda en linea
+   */
+  BLOCK,
+  /**
+   * Se descarta el log mas antiguo de la cola
+   */
+  DROP_OLDEST,
+  /**
+   * Sobre el 75% de la capacidad se conserva uno de cada N logs exitosos; los de error siempre se
+   * encolan mientras haya espacio
+   */
+  SAMPLE;
+
+  /**
+   * <p>
+   * <b> General </b> Politica desde la configuracion (block | drop-oldest | sample)
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param value
+   * @return
+   */
+  public static AuditOverflowPolicyEnum from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
@@ -0,0 +1,34 @@
+package com.alineumsoft.zenwk.security.common.enums;
+
+/**
+ * <p>
+ * Destino de los segmentos sellados del sink de auditoria en archivos mapeados
+ * </p>
+ * 
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditSegmentShipModeEnum
+ */
+public enum AuditSegmentShipModeEnum {
+  /**
+   * Se insertan por lotes en log_sec y el segmento se elimina
+   */
+  DATABASE,
+  /**
+   * Se mueven al directorio de exportacion para un proceso externo
+   */
+  EXPORT;
+
+  /**
+   * <p>
+   * <b> General </b> Modo desde la configuracion (database | export)
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param value
+   * @return
+   */
+  public static AuditSegmentShipModeEnum from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
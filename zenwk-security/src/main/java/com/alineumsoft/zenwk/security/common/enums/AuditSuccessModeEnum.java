@@ -0,0 +1,38 @@
+package com.alineumsoft.zenwk.security.common.enums;
+
+/**
+ * <p>
+ * Modo de persistencia de los logs exitosos de una accion (SecurityActionEnum)
+ * </p>
+ * 
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditSuccessModeEnum
+ */
+public enum AuditSuccessModeEnum {
+  /**
+   * Se guarda cada log
+   */
+  FULL,
+  /**
+   * Se guarda uno de cada N logs
+   */
+  SAMPLE,
+  /**
+   * Se guarda un registro por intervalo con el total y los percentiles de latencia
+   */
+  AGGREGATE;
+
+  /**
+   * <p>
+   * <b> General </b> Modo desde la configuracion (full | sample | aggregate)
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param value
+   * @return
+   */
+  public static AuditSuccessModeEnum from(String value) {
+    return valueOf(value.trim().toUpperCase().replace('-', '_'));
+  }
+}
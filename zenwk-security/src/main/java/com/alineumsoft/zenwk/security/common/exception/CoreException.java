@@ -1,12 +1,9 @@
 package com.alineumsoft.zenwk.security.common.exception;
 
-import java.util.concurrent.CompletableFuture;
-import org.springframework.aop.framework.AopContext;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import com.alineumsoft.zenwk.security.common.component.AppContextHolderComponent;
+import com.alineumsoft.zenwk.security.common.component.AuditLogSink;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 import lombok.extern.slf4j.Slf4j;
 
 /*
@@ -17,65 +14,50 @@ import lombok.extern.slf4j.Slf4j;
  * @class BaseException
  */
 @Slf4j
-@Service
 public abstract class CoreException extends RuntimeException {
   static final long serialVersionUID = 1L;
-  // Metodo comun por convencion en cualquier tabla de logs
-  private static final String METHOD_MESSAGE_ERROR = "setErrorMessage";
 
   /**
    * <p>
-   * <b> General </b> CoreException
+   * <b> General </b> CoreException. El log de error se entrega al {@link AuditLogSink}; sin sink
+   * registrado se guarda con el repositorio.
    * </p>
    *
    * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
-   * @param <T>
    * @param message
-   * @param code
    * @param cause
    * @param repository
-   * @param entity
-   * @throws NoSuchMethodException
+   * @param logSec
    */
-  protected <T> CoreException(String message, Throwable cause, JpaRepository<T, ?> repository,
-      T entity) {
+  protected CoreException(String message, Throwable cause, LogSecurityRepository repository,
+      LogSecurity logSec) {
     super(message, cause);
-    try {
-      CoreException self = (CoreException) AopContext.currentProxy();
-      self.saveLog(repository, entity, message);
-    } catch (IllegalStateException ex) {
-      // Fallback sin llamada directa al método asíncrono
-      CompletableFuture.runAsync(() -> {
-        try {
-          saveLog(repository, entity, message);
-        } catch (Exception e) {
-          log.error("Error en fallback async: {}", e.getMessage());
-        }
-      });
+    if (logSec == null) {
+      return;
+    }
+    logSec.setErrorMessage(message);
+    AuditLogSink sink = AppContextHolderComponent.getBeanIfAvailable(AuditLogSink.class);
+    if (sink != null) {
+      sink.submit(logSec);
+    } else if (repository != null) {
+      saveLog(repository, logSec);
     }
   }
 
   /**
    * <p>
-   * <b> General </b> Periste la excepcion
+   * <b> General </b> Periste el log sin sink, el error de persistencia no reemplaza la excepcion
    * </p>
    *
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
-   * @param <T>
    * @param repository
-   * @param entity
-   * @throws NoSuchMethodException
+   * @param logSec
    */
-  @Async
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
-  protected <T> void saveLog(JpaRepository<T, ?> repository, T entity, String message) {
-    if (repository != null && entity != null) {
-      try {
-        entity.getClass().getMethod(METHOD_MESSAGE_ERROR, String.class).invoke(entity, message);
-      } catch (Exception e) {
-        log.error(e.getMessage());
-      }
-      repository.save(entity);
+  private static void saveLog(LogSecurityRepository repository, LogSecurity logSec) {
+    try {
+      repository.save(logSec);
+    } catch (RuntimeException e) {
+      log.error("CoreException.saveLog() - no fue posible guardar el log: {}", e.getMessage());
     }
   }
 
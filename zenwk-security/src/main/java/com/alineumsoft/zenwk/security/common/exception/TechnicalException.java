@@ -1,6 +1,7 @@
 package com.alineumsoft.zenwk.security.common.exception;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 
 /**
  * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
@@ -16,16 +17,14 @@ public class TechnicalException extends CoreException {
    * </p>
    * 
    * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
-   * @param <T>
    * @param message
-   * @param code
    * @param cause
    * @param repository
-   * @param entity
+   * @param logSec
    */
-  public <T> TechnicalException(String message, Throwable cause, JpaRepository<T, ?> repository,
-      T entity) {
-    super(message, cause, repository, entity);
+  public TechnicalException(String message, Throwable cause, LogSecurityRepository repository,
+      LogSecurity logSec) {
+    super(message, cause, repository, logSec);
   }
 
 }
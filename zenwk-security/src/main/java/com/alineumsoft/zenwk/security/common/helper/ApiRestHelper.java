@@ -1,15 +1,14 @@
 package com.alineumsoft.zenwk.security.common.helper;
 
 import java.math.BigDecimal;
-import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.alineumsoft.zenwk.security.common.component.MaskingJsonMapper;
 import com.alineumsoft.zenwk.security.common.component.RequestTimingFilter;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
 import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
 import com.alineumsoft.zenwk.security.common.exception.handler.GlobalExceptionHandler;
-import com.alineumsoft.zenwk.security.constants.ServiceControllerConstants;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContext;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,6 +19,26 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class ApiRestHelper {
+  /**
+   * Mapper de los logs; fuera del contexto de Spring se usa el de valores por defecto
+   */
+  private MaskingJsonMapper maskingJsonMapper = MaskingJsonMapper.getDefault();
+
+  /**
+   * <p>
+   * <b> General </b> Inyecta en los servicios que extienden este helper el
+   * {@link MaskingJsonMapper} con los campos sensibles configurados. Se usa un setter para no
+   * agregar el parametro al constructor de cada servicio.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param maskingJsonMapper
+   */
+  @Autowired(required = false)
+  public void setMaskingJsonMapper(MaskingJsonMapper maskingJsonMapper) {
+    this.maskingJsonMapper = maskingJsonMapper;
+  }
+
   /**
    * <p>
    * <b> General </b> Escribe el log de la peticion cuando existe un request body
@@ -37,31 +56,17 @@ public class ApiRestHelper {
 
   /**
    * <p>
-   * <b>General</b> Obtener Json, oculta datos sensibles con el password
+   * <b>General</b> Obtener Json, oculta datos sensibles con el password. Usa el
+   * {@link MaskingJsonMapper} inyectado, que enmascara en la misma serializacion.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param inDTO
-   * @param objectMapper
    * @return
-   * @throws JsonProcessingException
    */
   public String getJson(Object inDTO) {
-    ObjectMapper objectMapper = new ObjectMapper();
     try {
-      String json = objectMapper.writeValueAsString(inDTO);
-
-      if (json != null) {
-        Map<String, Object> jsonMap =
-            objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
-        if (jsonMap.containsKey(GeneralConstants.FIELD_PASSWORD)) {
-          jsonMap.put(GeneralConstants.FIELD_PASSWORD, GeneralConstants.VALUE_SENSITY_MASK);
-
-        }
-        json = objectMapper.writeValueAsString(jsonMap);
-      }
-      return json;
-
+      return maskingJsonMapper.write(inDTO);
     } catch (JsonProcessingException e) {
       log.error(e.getMessage());
       throw new IllegalArgumentException(e);
@@ -118,7 +123,7 @@ public class ApiRestHelper {
    * <p>
    * <b> General </b> Encabezado HTTP estandar no oficial utilizado para identificar la dirección IP
    * del cliente original que realiza una solicitud a traves de un servidor proxy o balanceador de
-   * carga.
+   * carga. Se lee del {@link RequestSecurityContext} de la solicitud.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -126,21 +131,14 @@ public class ApiRestHelper {
    * @return
    */
   public String getClientIp(HttpServletRequest request) {
-    if (request == null) {
-      return GeneralConstants.AUTO_GENERATED_EVENT;
-    }
-    String ipAddress = request.getHeader(ServiceControllerConstants.HEADER_X_FORWARDED_FOR);
-    if (ipAddress == null || ipAddress.isEmpty()
-        || ServiceControllerConstants.IP_UNKNOWN.equalsIgnoreCase(ipAddress)) {
-      ipAddress = request.getRemoteAddr();
-    }
-    return ipAddress;
+    return request != null ? RequestSecurityContext.from(request).getClientIp()
+        : GeneralConstants.AUTO_GENERATED_EVENT;
   }
 
   /**
    * <p>
    * <b> General </b> Encabezado HTTP para identificar informacion sobre el agente que envia la
-   * solicitud
+   * solicitud. Se lee del {@link RequestSecurityContext} de la solicitud.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -148,7 +146,7 @@ public class ApiRestHelper {
    * @return
    */
   public String getUserAgent(HttpServletRequest request) {
-    return request != null ? request.getHeader(ServiceControllerConstants.HEADER_USER_AGENT)
+    return request != null ? RequestSecurityContext.from(request).getUserAgent()
         : GeneralConstants.AUTO_GENERATED_EVENT;
   }
 
@@ -4,17 +4,19 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Optional;
 import org.springframework.data.domain.Pageable;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.common.component.AppContextHolderComponent;
+import com.alineumsoft.zenwk.security.common.component.AuditLogWriter;
+import com.alineumsoft.zenwk.security.common.component.AuditSuccessPolicy;
+import com.alineumsoft.zenwk.security.common.component.SegmentAuditLogSink;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
 import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
+import com.alineumsoft.zenwk.security.config.route.EndpointRoute;
 import com.alineumsoft.zenwk.security.entity.LogSecurity;
-import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
-import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
 import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -109,7 +111,8 @@ public class ApiRestSecurityHelper extends ApiRestHelper {
    * 
    * <p>
    * <b> CU001_Seguridad_Creación_Usuario </b> Obtiene el nombre el servicio (SecurityActionEnum) a
-   * desde del HttpServletRequest, si no lo cuengra retorna NOT_FOUND
+   * desde del HttpServletRequest, si no lo cuengra retorna NOT_FOUND. Usa el indice de rutas de
+   * {@link EndpointMatcher} construido al iniciar.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -117,23 +120,17 @@ public class ApiRestSecurityHelper extends ApiRestHelper {
    * @return
    */
   public String getSecurityActionCodeFromRequest(HttpServletRequest request) {
-    HttpMethod method = HttpMethod.valueOf(request.getMethod());
-    String uri = request.getRequestURI();
-    String param = Optional.ofNullable(request.getParameter(AuthConfigConstants.ID)).orElse("");
-    for (HttpMethodResourceEnum resourceEnum : HttpMethodResourceEnum.values()) {
-      if (resourceEnum.getMethod().equals(method)
-          && uri.matches(resourceEnum.getResource().replace(AuthConfigConstants.ID, param))) {
-        String actionName = resourceEnum.name();
-        SecurityActionEnum securityActionEnum = SecurityActionEnum.valueOf(actionName);
-        return securityActionEnum.getCode();
-      }
-    }
-    return CommonMessageConstants.NOT_FOUND;
+    EndpointRoute route = EndpointMatcher.find(request);
+    return route != null && route.getSecurityAction() != null ? route.getSecurityAction().getCode()
+        : CommonMessageConstants.NOT_FOUND;
   }
 
   /**
    * <p>
-   * <b> Util </b> Persistencia de log para una solicitud exitosa.
+   * <b> Util </b> Persistencia de log para una solicitud exitosa. La {@link AuditSuccessPolicy}
+   * de la accion puede omitir el log (sample) o acumularlo en el registro del intervalo
+   * (aggregate). Con el sink de segmentos habilitado se escribe en el segmento activo; si no, se
+   * encola en el {@link AuditLogWriter} y sin escritor registrado se guarda con el repositorio.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -144,7 +141,24 @@ public class ApiRestSecurityHelper extends ApiRestHelper {
   public void saveSuccessLog(int httpEstatus, LogSecurity logSec,
       LogSecurityRepository logSecurityRepo) {
     setLogSecuritySuccesfull(httpEstatus, logSec);
-    logSecurityRepo.save(logSec);
+    AuditSuccessPolicy successPolicy =
+        AppContextHolderComponent.getBeanIfAvailable(AuditSuccessPolicy.class);
+    if (successPolicy != null && !successPolicy.shouldPersist(logSec)) {
+      return;
+    }
+    SegmentAuditLogSink segmentSink =
+        AppContextHolderComponent.getBeanIfAvailable(SegmentAuditLogSink.class);
+    if (segmentSink != null) {
+      segmentSink.submit(logSec);
+      return;
+    }
+    AuditLogWriter auditLogWriter =
+        AppContextHolderComponent.getBeanIfAvailable(AuditLogWriter.class);
+    if (auditLogWriter != null) {
+      auditLogWriter.write(logSec);
+    } else {
+      logSecurityRepo.save(logSec);
+    }
   }
 
   /**
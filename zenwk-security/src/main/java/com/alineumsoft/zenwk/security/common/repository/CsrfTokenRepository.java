@@ -1,7 +1,12 @@
 package com.alineumsoft.zenwk.security.common.repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import com.alineumsoft.zenwk.security.common.entity.CsrfToken;
 
 /**
@@ -28,14 +33,43 @@ public interface CsrfTokenRepository extends JpaRepository<CsrfToken, Long> {
 
   /**
    * <p>
-   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Buscar un token por email y código.
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Buscar un token por email y digest del
+   * código (indice idx_sec_csrf_token_email_hash).
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param email
+   * @param codeHash
    * @return
    */
-  public Optional<CsrfToken> findByEmailAndCode(String email, String code);
+  public Optional<CsrfToken> findByEmailAndCodeHash(String email, String codeHash);
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Token de la sesion (email, jti), a lo
+   * sumo uno por el indice unico uk_sec_csrf_token_session.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param email
+   * @param sessionId
+   * @return
+   */
+  public Optional<CsrfToken> findByEmailAndSessionId(String email, String sessionId);
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Elimina los tokens que ya expiraron
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param now
+   * @return
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM CsrfToken ct WHERE ct.expirationDate < :now")
+  public int deleteExpired(@Param("now") LocalDateTime now);
 
 
 }
@@ -0,0 +1,193 @@
+package com.alineumsoft.zenwk.security.common.service;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_CACHE_ENABLED;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_CACHE_MAXIMUM_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_CACHE_METRIC_NAME;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_CACHE_TTL;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_DB_FALLBACK_METRIC_NAME;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.common.entity.CsrfToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Cache local acotada delante de <code>sec_csrf_token</code>. La llave es (email, SHA-256 del
+ * codigo), la misma de la tabla, de modo que el codigo en claro no queda retenido en memoria.
+ * Cada entrada expira en el <code>expirationDate</code> del token o en el ttl configurado, lo que
+ * ocurra primero; el ttl acota la demora con la que se ven las revocaciones registradas por otros
+ * nodos. Los tokens revocados no se almacenan y la revocacion local elimina la entrada.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class CsrfTokenCache
+ */
+@Component
+@Slf4j
+public class CsrfTokenCache {
+  /**
+   * Indica si la cache esta habilitada
+   */
+  private final boolean enabled;
+  /**
+   * Cache (email, digest) -> token
+   */
+  private final Cache<String, CsrfToken> cache;
+  /**
+   * Consultas a la base de datos por fallo de la cache
+   */
+  private final Counter dbFallbacks;
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param enabled
+   * @param maximumSize
+   * @param ttl
+   * @param meterRegistry
+   */
+  public CsrfTokenCache(@Value(CSRF_CACHE_ENABLED) boolean enabled,
+      @Value(CSRF_CACHE_MAXIMUM_SIZE) long maximumSize, @Value(CSRF_CACHE_TTL) long ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder().maximumSize(maximumSize)
+        .expireAfter(new UntilTokenExpiry(TimeUnit.MILLISECONDS.toNanos(ttl))).recordStats()
+        .build();
+    this.dbFallbacks = Counter.builder(CSRF_DB_FALLBACK_METRIC_NAME)
+        .description("Validaciones de token CSRF resueltas en la base de datos")
+        .register(meterRegistry);
+    if (enabled) {
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, CSRF_CACHE_METRIC_NAME);
+    }
+    log.info("CsrfTokenCache - habilitada: {}, tamano maximo: {}, ttl: {} ms", enabled,
+        maximumSize, ttl);
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Retorna el token desde la cache o lo
+   * consulta con la funcion dada (email, digest del codigo). Un token consultado y no revocado
+   * queda en la cache.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param email
+   * @param codeHash
+   * @param loader
+   * @return
+   */
+  public Optional<CsrfToken> find(String email, String codeHash,
+      BiFunction<String, String, Optional<CsrfToken>> loader) {
+    if (!enabled || codeHash == null) {
+      return loader.apply(email, codeHash);
+    }
+    String key = key(email, codeHash);
+    CsrfToken cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    dbFallbacks.increment();
+    Optional<CsrfToken> token = loader.apply(email, codeHash);
+    token.filter(t -> !t.isRevoked()).ifPresent(t -> cache.put(key, t));
+    return token;
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Agrega el token recien guardado
+   * (write-through)
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   */
+  public void put(CsrfToken token) {
+    if (enabled && token.getCodeHash() != null && !token.isRevoked()) {
+      cache.put(key(token.getEmail(), token.getCodeHash()), token);
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Elimina el token de la cache, se
+   * invoca al revocarlo
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param email
+   * @param codeHash
+   */
+  public void invalidate(String email, String codeHash) {
+    if (enabled && codeHash != null) {
+      cache.invalidate(key(email, codeHash));
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Numero aproximado de entradas en la
+   * cache
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  /**
+   * Llave email + digest del codigo
+   */
+  private static String key(String email, String codeHash) {
+    return email + ':' + codeHash;
+  }
+
+  /**
+   * Expiracion de cada entrada limitada al expirationDate del token y al ttl
+   */
+  private static final class UntilTokenExpiry implements Expiry<String, CsrfToken> {
+    private final long ttlNanos;
+
+    private UntilTokenExpiry(long ttlNanos) {
+      this.ttlNanos = ttlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(String key, CsrfToken value, long currentTime) {
+      if (value.getExpirationDate() == null) {
+        return 0L;
+      }
+      long millis = LocalDateTime.now().until(value.getExpirationDate(), ChronoUnit.MILLIS);
+      return millis > 0 ? Math.min(TimeUnit.MILLISECONDS.toNanos(millis), ttlNanos) : 0L;
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, CsrfToken value, long currentTime,
+        long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, CsrfToken value, long currentTime,
+        long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
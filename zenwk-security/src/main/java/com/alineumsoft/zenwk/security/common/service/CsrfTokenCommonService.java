@@ -1,6 +1,10 @@
 package com.alineumsoft.zenwk.security.common.service;
 
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_SWEEP_INTERVAL;
 import java.time.LocalDateTime;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
 import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
@@ -9,9 +13,11 @@ import com.alineumsoft.zenwk.security.common.exception.enums.CoreExceptionEnum;
 import com.alineumsoft.zenwk.security.common.helper.ApiRestSecurityHelper;
 import com.alineumsoft.zenwk.security.common.repository.CsrfTokenRepository;
 import com.alineumsoft.zenwk.security.common.util.CodeGenerator;
+import com.alineumsoft.zenwk.security.common.util.CryptoUtil;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service común para gestión del token CSRF
@@ -22,34 +28,58 @@ import lombok.RequiredArgsConstructor;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CsrfTokenCommonService extends ApiRestSecurityHelper {
 
   /**
    * Repositorio para los tokens csrf
    */
   private final CsrfTokenRepository csrfTokenRepo;
+  /**
+   * Cache local de los tokens csrf guardados
+   */
+  private final CsrfTokenCache csrfTokenCache;
 
   /**
    * 
    * <p>
-   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Genera el token csrf
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Genera el token csrf y lo agrega a la
+   * cache. Cada sesion (email, jti del JWT) tiene una sola fila, que se actualiza al renovar el
+   * token; el codigo anterior deja de ser valido. Sin jti se inserta una fila nueva, que el sweep
+   * elimina al expirar.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param dto
+   * @param request
+   * @param sessionId jti del JWT de la solicitud, puede ser nulo
+   * @param username
    * @return
    */
-  public TokenDTO generateCsrfToken(TokenDTO dto, HttpServletRequest request, String username) {
+  public TokenDTO generateCsrfToken(TokenDTO dto, HttpServletRequest request, String sessionId,
+      String username) {
     TokenDTO outDTO = generateTokenDTO(dto.getEmail());
-    CsrfToken csrfToken = new CsrfToken(outDTO, username, getUserAgent(request));
-    csrfTokenRepo.save(csrfToken);
+    String userAgent = getUserAgent(request);
+    CsrfToken csrfToken = renewOrCreate(outDTO, username, userAgent, sessionId);
+    try {
+      csrfTokenRepo.save(csrfToken);
+    } catch (DataIntegrityViolationException e) {
+      if (sessionId == null) {
+        throw e;
+      }
+      // Otra solicitud de la misma sesion inserto la fila primero
+      csrfToken = renewOrCreate(outDTO, username, userAgent, sessionId);
+      csrfTokenRepo.save(csrfToken);
+    }
+    csrfTokenCache.put(csrfToken);
     return outDTO;
   }
 
   /**
    * 
    * <p>
-   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Valida el token csrf
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Valida el token csrf. La base de datos
+   * solo se consulta si el token no esta en la cache.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -57,7 +87,9 @@ public class CsrfTokenCommonService extends ApiRestSecurityHelper {
    * @return
    */
   public CsrfToken validateCsrfToken(TokenDTO dto) {
-    CsrfToken csrfToken = csrfTokenRepo.findByEmailAndCode(dto.getEmail(), dto.getCode())
+    CsrfToken csrfToken = csrfTokenCache
+        .find(dto.getEmail(), CryptoUtil.sha256Hex(dto.getCode()),
+            csrfTokenRepo::findByEmailAndCodeHash)
         .orElseThrow(() -> new EntityNotFoundException(
             CoreExceptionEnum.FUNC_VERIFICATION_TOKEN_CSRF_NOT_FOUND.getCodeMessage(dto.getEmail(),
                 "[" + dto.getCode() + "]")));
@@ -70,6 +102,71 @@ public class CsrfTokenCommonService extends ApiRestSecurityHelper {
     return csrfToken;
   }
 
+  /**
+   * 
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Revoca el token csrf guardado y lo
+   * elimina de la cache
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param dto
+   */
+  public void revokeCsrfToken(TokenDTO dto) {
+    String codeHash = CryptoUtil.sha256Hex(dto.getCode());
+    csrfTokenCache.invalidate(dto.getEmail(), codeHash);
+    csrfTokenRepo.findByEmailAndCodeHash(dto.getEmail(), codeHash).ifPresent(token -> {
+      token.setRevoked(true);
+      csrfTokenRepo.save(token);
+    });
+  }
+
+  /**
+   * 
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Elimina los tokens expirados, las
+   * sesiones sin actividad no vuelven a actualizar su fila
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @Scheduled(fixedDelayString = CSRF_SWEEP_INTERVAL)
+  public void sweep() {
+    try {
+      int deleted = csrfTokenRepo.deleteExpired(LocalDateTime.now());
+      log.debug("CsrfTokenCommonService.sweep() - tokens expirados eliminados: {}", deleted);
+    } catch (DataAccessException e) {
+      log.warn("CsrfTokenCommonService.sweep() - no fue posible depurar la tabla: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * 
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Renueva la fila de la sesion o crea
+   * una nueva. El codigo anterior sale de la cache.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param dto
+   * @param username
+   * @param userAgent
+   * @param sessionId
+   * @return
+   */
+  private CsrfToken renewOrCreate(TokenDTO dto, String username, String userAgent,
+      String sessionId) {
+    if (sessionId == null) {
+      return new CsrfToken(dto, username, userAgent, null);
+    }
+    return csrfTokenRepo.findByEmailAndSessionId(dto.getEmail(), sessionId).map(token -> {
+      csrfTokenCache.invalidate(token.getEmail(), token.getCodeHash());
+      token.renew(dto);
+      return token;
+    }).orElseGet(() -> new CsrfToken(dto, username, userAgent, sessionId));
+  }
+
 
   /**
    * 
@@ -0,0 +1,249 @@
+package com.alineumsoft.zenwk.security.common.service;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_MODE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_MODE_STATELESS;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.CSRF_SIGNING_KEY;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
+import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
+import com.alineumsoft.zenwk.security.common.exception.enums.CoreExceptionEnum;
+
+/**
+ * <p>
+ * Tokens CSRF sin estado: <code>v1.{expiracion}.{nonce}.{firma}</code>, donde la firma es un HMAC
+ * SHA-256 sobre (jti, email, expiracion, nonce). El token queda ligado al JWT de la sesion y se
+ * verifica en memoria con una comparacion en tiempo constante, sin consultar
+ * <code>sec_csrf_token</code>. La revocacion se hereda del jti del JWT.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class StatelessCsrfTokenService
+ */
+@Service
+public class StatelessCsrfTokenService {
+  /**
+   * Prefijo y version del formato del token
+   */
+  public static final String TOKEN_PREFIX = "v1.";
+  /**
+   * Algoritmo de la firma
+   */
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  /**
+   * Contexto para derivar la clave desde el secreto del JWT
+   */
+  private static final String KEY_DERIVATION_CONTEXT = "zenwk-csrf-v1";
+  /**
+   * Bytes aleatorios del nonce
+   */
+  private static final int NONCE_BYTES = 16;
+  /**
+   * Separador de los campos firmados
+   */
+  private static final char SEPARATOR = '|';
+  /**
+   * random java.util.secureRandom
+   */
+  private static final SecureRandom random = new SecureRandom();
+  /**
+   * Clave HMAC vigente y sus Mac por hilo; se reemplaza completo al rotar el secreto del JWT
+   */
+  private volatile Signer signer;
+  /**
+   * Indica si los tokens nuevos se emiten sin estado
+   */
+  private final boolean stateless;
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Constructor. Sin
+   * <code>security.csrf.signing-key</code> la clave se deriva del secreto vigente del JWT y se
+   * vuelve a derivar cada vez que {@link JwtKeyHolder} rota el secreto, de modo que un secreto
+   * retirado deja de firmar y validar tokens CSRF.
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param mode
+   * @param signingKey
+   * @param keyHolder
+   */
+  public StatelessCsrfTokenService(@Value(CSRF_MODE) String mode,
+      @Value(CSRF_SIGNING_KEY) String signingKey, JwtKeyHolder keyHolder) {
+    this.stateless = CSRF_MODE_STATELESS.equalsIgnoreCase(mode);
+    if (signingKey != null && !signingKey.isBlank()) {
+      this.signer = new Signer(Base64.getDecoder().decode(signingKey));
+    } else {
+      this.signer = deriveSigner(keyHolder.getSecretKey());
+      keyHolder.addRotationListener(() -> signer = deriveSigner(keyHolder.getSecretKey()));
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Indica si los tokens nuevos se emiten
+   * sin estado (<code>security.csrf.mode=stateless</code>)
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public boolean isStateless() {
+    return stateless;
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Indica si el token tiene el formato
+   * firmado. Los demas son tokens guardados en la base de datos.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   * @return
+   */
+  public boolean isSigned(String token) {
+    return token != null && token.startsWith(TOKEN_PREFIX);
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Genera un token firmado para el jti y
+   * el email del JWT
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param jti
+   * @param email
+   * @return
+   */
+  public TokenDTO generateCsrfToken(String jti, String email) {
+    Instant expiration =
+        Instant.now().plusSeconds(GeneralConstants.TOKEN_CSRF_CODE_MINUTES * 60L);
+    byte[] nonceBytes = new byte[NONCE_BYTES];
+    random.nextBytes(nonceBytes);
+    String unsigned = TOKEN_PREFIX + expiration.getEpochSecond() + "."
+        + Base64.getUrlEncoder().withoutPadding().encodeToString(nonceBytes);
+
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail(email);
+    dto.setCode(unsigned + "." + Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(sign(unsigned, jti, email)));
+    dto.setExpirationDate(LocalDateTime.ofInstant(expiration, ZoneId.systemDefault()));
+    return dto;
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Verifica la firma y la expiracion del
+   * token para el jti y el email del JWT. Retorna la fecha de expiracion.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param token
+   * @param jti
+   * @param email
+   * @return
+   * @throws IllegalArgumentException si la firma no es valida o el token expiro
+   */
+  public LocalDateTime validateCsrfToken(String token, String jti, String email) {
+    if (!isSigned(token) || jti == null || email == null) {
+      throw notFound(token, email);
+    }
+    int signatureStart = token.lastIndexOf('.');
+    int nonceStart = token.lastIndexOf('.', signatureStart - 1);
+    if (nonceStart <= TOKEN_PREFIX.length()) {
+      throw notFound(token, email);
+    }
+    byte[] signature;
+    long expiration;
+    try {
+      signature = Base64.getUrlDecoder().decode(token.substring(signatureStart + 1));
+      expiration = Long.parseLong(token, TOKEN_PREFIX.length(), nonceStart, 10);
+    } catch (IllegalArgumentException e) {
+      throw notFound(token, email);
+    }
+    if (!MessageDigest.isEqual(sign(token.substring(0, signatureStart), jti, email), signature)) {
+      throw notFound(token, email);
+    }
+    Instant expirationDate = Instant.ofEpochSecond(expiration);
+    if (expirationDate.isBefore(Instant.now())) {
+      throw new IllegalArgumentException(
+          CoreExceptionEnum.FUNC_VERIFICATION_TOKEN_CSRF_EXPIRATION.getCodeMessage());
+    }
+    return LocalDateTime.ofInstant(expirationDate, ZoneId.systemDefault());
+  }
+
+  /**
+   * Firma (version, expiracion, nonce) | jti | email
+   */
+  private byte[] sign(String unsigned, String jti, String email) {
+    Mac mac = signer.macs.get();
+    mac.update(unsigned.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) SEPARATOR);
+    mac.update(jti.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) SEPARATOR);
+    return mac.doFinal(email.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Error de token inexistente, no se distingue la causa
+   */
+  private static IllegalArgumentException notFound(String token, String email) {
+    return new IllegalArgumentException(CoreExceptionEnum.FUNC_VERIFICATION_TOKEN_CSRF_NOT_FOUND
+        .getCodeMessage(email, "[" + token + "]"));
+  }
+
+  /**
+   * Clave derivada del secreto del JWT
+   */
+  private static Signer deriveSigner(String jwtSecret) {
+    return new Signer(
+        hmac(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM),
+            KEY_DERIVATION_CONTEXT));
+  }
+
+  /**
+   * HMAC del texto con la clave
+   */
+  private static byte[] hmac(SecretKeySpec secret, String value) {
+    return newMac(secret).doFinal(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Nueva instancia de Mac inicializada con la clave
+   */
+  private static Mac newMac(SecretKeySpec secret) {
+    try {
+      Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(secret);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Clave HMAC con un Mac por hilo, la instancia de Mac no es thread-safe
+   */
+  private static final class Signer {
+    private final ThreadLocal<Mac> macs;
+
+    private Signer(byte[] keyBytes) {
+      SecretKeySpec key = new SecretKeySpec(keyBytes, MAC_ALGORITHM);
+      this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+  }
+}
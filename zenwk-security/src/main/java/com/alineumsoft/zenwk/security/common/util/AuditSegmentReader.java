@@ -0,0 +1,87 @@
+package com.alineumsoft.zenwk.security.common.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+import com.alineumsoft.zenwk.security.common.component.MaskingJsonMapper;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+
+/**
+ * <p>
+ * Consulta de los segmentos de auditoria por rango de fechas, sin base de datos. Sirve tanto para
+ * el directorio del sink como para el de exportacion; el segmento activo se lee hasta su ultimo
+ * registro completo. Desde la linea de comandos imprime un JSON por log:
+ * </p>
+ *
+ * <pre>
+ * ./gradlew auditSegments -PauditArgs="audit-segments 2025-01-01T00:00 2025-01-02T00:00"
+ * </pre>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditSegmentReader
+ */
+public final class AuditSegmentReader {
+
+  /**
+   * <p>
+   * Constructor
+   * </p>
+   */
+  private AuditSegmentReader() {
+
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Logs de los segmentos del directorio creados en [from, to), en orden de
+   * escritura
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param directory
+   * @param from null sin limite inferior
+   * @param to null sin limite superior
+   * @return
+   * @throws IOException
+   */
+  public static List<LogSecurity> read(Path directory, LocalDateTime from, LocalDateTime to)
+      throws IOException {
+    long fromMillis = from != null ? AuditSegmentUtil.toEpochMillis(from) : Long.MIN_VALUE;
+    long toMillis = to != null ? AuditSegmentUtil.toEpochMillis(to) : Long.MAX_VALUE;
+    LongPredicate inRange = millis -> millis >= fromMillis && millis < toMillis;
+    List<LogSecurity> logs = new ArrayList<>();
+    for (Path segment : AuditSegmentUtil.segments(directory)) {
+      AuditSegmentUtil.scan(ByteBuffer.wrap(Files.readAllBytes(segment)), inRange, logs::add);
+    }
+    return logs;
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Linea de comandos: directorio [desde] [hasta], fechas ISO-8601 locales
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param args
+   * @throws IOException
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Uso: AuditSegmentReader <directorio> [desde] [hasta]");
+      System.exit(1);
+    }
+    LocalDateTime from = args.length > 1 ? LocalDateTime.parse(args[1]) : null;
+    LocalDateTime to = args.length > 2 ? LocalDateTime.parse(args[2]) : null;
+    // Los logs ya se enmascararon al escribirse; se imprimen completos
+    MaskingJsonMapper mapper = MaskingJsonMapper.of(List.of(), 0);
+    for (LogSecurity logSec : read(Path.of(args[0]), from, to)) {
+      System.out.println(mapper.write(logSec));
+    }
+  }
+}
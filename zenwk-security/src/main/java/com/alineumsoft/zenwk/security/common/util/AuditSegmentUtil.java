@@ -0,0 +1,239 @@
+package com.alineumsoft.zenwk.security.common.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+
+/**
+ * <p>
+ * Formato de los segmentos de auditoria. Cada registro es
+ * <code>[longitud int][crc32 int][carga]</code>; la carga inicia con la fecha de creacion en
+ * milisegundos (UTC sin zona, como el LocalDateTime de la entidad) y el codigo de estado, seguidos
+ * de los textos del log con su longitud en UTF-8 (-1 para null). Una longitud 0 marca el fin de
+ * los datos escritos y un CRC que no coincide, un registro incompleto.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditSegmentUtil
+ */
+public final class AuditSegmentUtil {
+  /**
+   * Longitud y CRC de cada registro
+   */
+  public static final int HEADER_BYTES = 2 * Integer.BYTES;
+  private static final String SEGMENT_PREFIX = "audit-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final long NULL_DATE = Long.MIN_VALUE;
+  private static final int NULL_STATUS = Integer.MIN_VALUE;
+  private static final int NULL_TEXT = -1;
+  private static final int TEXT_FIELDS = 10;
+
+  /**
+   * <p>
+   * Constructor
+   * </p>
+   */
+  private AuditSegmentUtil() {
+
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Registro completo del log, con encabezado
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param logSec
+   * @return
+   */
+  public static byte[] encode(LogSecurity logSec) {
+    String[] texts = {logSec.getMethod(), logSec.getUrl(), logSec.getRequest(),
+        logSec.getResponse(), logSec.getErrorMessage(), logSec.getUserCreation(),
+        logSec.getIpAddress(), logSec.getUserAgent(), logSec.getExecutionTime(),
+        logSec.getServiceName()};
+    byte[][] values = new byte[TEXT_FIELDS][];
+    int size = HEADER_BYTES + Long.BYTES + Integer.BYTES;
+    for (int i = 0; i < TEXT_FIELDS; i++) {
+      values[i] = texts[i] != null ? texts[i].getBytes(StandardCharsets.UTF_8) : null;
+      size += Integer.BYTES + (values[i] != null ? values[i].length : 0);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.position(HEADER_BYTES);
+    buffer.putLong(toEpochMillis(logSec.getCreationDate()));
+    buffer.putInt(logSec.getStatusCode() != null ? logSec.getStatusCode() : NULL_STATUS);
+    for (byte[] value : values) {
+      if (value == null) {
+        buffer.putInt(NULL_TEXT);
+      } else {
+        buffer.putInt(value.length).put(value);
+      }
+    }
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), HEADER_BYTES, size - HEADER_BYTES);
+    buffer.putInt(0, size - HEADER_BYTES).putInt(Integer.BYTES, (int) crc.getValue());
+    return buffer.array();
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Recorre los registros validos del segmento desde su inicio
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param segment
+   * @param consumer null para solo validar
+   * @return Posicion siguiente al ultimo registro valido
+   */
+  public static int scan(ByteBuffer segment, Consumer<LogSecurity> consumer) {
+    return scan(segment, creationMillis -> true, consumer);
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Recorre los registros validos del segmento; solo decodifica los que cumplen
+   * el filtro sobre la fecha de creacion en milisegundos
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param segment
+   * @param creationFilter
+   * @param consumer null para solo validar
+   * @return Posicion siguiente al ultimo registro valido
+   */
+  public static int scan(ByteBuffer segment, LongPredicate creationFilter,
+      Consumer<LogSecurity> consumer) {
+    int position = 0;
+    int limit = segment.limit();
+    while (limit - position >= HEADER_BYTES) {
+      int length = segment.getInt(position);
+      if (length <= 0 || length > limit - position - HEADER_BYTES) {
+        break;
+      }
+      ByteBuffer payload = segment.slice(position + HEADER_BYTES, length);
+      CRC32 crc = new CRC32();
+      crc.update(payload.duplicate());
+      if ((int) crc.getValue() != segment.getInt(position + Integer.BYTES)) {
+        break;
+      }
+      if (consumer != null && creationFilter.test(payload.getLong(0))) {
+        consumer.accept(decode(payload));
+      }
+      position += HEADER_BYTES + length;
+    }
+    return position;
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Fecha de creacion en el formato del registro
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param creationDate
+   * @return
+   */
+  public static long toEpochMillis(LocalDateTime creationDate) {
+    return creationDate != null ? creationDate.toInstant(ZoneOffset.UTC).toEpochMilli()
+        : NULL_DATE;
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Nombre del segmento con la secuencia
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param sequence
+   * @return
+   */
+  public static String segmentName(long sequence) {
+    return String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Secuencia del segmento a partir de su nombre
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param segment
+   * @return
+   */
+  public static long sequence(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  /**
+   * <p>
+   * <b> General </b> Segmentos del directorio en orden de escritura
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param directory
+   * @return
+   * @throws IOException
+   */
+  public static List<Path> segments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(AuditSegmentUtil::isSegment)
+          .sorted(Comparator.comparingLong(AuditSegmentUtil::sequence)).toList();
+    }
+  }
+
+  private static boolean isSegment(Path file) {
+    String name = file.getFileName().toString();
+    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+        && name.length() == SEGMENT_PREFIX.length() + 20 + SEGMENT_SUFFIX.length();
+  }
+
+  /**
+   * Log a partir de la carga del registro
+   */
+  private static LogSecurity decode(ByteBuffer payload) {
+    long creationMillis = payload.getLong();
+    int statusCode = payload.getInt();
+    String[] texts = new String[TEXT_FIELDS];
+    for (int i = 0; i < TEXT_FIELDS; i++) {
+      int length = payload.getInt();
+      if (length != NULL_TEXT) {
+        byte[] value = new byte[length];
+        payload.get(value);
+        texts[i] = new String(value, StandardCharsets.UTF_8);
+      }
+    }
+    LogSecurity logSec = new LogSecurity();
+    logSec.setCreationDate(creationMillis != NULL_DATE
+        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(creationMillis), ZoneOffset.UTC)
+        : null);
+    logSec.setStatusCode(statusCode != NULL_STATUS ? statusCode : null);
+    logSec.setMethod(texts[0]);
+    logSec.setUrl(texts[1]);
+    logSec.setRequest(texts[2]);
+    logSec.setResponse(texts[3]);
+    logSec.setErrorMessage(texts[4]);
+    logSec.setUserCreation(texts[5]);
+    logSec.setIpAddress(texts[6]);
+    logSec.setUserAgent(texts[7]);
+    logSec.setExecutionTime(texts[8]);
+    logSec.setServiceName(texts[9]);
+    return logSec;
+  }
+}
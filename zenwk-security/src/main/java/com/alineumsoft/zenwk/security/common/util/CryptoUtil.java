@@ -1,8 +1,11 @@
 package com.alineumsoft.zenwk.security.common.util;
 
+import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.HexFormat;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -21,6 +24,12 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 public final class CryptoUtil {
   private static final PasswordEncoder BCRYPT_ENCODER = new BCryptPasswordEncoder();
   private static final String AES_ALGORITHM = "AES/GCM/NoPadding";
+  private static final String SHA256_ALGORITHM = "SHA-256";
+  /**
+   * Digest por hilo, MessageDigest no es thread-safe
+   */
+  private static final ThreadLocal<MessageDigest> SHA256 =
+      ThreadLocal.withInitial(CryptoUtil::newSha256);
 
 
   /**
@@ -118,4 +127,34 @@ public final class CryptoUtil {
     return Base64.getEncoder().encodeToString(secretKey.getEncoded());
   }
 
+  /**
+   * <p>
+   * <b> CryptoUtil: </b> Digest SHA-256 del texto en hexadecimal (64 caracteres). Se usa para
+   * guardar y buscar tokens sin almacenar el valor en claro.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param rawText
+   * @return
+   */
+  public static String sha256Hex(String rawText) {
+    if (rawText == null) {
+      return null;
+    }
+    MessageDigest md = SHA256.get();
+    md.reset();
+    return HexFormat.of().formatHex(md.digest(rawText.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Instancia del digest SHA-256
+   */
+  private static MessageDigest newSha256() {
+    try {
+      return MessageDigest.getInstance(SHA256_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
 }
@@ -7,17 +7,20 @@ import java.util.Set;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
 import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
 import com.alineumsoft.zenwk.security.common.entity.CsrfToken;
 import com.alineumsoft.zenwk.security.common.enums.PermissionOperationEnum;
 import com.alineumsoft.zenwk.security.common.exception.enums.CoreExceptionEnum;
 import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContext;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
 import com.alineumsoft.zenwk.security.config.util.ConfigUtils;
 import com.alineumsoft.zenwk.security.config.util.CookieUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -43,6 +46,10 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
    * Servicio común para la gestión del token csrf
    */
   public final CsrfTokenCommonService csrfTokenCommonService;
+  /**
+   * Servicio para los tokens csrf firmados (sin estado)
+   */
+  private final StatelessCsrfTokenService statelessCsrfTokenService;
 
   /**
    * Utilidad para cookie
@@ -70,20 +77,17 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
       FilterChain filterChain) throws ServletException, IOException {
 
-    if (ConfigUtils.isPublicEndpoint(request.getRequestURI())
-        || SAFE_METHODS.contains(request.getMethod())) {
+    if (EndpointMatcher.isPublic(request) || SAFE_METHODS.contains(request.getMethod())) {
       filterChain.doFilter(request, response);
       return;
     }
 
-    String tokenCsrf = extractCookieFromName(request, AuthConfigConstants.XCSRF_TOKEN).orElse(null);
-    String tokenJwt = extractCookieFromName(request, AuthConfigConstants.ZENWK_JWT).orElse(null);
-    String email = jwtProvider.extractUserEmail(tokenJwt);
-
-
+    String tokenCsrf = RequestSecurityContext.from(request).getCsrfToken();
+    // El jwt se verifica una sola vez y queda en el request para el filtro de autenticacion
+    VerifiedJwt jwt = jwtProvider.resolveVerifiedJwt(request).orElse(null);
 
     // Se da el acceso si el token csrf es valido
-    if (validateCsrfToken(response, tokenCsrf, tokenJwt, email, request)) {
+    if (validateCsrfToken(response, tokenCsrf, jwt, request)) {
       filterChain.doFilter(request, response);
     }
   }
@@ -92,8 +96,8 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
   /**
    * 
    * <p>
-   * <b> CU001_Seguridad_Creacion_Usuario </b> Extrae el token JWT desde la cookie httpOnly desde la
-   * solicitud
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Extrae el valor de la cookie desde la solicitud. Las
+   * cookies se leen una sola vez en el {@link RequestSecurityContext}.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -102,14 +106,7 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
    * @return
    */
   public Optional<String> extractCookieFromName(HttpServletRequest request, String nameCookie) {
-    if (request.getCookies() != null) {
-      for (Cookie cookie : request.getCookies()) {
-        if (nameCookie.equals(cookie.getName())) {
-          return Optional.of(cookie.getValue());
-        }
-      }
-    }
-    return Optional.empty();
+    return Optional.ofNullable(RequestSecurityContext.from(request).getCookie(nameCookie));
   }
 
   /**
@@ -118,19 +115,22 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
    * <b> CU00X_Gestionar protección contra ataques CSRF </b> Validación del token CSRF en caso de
    * error 403 es gestionado por spring security que oculta el error personalizado del respons, para
    * cambiar esta configuración se debe realizar un desarrollo de un excepcion handler y llamarlo en
-   * la cadena de filtro de spring security.
+   * la cadena de filtro de spring security. Los tokens firmados se verifican en memoria contra el jti
+   * del JWT; los demas se consultan en la base de datos.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param response
    * @param tokenCsrf
-   * @param email
+   * @param jwt
    * @param request
    * @return
    * @throws IOException
    */
-  private boolean validateCsrfToken(HttpServletResponse response, String tokenCsrf, String tokenJwt,
-      String email, HttpServletRequest request) throws IOException {
+  private boolean validateCsrfToken(HttpServletResponse response, String tokenCsrf,
+      VerifiedJwt jwt, HttpServletRequest request) throws IOException {
+    String tokenJwt = jwt != null ? jwt.getToken() : null;
+    String email = jwt != null ? jwt.getEmail() : null;
 
     if (!ConfigUtils.isActiveLogout(tokenCsrf, tokenJwt, request.getRequestURI())) {
       log.error("CSRF invalid credentials - nulo en el parametro tokenCsrf / tokenJwt");
@@ -147,12 +147,21 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
         TokenDTO tokenDto = new TokenDTO();
         tokenDto.setEmail(email);
         tokenDto.setCode(tokenCsrf);
-        CsrfToken csrfToken = csrfTokenCommonService.validateCsrfToken(tokenDto);
-
+        LocalDateTime expirationDate;
+        if (statelessCsrfTokenService.isSigned(tokenCsrf)) {
+          expirationDate = validateSignedCsrfToken(tokenCsrf, jwt);
+        } else {
+          CsrfToken csrfToken = csrfTokenCommonService.validateCsrfToken(tokenDto);
+          expirationDate = csrfToken.getExpirationDate();
+        }
 
-        if (isNearExpiration(csrfToken.getExpirationDate())) {
+        if (isNearExpiration(expirationDate)) {
           log.debug("Renovando token CSRF automáticamente, expiración próxima.");
-          refreshToken(response, request, tokenDto);
+          refreshToken(response, request, tokenDto, jwt);
+        } else if (statelessCsrfTokenService.isStateless()
+            && !statelessCsrfTokenService.isSigned(tokenCsrf)) {
+          // Se cambia el token guardado por uno firmado, las siguientes escrituras no van a la BD
+          refreshToken(response, request, tokenDto, jwt);
         }
 
         return true;
@@ -168,17 +177,44 @@ public class CsrfValidationFilter extends OncePerRequestFilter {
   /**
    * 
    * <p>
-   * <b> CU001_XX </b> Generar nuevo token
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Valida el token firmado. El JWT debe
+   * estar vigente y no revocado: la revocacion del jti invalida tambien el token CSRF.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param tokenCsrf
+   * @param jwt
+   * @return
+   */
+  private LocalDateTime validateSignedCsrfToken(String tokenCsrf, VerifiedJwt jwt) {
+    if (jwt != null && jwtProvider.isRevoked(jwt)) {
+      throw new IllegalArgumentException(
+          CoreExceptionEnum.FUNC_VERIFICATION_TOKEN_CSRF_REVOKED.getCodeMessage());
+    }
+    return statelessCsrfTokenService.validateCsrfToken(tokenCsrf,
+        jwt != null ? jwt.getId() : null, jwt != null ? jwt.getEmail() : null);
+  }
+
+  /**
+   * 
+   * <p>
+   * <b> CU001_XX </b> Generar nuevo token. En modo sin estado el token se firma con el jti del JWT;
+   * en otro caso se guarda en la fila de la sesion (email, jti).
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param response
    * @param request
    * @param tokenDto
+   * @param jwt
    */
   private void refreshToken(HttpServletResponse response, HttpServletRequest request,
-      TokenDTO tokenDto) {
-    TokenDTO newToken = csrfTokenCommonService.generateCsrfToken(tokenDto, request, null);
+      TokenDTO tokenDto, VerifiedJwt jwt) {
+    TokenDTO newToken =
+        statelessCsrfTokenService.isStateless() && jwt != null && jwt.getId() != null
+            ? statelessCsrfTokenService.generateCsrfToken(jwt.getId(), tokenDto.getEmail())
+            : csrfTokenCommonService.generateCsrfToken(tokenDto, request,
+                jwt != null ? jwt.getId() : null, null);
     cookieUtil.generateCookieCsrf(response, newToken.getCode());
   }
 
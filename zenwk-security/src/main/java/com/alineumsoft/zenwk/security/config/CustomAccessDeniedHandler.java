@@ -5,6 +5,7 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.stereotype.Component;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -59,8 +60,8 @@ public class CustomAccessDeniedHandler implements AccessDeniedHandler {
   @Override
   public void handle(HttpServletRequest request, HttpServletResponse response,
       AccessDeniedException accessDeniedException) throws IOException {
-    String token = jwtProvider.extractTokenFromAuthorization(request).orElse(null);
-    String username = jwtProvider.extractAllClaims(token).getSubject();
+    String username =
+        jwtProvider.resolveVerifiedJwt(request).map(VerifiedJwt::getSubject).orElse(null);
     jwtProvider.sendErrorResponse(username, request, response, HttpServletResponse.SC_FORBIDDEN,
         SecurityExceptionEnum.FUNC_AUTH_URI_FORBIDDEN);
   }
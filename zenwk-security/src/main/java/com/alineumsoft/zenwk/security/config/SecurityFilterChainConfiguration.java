@@ -1,9 +1,6 @@
 package com.alineumsoft.zenwk.security.config;
 
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -18,17 +15,13 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
-import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationFilter;
-import com.alineumsoft.zenwk.security.auth.service.PermissionService;
-import com.alineumsoft.zenwk.security.common.enums.PermissionOperationEnum;
-import com.alineumsoft.zenwk.security.dto.PermissionDTO;
-import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
+import com.alineumsoft.zenwk.security.config.authorization.RoleMatrixAuthorizationManager;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -56,9 +49,9 @@ public class SecurityFilterChainConfiguration {
    */
   private final AuthenticationProvider authenticationProvider;
   /**
-   * Servicio para la gestion de permisos
+   * Autorizacion por la matriz de roles y permisos
    */
-  private final PermissionService permService;
+  private final RoleMatrixAuthorizationManager roleMatrixAuthorizationManager;
   /**
    * Manejador para los errores de acceso denegado
    */
@@ -120,12 +113,51 @@ public class SecurityFilterChainConfiguration {
     return registration;
   }
 
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Deshabilita el registro automatico del filtro JWT
+   * como filtro del servlet. Al ser un @Component Spring Boot lo registraria ademas de agregarlo a
+   * la cadena de Spring Security; debe ejecutarse solo dentro de la cadena.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param filter
+   * @return
+   */
+  @Bean
+  public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthFilterRegistration(
+      JwtAuthenticationFilter filter) {
+    FilterRegistrationBean<JwtAuthenticationFilter> registration =
+        new FilterRegistrationBean<>(filter);
+    registration.setEnabled(false);
+    return registration;
+  }
+
+  /**
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Deshabilita el registro automatico del
+   * filtro CSRF como filtro del servlet, se ejecuta solo dentro de la cadena de Spring Security.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param filter
+   * @return
+   */
+  @Bean
+  public FilterRegistrationBean<CsrfValidationFilter> csrfValidationFilterRegistration(
+      CsrfValidationFilter filter) {
+    FilterRegistrationBean<CsrfValidationFilter> registration =
+        new FilterRegistrationBean<>(filter);
+    registration.setEnabled(false);
+    return registration;
+  }
+
   /**
    * 
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Configura la seguridad de la aplicación utilizando
-   * Spring Security. Define las reglas de autorización de acceso a los endpoints agrupando por
-   * operación.
+   * Spring Security. Define las reglas de autorización de acceso a los endpoints por los permisos
+   * de cada rol.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
@@ -135,8 +167,6 @@ public class SecurityFilterChainConfiguration {
    */
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
-    final Map<PermissionOperationEnum, List<PermissionDTO>> maRolPermissions =
-        permService.getOperationPermission();
     // Usa la configuraciópn por defecto: @Bean corsConfigurationSource()
     http.headers(headers -> headers
         // (protección XSS spring.security )
@@ -152,7 +182,7 @@ public class SecurityFilterChainConfiguration {
         // CORS (usa el bean @Bean corsConfigurationSource())
         .cors(Customizer.withDefaults())
         // Configurar las reglas de autorización
-        .authorizeHttpRequests(request -> configureAuthorizationRules(request, maRolPermissions))
+        .authorizeHttpRequests(this::configureAuthorizationRules)
         // CSRF con repositorio basado en cookie (o usa tu filtro personalizado si aplica)
         .addFilterBefore(csrfValidationFilter, CorsFilter.class)
         .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
@@ -170,125 +200,21 @@ public class SecurityFilterChainConfiguration {
   /**
    * <p>
    * <b> CU001_Seguridad_Creacion_Usuario </b> Configura las reglas de autorización por path y
-   * método HTTP
+   * método HTTP. Las rutas con permisos se autorizan con la matriz de roles vigente, que se recarga
+   * al cambiar los permisos sin reiniciar la aplicación.
    * </p>
    * 
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
    * @param request
-   * @param maRolPermissions
    */
   private void configureAuthorizationRules(
-      AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry request,
-      Map<PermissionOperationEnum, List<PermissionDTO>> maRolPermissions) {
-
-    // Endpoints públicos
-    request
-        .requestMatchers(HttpMethodResourceEnum.USER_CREATE.getMethod(),
-            HttpMethodResourceEnum.USER_CREATE.getResource())
-        .permitAll()
-        .requestMatchers(HttpMethodResourceEnum.USER_JWT_ME.getMethod(),
-            HttpMethodResourceEnum.USER_JWT_ME.getResource())
-        .permitAll()
-        .requestMatchers(HttpMethodResourceEnum.AUTH_LOGIN.getMethod(),
-            HttpMethodResourceEnum.AUTH_LOGIN.getResource())
-        .permitAll().requestMatchers(HttpMethodResourceEnum.VERIFICATION_TOKEN.getResource())
-        .permitAll()
-        .requestMatchers(HttpMethodResourceEnum.USER_GET_EMAIL.getMethod(),
-            HttpMethodResourceEnum.USER_GET_EMAIL.getResource())
-        .permitAll()
-        .requestMatchers(HttpMethodResourceEnum.SEX_LIST_OPTIONS.getMethod(),
-            HttpMethodResourceEnum.SEX_LIST_OPTIONS.getResource())
-        .permitAll()
-        // .requestMatchers(HttpMethodResourceEnum.AUTH_REFRESH_JWT.getMethod(),
-        // HttpMethodResourceEnum.AUTH_REFRESH_JWT.getResource())
-        // .permitAll()
-        .requestMatchers(HttpMethodResourceEnum.AUTH_RESET_PASSWORD.getMethod(),
-            HttpMethodResourceEnum.AUTH_RESET_PASSWORD.getResource())
-        .permitAll().requestMatchers(HttpMethodResourceEnum.ACTUATOR.getResource()).permitAll();
-
-    // Aplicar permisos basados en roles y operaciones
-    addAuthorizationForOperation(request, maRolPermissions);
-
-    request.anyRequest().authenticated();
-  }
-
+      AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry request) {
 
-  /**
-   * <p>
-   * <b> CU001_Seguridad_Creacion_Usuario </b> Agrega restricciones solo si hay permisos en el mapa
-   * </p>
-   * 
-   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
-   * @param request
-   * @param maRolPermissions
-   */
-  private void addAuthorizationForOperation(
-      AuthorizeHttpRequestsConfigurer<HttpSecurity>.AuthorizationManagerRequestMatcherRegistry request,
-      Map<PermissionOperationEnum, List<PermissionDTO>> maRolPermissions) {
-    if (!maRolPermissions.isEmpty()) {
-      request
-          .requestMatchers(
-              getRequestMatchersForOperation(PermissionOperationEnum.CREATE, maRolPermissions))
-          .hasAnyAuthority(getRoles(maRolPermissions.get(PermissionOperationEnum.CREATE)))
-          .requestMatchers(
-              getRequestMatchersForOperation(PermissionOperationEnum.UPDATE, maRolPermissions))
-          .hasAnyAuthority(getRoles(maRolPermissions.get(PermissionOperationEnum.UPDATE)))
-          .requestMatchers(
-              getRequestMatchersForOperation(PermissionOperationEnum.DELETE, maRolPermissions))
-          .hasAnyAuthority(getRoles(maRolPermissions.get(PermissionOperationEnum.DELETE)))
-          .requestMatchers(
-              getRequestMatchersForOperation(PermissionOperationEnum.LIST, maRolPermissions))
-          .hasAnyAuthority(getRoles(maRolPermissions.get(PermissionOperationEnum.LIST)))
-          .requestMatchers(
-              getRequestMatchersForOperation(PermissionOperationEnum.GET, maRolPermissions))
-          .hasAnyAuthority(getRoles(maRolPermissions.get(PermissionOperationEnum.GET)));
-    }
-  }
-
-  /**
-   * <p>
-   * <b> CU001_Seguridad_Creacion_Usuario </b> Obtiene los `RequestMatcher` correspondientes a una
-   * operación especifica, eliminando rutas duplicadas.
-   * </p>
-   * 
-   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
-   * @param operation
-   * @param mapPermission
-   * @return
-   */
-  private RequestMatcher[] getRequestMatchersForOperation(PermissionOperationEnum operation,
-      Map<PermissionOperationEnum, List<PermissionDTO>> mapPermission) {
-    // Obtener los permisos asociados al rol
-    List<PermissionDTO> listPermissions = mapPermission.get(operation);
-
-    // Si no hay permisos, devolver un array vacio
-    if (listPermissions == null || listPermissions.isEmpty()) {
-      return new RequestMatcher[0];
-    }
-
-    // Elminar permisos duplicados por la consulta.
-    // Convertir los permisos en RequestMatchers[].
-    return listPermissions.stream()
-        .map(perm -> new AntPathRequestMatcher(perm.getResource(), perm.getMethod().toUpperCase()))
-        .collect(Collectors.toCollection(LinkedHashSet::new)).toArray(RequestMatcher[]::new);
-  }
-
-  /**
-   * <p>
-   * <b> CU001_Seguridad_Creacion_Usuario </b> Obtiene los roles asociados a una lista de permisos
-   * eliminando duplicados.
-   * </p>
-   * 
-   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
-   * @param listPermission
-   * @return
-   */
-  private String[] getRoles(List<PermissionDTO> listPermission) {
-    // Elimina roles duplicados por la consulta original.
-    // Convierte una lista de roles en un String[]
-    return listPermission.stream().map(PermissionDTO::getName)
-        .collect(Collectors.toCollection(LinkedHashSet::new)).toArray(String[]::new);
+    // Endpoints públicos y autenticados sin permisos de rol (indice de rutas por metodo)
+    request.requestMatchers(EndpointMatcher::isPermitAll).permitAll();
 
+    // Aplicar permisos basados en roles (rol -> metodo -> ruta)
+    request.anyRequest().access(roleMatrixAuthorizationManager);
   }
 
 }
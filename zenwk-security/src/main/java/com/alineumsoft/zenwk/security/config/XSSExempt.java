@@ -0,0 +1,23 @@
+package com.alineumsoft.zenwk.security.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p>
+ * Excluye un campo del body JSON de la sanitizacion XSS de {@link XSSJacksonModule}, p.ej. el
+ * password, que se debe recibir sin cambios.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project zenwk-security
+ * @class XSSExempt
+ */
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface XSSExempt {
+}
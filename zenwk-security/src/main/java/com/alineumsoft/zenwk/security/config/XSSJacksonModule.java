@@ -0,0 +1,32 @@
+package com.alineumsoft.zenwk.security.config;
+
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * <p>
+ * Modulo Jackson que sanitiza los textos de los body JSON. Spring Boot registra los modulos
+ * declarados como beans en el ObjectMapper de los controladores, por lo que la sanitizacion ocurre
+ * en el unico parseo del body. {@link XSSFilter} cubre los parametros de la query y formularios.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project zenwk-security
+ * @class XSSJacksonModule
+ */
+@Component
+public class XSSJacksonModule extends SimpleModule {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * <p>
+   * <b> CU001_XX_Filtro_XSS </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   */
+  public XSSJacksonModule() {
+    super("XSSJacksonModule");
+    addDeserializer(String.class, XSSStringDeserializer.INSTANCE);
+  }
+}
@@ -1,23 +1,48 @@
 package com.alineumsoft.zenwk.security.config;
 
 
-import org.apache.commons.text.StringEscapeUtils;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
 /**
- * 
+ * <p>
+ * Wrapper que escapa los parametros de la query y de los formularios. Los valores sanitizados se
+ * memorizan por nombre durante la solicitud, por lo que las lecturas repetidas (data binding de
+ * Spring, filtros y controladores) no vuelven a escapar ni crean objetos.
+ * </p>
+ *
  * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
  * @project zenwk-security
  * @class XSSRequestWrapper
  */
 public class XSSRequestWrapper extends HttpServletRequestWrapper {
   /**
-   * 
+   * Parametro que no se sanitiza
+   */
+  private static final String PASSWORD_PARAMETER = "password";
+  /**
+   * Valores de un parametro inexistente
+   */
+  private static final String[] NO_VALUES = new String[0];
+  /**
+   * Nombre del parametro -> valores sanitizados. La solicitud la atiende un solo hilo
+   */
+  private final Map<String, String[]> sanitizedValues = new HashMap<>();
+  /**
+   * Mapa de parametros sanitizado, se crea en la primera llamada a getParameterMap
+   */
+  private Map<String, String[]> sanitizedParameterMap;
+
+  /**
+   *
    * <p>
    * <b> Super constructor </b>
    * </p>
-   * 
+   *
    * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
    * @param request
    */
@@ -34,11 +59,8 @@ public class XSSRequestWrapper extends HttpServletRequestWrapper {
    */
   @Override
   public String getParameter(String name) {
-    // No sanitizar el password ni campos sensibles
-    if ("password".equalsIgnoreCase(name)) {
-      return super.getParameter(name);
-    }
-    return sanitize(super.getParameter(name));
+    String[] values = getSanitizedValues(name);
+    return values.length > 0 ? values[0] : null;
   }
 
   /**
@@ -49,37 +71,69 @@ public class XSSRequestWrapper extends HttpServletRequestWrapper {
    */
   @Override
   public String[] getParameterValues(String name) {
-    String[] values = super.getParameterValues(name);
-    if (values == null)
-      return new String[0];
-
-    // Exclusión directa
-    if ("password".equalsIgnoreCase(name)) {
-      return values;
-    }
+    return getSanitizedValues(name);
+  }
 
-    String[] sanitized = new String[values.length];
-    for (int i = 0; i < values.length; i++) {
-      sanitized[i] = sanitize(values[i]);
+  /**
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   * @see jakarta.servlet.ServletRequestWrapper#getParameterMap()
+   */
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    if (sanitizedParameterMap == null) {
+      Map<String, String[]> parameters = new LinkedHashMap<>();
+      for (String name : super.getParameterMap().keySet()) {
+        parameters.put(name, getSanitizedValues(name));
+      }
+      sanitizedParameterMap = Collections.unmodifiableMap(parameters);
     }
-    return sanitized;
+    return sanitizedParameterMap;
   }
 
-
   /**
-   * 
+   *
    * <p>
-   * <b> CU001_XX </b> XXX
+   * <b> CU001_XX_Filtro_XSS </b> Valores sanitizados del parametro. Se calculan una sola vez por
+   * solicitud; si ningun valor cambia se retorna el arreglo original.
    * </p>
-   * 
+   *
    * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
-   * @param input
+   * @param name
    * @return
    */
-  private String sanitize(String input) {
-    if (input == null)
-      return null;
-    return StringEscapeUtils.escapeHtml4(input);
+  private String[] getSanitizedValues(String name) {
+    String[] values = sanitizedValues.get(name);
+    if (values == null) {
+      values = sanitizeValues(name, super.getParameterValues(name));
+      sanitizedValues.put(name, values);
+    }
+    return values;
+  }
+
+  /**
+   * Escapa los valores con {@link XSSSanitizer}, igual que los textos del body JSON, y solo copia
+   * el arreglo si alguno cambia
+   */
+  private static String[] sanitizeValues(String name, String[] values) {
+    if (values == null) {
+      return NO_VALUES;
+    }
+    // No sanitizar el password ni campos sensibles
+    if (PASSWORD_PARAMETER.equalsIgnoreCase(name)) {
+      return values;
+    }
+    String[] sanitized = null;
+    for (int i = 0; i < values.length; i++) {
+      String value = XSSSanitizer.sanitize(values[i]);
+      if (value != values[i]) {
+        if (sanitized == null) {
+          sanitized = values.clone();
+        }
+        sanitized[i] = value;
+      }
+    }
+    return sanitized != null ? sanitized : values;
   }
 
 }
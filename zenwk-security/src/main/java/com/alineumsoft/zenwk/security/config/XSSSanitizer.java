@@ -0,0 +1,66 @@
+package com.alineumsoft.zenwk.security.config;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Escape de los caracteres con significado en HTML (<code>&amp; &lt; &gt; &quot;</code>).
+ * Primero recorre el texto y, si no encuentra ninguno, retorna la misma instancia sin crear
+ * objetos. Los caracteres acentuados se conservan, a diferencia de
+ * <code>StringEscapeUtils.escapeHtml4</code>.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project zenwk-security
+ * @class XSSSanitizer
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class XSSSanitizer {
+
+  /**
+   * <p>
+   * <b> CU001_XX_Filtro_XSS </b> Escapa el texto o lo retorna sin cambios si no tiene caracteres
+   * para escapar
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param input
+   * @return
+   */
+  public static String sanitize(String input) {
+    if (input == null) {
+      return null;
+    }
+    int first = firstEscapable(input);
+    if (first < 0) {
+      return input;
+    }
+    StringBuilder escaped = new StringBuilder(input.length() + 16);
+    escaped.append(input, 0, first);
+    for (int i = first; i < input.length(); i++) {
+      char c = input.charAt(i);
+      switch (c) {
+        case '&' -> escaped.append("&amp;");
+        case '<' -> escaped.append("&lt;");
+        case '>' -> escaped.append("&gt;");
+        case '"' -> escaped.append("&quot;");
+        default -> escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+
+  /**
+   * Posicion del primer caracter a escapar o -1
+   */
+  private static int firstEscapable(String input) {
+    for (int i = 0; i < input.length(); i++) {
+      char c = input.charAt(i);
+      if (c == '&' || c == '<' || c == '>' || c == '"') {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,75 @@
+package com.alineumsoft.zenwk.security.config;
+
+import java.io.IOException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+/**
+ * <p>
+ * Deserializador de String que sanitiza cada token de texto mientras Jackson lee el body, en el
+ * mismo recorrido del parseo. Los campos con {@link XSSExempt} usan el deserializador estandar.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project zenwk-security
+ * @class XSSStringDeserializer
+ */
+public class XSSStringDeserializer extends StdScalarDeserializer<String>
+    implements ContextualDeserializer {
+  private static final long serialVersionUID = 1L;
+  /**
+   * Instancia compartida, no tiene estado
+   */
+  public static final XSSStringDeserializer INSTANCE = new XSSStringDeserializer();
+
+  /**
+   * <p>
+   * <b> CU001_XX_Filtro_XSS </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   */
+  public XSSStringDeserializer() {
+    super(String.class);
+  }
+
+  /**
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param p
+   * @param ctxt
+   * @return
+   * @throws IOException
+   * @see com.fasterxml.jackson.databind.JsonDeserializer#deserialize(com.fasterxml.jackson.core.JsonParser,
+   *      com.fasterxml.jackson.databind.DeserializationContext)
+   */
+  @Override
+  public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+    if (p.hasToken(JsonToken.VALUE_STRING)) {
+      return XSSSanitizer.sanitize(p.getText());
+    }
+    // Numeros, booleanos, arrays, etc. con las reglas de coercion estandar
+    return XSSSanitizer.sanitize(StringDeserializer.instance.deserialize(p, ctxt));
+  }
+
+  /**
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param ctxt
+   * @param property
+   * @return
+   * @see com.fasterxml.jackson.databind.deser.ContextualDeserializer#createContextual(com.fasterxml.jackson.databind.DeserializationContext,
+   *      com.fasterxml.jackson.databind.BeanProperty)
+   */
+  @Override
+  public JsonDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+    if (property != null && property.getAnnotation(XSSExempt.class) != null) {
+      return StringDeserializer.instance;
+    }
+    return this;
+  }
+}
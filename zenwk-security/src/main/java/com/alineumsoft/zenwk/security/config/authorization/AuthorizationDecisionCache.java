@@ -0,0 +1,100 @@
+package com.alineumsoft.zenwk.security.config.authorization;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUTHORIZATION_DECISION_CACHE_MAXIMUM_SIZE;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUTHORIZATION_DECISION_METRIC_NAME;
+import java.util.function.BooleanSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * Cache de decisiones de autorizacion por (conjunto de roles, metodo HTTP, plantilla de la ruta).
+ * El conjunto de roles llega como el id de {@link RoleSetIds} calculado al verificar el token, de
+ * modo que cada solicitud hace una sola busqueda. La llave incluye la version de la
+ * {@link AuthorizationMatrix}: al cambiar los permisos las decisiones anteriores dejan de usarse y
+ * se descartan. Las metricas de aciertos se publican en actuator (<code>cache.gets</code> con
+ * <code>cache=zenwk.authorization.decisions</code>).
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuthorizationDecisionCache
+ */
+@Component
+public class AuthorizationDecisionCache {
+  /**
+   * Decisiones por llave
+   */
+  private final Cache<DecisionKey, Boolean> decisions;
+  /**
+   * Version de la matriz de las decisiones almacenadas
+   */
+  private volatile long version;
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param maximumSize
+   * @param meterRegistry
+   */
+  public AuthorizationDecisionCache(
+      @Value(AUTHORIZATION_DECISION_CACHE_MAXIMUM_SIZE) long maximumSize,
+      MeterRegistry meterRegistry) {
+    this.decisions = Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, decisions, AUTHORIZATION_DECISION_METRIC_NAME);
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Retorna la decision memorizada o la calcula con el
+   * decisor dado
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param matrixVersion version de la matriz con la que decide el decisor
+   * @param roleSetId     id del conjunto de roles ({@link RoleSetIds})
+   * @param method
+   * @param route         plantilla de la ruta
+   * @param decider
+   * @return
+   */
+  public boolean isAllowed(long matrixVersion, int roleSetId, String method, String route,
+      BooleanSupplier decider) {
+    if (matrixVersion != version) {
+      onNewVersion(matrixVersion);
+    }
+    DecisionKey key = new DecisionKey(roleSetId, method, route, matrixVersion);
+    return decisions.get(key, k -> decider.getAsBoolean());
+  }
+
+  /**
+   * Descarta las decisiones de versiones anteriores
+   */
+  private synchronized void onNewVersion(long matrixVersion) {
+    if (matrixVersion > version) {
+      version = matrixVersion;
+      decisions.invalidateAll();
+    }
+  }
+
+  /**
+   * Llave de una decision
+   */
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static final class DecisionKey {
+    private final int roleSetId;
+    private final String method;
+    private final String route;
+    private final long version;
+  }
+}
@@ -0,0 +1,148 @@
+package com.alineumsoft.zenwk.security.config.authorization;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.security.core.GrantedAuthority;
+import com.alineumsoft.zenwk.security.config.route.RouteTrie;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Matriz inmutable de autorizacion rol -> metodo -> ruta. Cada rol tiene un {@link RouteTrie} con
+ * los recursos de sus permisos, indexado por metodo HTTP y segmento de path, y un trie adicional
+ * con la union de todos los recursos resuelve la ruta (plantilla) protegida de la solicitud. Las
+ * rutas que ningun permiso protege solo requieren autenticacion. La decision depende solo de la
+ * plantilla y los roles, por lo que se puede memorizar por version de la matriz.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuthorizationMatrix
+ */
+@Slf4j
+public final class AuthorizationMatrix {
+  /**
+   * Matriz sin permisos
+   */
+  public static final AuthorizationMatrix EMPTY = new AuthorizationMatrix(0, List.of());
+  /**
+   * Version de la matriz, cambia cuando cambian los permisos
+   */
+  @Getter
+  private final long version;
+  /**
+   * Rol -> rutas permitidas
+   */
+  private final Map<String, RouteTrie<String>> routesByRole;
+  /**
+   * Rutas protegidas por algun permiso -> plantilla de la ruta
+   */
+  private final RouteTrie<String> protectedRoutes;
+  /**
+   * Permisos cargados (rol, metodo, recurso), para comparar dos matrices
+   */
+  private final Set<String> permissions;
+  /**
+   * Numero de permisos (rol, metodo, recurso) cargados
+   */
+  @Getter
+  private final int size;
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Construye la matriz desde las filas de
+   * <code>RolePermissionRepository.findAllRolePermissions()</code>: operacion, nombre del rol,
+   * metodo y recurso. Los recursos con un patron no soportado se omiten.
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param version
+   * @param rolePermissions
+   */
+  public AuthorizationMatrix(long version, List<Object[]> rolePermissions) {
+    Map<String, RouteTrie.Builder<String>> builders = new HashMap<>();
+    RouteTrie.Builder<String> protectedBuilder = RouteTrie.builder();
+    Set<String> loaded = new HashSet<>();
+    for (Object[] row : rolePermissions) {
+      if (row[1] == null || row[2] == null || row[3] == null) {
+        continue;
+      }
+      String role = row[1].toString();
+      String method = row[2].toString().toUpperCase(Locale.ROOT);
+      String resource = row[3].toString().startsWith("/") ? row[3].toString() : "/" + row[3];
+      try {
+        builders.computeIfAbsent(role, k -> RouteTrie.builder()).add(method, resource, resource);
+        protectedBuilder.add(method, resource, resource);
+        loaded.add(role + " " + method + " " + resource);
+      } catch (IllegalArgumentException e) {
+        log.warn("AuthorizationMatrix - recurso no soportado {} {}: {}", method, resource,
+            e.getMessage());
+      }
+    }
+    Map<String, RouteTrie<String>> routes = new HashMap<>();
+    builders.forEach((role, builder) -> routes.put(role, builder.build()));
+    this.routesByRole = Map.copyOf(routes);
+    this.protectedRoutes = protectedBuilder.build();
+    this.permissions = Set.copyOf(loaded);
+    this.size = loaded.size();
+    this.version = version;
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Plantilla de la ruta protegida mas especifica para el
+   * metodo y path, o null si ningun permiso la protege
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param method
+   * @param path
+   * @return
+   */
+  public String findRoute(String method, String path) {
+    return protectedRoutes.find(method, path);
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Indica si alguno de los roles tiene un permiso que
+   * cubre la plantilla de la ruta: el mismo patron o uno mas general (variable o <code>**</code>).
+   * Todo path que resuelve a la plantilla coincide con ese permiso.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param authorities
+   * @param method
+   * @param route       plantilla retornada por findRoute
+   * @return
+   */
+  public boolean isAllowed(Collection<? extends GrantedAuthority> authorities, String method,
+      String route) {
+    for (GrantedAuthority authority : authorities) {
+      RouteTrie<String> routes = routesByRole.get(authority.getAuthority());
+      if (routes != null && routes.find(method, route) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Indica si las dos matrices tienen los mismos permisos
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param other
+   * @return
+   */
+  public boolean hasSamePermissions(AuthorizationMatrix other) {
+    return permissions.equals(other.permissions);
+  }
+}
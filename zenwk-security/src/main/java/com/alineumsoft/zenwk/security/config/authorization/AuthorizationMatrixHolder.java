@@ -0,0 +1,92 @@
+package com.alineumsoft.zenwk.security.config.authorization;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.AUTHORIZATION_MATRIX_REFRESH_INTERVAL;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Mantiene la {@link AuthorizationMatrix} vigente. Se carga al iniciar, cuando se publica un
+ * {@link PermissionChangedEvent} y periodicamente (cambios hechos en otros nodos). La nueva matriz
+ * se construye aparte y se reemplaza de forma atomica: las solicitudes en curso siguen con la
+ * anterior y las lecturas no toman bloqueos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuthorizationMatrixHolder
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class AuthorizationMatrixHolder {
+  /**
+   * Repositorio para la consulta de roles y permisos
+   */
+  private final RolePermissionRepository rolePermRepo;
+  /**
+   * Matriz vigente
+   */
+  private final AtomicReference<AuthorizationMatrix> current =
+      new AtomicReference<>(AuthorizationMatrix.EMPTY);
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Recarga la matriz desde la base de datos. Si los
+   * permisos no cambiaron o la consulta falla se conserva la matriz actual (y su version).
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = AUTHORIZATION_MATRIX_REFRESH_INTERVAL,
+      initialDelayString = AUTHORIZATION_MATRIX_REFRESH_INTERVAL)
+  public synchronized void refresh() {
+    try {
+      AuthorizationMatrix previous = current.get();
+      AuthorizationMatrix loaded = new AuthorizationMatrix(previous.getVersion() + 1,
+          rolePermRepo.findAllRolePermissions());
+      if (!loaded.hasSamePermissions(previous)) {
+        current.set(loaded);
+        log.info("AuthorizationMatrixHolder.refresh() - version {} con {} permisos",
+            loaded.getVersion(), loaded.getSize());
+      }
+    } catch (DataAccessException e) {
+      log.warn("AuthorizationMatrixHolder.refresh() - no fue posible cargar los permisos: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Recarga la matriz cuando cambian los permisos
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param event
+   */
+  @EventListener
+  public void onPermissionChanged(PermissionChangedEvent event) {
+    refresh();
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Matriz vigente
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public AuthorizationMatrix getCurrent() {
+    return current.get();
+  }
+}
@@ -0,0 +1,86 @@
+package com.alineumsoft.zenwk.security.config.authorization;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationToken;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
+import com.alineumsoft.zenwk.security.config.route.EndpointRoute;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * Autoriza las solicitudes con la {@link AuthorizationMatrix} vigente: si algun permiso protege la
+ * ruta, alguno de los roles del usuario debe tenerla. Una ruta del api de nivel ROLE_BASED que
+ * ningun permiso cubre se niega; las demas solo requieren estar autenticado. La ruta
+ * se busca con el path que resuelve Spring MVC ({@link EndpointMatcher#lookupPath}), no con la URI
+ * cruda, para que una URI codificada no evite el permiso de la ruta a la que se despacha. Reemplaza
+ * los <code>AntPathRequestMatcher</code> fijados al iniciar, por lo que los cambios de permisos
+ * aplican sin reiniciar. Las decisiones se memorizan en {@link AuthorizationDecisionCache}.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RoleMatrixAuthorizationManager
+ */
+@Component
+@RequiredArgsConstructor
+public class RoleMatrixAuthorizationManager
+    implements AuthorizationManager<RequestAuthorizationContext> {
+  private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+  private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+  /**
+   * Resuelve si la autenticacion es anonima
+   */
+  private static final AuthenticationTrustResolver TRUST_RESOLVER =
+      new AuthenticationTrustResolverImpl();
+  /**
+   * Matriz de autorizacion vigente
+   */
+  private final AuthorizationMatrixHolder matrixHolder;
+  /**
+   * Decisiones memorizadas
+   */
+  private final AuthorizationDecisionCache decisionCache;
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Decide el acceso a la solicitud
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param authentication
+   * @param context
+   * @return
+   */
+  @Override
+  public AuthorizationDecision check(Supplier<Authentication> authentication,
+      RequestAuthorizationContext context) {
+    Authentication auth = authentication.get();
+    if (auth == null || !auth.isAuthenticated() || TRUST_RESOLVER.isAnonymous(auth)) {
+      return DENIED;
+    }
+    HttpServletRequest request = context.getRequest();
+    String method = request.getMethod();
+    String path = EndpointMatcher.lookupPath(request);
+    AuthorizationMatrix matrix = matrixHolder.getCurrent();
+    String route = matrix.findRoute(method, path);
+    if (route == null) {
+      EndpointRoute endpoint = EndpointMatcher.find(method, path);
+      return endpoint != null && !endpoint.isPermitAll() ? DENIED : GRANTED;
+    }
+    Collection<? extends GrantedAuthority> authorities = auth.getAuthorities();
+    int roleSetId = auth instanceof JwtAuthenticationToken jwtAuth ? jwtAuth.getRoleSetId()
+        : RoleSetIds.ofAuthorities(authorities);
+    return decisionCache.isAllowed(matrix.getVersion(), roleSetId, method, route,
+        () -> matrix.isAllowed(authorities, method, route)) ? GRANTED : DENIED;
+  }
+}
@@ -0,0 +1,79 @@
+package com.alineumsoft.zenwk.security.config.authorization;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.security.core.GrantedAuthority;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Interna los conjuntos de roles con un id numerico, que es parte de la llave de
+ * {@link AuthorizationDecisionCache}. El id se calcula una sola vez por token verificado
+ * (<code>VerifiedJwt</code>) y viaja en la autenticacion, por lo que la autorizacion de cada
+ * solicitud no vuelve a construir el conjunto. El orden de los roles no cambia el id.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RoleSetIds
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RoleSetIds {
+  /**
+   * Maximo de conjuntos de roles internados antes de reiniciar el internado
+   */
+  private static final int MAX_ROLE_SETS = 1024;
+  /**
+   * Conjunto de roles -> id
+   */
+  private static final Map<Set<String>, Integer> IDS = new ConcurrentHashMap<>();
+  /**
+   * Secuencia de ids; nunca se reinicia, de modo que un id siempre identifica un solo conjunto
+   */
+  private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Id del conjunto de roles
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param roles
+   * @return
+   */
+  public static int of(Collection<String> roles) {
+    Set<String> key = Set.copyOf(roles);
+    Integer id = IDS.get(key);
+    if (id != null) {
+      return id;
+    }
+    if (IDS.size() >= MAX_ROLE_SETS) {
+      // Los ids anteriores siguen siendo unicos, solo se pierde el internado
+      IDS.clear();
+    }
+    return IDS.computeIfAbsent(key, k -> SEQUENCE.incrementAndGet());
+  }
+
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Id del conjunto de roles de las autoridades, para
+   * las autenticaciones que no provienen de un JWT
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param authorities
+   * @return
+   */
+  public static int ofAuthorities(Collection<? extends GrantedAuthority> authorities) {
+    Set<String> roles = new HashSet<>(authorities.size() * 2);
+    for (GrantedAuthority authority : authorities) {
+      roles.add(authority.getAuthority());
+    }
+    return of(roles);
+  }
+}
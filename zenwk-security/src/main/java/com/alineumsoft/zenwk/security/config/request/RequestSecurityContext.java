@@ -0,0 +1,139 @@
+package com.alineumsoft.zenwk.security.config.request;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.REQUEST_SECURITY_CONTEXT;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
+import com.alineumsoft.zenwk.security.config.route.EndpointRoute;
+import com.alineumsoft.zenwk.security.constants.ServiceControllerConstants;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Datos de seguridad de la solicitud leidos una sola vez: cookies, JWT, token CSRF, IP del cliente,
+ * user agent y ruta del api. Lo construye {@link RequestSecurityContextFilter} al inicio de la
+ * solicitud y lo leen los filtros JWT y CSRF y el log de seguridad.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RequestSecurityContext
+ */
+@Getter
+public final class RequestSecurityContext {
+  /**
+   * Cookies por nombre (si se repite el nombre se conserva la primera)
+   */
+  private final Map<String, String> cookies;
+  /**
+   * Token JWT de la cookie httpOnly
+   */
+  private final String jwt;
+  /**
+   * Token CSRF de la cookie
+   */
+  private final String csrfToken;
+  /**
+   * IP del cliente (X-Forwarded-For o la direccion remota)
+   */
+  private final String clientIp;
+  /**
+   * User agent
+   */
+  private final String userAgent;
+  /**
+   * Ruta del api, null si la uri no corresponde a un recurso conocido
+   */
+  private final EndpointRoute route;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   */
+  private RequestSecurityContext(HttpServletRequest request) {
+    this.cookies = parseCookies(request.getCookies());
+    this.jwt = cookies.get(AuthConfigConstants.ZENWK_JWT);
+    this.csrfToken = cookies.get(AuthConfigConstants.XCSRF_TOKEN);
+    this.clientIp = resolveClientIp(request);
+    this.userAgent = request.getHeader(ServiceControllerConstants.HEADER_USER_AGENT);
+    this.route = EndpointMatcher.find(request.getMethod(), EndpointMatcher.lookupPath(request));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Contexto de la solicitud. Si el filtro no lo creo
+   * (p.ej. pruebas o solicitudes fuera de la cadena de filtros) se crea y se guarda en este punto.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public static RequestSecurityContext from(HttpServletRequest request) {
+    if (request.getAttribute(REQUEST_SECURITY_CONTEXT) instanceof RequestSecurityContext context) {
+      return context;
+    }
+    RequestSecurityContext context = new RequestSecurityContext(request);
+    request.setAttribute(REQUEST_SECURITY_CONTEXT, context);
+    return context;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Valor de la cookie o null si no existe
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param name
+   * @return
+   */
+  public String getCookie(String name) {
+    return cookies.get(name);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si la solicitud es a un endpoint publico
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public boolean isPublic() {
+    return route != null && route.isPublic();
+  }
+
+  /**
+   * Cookies por nombre
+   */
+  private static Map<String, String> parseCookies(Cookie[] requestCookies) {
+    if (requestCookies == null || requestCookies.length == 0) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> parsed = new HashMap<>(requestCookies.length * 2);
+    for (Cookie cookie : requestCookies) {
+      parsed.putIfAbsent(cookie.getName(), cookie.getValue());
+    }
+    return Collections.unmodifiableMap(parsed);
+  }
+
+  /**
+   * IP del cliente original cuando la solicitud pasa por un proxy o balanceador de carga
+   */
+  private static String resolveClientIp(HttpServletRequest request) {
+    String ipAddress = request.getHeader(ServiceControllerConstants.HEADER_X_FORWARDED_FOR);
+    if (ipAddress == null || ipAddress.isEmpty()
+        || ServiceControllerConstants.IP_UNKNOWN.equalsIgnoreCase(ipAddress)) {
+      ipAddress = request.getRemoteAddr();
+    }
+    return ipAddress;
+  }
+}
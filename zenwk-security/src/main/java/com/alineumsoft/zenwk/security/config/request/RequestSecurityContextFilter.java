@@ -0,0 +1,43 @@
+package com.alineumsoft.zenwk.security.config.request;
+
+import java.io.IOException;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * <p>
+ * Filtro frontal que construye el {@link RequestSecurityContext} una sola vez por solicitud, antes
+ * de la cadena de Spring Security. Se ejecuta despues de RequestTimingFilter.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RequestSecurityContextFilter
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestSecurityContextFilter extends OncePerRequestFilter {
+
+  /**
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @param response
+   * @param filterChain
+   * @throws ServletException
+   * @throws IOException
+   * @see org.springframework.web.filter.OncePerRequestFilter#doFilterInternal(jakarta.servlet.http.HttpServletRequest,
+   *      jakarta.servlet.http.HttpServletResponse, jakarta.servlet.FilterChain)
+   */
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    RequestSecurityContext.from(request);
+    filterChain.doFilter(request, response);
+  }
+}
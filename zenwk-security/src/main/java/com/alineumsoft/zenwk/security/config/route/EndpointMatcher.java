@@ -0,0 +1,224 @@
+package com.alineumsoft.zenwk.security.config.route;
+
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.REQUEST_SECURITY_CONTEXT;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContext;
+import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
+import com.alineumsoft.zenwk.security.enums.RouteAccessEnum;
+import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>
+ * Indice de las rutas de {@link HttpMethodResourceEnum}, construido una sola vez al cargar la
+ * clase. Lo usan los filtros JWT y CSRF para omitir los endpoints publicos y
+ * <code>SecurityFilterChainConfiguration</code> para las reglas permitAll, de modo que la decision
+ * publico/privado se define en un solo lugar y tiene en cuenta el metodo HTTP. Tambien resuelve la
+ * accion de seguridad de la solicitud para el log de errores.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class EndpointMatcher
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class EndpointMatcher {
+  /**
+   * Nivel de acceso de los recursos que no requieren permisos del rol
+   */
+  private static final Map<HttpMethodResourceEnum, RouteAccessEnum> ACCESS = accessByResource();
+  /**
+   * Metodo -> patron de la ruta -> ruta, para el patron ya resuelto por Spring MVC
+   */
+  private static final Map<String, Map<String, EndpointRoute>> ROUTES_BY_PATTERN = new HashMap<>();
+  /**
+   * Metodo usado en ROUTES_BY_PATTERN para los recursos sin metodo
+   */
+  private static final String ANY_METHOD = "*";
+  /**
+   * Recursos cuya accion de seguridad no tiene el mismo nombre
+   */
+  private static final Map<HttpMethodResourceEnum, SecurityActionEnum> ACTION_ALIASES =
+      Map.of(HttpMethodResourceEnum.USER_JWT_ME, SecurityActionEnum.USER_ME_JWT);
+  /**
+   * Trie de rutas. Se declara despues de los mapas que llena buildRoutes
+   */
+  private static final RouteTrie<EndpointRoute> ROUTES = buildRoutes();
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Ruta del api para el metodo y path indicados
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param method
+   * @param path
+   * @return
+   */
+  public static Optional<EndpointRoute> match(String method, String path) {
+    return Optional.ofNullable(find(method, path));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Ruta del api para el metodo y path indicados o null
+   * si no hay coincidencia
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param method
+   * @param path
+   * @return
+   */
+  public static EndpointRoute find(String method, String path) {
+    return ROUTES.find(method, path);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Ruta del api para la solicitud
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public static Optional<EndpointRoute> match(HttpServletRequest request) {
+    return Optional.ofNullable(find(request));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Ruta del api para la solicitud o null si no hay
+   * coincidencia. Si Spring MVC ya resolvio el handler se usa su patron
+   * (<code>BEST_MATCHING_PATTERN_ATTRIBUTE</code>); en los filtros, que se ejecutan antes del
+   * DispatcherServlet, se usa la ruta del {@link RequestSecurityContext} o se recorre el trie con
+   * la URI. No crea objetos.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public static EndpointRoute find(HttpServletRequest request) {
+    String method = request.getMethod();
+    if (request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE) instanceof String p) {
+      EndpointRoute route = findByPattern(method, p);
+      if (route != null) {
+        return route;
+      }
+    }
+    if (request.getAttribute(REQUEST_SECURITY_CONTEXT) instanceof RequestSecurityContext context) {
+      return context.getRoute();
+    }
+    return ROUTES.find(method, lookupPath(request));
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Path de la solicitud resuelto como lo hace Spring
+   * MVC: sin el context path ni el contenido despues de ';', decodificado y con las barras dobles
+   * unificadas. La URI cruda no sirve para decidir el acceso: <code>/api/%75sers/5</code> no
+   * coincide con ninguna ruta y aun asi el DispatcherServlet la envia a
+   * <code>/api/users/{id}</code>.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public static String lookupPath(HttpServletRequest request) {
+    return UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si la solicitud es a un endpoint publico, que
+   * no pasa por la validacion del JWT ni del token CSRF
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public static boolean isPublic(HttpServletRequest request) {
+    EndpointRoute route = find(request);
+    return route != null && route.isPublic();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si la solicitud se autoriza sin validar los
+   * permisos del rol (RequestMatcher de las reglas permitAll)
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param request
+   * @return
+   */
+  public static boolean isPermitAll(HttpServletRequest request) {
+    EndpointRoute route = find(request);
+    return route != null && route.isPermitAll();
+  }
+
+  /**
+   * Endpoints publicos y autenticados sin permisos de rol. El resto requiere permisos del rol.
+   */
+  private static Map<HttpMethodResourceEnum, RouteAccessEnum> accessByResource() {
+    Map<HttpMethodResourceEnum, RouteAccessEnum> access =
+        new EnumMap<>(HttpMethodResourceEnum.class);
+    access.put(HttpMethodResourceEnum.USER_CREATE, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.USER_GET_EMAIL, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.AUTH_LOGIN, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.AUTH_RESET_PASSWORD, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.AUTH_JWKS, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.VERIFICATION_TOKEN, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.SEX_LIST_OPTIONS, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.ACTUATOR, RouteAccessEnum.PUBLIC);
+    access.put(HttpMethodResourceEnum.USER_JWT_ME, RouteAccessEnum.AUTHENTICATED);
+    return access;
+  }
+
+  /**
+   * Busca la ruta por el patron de Spring MVC, primero con el metodo y luego sin metodo
+   */
+  private static EndpointRoute findByPattern(String method, String pattern) {
+    Map<String, EndpointRoute> routes = ROUTES_BY_PATTERN.get(method);
+    EndpointRoute route = routes != null ? routes.get(pattern) : null;
+    if (route == null) {
+      routes = ROUTES_BY_PATTERN.get(ANY_METHOD);
+      route = routes != null ? routes.get(pattern) : null;
+    }
+    return route;
+  }
+
+  /**
+   * Construye el trie y el indice por patron con una ruta por recurso
+   */
+  private static RouteTrie<EndpointRoute> buildRoutes() {
+    Map<String, SecurityActionEnum> actions = new HashMap<>();
+    for (SecurityActionEnum action : SecurityActionEnum.values()) {
+      actions.put(action.name(), action);
+    }
+    RouteTrie.Builder<EndpointRoute> builder = RouteTrie.builder();
+    for (HttpMethodResourceEnum resource : HttpMethodResourceEnum.values()) {
+      String method = resource.getMethod() != null ? resource.getMethod().name() : null;
+      String pattern = resource.getResource().startsWith("/") ? resource.getResource()
+          : "/" + resource.getResource();
+      EndpointRoute route =
+          new EndpointRoute(resource, ACCESS.getOrDefault(resource, RouteAccessEnum.ROLE_BASED),
+              ACTION_ALIASES.getOrDefault(resource, actions.get(resource.name())));
+      builder.add(method, pattern, route);
+      ROUTES_BY_PATTERN.computeIfAbsent(method != null ? method : ANY_METHOD, k -> new HashMap<>())
+          .putIfAbsent(pattern, route);
+    }
+    return builder.build();
+  }
+}
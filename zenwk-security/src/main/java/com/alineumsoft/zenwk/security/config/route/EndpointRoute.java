@@ -0,0 +1,60 @@
+package com.alineumsoft.zenwk.security.config.route;
+
+import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
+import com.alineumsoft.zenwk.security.enums.RouteAccessEnum;
+import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Ruta del api resuelta para una solicitud: el recurso de {@link HttpMethodResourceEnum}, su nivel
+ * de acceso y la accion de seguridad que se registra en el log. Se crea una sola instancia por
+ * recurso al construir el indice de rutas.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class EndpointRoute
+ */
+@Getter
+@AllArgsConstructor
+public final class EndpointRoute {
+  /**
+   * Recurso del api
+   */
+  private final HttpMethodResourceEnum resource;
+  /**
+   * Nivel de acceso
+   */
+  private final RouteAccessEnum access;
+  /**
+   * Accion de seguridad del recurso, null si el recurso no tiene una accion asociada
+   */
+  private final SecurityActionEnum securityAction;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si la ruta no requiere token
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public boolean isPublic() {
+    return access == RouteAccessEnum.PUBLIC;
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Indica si la ruta se autoriza sin validar los
+   * permisos del rol
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  public boolean isPermitAll() {
+    return access != RouteAccessEnum.ROLE_BASED;
+  }
+}
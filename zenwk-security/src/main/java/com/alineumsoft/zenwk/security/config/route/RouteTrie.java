@@ -0,0 +1,240 @@
+package com.alineumsoft.zenwk.security.config.route;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Trie inmutable de rutas por metodo HTTP y segmento de path. Los patrones admiten segmentos
+ * literales, variables (<code>{id}</code> o <code>*</code>, un segmento no vacio) y
+ * <code>**</code> al final (cero o mas segmentos). Ante varias coincidencias gana el segmento
+ * literal sobre la variable y la variable sobre <code>**</code>. La busqueda recorre el path por
+ * indices y compara con <code>regionMatches</code>, por lo que no crea objetos.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RouteTrie
+ * @param <T> valor asociado a cada ruta
+ */
+public final class RouteTrie<T> {
+  /**
+   * Segmento que coincide con el resto del path
+   */
+  private static final String CATCH_ALL = "**";
+  /**
+   * Segmento comodin de un solo nivel
+   */
+  private static final String WILDCARD = "*";
+  /**
+   * Metodos con rutas propias
+   */
+  private final String[] methods;
+  /**
+   * Raiz por metodo, en el mismo orden de methods
+   */
+  private final List<Node<T>> methodRoots;
+  /**
+   * Raiz de las rutas sin metodo (cualquier metodo)
+   */
+  private final Node<T> anyMethodRoot;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Constructor
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @param builder
+   */
+  private RouteTrie(Builder<T> builder) {
+    this.methods = builder.roots.keySet().toArray(new String[0]);
+    this.methodRoots = builder.roots.values().stream().map(MutableNode::freeze).toList();
+    this.anyMethodRoot = builder.anyMethodRoot.freeze();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Crea un builder vacio
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param <T>
+   * @return
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Busca la ruta mas especifica para el metodo y el
+   * path. Las rutas del metodo tienen prioridad sobre las rutas sin metodo.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param method
+   * @param path   path sin query string, p.ej. request.getRequestURI()
+   * @return valor de la ruta o null si no hay coincidencia
+   */
+  public T find(String method, String path) {
+    if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+      return null;
+    }
+    T value = null;
+    for (int i = 0; i < methods.length && method != null; i++) {
+      if (methods[i].equals(method)) {
+        value = match(methodRoots.get(i), path, 1);
+        break;
+      }
+    }
+    return value != null ? value : match(anyMethodRoot, path, 1);
+  }
+
+  /**
+   * Busca desde el segmento que inicia en start
+   */
+  private static <T> T match(Node<T> node, String path, int start) {
+    int end = path.indexOf('/', start);
+    if (end < 0) {
+      end = path.length();
+    }
+    int length = end - start;
+    for (int i = 0; i < node.literals.length; i++) {
+      String literal = node.literals[i];
+      if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+        T value = descend(node.literalChildren.get(i), path, end);
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+    if (node.variableChild != null && length > 0) {
+      T value = descend(node.variableChild, path, end);
+      if (value != null) {
+        return value;
+      }
+    }
+    return node.catchAll;
+  }
+
+  /**
+   * Continua con el siguiente segmento o retorna el valor si el path termino
+   */
+  private static <T> T descend(Node<T> child, String path, int end) {
+    if (end == path.length()) {
+      return child.value != null ? child.value : child.catchAll;
+    }
+    return match(child, path, end + 1);
+  }
+
+  /**
+   * Nodo inmutable
+   */
+  private static final class Node<T> {
+    private final String[] literals;
+    private final List<Node<T>> literalChildren;
+    private final Node<T> variableChild;
+    private final T value;
+    private final T catchAll;
+
+    private Node(String[] literals, List<Node<T>> literalChildren, Node<T> variableChild,
+        T value, T catchAll) {
+      this.literals = literals;
+      this.literalChildren = literalChildren;
+      this.variableChild = variableChild;
+      this.value = value;
+      this.catchAll = catchAll;
+    }
+  }
+
+  /**
+   * Nodo usado durante la construccion
+   */
+  private static final class MutableNode<T> {
+    private final Map<String, MutableNode<T>> literals = new LinkedHashMap<>();
+    private MutableNode<T> variableChild;
+    private T value;
+    private T catchAll;
+
+    private Node<T> freeze() {
+      List<Node<T>> children = new ArrayList<>(literals.size());
+      literals.values().forEach(child -> children.add(child.freeze()));
+      return new Node<>(literals.keySet().toArray(new String[0]), List.copyOf(children),
+          variableChild != null ? variableChild.freeze() : null, value, catchAll);
+    }
+  }
+
+  /**
+   * <p>
+   * Builder del trie. Si dos rutas del mismo metodo tienen el mismo patron se conserva la primera.
+   * </p>
+   *
+   * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+   * @project security-zenwk
+   * @class RouteTrie.Builder
+   * @param <T>
+   */
+  public static final class Builder<T> {
+    private final Map<String, MutableNode<T>> roots = new LinkedHashMap<>();
+    private final MutableNode<T> anyMethodRoot = new MutableNode<>();
+
+    private Builder() {}
+
+    /**
+     * <p>
+     * <b> CU001_Seguridad_Creacion_Usuario </b> Agrega una ruta
+     * </p>
+     *
+     * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+     * @param method  metodo HTTP o null para cualquier metodo
+     * @param pattern patron de la ruta, p.ej. /api/users/{id}
+     * @param value
+     * @return
+     */
+    public Builder<T> add(String method, String pattern, T value) {
+      MutableNode<T> node =
+          method != null ? roots.computeIfAbsent(method, k -> new MutableNode<>()) : anyMethodRoot;
+      String normalized = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+      String[] segments = normalized.split("/", -1);
+      for (int i = 0; i < segments.length; i++) {
+        String segment = segments[i];
+        if (CATCH_ALL.equals(segment)) {
+          if (i != segments.length - 1) {
+            throw new IllegalArgumentException("** solo se admite al final de la ruta: " + pattern);
+          }
+          if (node.catchAll == null) {
+            node.catchAll = value;
+          }
+          return this;
+        }
+        if (WILDCARD.equals(segment) || segment.startsWith("{") && segment.endsWith("}")) {
+          if (node.variableChild == null) {
+            node.variableChild = new MutableNode<>();
+          }
+          node = node.variableChild;
+        } else {
+          node = node.literals.computeIfAbsent(segment, k -> new MutableNode<>());
+        }
+      }
+      if (node.value == null) {
+        node.value = value;
+      }
+      return this;
+    }
+
+    /**
+     * <p>
+     * <b> CU001_Seguridad_Creacion_Usuario </b> Construye el trie inmutable
+     * </p>
+     *
+     * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+     * @return
+     */
+    public RouteTrie<T> build() {
+      return new RouteTrie<>(this);
+    }
+  }
+}
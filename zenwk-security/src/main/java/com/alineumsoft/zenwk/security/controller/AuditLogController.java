@@ -0,0 +1,51 @@
+package com.alineumsoft.zenwk.security.controller;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.alineumsoft.zenwk.security.audit.dto.AuditLogFilterDTO;
+import com.alineumsoft.zenwk.security.audit.service.AuditLogQueryService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * API de consulta de los logs de auditoria (<code>log_sec</code>).
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class AuditLogController
+ */
+@RestController
+@RequestMapping("/api/audit")
+@RequiredArgsConstructor
+public class AuditLogController {
+  /**
+   * Servicio de consulta de los logs
+   */
+  private final AuditLogQueryService auditLogQueryService;
+
+  /**
+   * <p>
+   * <b> General </b> Pagina de logs filtrada por usuario, accion, estado y rango de fechas, del
+   * mas reciente al mas antiguo. La siguiente pagina se pide con el <code>nextCursor</code> de la
+   * respuesta en el parametro <code>cursor</code>. La respuesta se escribe directamente en el
+   * flujo de salida.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param filter
+   * @param request
+   * @param response
+   * @param userDetails
+   */
+  @GetMapping("/logs")
+  public void findLogs(AuditLogFilterDTO filter, HttpServletRequest request,
+      HttpServletResponse response, @AuthenticationPrincipal UserDetails userDetails) {
+    auditLogQueryService.findLogs(filter, request, response, userDetails);
+  }
+}
@@ -16,7 +16,10 @@ import com.alineumsoft.zenwk.security.auth.dto.AuthRequestDTO;
 import com.alineumsoft.zenwk.security.auth.dto.AuthResponseDTO;
 import com.alineumsoft.zenwk.security.auth.dto.LogoutOutDTO;
 import com.alineumsoft.zenwk.security.auth.dto.ResetPasswordDTO;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.auth.service.AuthService;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
 import com.alineumsoft.zenwk.security.config.util.CookieUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -44,6 +47,14 @@ public class AuthController {
    * Utilidad para cookie
    */
   private final CookieUtil cookieUtil;
+  /**
+   * Proveedor jwt, para leer el jti del token emitido
+   */
+  private final JwtProvider jwtProvider;
+  /**
+   * Tokens csrf firmados con el jti del jwt
+   */
+  private final StatelessCsrfTokenService statelessCsrfTokenService;
 
 
   /**
@@ -62,7 +73,7 @@ public class AuthController {
       HttpServletRequest servRequest, HttpServletResponse response) {
     AuthResponseDTO authDto = authService.authenticate(request, servRequest);
     // Construcción de la cookie http only para no guardar jwt en sesión o localstorage
-    cookieUtil.generateCookieJwt(response, authDto.getToken());
+    generateSessionCookies(response, authDto.getToken());
     return ResponseEntity.ok(authDto);
   }
 
@@ -122,10 +133,34 @@ public class AuthController {
   public ResponseEntity<AuthResponseDTO> refreshJwt(HttpServletRequest request,
       @AuthenticationPrincipal UserDetails userDetails, HttpServletResponse response) {
     AuthResponseDTO authDto = authService.refreshJwt(request, userDetails);
-    cookieUtil.generateCookieJwt(response, authDto.getToken());
+    generateSessionCookies(response, authDto.getToken());
     return ResponseEntity.ok(authDto);
   }
 
+  /**
+   * 
+   * <p>
+   * <b> CU00X_Gestionar protección contra ataques CSRF </b> Cookie del jwt emitido. En modo csrf
+   * sin estado el token csrf esta firmado con el jti del jwt, por lo que tambien se emite uno para
+   * el nuevo jti; de lo contrario la siguiente escritura despues del login o del refresh fallaria
+   * con el token del jwt anterior.
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param response
+   * @param token
+   */
+  private void generateSessionCookies(HttpServletResponse response, String token) {
+    cookieUtil.generateCookieJwt(response, token);
+    if (statelessCsrfTokenService.isStateless()) {
+      VerifiedJwt jwt = jwtProvider.verify(token);
+      if (jwt.getId() != null && jwt.getEmail() != null) {
+        cookieUtil.generateCookieCsrf(response,
+            statelessCsrfTokenService.generateCsrfToken(jwt.getId(), jwt.getEmail()).getCode());
+      }
+    }
+  }
+
 
 
 }
@@ -0,0 +1,56 @@
+package com.alineumsoft.zenwk.security.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * <p>
+ * Publica las claves publicas de firma JWT (JWKS) para que otros servicios verifiquen los tokens
+ * localmente. La respuesta es cacheable por <code>security.jwt.signing.jwks-max-age</code> segundos
+ * y lleva un ETag para revalidar sin descargar de nuevo las claves.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class JwksController
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+  /**
+   * Contenedor de las claves JWT
+   */
+  private final JwtKeyHolder keyHolder;
+
+  /**
+   * <p>
+   * <b> CU001_Seguridad_Creacion_Usuario </b> Retorna el JWKS vigente. Con HS256 la lista de claves
+   * es vacia.
+   * </p>
+   *
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @param webRequest
+   * @return
+   */
+  @GetMapping("/.well-known/jwks.json")
+  public ResponseEntity<Map<String, Object>> getJwks(WebRequest webRequest) {
+    List<Map<String, Object>> keys = keyHolder.getJwks();
+    String etag = "\"" + Integer.toHexString(keys.hashCode()) + "\"";
+    CacheControl cacheControl =
+        CacheControl.maxAge(keyHolder.getJwksMaxAge(), TimeUnit.SECONDS).cachePublic();
+    if (webRequest.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).eTag(etag)
+          .build();
+    }
+    return ResponseEntity.ok().cacheControl(cacheControl).eTag(etag).body(Map.of("keys", keys));
+  }
+}
@@ -6,6 +6,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import lombok.Data;
 
 /**
@@ -14,6 +16,15 @@ import lombok.Data;
  * @class LogSecurityUser
  */
 @Entity(name = "log_sec")
+@Table(indexes = {
+    @Index(name = "idx_log_sec_creation",
+        columnList = "logsecusecreationdate DESC, logsecuseid DESC"),
+    @Index(name = "idx_log_sec_user_creation",
+        columnList = "logsecuseusercreation, logsecusecreationdate DESC, logsecuseid DESC"),
+    @Index(name = "idx_log_sec_service_creation",
+        columnList = "logsecuseservicename, logsecusecreationdate DESC, logsecuseid DESC"),
+    @Index(name = "idx_log_sec_status_creation",
+        columnList = "logsecusestatuscode, logsecusecreationdate DESC, logsecuseid DESC")})
 @Data
 public class LogSecurity {
   @Id
@@ -51,7 +51,7 @@ public enum HttpMethodResourceEnum {
   AUTH_LOGIN(HttpMethod.POST, "/api/auth/login"), AUTH_LOGOUT(HttpMethod.DELETE,
       "/api/auth/logout"), AUTH_RESET_PASSWORD(HttpMethod.POST,
           "/api/auth/reset-password/{email}"), AUTH_REFRESH_JWT(HttpMethod.POST,
-              "/api/auth/refresh-jwt"),
+              "/api/auth/refresh-jwt"), AUTH_JWKS(HttpMethod.GET, "/.well-known/jwks.json"),
   /**
    * Verification (publicas)
    */
@@ -60,6 +60,10 @@ public enum HttpMethodResourceEnum {
    * Recursos para la entidad sexo.
    */
   SEX_LIST_OPTIONS(HttpMethod.GET, "/api/person-sex"),
+  /**
+   * Consulta de los logs de auditoria
+   */
+  AUDIT_LOG_LIST(HttpMethod.GET, "/api/audit/logs"),
   /**
    * actuator
    */
@@ -0,0 +1,25 @@
+package com.alineumsoft.zenwk.security.enums;
+
+/**
+ * <p>
+ * Nivel de acceso de una ruta del api de seguridad.
+ * </p>
+ *
+ * @author <a href="mailto:alineumsoft@gmail.com">C. Alegria</a>
+ * @project security-zenwk
+ * @class RouteAccessEnum
+ */
+public enum RouteAccessEnum {
+  /**
+   * Sin token: los filtros JWT y CSRF no se aplican
+   */
+  PUBLIC,
+  /**
+   * Requiere un token valido, sin validar los permisos del rol
+   */
+  AUTHENTICATED,
+  /**
+   * Requiere un token valido y permisos del rol sobre la ruta
+   */
+  ROLE_BASED;
+}
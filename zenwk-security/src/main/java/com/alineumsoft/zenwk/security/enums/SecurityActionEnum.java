@@ -29,7 +29,7 @@ public enum SecurityActionEnum {
    * Auth
    */
   AUTH_LOGIN("AUTH.LOGIN"), AUTH_LOGOUT("AUTH.LOGOUT"), AUTH_RESET_PASSWORD(
-      "AUTH.RESET_PASSWORD"), AUTH_REFRESH_JWT("ATUH.REFRESH_JWT"),
+      "AUTH.RESET_PASSWORD"), AUTH_REFRESH_JWT("ATUH.REFRESH_JWT"), AUTH_JWKS("AUTH.JWKS"),
   /**
    * Role
    */
@@ -49,7 +49,11 @@ public enum SecurityActionEnum {
    * Verificación de token
    */
   VERIFICATION_SEND_TOKEN("VERIFICATION.SEND_TOKEN"), VERIFICATION_VALIDATE_TOKEN(
-      "VERIFICATION.VARIFY_TOKEN");
+      "VERIFICATION.VARIFY_TOKEN"),
+  /**
+   * Auditoria
+   */
+  AUDIT_LOG_LIST("AUDIT_LOG.LIST");
 
 
 
@@ -80,7 +80,11 @@ public enum SecurityExceptionEnum {
   /**
    * Permission
    */
-  FUNC_PERSON_SEX_NO_FOUND("FUNC_SEC_PERSON_SEX_0001", "functional.personsex.notfound");
+  FUNC_PERSON_SEX_NO_FOUND("FUNC_SEC_PERSON_SEX_0001", "functional.personsex.notfound"),
+  /**
+   * Auditoria
+   */
+  FUNC_AUDIT_CURSOR_INVALID("FUNC_SEC_AUDIT_0001", "functional.audit.cursor.invalid");
 
   /**
    * code
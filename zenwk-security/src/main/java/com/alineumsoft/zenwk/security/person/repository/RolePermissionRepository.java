@@ -31,6 +31,14 @@ public interface RolePermissionRepository extends JpaRepository<RolePermission,
   public static final String JPQL_RESOURCES_FILTER_ROL_NAME =
       "SELECT DISTINCT p.resource " + "FROM RolePermission rp " + " JOIN rp.role r "
           + " JOIN rp.permission p " + "WHERE r.name IN (:rolName) ";
+  /**
+   * Query, obtiene todos los roles con el recurso de cada uno de sus permisos. Los roles sin
+   * permisos se retornan con recurso null.
+   */
+  public static final String JPQL_ROLE_RESOURCES =
+      "SELECT r.id, r.name, p.resource " + "FROM Role r "
+          + " LEFT JOIN RolePermission rp ON rp.role = r " + " LEFT JOIN rp.permission p "
+          + "ORDER BY r.id";
 
   /**
    * <p>
@@ -57,6 +65,18 @@ public interface RolePermissionRepository extends JpaRepository<RolePermission,
   @Query(JPQL_RESOURCES_FILTER_ROL_NAME)
   public List<String> findResourcesByRolName(List<String> rolName);
 
+  /**
+   * <p>
+   * <b> CU002_Seguridad_Asignación_Roles </b> Consulta los roles con los recursos de sus permisos
+   * para construir el snapshot de permisos en memoria
+   * </p>
+   * 
+   * @author <a href="alineumsoft@gmail.com">C. Alegria</a>
+   * @return
+   */
+  @Query(JPQL_ROLE_RESOURCES)
+  public List<Object[]> findAllRoleResources();
+
   /**
    * <p>
    * <b> CU002_Seguridad_Asignación_Roles </b> Busca en el sistema si un permiso ya sido asignado al
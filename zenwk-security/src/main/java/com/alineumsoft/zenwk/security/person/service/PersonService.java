@@ -15,6 +15,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
@@ -121,11 +122,11 @@ public class PersonService extends ApiRestSecurityHelper {
    * @param request
    */
   private void validateUser(CreatePersonDTO dto, HttpServletRequest request) {
-    String token =
-        jwtProvider.extractJwtFromCookie(request).orElseThrow(EntityNotFoundException::new);
-    Long idUser = jwtProvider.extractIdUser(token);
-    List<String> roles = jwtProvider.extractAuthorities(token);
-    UserStateEnum userState = jwtProvider.extractUserState(token);
+    VerifiedJwt jwt =
+        jwtProvider.resolveVerifiedJwt(request).orElseThrow(EntityNotFoundException::new);
+    Long idUser = jwt.getIdUser();
+    List<String> roles = jwt.getRoles();
+    UserStateEnum userState = jwt.getUserState();
     // Si el contiene el rol NEW_USER, el estado es incompleto y el id del usuario
     // no corresponde con la sesion
     // genera excepcion funcional
@@ -598,8 +599,7 @@ public class PersonService extends ApiRestSecurityHelper {
         CommonMessageConstants.NOT_APPLICABLE_BODY, CommonMessageConstants.NOT_APPLICABLE_BODY,
         SecurityActionEnum.PERSON_UPLOAD_PHOTO_PROFILE.getCode());
     try {
-      String token = jwtProvider.extractJwtFromCookie(request).orElseThrow();
-      Long idUser = jwtProvider.extractIdUser(token);
+      Long idUser = jwtProvider.resolveVerifiedJwt(request).orElseThrow().getIdUser();
       Person person =
           personRepo.findPersonFromUserId(idUser).orElseThrow(() -> new EntityNotFoundException(
               SecurityExceptionEnum.FUNC_PERSON_NOT_FOUND.getMessage()));
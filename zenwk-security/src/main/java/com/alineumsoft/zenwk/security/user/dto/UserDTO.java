@@ -3,6 +3,7 @@ package com.alineumsoft.zenwk.security.user.dto;
 import java.io.Serializable;
 import java.util.Optional;
 import com.alineumsoft.zenwk.security.common.constants.RegexConstants;
+import com.alineumsoft.zenwk.security.config.XSSExempt;
 import com.alineumsoft.zenwk.security.constants.DtoValidationKeys;
 import com.alineumsoft.zenwk.security.enums.UserStateEnum;
 import com.alineumsoft.zenwk.security.person.entity.Person;
@@ -54,6 +55,7 @@ public class UserDTO implements Serializable {
   @JsonInclude(JsonInclude.Include.NON_NULL)
   @Pattern(regexp = RegexConstants.PASSWORD, message = DtoValidationKeys.USER_PASSWORD_INVALID)
   @Size(max = 64, message = DtoValidationKeys.USER_PASSWORD_MAX_LENGTH)
+  @XSSExempt
   @NotNull(message = DtoValidationKeys.USER_PASSWORD_NOT_NULL)
   private String password;
   /**
@@ -0,0 +1,11 @@
+-- Tokens JWT revocados (logout / refresh) identificados por su jti
+CREATE TABLE IF NOT EXISTS sec_revoked_token (
+    secrevtokid BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    secrevtokjti VARCHAR(64) NOT NULL UNIQUE,
+    secrevtokusername VARCHAR(255),
+    secrevtokexpirationdate TIMESTAMP NOT NULL,
+    secrevtokcreationdate TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_sec_revoked_token_exp ON sec_revoked_token (secrevtokexpirationdate);
+CREATE INDEX IF NOT EXISTS idx_sec_revoked_token_creation ON sec_revoked_token (secrevtokcreationdate);
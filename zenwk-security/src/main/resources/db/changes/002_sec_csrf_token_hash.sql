@@ -0,0 +1,42 @@
+-- Tokens CSRF: digest SHA-256 (hex) del codigo y una fila por sesion (email, jti del JWT)
+-- Los scripts de db/changes se aplican a mano y en orden (psql -f) antes de desplegar.
+ALTER TABLE sec_csrf_token ADD COLUMN IF NOT EXISTS seccsrtokcodehash CHAR(64);
+ALTER TABLE sec_csrf_token ADD COLUMN IF NOT EXISTS seccsrtoksessionid VARCHAR(64);
+
+UPDATE sec_csrf_token
+   SET seccsrtokcodehash = encode(sha256(convert_to(seccsrtokcode, 'UTF8')), 'hex')
+ WHERE seccsrtokcodehash IS NULL;
+
+ALTER TABLE sec_csrf_token ALTER COLUMN seccsrtokcodehash SET NOT NULL;
+-- seccsrtokcode se conserva, sin NOT NULL, durante una version de transicion para los demas
+-- servicios que escriben en la tabla; se elimina en una migracion posterior.
+ALTER TABLE sec_csrf_token ALTER COLUMN seccsrtokcode DROP NOT NULL;
+
+-- Mientras tanto, las filas que solo traen el codigo en claro reciben su digest, y un UPDATE que
+-- cambia el codigo lo recalcula para que el digest anterior no siga validando
+CREATE OR REPLACE FUNCTION sec_csrf_token_code_hash() RETURNS trigger AS $$
+BEGIN
+  IF NEW.seccsrtokcode IS NULL THEN
+    RETURN NEW;
+  END IF;
+  IF NEW.seccsrtokcodehash IS NULL THEN
+    NEW.seccsrtokcodehash := encode(sha256(convert_to(NEW.seccsrtokcode, 'UTF8')), 'hex');
+  ELSIF TG_OP = 'UPDATE' THEN
+    -- OLD solo se consulta en UPDATE
+    IF NEW.seccsrtokcode IS DISTINCT FROM OLD.seccsrtokcode THEN
+      NEW.seccsrtokcodehash := encode(sha256(convert_to(NEW.seccsrtokcode, 'UTF8')), 'hex');
+    END IF;
+  END IF;
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_sec_csrf_token_code_hash ON sec_csrf_token;
+CREATE TRIGGER trg_sec_csrf_token_code_hash BEFORE INSERT OR UPDATE ON sec_csrf_token
+  FOR EACH ROW EXECUTE FUNCTION sec_csrf_token_code_hash();
+
+-- Las filas existentes quedan sin sesion (NULL no choca en el indice unico) y expiran
+DROP INDEX IF EXISTS uk_sec_csrf_token_session;
+CREATE INDEX IF NOT EXISTS idx_sec_csrf_token_email_hash ON sec_csrf_token (seccsrtokemail, seccsrtokcodehash);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_sec_csrf_token_session ON sec_csrf_token (seccsrtokemail, seccsrtoksessionid);
+CREATE INDEX IF NOT EXISTS idx_sec_csrf_token_exp ON sec_csrf_token (sectoexpirationdate);
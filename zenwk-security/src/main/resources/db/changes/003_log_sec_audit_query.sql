@@ -0,0 +1,7 @@
+-- Consulta de auditoria (/api/audit/logs): paginacion por (fecha de creacion, id) descendente,
+-- sin filtro o filtrando por usuario, accion o estado. CONCURRENTLY no bloquea las escrituras
+-- sobre log_sec mientras se construyen; se ejecuta fuera de una transaccion.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_log_sec_creation ON log_sec (logsecusecreationdate DESC, logsecuseid DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_log_sec_user_creation ON log_sec (logsecuseusercreation, logsecusecreationdate DESC, logsecuseid DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_log_sec_service_creation ON log_sec (logsecuseservicename, logsecusecreationdate DESC, logsecuseid DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_log_sec_status_creation ON log_sec (logsecusestatuscode, logsecusecreationdate DESC, logsecuseid DESC);
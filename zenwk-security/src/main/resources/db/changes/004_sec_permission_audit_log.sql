@@ -0,0 +1,19 @@
+-- Permiso de la consulta de auditoria (GET /api/audit/logs): la ruta es ROLE_BASED y sin permiso
+-- se niega a todos los usuarios. Solo AUDITOR y SECURITY_ADMIN la reciben.
+INSERT INTO sec_permission (secpername, secperdescription, secperresource, secpermethod,
+                            secperoperation, secpercreationdate, secpercreationuser)
+SELECT 'AUDIT_LOG_LIST', 'Consulta de los logs de auditoria', '/api/audit/logs', 'GET', 'LIST',
+       now(), 'MIGRATION_004'
+ WHERE NOT EXISTS (SELECT 1 FROM sec_permission
+                    WHERE secperresource = '/api/audit/logs' AND upper(secpermethod) = 'GET');
+
+INSERT INTO sec_role_permission (secrolperidrole, secrolperidpermission, secrolpercreationdate,
+                                 secrolpercreationuser)
+SELECT r.secrolidrole, p.secperidpermission, now(), 'MIGRATION_004'
+  FROM sec_role r
+  JOIN sec_permission p
+    ON p.secperresource = '/api/audit/logs' AND upper(p.secpermethod) = 'GET'
+ WHERE r.secrolname IN ('AUDITOR', 'SECURITY_ADMIN')
+   AND NOT EXISTS (SELECT 1 FROM sec_role_permission rp
+                    WHERE rp.secrolperidrole = r.secrolidrole
+                      AND rp.secrolperidpermission = p.secperidpermission);
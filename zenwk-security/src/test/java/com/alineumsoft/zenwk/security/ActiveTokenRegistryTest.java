@@ -0,0 +1,165 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import com.alineumsoft.zenwk.security.auth.jwt.ActiveTokenRegistry;
+
+class ActiveTokenRegistryTest {
+
+  private static Date inOneHour() {
+    return new Date(System.currentTimeMillis() + 3600000L);
+  }
+
+  @Test
+  @DisplayName("El último token registrado reemplaza al anterior del mismo usuario")
+  void register_supersedesPrevious() {
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(100, true);
+    registry.register("user", "jti-1", inOneHour());
+    registry.register("user", "jti-2", inOneHour());
+
+    assertTrue(registry.isSuperseded("user", "jti-1"));
+    assertFalse(registry.isSuperseded("user", "jti-2"));
+  }
+
+  @Test
+  @DisplayName("Un usuario sin registro o un token sin jti no se rechaza")
+  void isSuperseded_unknownUserAccepted() {
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(100, true);
+    registry.register("user", "jti-1", inOneHour());
+
+    assertFalse(registry.isSuperseded("other", "jti-x"));
+    assertFalse(registry.isSuperseded("user", null));
+  }
+
+  @Test
+  @DisplayName("Con reject-superseded deshabilitado no se rechaza ningún token")
+  void isSuperseded_disabled() {
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(100, false);
+    registry.register("user", "jti-1", inOneHour());
+    registry.register("user", "jti-2", inOneHour());
+
+    assertFalse(registry.isSuperseded("user", "jti-1"));
+  }
+
+  @Test
+  @DisplayName("remove() solo elimina el registro si el jti es el activo")
+  void remove_onlyMatchingJti() {
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(100, true);
+    registry.register("user", "jti-2", inOneHour());
+
+    registry.remove("user", "jti-1");
+    assertEquals(1, registry.size());
+
+    registry.remove("user", "jti-2");
+    assertEquals(0, registry.size());
+  }
+
+  @Test
+  @DisplayName("Las entradas expiradas se eliminan al consultarlas y en el barrido")
+  void expiredEntriesEvicted() {
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(100, true);
+    Date expired = new Date(System.currentTimeMillis() - 1000L);
+    registry.register("a", "jti-a", expired);
+    registry.register("b", "jti-b", expired);
+
+    assertFalse(registry.isSuperseded("a", "otro"));
+    assertEquals(1, registry.size());
+
+    registry.sweep();
+    assertEquals(0, registry.size());
+  }
+
+  @Test
+  @DisplayName("El registro no supera el tamaño máximo configurado")
+  void register_memoryBound() {
+    int maximumSize = 1000;
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(maximumSize, true);
+
+    for (int i = 0; i < maximumSize * 10; i++) {
+      registry.register("user" + i, UUID.randomUUID().toString(), inOneHour());
+    }
+    assertEquals(maximumSize, registry.size());
+
+    // Un usuario ya registrado puede renovar su token aun con el registro lleno
+    registry.register("user0", "renovado", inOneHour());
+    assertTrue(registry.isSuperseded("user0", "anterior"));
+    assertFalse(registry.isSuperseded("user0", "renovado"));
+  }
+
+  @Test
+  @DisplayName("El barrido libera espacio para nuevos usuarios cuando hay entradas expiradas")
+  void register_memoryBound_sweepsExpired() {
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(10, true);
+    Date expired = new Date(System.currentTimeMillis() - 1000L);
+    for (int i = 0; i < 10; i++) {
+      registry.register("old" + i, "jti", expired);
+    }
+
+    registry.register("new", "jti-new", inOneHour());
+
+    assertEquals(1, registry.size());
+    assertFalse(registry.isSuperseded("new", "jti-new"));
+  }
+
+  @Test
+  @DisplayName("Registro, consulta y eliminación concurrentes mantienen un token activo por usuario")
+  void concurrentStress() throws Exception {
+    int threads = 16;
+    int users = 50;
+    int iterations = 2000;
+    ActiveTokenRegistry registry = new ActiveTokenRegistry(users, true);
+    ConcurrentHashMap<String, String> lastIssued = new ConcurrentHashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+
+    for (int t = 0; t < threads; t++) {
+      final int thread = t;
+      futures.add(executor.submit(() -> {
+        start.await();
+        for (int i = 0; i < iterations; i++) {
+          String user = "user" + ((thread * iterations + i) % users);
+          String jti = thread + "-" + i;
+          switch (i % 3) {
+            case 0 -> registry.register(user, jti, inOneHour());
+            case 1 -> registry.isSuperseded(user, jti);
+            default -> registry.remove(user, jti);
+          }
+        }
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    assertTrue(registry.size() <= users);
+
+    // Tras la carga, el ultimo token emitido por usuario es el unico aceptado
+    for (int u = 0; u < users; u++) {
+      String user = "user" + u;
+      String jti = UUID.randomUUID().toString();
+      registry.register(user, jti, inOneHour());
+      lastIssued.put(user, jti);
+    }
+    lastIssued.forEach((user, jti) -> {
+      assertFalse(registry.isSuperseded(user, jti));
+      assertTrue(registry.isSuperseded(user, "stale"));
+    });
+  }
+}
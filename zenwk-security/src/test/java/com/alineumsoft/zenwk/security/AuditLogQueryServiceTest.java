@@ -0,0 +1,231 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.User;
+import com.alineumsoft.zenwk.security.audit.dto.AuditLogFilterDTO;
+import com.alineumsoft.zenwk.security.audit.service.AuditLogQueryService;
+import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
+import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Consulta de log_sec sobre H2 (modo PostgreSQL) con los indices de la migracion 003.
+ */
+class AuditLogQueryServiceTest {
+  private static final String MIGRATION = "db/changes/003_log_sec_audit_query.sql";
+  private static final int MAX_PAGE = 500;
+  private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 8, 0, 0);
+
+  private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+  private JdbcTemplate jdbcTemplate;
+  private AuditLogQueryService service;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+        "jdbc:h2:mem:auditquery;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"));
+    jdbcTemplate.execute("CREATE TABLE log_sec (logsecuseid BIGINT GENERATED BY DEFAULT AS"
+        + " IDENTITY PRIMARY KEY, logsecusemethod VARCHAR(255), logsecusestatuscode INTEGER,"
+        + " logsecuseurl VARCHAR(255), logsecuserequest VARCHAR(4000),"
+        + " logsecuseresponse VARCHAR(4000), logsecuseerrormessage TEXT,"
+        + " logsecusecreationdate TIMESTAMP, logsecuseusercreation VARCHAR(255),"
+        + " logsecuseipaddress VARCHAR(255), logsecuseuseragent VARCHAR(255),"
+        + " logsecuseexecutiontime VARCHAR(255), logsecuseservicename VARCHAR(255))");
+    for (String sql : migrationIndexes()) {
+      jdbcTemplate.execute(sql);
+    }
+    // Dos logs por minuto, para paginar con fechas repetidas. RoleService guarda el nombre de la
+    // accion (ROLE_LIST) y UserService su codigo (USER.GET)
+    for (int i = 0; i < 200; i++) {
+      jdbcTemplate.update("INSERT INTO log_sec (logsecusemethod, logsecusestatuscode,"
+          + " logsecusecreationdate, logsecuseusercreation, logsecuseservicename)"
+          + " VALUES ('GET', ?, ?, ?, ?)", i % 10 == 0 ? 404 : 200,
+          Timestamp.valueOf(START.plusMinutes(i / 2)), "user" + (i % 20),
+          i % 2 == 0 ? "ROLE_LIST" : "USER.GET");
+    }
+    jdbcTemplate.execute("ANALYZE");
+    service = new AuditLogQueryService(jdbcTemplate, objectMapper,
+        mock(LogSecurityRepository.class));
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("DROP ALL OBJECTS");
+  }
+
+  private JsonNode page(AuditLogFilterDTO filter) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    service.writeLogs(filter, out);
+    return objectMapper.readTree(out.toByteArray());
+  }
+
+  @Test
+  @DisplayName("Recorre todas las páginas con el cursor sin repetir ni omitir logs")
+  void pagesWithCursor() throws IOException {
+    AuditLogFilterDTO filter = new AuditLogFilterDTO();
+    filter.setUser("user4");
+    filter.setSize(3);
+    List<Long> ids = new ArrayList<>();
+    List<String> dates = new ArrayList<>();
+    int pages = 0;
+    do {
+      JsonNode page = page(filter);
+      page.get("logs").forEach(log -> {
+        ids.add(log.get("id").asLong());
+        dates.add(log.get("creationDate").asText());
+      });
+      filter.setCursor(page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText());
+      pages++;
+    } while (filter.getCursor() != null);
+
+    List<Long> expected = jdbcTemplate.queryForList("SELECT logsecuseid FROM log_sec"
+        + " WHERE logsecuseusercreation = 'user4'"
+        + " ORDER BY logsecusecreationdate DESC, logsecuseid DESC", Long.class);
+    assertEquals(expected, ids);
+    assertEquals(4, pages);
+    assertEquals(START.plusMinutes(92).toString(), dates.get(0).substring(0, 16));
+  }
+
+  @Test
+  @DisplayName("Aplica los filtros de acción (nombre o código), estado y rango de fechas")
+  void filters() throws IOException {
+    AuditLogFilterDTO filter = new AuditLogFilterDTO();
+    filter.setAction("ROLE.LIST");
+    filter.setStatus(404);
+    filter.setFrom(START.plusMinutes(10));
+    filter.setTo(START.plusMinutes(30));
+
+    JsonNode page = page(filter);
+
+    assertEquals(4, page.get("logs").size());
+    page.get("logs").forEach(log -> {
+      assertEquals("ROLE_LIST", log.get("serviceName").asText());
+      assertEquals(404, log.get("statusCode").asInt());
+    });
+    assertTrue(page.get("nextCursor").isNull());
+  }
+
+  @Test
+  @DisplayName("El filtro de acción encuentra los logs guardados por código o por nombre")
+  void actionStoredAsCodeOrName() throws IOException {
+    jdbcTemplate.update("INSERT INTO log_sec (logsecusemethod, logsecusestatuscode,"
+        + " logsecusecreationdate, logsecuseusercreation, logsecuseservicename)"
+        + " VALUES ('GET', 200, ?, 'user0', 'USER_GET')", Timestamp.valueOf(START));
+    AuditLogFilterDTO filter = new AuditLogFilterDTO();
+    filter.setSize(MAX_PAGE);
+
+    for (String action : List.of("USER.GET", "user_get")) {
+      filter.setAction(action);
+      JsonNode page = page(filter);
+      assertEquals(101, page.get("logs").size());
+      page.get("logs").forEach(log -> assertTrue(
+          List.of("USER.GET", "USER_GET").contains(log.get("serviceName").asText())));
+    }
+    filter.setAction("ROLE_LIST");
+    assertEquals(100, page(filter).get("logs").size());
+  }
+
+  @Test
+  @DisplayName("Un error de la consulta es técnico y no escribe ni confirma la respuesta")
+  void queryErrorWritesNothing() {
+    jdbcTemplate.execute("DROP TABLE log_sec");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    assertThrows(TechnicalException.class,
+        () -> service.findLogs(new AuditLogFilterDTO(),
+            new MockHttpServletRequest("GET", "/api/audit/logs"), response,
+            User.withUsername("admin").password("x").build()));
+
+    assertEquals(0, response.getContentAsByteArray().length);
+    assertFalse(response.isCommitted());
+  }
+
+  @Test
+  @DisplayName("Un cursor alterado es un error funcional y no escribe la respuesta")
+  void invalidCursor() {
+    AuditLogFilterDTO filter = new AuditLogFilterDTO();
+    filter.setCursor("no-es-un-cursor");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    FunctionalException exception = assertThrows(FunctionalException.class,
+        () -> service.findLogs(filter, new MockHttpServletRequest("GET", "/api/audit/logs"),
+            response, User.withUsername("admin").password("x").build()));
+
+    assertNotNull(exception.getMessage());
+    assertTrue(exception.getMessage().contains("FUNC_SEC_AUDIT_0001"), exception.getMessage());
+    assertEquals(0, response.getContentAsByteArray().length);
+  }
+
+  @Test
+  @DisplayName("Sin más resultados nextCursor es null")
+  void lastPage() throws IOException {
+    AuditLogFilterDTO filter = new AuditLogFilterDTO();
+    filter.setUser("user1");
+    filter.setSize(10);
+
+    JsonNode page = page(filter);
+
+    assertEquals(10, page.get("logs").size());
+    assertNull(page.get("nextCursor").textValue());
+  }
+
+  @Test
+  @DisplayName("Los filtros por usuario, acción, estado y fecha usan los índices de la migración")
+  void filtersUseIndexes() {
+    assertTrue(explain("logsecuseusercreation = 'user1'").contains("IDX_LOG_SEC_USER_CREATION"));
+    assertTrue(explain("logsecuseservicename = 'ROLE_LIST'")
+        .contains("IDX_LOG_SEC_SERVICE_CREATION"));
+    assertTrue(explain("logsecusestatuscode = 500").contains("IDX_LOG_SEC_STATUS_CREATION"));
+    assertTrue(explain("logsecusecreationdate >= TIMESTAMP '2025-03-01 09:35:00'")
+        .contains("IDX_LOG_SEC_CREATION"));
+  }
+
+  private String explain(String condition) {
+    String plan = String.join("",
+        jdbcTemplate.queryForList("EXPLAIN SELECT * FROM log_sec WHERE " + condition
+            + " ORDER BY logsecusecreationdate DESC, logsecuseid DESC LIMIT 11", String.class));
+    return plan.toUpperCase(Locale.ROOT);
+  }
+
+  /**
+   * Sentencias CREATE INDEX de la migracion; H2 no admite CONCURRENTLY
+   */
+  private static List<String> migrationIndexes() throws IOException {
+    try (InputStream in =
+        AuditLogQueryServiceTest.class.getClassLoader().getResourceAsStream(MIGRATION)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+          .filter(line -> line.startsWith("CREATE ")).map(line -> line.replace(";", "")
+              .replace(" CONCURRENTLY", ""))
+          .toList();
+    }
+  }
+}
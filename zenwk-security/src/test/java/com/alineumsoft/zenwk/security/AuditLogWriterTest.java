@@ -0,0 +1,194 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.alineumsoft.zenwk.security.common.component.AuditLogWriter;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditLogWriterTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private LogSecurityRepository logSecRepo;
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * serviceName de los logs insertados, en orden
+   */
+  private List<String> inserted;
+  private List<Integer> batchSizes;
+  /**
+   * Permite detener al escritor dentro del primer lote
+   */
+  private CountDownLatch insertEntered;
+  private CountDownLatch releaseInsert;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    logSecRepo = mock(LogSecurityRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    inserted = new CopyOnWriteArrayList<>();
+    batchSizes = new CopyOnWriteArrayList<>();
+    insertEntered = new CountDownLatch(1);
+    releaseInsert = new CountDownLatch(0);
+    PreparedStatement ps = mock(PreparedStatement.class, invocation -> {
+      if ("setString".equals(invocation.getMethod().getName())
+          && invocation.<Integer>getArgument(0) == 12) {
+        inserted.add(invocation.getArgument(1));
+      }
+      return null;
+    });
+    when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class)))
+        .thenAnswer(invocation -> {
+          insertEntered.countDown();
+          releaseInsert.await(5, TimeUnit.SECONDS);
+          BatchPreparedStatementSetter setter = invocation.getArgument(1);
+          batchSizes.add(setter.getBatchSize());
+          for (int i = 0; i < setter.getBatchSize(); i++) {
+            setter.setValues(ps, i);
+          }
+          return new int[setter.getBatchSize()];
+        });
+  }
+
+  private AuditLogWriter writer(boolean enabled, int capacity, int batchSize, String policy) {
+    return new AuditLogWriter(jdbcTemplate, logSecRepo, meterRegistry, enabled, capacity,
+        batchSize, 60000, policy, 50, 10, 5000);
+  }
+
+  private static LogSecurity logSec(String serviceName, int statusCode) {
+    LogSecurity logSec = new LogSecurity();
+    logSec.setServiceName(serviceName);
+    logSec.setStatusCode(statusCode);
+    return logSec;
+  }
+
+  private double dropped(String reason) {
+    return meterRegistry.get(AuthConfigConstants.AUDIT_METRIC_NAME + ".dropped")
+        .tag("reason", reason).counter().count();
+  }
+
+  /**
+   * Deja al escritor ocupado con el log "first" para llenar la cola
+   */
+  private void holdWriter(AuditLogWriter writer) throws InterruptedException {
+    releaseInsert = new CountDownLatch(1);
+    writer.start();
+    writer.write(logSec("first", 200));
+    assertTrue(insertEntered.await(5, TimeUnit.SECONDS));
+    assertEquals(0, writer.getQueueDepth());
+  }
+
+  @Test
+  @DisplayName("Inserta por lotes de batch-size y vacía la cola al detenerse")
+  void batchesAndDrainsOnStop() throws InterruptedException {
+    AuditLogWriter writer = writer(true, 100, 3, "block");
+    releaseInsert = new CountDownLatch(1);
+    writer.start();
+    for (int i = 0; i < 7; i++) {
+      writer.write(logSec("log-" + i, 200));
+    }
+    releaseInsert.countDown();
+    writer.stop();
+
+    assertEquals(List.of("log-0", "log-1", "log-2", "log-3", "log-4", "log-5", "log-6"),
+        inserted);
+    assertTrue(batchSizes.stream().allMatch(size -> size <= 3));
+    assertEquals(7.0,
+        meterRegistry.get(AuthConfigConstants.AUDIT_METRIC_NAME + ".written").counter().count());
+    assertEquals(0.0,
+        meterRegistry.get(AuthConfigConstants.AUDIT_METRIC_NAME + ".queue").gauge().value());
+    verify(logSecRepo, never()).save(any(LogSecurity.class));
+
+    writer.write(logSec("after-stop", 200));
+    verify(logSecRepo).save(any(LogSecurity.class));
+  }
+
+  @Test
+  @DisplayName("drop-oldest descarta el log más antiguo cuando la cola está llena")
+  void dropOldest() throws InterruptedException {
+    AuditLogWriter writer = writer(true, 2, 1, "drop-oldest");
+    holdWriter(writer);
+
+    writer.write(logSec("b", 200));
+    writer.write(logSec("c", 200));
+    writer.write(logSec("d", 200));
+    releaseInsert.countDown();
+    writer.stop();
+
+    assertEquals(List.of("first", "c", "d"), inserted);
+    assertEquals(1.0, dropped("overflow"));
+  }
+
+  @Test
+  @DisplayName("block espera block-timeout y luego guarda el log en línea")
+  void blockFallsBackInline() throws InterruptedException {
+    AuditLogWriter writer = writer(true, 1, 1, "block");
+    holdWriter(writer);
+
+    writer.write(logSec("b", 200));
+    LogSecurity inline = logSec("c", 200);
+    writer.write(inline);
+    releaseInsert.countDown();
+    writer.stop();
+
+    verify(logSecRepo, times(1)).save(inline);
+    assertEquals(List.of("first", "b"), inserted);
+    assertEquals(0.0, dropped("overflow"));
+  }
+
+  @Test
+  @DisplayName("sample conserva 1 de cada N logs exitosos sobre el 75% de la capacidad")
+  void sample() throws InterruptedException {
+    AuditLogWriter writer = writer(true, 4, 1, "sample");
+    holdWriter(writer);
+
+    writer.write(logSec("b", 200));
+    writer.write(logSec("c", 200));
+    writer.write(logSec("d", 200));
+    writer.write(logSec("kept", 200));
+    writer.write(logSec("sampled", 200));
+    writer.write(logSec("error", 500));
+    releaseInsert.countDown();
+    writer.stop();
+
+    assertEquals(List.of("first", "b", "c", "d", "kept"), inserted);
+    assertEquals(1.0, dropped("sampled"));
+    assertEquals(1.0, dropped("overflow"));
+  }
+
+  @Test
+  @DisplayName("Deshabilitado guarda cada log con el repositorio")
+  void disabled() {
+    AuditLogWriter writer = writer(false, 100, 10, "block");
+    writer.start();
+    LogSecurity logSec = logSec("a", 200);
+
+    writer.write(logSec);
+
+    assertFalse(writer.isRunning());
+    verify(logSecRepo).save(logSec);
+    verify(jdbcTemplate, never()).batchUpdate(anyString(),
+        any(BatchPreparedStatementSetter.class));
+  }
+}
@@ -0,0 +1,155 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import com.alineumsoft.zenwk.security.common.component.AuditLogWriter;
+import com.alineumsoft.zenwk.security.common.component.AuditSuccessPolicy;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.enums.SecurityActionEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditSuccessPolicyTest {
+
+  private AuditLogWriter auditLogWriter;
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * Registros agregados escritos por flush
+   */
+  private List<LogSecurity> written;
+
+  @BeforeEach
+  void setUp() {
+    auditLogWriter = mock(AuditLogWriter.class);
+    meterRegistry = new SimpleMeterRegistry();
+    written = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> written.add(invocation.getArgument(0))).when(auditLogWriter)
+        .write(any(LogSecurity.class));
+  }
+
+  private AuditSuccessPolicy policy(String policies) {
+    return new AuditSuccessPolicy(auditLogWriter, meterRegistry, policies, 10);
+  }
+
+  private static LogSecurity logSec(SecurityActionEnum action, String executionTime) {
+    return logSec(action.getCode(), executionTime);
+  }
+
+  private static LogSecurity logSec(String serviceName, String executionTime) {
+    LogSecurity logSec = new LogSecurity();
+    logSec.setServiceName(serviceName);
+    logSec.setStatusCode(200);
+    logSec.setExecutionTime(executionTime);
+    return logSec;
+  }
+
+  private long persisted(AuditSuccessPolicy policy, SecurityActionEnum action, int logs) {
+    return IntStream.range(0, logs)
+        .filter(i -> policy.shouldPersist(logSec(action, "0.010(s)"))).count();
+  }
+
+  private double skipped(SecurityActionEnum action, String mode) {
+    return meterRegistry.get(AuthConfigConstants.AUDIT_SUCCESS_METRIC_NAME + ".skipped")
+        .tag("action", action.name()).tag("mode", mode).counter().count();
+  }
+
+  @Test
+  @DisplayName("sample guarda 1 de cada N logs de la acción")
+  void sample() {
+    AuditSuccessPolicy policy = policy("USER_LIST=sample,ROLE_LIST=sample:4");
+
+    assertEquals(3, persisted(policy, SecurityActionEnum.USER_LIST, 25));
+    assertEquals(5, persisted(policy, SecurityActionEnum.ROLE_LIST, 20));
+    assertEquals(7, persisted(policy, SecurityActionEnum.PERSON_LIST, 7));
+    assertEquals(22.0, skipped(SecurityActionEnum.USER_LIST, "sample"));
+  }
+
+  @Test
+  @DisplayName("aggregate guarda un registro por acción con el total y los percentiles")
+  void aggregate() {
+    AuditSuccessPolicy policy = policy("USER_GET_EMAIL=aggregate");
+    for (int i = 1; i <= 100; i++) {
+      assertFalse(policy.shouldPersist(
+          logSec(SecurityActionEnum.USER_GET_EMAIL, String.format("%d.%03d(s)", i / 1000,
+              i % 1000))));
+    }
+    assertFalse(
+        policy.shouldPersist(logSec(SecurityActionEnum.USER_GET_EMAIL, "AUTO_GENERATED_EVENT")));
+
+    policy.flush();
+    policy.flush();
+
+    assertEquals(1, written.size());
+    LogSecurity summary = written.get(0);
+    assertEquals(SecurityActionEnum.USER_GET_EMAIL.getCode(), summary.getServiceName());
+    assertEquals(200, summary.getStatusCode());
+    assertEquals("0.050(s)", summary.getExecutionTime());
+    assertTrue(summary.getRequest().contains("\"count\":101"), summary.getRequest());
+    assertTrue(summary.getRequest().contains("\"p50Ms\":50,\"p95Ms\":95,\"p99Ms\":99,"
+        + "\"maxMs\":100"), summary.getRequest());
+    assertEquals(101.0, skipped(SecurityActionEnum.USER_GET_EMAIL, "aggregate"));
+  }
+
+  @Test
+  @DisplayName("La política aplica al log guardado con el nombre de la acción (RoleService)")
+  void actionStoredAsName() {
+    AuditSuccessPolicy policy = policy("ROLE_LIST=sample:4,PERMISSION_LIST=aggregate");
+
+    // RoleService guarda SecurityActionEnum.ROLE_LIST.name()
+    assertEquals(5, IntStream.range(0, 20)
+        .filter(i -> policy.shouldPersist(logSec("ROLE_LIST", "0.010(s)"))).count());
+    assertEquals(15.0, skipped(SecurityActionEnum.ROLE_LIST, "sample"));
+    assertFalse(policy.shouldPersist(logSec("PERMISSION_LIST", "0.020(s)")));
+    assertFalse(policy.shouldPersist(logSec(SecurityActionEnum.PERMISSION_LIST, "0.040(s)")));
+
+    policy.flush();
+
+    assertEquals(1, written.size());
+    assertEquals(SecurityActionEnum.PERMISSION_LIST.getCode(), written.get(0).getServiceName());
+    assertTrue(written.get(0).getRequest().contains("\"count\":2"), written.get(0).getRequest());
+  }
+
+  @Test
+  @DisplayName("Sin configuración todos los logs exitosos se guardan completos")
+  void defaultIsFull() {
+    AuditSuccessPolicy policy = policy("");
+
+    assertEquals(20, persisted(policy, SecurityActionEnum.USER_GET_EMAIL, 20));
+    assertEquals(20, IntStream.range(0, 20)
+        .filter(i -> policy.shouldPersist(logSec("ROLE_LIST", "0.010(s)"))).count());
+    policy.flush();
+    assertTrue(written.isEmpty());
+  }
+
+  @Test
+  @DisplayName("Las escrituras y la autenticación siempre se guardan completas")
+  void writesAndAuthAreAlwaysPersisted() {
+    AuditSuccessPolicy policy =
+        policy("USER_CREATE=sample,AUTH_LOGIN=aggregate,ROLE_DELETE=sample:2,USER_GET=full");
+
+    assertEquals(30, persisted(policy, SecurityActionEnum.USER_CREATE, 30));
+    assertEquals(30, persisted(policy, SecurityActionEnum.AUTH_LOGIN, 30));
+    assertEquals(30, persisted(policy, SecurityActionEnum.ROLE_DELETE, 30));
+    assertEquals(30, persisted(policy, SecurityActionEnum.USER_GET, 30));
+    policy.flush();
+    assertTrue(written.isEmpty());
+  }
+
+  @Test
+  @DisplayName("Una acción inexistente en la configuración falla al iniciar")
+  void invalidAction() {
+    assertThrows(IllegalArgumentException.class, () -> policy("USER_UNKNOWN=sample"));
+    assertThrows(IllegalArgumentException.class, () -> policy("USER_GET"));
+  }
+}
@@ -5,9 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import java.time.LocalDateTime;
@@ -28,11 +31,15 @@ import com.alineumsoft.zenwk.security.auth.dto.AuthResponseDTO;
 import com.alineumsoft.zenwk.security.auth.dto.ResetPasswordDTO;
 import com.alineumsoft.zenwk.security.auth.entity.Token;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.RefreshClaimsPolicy;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.auth.repository.TokenRepository;
 import com.alineumsoft.zenwk.security.auth.service.AuthService;
 import com.alineumsoft.zenwk.security.auth.service.PermissionService;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
+import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
 import com.alineumsoft.zenwk.security.common.util.CryptoUtil;
 import com.alineumsoft.zenwk.security.entity.LogSecurity;
 import com.alineumsoft.zenwk.security.enums.UserStateEnum;
@@ -41,6 +48,9 @@ import com.alineumsoft.zenwk.security.user.entity.User;
 import com.alineumsoft.zenwk.security.user.entity.UserHist;
 import com.alineumsoft.zenwk.security.user.repository.UserHistRepository;
 import com.alineumsoft.zenwk.security.user.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
@@ -62,6 +72,10 @@ class AuthServiceTest {
   @Mock
   private TokenRepository tokenRepository;
   @Mock
+  private RefreshClaimsPolicy refreshClaimsPolicy;
+  @Mock
+  private CsrfTokenCommonService csrfTokenCommonService;
+  @Mock
   private HttpServletRequest request;
   @Mock
   private HttpServletResponse response;
@@ -105,8 +119,8 @@ class AuthServiceTest {
     when(userDetails.getUsername()).thenReturn("user");
     when(userService.findByUsername("user")).thenReturn(user);
     when(permissionService.listAllowedUrlsForUserRole("user")).thenReturn(List.of("/a", "/b"));
-    when(jwtProvider.generateToken(eq(userDetails), any(), eq(10L), eq(UserStateEnum.ACTIVE),
-        eq("test@mail.com"))).thenReturn("jwt-token");
+    when(jwtProvider.generateToken(eq(userDetails), any(), eq(10L), isNull(),
+        eq(UserStateEnum.ACTIVE), eq("test@mail.com"))).thenReturn("jwt-token");
 
     AuthResponseDTO result = authService.authenticate(dto, request);
 
@@ -131,35 +145,68 @@ class AuthServiceTest {
   @Test
   @DisplayName("logout: invalida token correctamente")
   void logout_Success() {
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token-123"));
+    VerifiedJwt jwt = verifiedJwt("token-123", 5L, "mail@x.com", UserStateEnum.ACTIVE);
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(jwt));
 
     authService.logout(request, userDetails);
 
-    verify(jwtProvider).invalidateToken("token-123");
+    verify(jwtProvider).invalidateToken(jwt);
     verify(logSecRepo).save(any(LogSecurity.class));
   }
 
+  @Test
+  @DisplayName("logout: revoca el token csrf guardado de la sesion")
+  void logout_RevokesCsrfToken() {
+    VerifiedJwt jwt = verifiedJwt("token-123", 5L, "mail@x.com", UserStateEnum.ACTIVE);
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(jwt));
+    when(request.getCookies())
+        .thenReturn(new Cookie[] {new Cookie(AuthConfigConstants.XCSRF_TOKEN, "csrf-code")});
+
+    authService.logout(request, userDetails);
+
+    verify(csrfTokenCommonService).revokeCsrfToken(argThat(
+        dto -> "mail@x.com".equals(dto.getEmail()) && "csrf-code".equals(dto.getCode())));
+  }
+
 
   @Test
   @DisplayName("refreshJwt: retorna nuevo token")
   void refreshJwt_Success() {
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("old-jwt"));
-    when(jwtProvider.extractIdUser("old-jwt")).thenReturn(5L);
-    when(jwtProvider.extractUserEmail("old-jwt")).thenReturn("mail@x.com");
-    when(jwtProvider.extractUserState("old-jwt")).thenReturn(UserStateEnum.ACTIVE);
+    VerifiedJwt jwt = verifiedJwt("old-jwt", 5L, "mail@x.com", UserStateEnum.ACTIVE);
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(jwt));
     when(permissionService.listAllowedUrlsForUserRole(any())).thenReturn(List.of("/p"));
-    when(jwtProvider.generateToken(any(), any(), any(), any(), any())).thenReturn("new-jwt");
+    when(jwtProvider.generateToken(any(), any(), any(), any(), any(), any()))
+        .thenReturn("new-jwt");
 
     AuthResponseDTO result = authService.refreshJwt(request, userDetails);
 
     assertEquals("new-jwt", result.getToken());
-    verify(jwtProvider).invalidateToken("old-jwt");
+    verify(jwtProvider).generateToken(userDetails, List.of("/p"), 5L, null,
+        UserStateEnum.ACTIVE, "mail@x.com");
+    verify(jwtProvider).invalidateToken(jwt);
+    verify(refreshClaimsPolicy).recordRefresh(false);
+  }
+
+  @Test
+  @DisplayName("refreshJwt: con permisos vigentes reutiliza los claims sin consultar la BD")
+  void refreshJwt_ReusesClaims() {
+    VerifiedJwt jwt = verifiedJwt("old-jwt", 5L, "mail@x.com", UserStateEnum.ACTIVE);
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(jwt));
+    when(refreshClaimsPolicy.canReuseClaims(jwt)).thenReturn(true);
+    when(jwtProvider.reissueToken(userDetails, jwt)).thenReturn("new-jwt");
+
+    AuthResponseDTO result = authService.refreshJwt(request, userDetails);
+
+    assertEquals("new-jwt", result.getToken());
+    verify(jwtProvider).invalidateToken(jwt);
+    verify(refreshClaimsPolicy).recordRefresh(true);
+    verifyNoInteractions(permissionService, userService);
   }
 
   @Test
   @DisplayName("refreshJwt: error lanza TechnicalException")
   void refreshJwt_Error() {
-    when(jwtProvider.extractJwtFromCookie(request)).thenThrow(new RuntimeException("Error"));
+    when(jwtProvider.resolveVerifiedJwt(request)).thenThrow(new RuntimeException("Error"));
 
     assertThrows(TechnicalException.class, () -> authService.refreshJwt(request, userDetails));
   }
@@ -245,4 +292,15 @@ class AuthServiceTest {
         () -> authService.resetPassword(request, dto, "mail@test.com"));
   }
 
+  /**
+   * Construye un token verificado con los claims usados en la renovacion
+   */
+  private VerifiedJwt verifiedJwt(String token, Long idUser, String email,
+      UserStateEnum userState) {
+    Claims claims = Jwts.claims().setSubject("user");
+    claims.put(AuthConfigConstants.JWT_ID_USER, idUser);
+    claims.put(AuthConfigConstants.JWT_USER_EMAIL, email);
+    claims.put(AuthConfigConstants.JWT_USER_STATE, userState);
+    return VerifiedJwt.from(token, claims);
+  }
 }
@@ -2,11 +2,17 @@ package com.alineumsoft.zenwk.security;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,11 +21,16 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
 import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
 import com.alineumsoft.zenwk.security.common.entity.CsrfToken;
 import com.alineumsoft.zenwk.security.common.exception.enums.CoreExceptionEnum;
 import com.alineumsoft.zenwk.security.common.repository.CsrfTokenRepository;
+import com.alineumsoft.zenwk.security.common.service.CsrfTokenCache;
 import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
+import com.alineumsoft.zenwk.security.common.util.CryptoUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -30,17 +41,41 @@ import jakarta.servlet.http.HttpServletRequest;
  */
 class CsrfTokenCommonServiceTest {
 
+  private static final String JTI = "0b6f1c9e-jti";
+
   private CsrfTokenRepository csrfTokenRepository;
   private CsrfTokenCommonService service;
   private HttpServletRequest request;
+  private SimpleMeterRegistry meterRegistry;
+  private CsrfTokenCache csrfTokenCache;
 
   @BeforeEach
   void setUp() {
     csrfTokenRepository = mock(CsrfTokenRepository.class);
-    service = new CsrfTokenCommonService(csrfTokenRepository);
+    meterRegistry = new SimpleMeterRegistry();
+    csrfTokenCache = new CsrfTokenCache(true, 100, 60000, meterRegistry);
+    service = new CsrfTokenCommonService(csrfTokenRepository, csrfTokenCache);
     request = mock(HttpServletRequest.class);
   }
 
+  private CsrfToken csrfToken(String email, String code, LocalDateTime expirationDate) {
+    CsrfToken token = new CsrfToken();
+    token.setEmail(email);
+    token.setCodeHash(hash(code));
+    token.setExpirationDate(expirationDate);
+    return token;
+  }
+
+  private static String hash(String code) {
+    return CryptoUtil.sha256Hex(code);
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry.get("cache.gets")
+        .tags("cache", AuthConfigConstants.CSRF_CACHE_METRIC_NAME, "result", result)
+        .functionCounter().count();
+  }
+
   @Test
   @DisplayName("Debe generar y guardar correctamente el token CSRF asociado al usuario")
   void testGenerateCsrfToken() {
@@ -50,7 +85,7 @@ class CsrfTokenCommonServiceTest {
     when(request.getHeader("User-Agent")).thenReturn("JUnit-Agent");
     when(csrfTokenRepository.save(any(CsrfToken.class))).thenAnswer(i -> i.getArgument(0));
 
-    TokenDTO out = service.generateCsrfToken(dto, request, "user123");
+    TokenDTO out = service.generateCsrfToken(dto, request, JTI, "user123");
 
     assertNotNull(out.getCode());
     assertEquals("test@alineumsoft.com", out.getEmail());
@@ -69,7 +104,7 @@ class CsrfTokenCommonServiceTest {
     when(token.getExpirationDate()).thenReturn(LocalDateTime.now().plusMinutes(5));
     when(token.isRevoked()).thenReturn(false);
 
-    when(csrfTokenRepository.findByEmailAndCode(dto.getEmail(), dto.getCode()))
+    when(csrfTokenRepository.findByEmailAndCodeHash(dto.getEmail(), hash(dto.getCode())))
         .thenReturn(Optional.of(token));
 
     assertDoesNotThrow(() -> service.validateCsrfToken(dto));
@@ -86,7 +121,7 @@ class CsrfTokenCommonServiceTest {
     when(token.getExpirationDate()).thenReturn(LocalDateTime.now().minusMinutes(5));
     when(token.isRevoked()).thenReturn(false);
 
-    when(csrfTokenRepository.findByEmailAndCode(dto.getEmail(), dto.getCode()))
+    when(csrfTokenRepository.findByEmailAndCodeHash(dto.getEmail(), hash(dto.getCode())))
         .thenReturn(Optional.of(token));
 
     IllegalArgumentException ex =
@@ -106,7 +141,7 @@ class CsrfTokenCommonServiceTest {
     when(token.getExpirationDate()).thenReturn(LocalDateTime.now().plusMinutes(10));
     when(token.isRevoked()).thenReturn(true);
 
-    when(csrfTokenRepository.findByEmailAndCode(dto.getEmail(), dto.getCode()))
+    when(csrfTokenRepository.findByEmailAndCodeHash(dto.getEmail(), hash(dto.getCode())))
         .thenReturn(Optional.of(token));
 
     IllegalArgumentException ex =
@@ -122,9 +157,155 @@ class CsrfTokenCommonServiceTest {
     dto.setEmail("notfound@alineumsoft.com");
     dto.setCode("XXX999");
 
-    when(csrfTokenRepository.findByEmailAndCode(dto.getEmail(), dto.getCode()))
+    when(csrfTokenRepository.findByEmailAndCodeHash(dto.getEmail(), hash(dto.getCode())))
         .thenReturn(Optional.empty());
 
     assertThrows(EntityNotFoundException.class, () -> service.validateCsrfToken(dto));
   }
+
+  @Test
+  @DisplayName("La validación consulta la base de datos solo cuando el token no está en la cache")
+  void testValidateCsrfTokenCached() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+    dto.setCode("ABC123");
+    when(csrfTokenRepository.findByEmailAndCodeHash(dto.getEmail(), hash(dto.getCode())))
+        .thenReturn(Optional
+            .of(csrfToken(dto.getEmail(), dto.getCode(), LocalDateTime.now().plusHours(1))));
+
+    service.validateCsrfToken(dto);
+    service.validateCsrfToken(dto);
+    service.validateCsrfToken(dto);
+
+    verify(csrfTokenRepository, times(1)).findByEmailAndCodeHash(dto.getEmail(),
+        hash(dto.getCode()));
+    assertEquals(2.0, cacheGets("hit"));
+    assertEquals(1.0, cacheGets("miss"));
+    assertEquals(1.0,
+        meterRegistry.get(AuthConfigConstants.CSRF_DB_FALLBACK_METRIC_NAME).counter().count());
+  }
+
+  @Test
+  @DisplayName("El token generado se valida desde la cache sin consultar la base de datos")
+  void testGenerateCsrfTokenWriteThrough() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+
+    TokenDTO out = service.generateCsrfToken(dto, request, JTI, "user123");
+    service.validateCsrfToken(out);
+
+    verify(csrfTokenRepository, times(1)).save(any(CsrfToken.class));
+    verify(csrfTokenRepository, never()).findByEmailAndCodeHash(any(), any());
+  }
+
+  @Test
+  @DisplayName("La revocación elimina el token de la cache y lo marca revocado")
+  void testRevokeCsrfTokenInvalidatesCache() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+    dto.setCode("ABC123");
+    CsrfToken token = csrfToken(dto.getEmail(), dto.getCode(), LocalDateTime.now().plusHours(1));
+    when(csrfTokenRepository.findByEmailAndCodeHash(dto.getEmail(), hash(dto.getCode())))
+        .thenReturn(Optional.of(token));
+    service.validateCsrfToken(dto);
+
+    service.revokeCsrfToken(dto);
+
+    assertTrue(token.isRevoked());
+    verify(csrfTokenRepository).save(token);
+    IllegalArgumentException ex =
+        assertThrows(IllegalArgumentException.class, () -> service.validateCsrfToken(dto));
+    assertTrue(ex.getMessage()
+        .contains(CoreExceptionEnum.FUNC_VERIFICATION_TOKEN_CSRF_REVOKED.getCodeMessage()));
+    assertEquals(0, csrfTokenCache.size());
+  }
+
+  @Test
+  @DisplayName("La sesión (email, jti) conserva una sola fila que se actualiza al renovar")
+  void testGenerateCsrfTokenUpsertPerSession() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+    CsrfToken row = csrfToken(dto.getEmail(), "OLD123", LocalDateTime.now().plusHours(1));
+    row.setSessionId(JTI);
+    row.setRevoked(true);
+    when(csrfTokenRepository.findByEmailAndSessionId(dto.getEmail(), JTI))
+        .thenReturn(Optional.of(row));
+
+    TokenDTO out = service.generateCsrfToken(dto, request, JTI, "user123");
+
+    verify(csrfTokenRepository).save(row);
+    assertEquals(hash(out.getCode()), row.getCodeHash());
+    assertNotEquals(out.getCode(), row.getCodeHash());
+    assertEquals(out.getExpirationDate(), row.getExpirationDate());
+    assertFalse(row.isRevoked());
+    assertSame(row, service.validateCsrfToken(out));
+    TokenDTO old = new TokenDTO();
+    old.setEmail(dto.getEmail());
+    old.setCode("OLD123");
+    assertThrows(EntityNotFoundException.class, () -> service.validateCsrfToken(old));
+  }
+
+  @Test
+  @DisplayName("Si otra solicitud inserta la fila de la sesión primero, se renueva esa fila")
+  void testGenerateCsrfTokenConcurrentInsert() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+    CsrfToken row = csrfToken(dto.getEmail(), "OTHER1", LocalDateTime.now().plusHours(1));
+    when(csrfTokenRepository.findByEmailAndSessionId(dto.getEmail(), JTI))
+        .thenReturn(Optional.empty(), Optional.of(row));
+    when(csrfTokenRepository.save(any(CsrfToken.class)))
+        .thenThrow(new DataIntegrityViolationException("uk_sec_csrf_token_session"))
+        .thenAnswer(i -> i.getArgument(0));
+
+    TokenDTO out = service.generateCsrfToken(dto, request, JTI, "user123");
+
+    verify(csrfTokenRepository, times(2)).save(any(CsrfToken.class));
+    verify(csrfTokenRepository).save(eq(row));
+    assertEquals(hash(out.getCode()), row.getCodeHash());
+  }
+
+  @Test
+  @DisplayName("Dos dispositivos con el mismo navegador no rotan el token del otro")
+  void testGenerateCsrfTokenSameUserAgentOtherSession() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+    when(request.getHeader("User-Agent")).thenReturn("JUnit-Agent");
+    CsrfToken other = csrfToken(dto.getEmail(), "OTHER1", LocalDateTime.now().plusHours(1));
+    other.setUserAgent("JUnit-Agent");
+    other.setSessionId("other-jti");
+    when(csrfTokenRepository.findByEmailAndSessionId(dto.getEmail(), "other-jti"))
+        .thenReturn(Optional.of(other));
+    when(csrfTokenRepository.save(any(CsrfToken.class))).thenAnswer(i -> i.getArgument(0));
+
+    TokenDTO out = service.generateCsrfToken(dto, request, JTI, "user123");
+
+    verify(csrfTokenRepository, never()).save(other);
+    assertEquals(hash("OTHER1"), other.getCodeHash());
+    assertEquals(JTI, service.validateCsrfToken(out).getSessionId());
+  }
+
+  @Test
+  @DisplayName("Sin jti se inserta una fila nueva sin buscar la de la sesión")
+  void testGenerateCsrfTokenWithoutSession() {
+    TokenDTO dto = new TokenDTO();
+    dto.setEmail("test@alineumsoft.com");
+    when(csrfTokenRepository.save(any(CsrfToken.class))).thenAnswer(i -> i.getArgument(0));
+
+    TokenDTO out = service.generateCsrfToken(dto, request, null, "user123");
+
+    verify(csrfTokenRepository, never()).findByEmailAndSessionId(any(), any());
+    assertNull(service.validateCsrfToken(out).getSessionId());
+  }
+
+  @Test
+  @DisplayName("La depuración elimina los tokens expirados y tolera errores de la base de datos")
+  void testSweep() {
+    when(csrfTokenRepository.deleteExpired(any(LocalDateTime.class))).thenReturn(3)
+        .thenThrow(new DataIntegrityViolationException("db"));
+
+    service.sweep();
+    assertDoesNotThrow(() -> service.sweep());
+
+    verify(csrfTokenRepository, times(2)).deleteExpired(any(LocalDateTime.class));
+  }
 }
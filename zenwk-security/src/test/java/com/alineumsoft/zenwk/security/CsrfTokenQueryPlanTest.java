@@ -0,0 +1,109 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import com.alineumsoft.zenwk.security.common.util.CryptoUtil;
+
+/**
+ * Verifica sobre H2 (modo PostgreSQL) que las consultas de {@code CsrfTokenRepository} usan los
+ * indices creados por la migracion 002.
+ */
+class CsrfTokenQueryPlanTest {
+
+  private static final String MIGRATION = "db/changes/002_sec_csrf_token_hash.sql";
+
+  private Connection connection;
+
+  @BeforeEach
+  void setUp() throws SQLException, IOException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:csrfplan;MODE=PostgreSQL");
+    try (Statement st = connection.createStatement()) {
+      st.execute("CREATE TABLE sec_csrf_token (seccsrtokid BIGINT GENERATED BY DEFAULT AS IDENTITY"
+          + " PRIMARY KEY, seccsrtokcodehash CHAR(64) NOT NULL, seccsrtokemail VARCHAR(255),"
+          + " seccsrtokrevoked BOOLEAN, seccsrtokuseragent VARCHAR(255),"
+          + " seccsrtoksessionid VARCHAR(64),"
+          + " seccsrtokcreationdate TIMESTAMP, sectoexpirationdate TIMESTAMP,"
+          + " seccsrtokcreateuser VARCHAR(255))");
+      for (String sql : migrationIndexes()) {
+        st.execute(sql);
+      }
+      for (int i = 0; i < 200; i++) {
+        st.execute("INSERT INTO sec_csrf_token (seccsrtokcodehash, seccsrtokemail,"
+            + " seccsrtoksessionid, sectoexpirationdate) VALUES ('" + CryptoUtil.sha256Hex("c" + i)
+            + "', 'user" + (i % 50) + "@zenwk.com', 'jti-" + i + "', CURRENT_TIMESTAMP)");
+      }
+      st.execute("ANALYZE");
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    try (Statement st = connection.createStatement()) {
+      st.execute("DROP ALL OBJECTS");
+    }
+    connection.close();
+  }
+
+  @Test
+  @DisplayName("La validación por (email, digest) usa el índice compuesto")
+  void findByEmailAndCodeHash_usesIndex() throws SQLException {
+    String plan = explain("SELECT * FROM sec_csrf_token WHERE seccsrtokemail = 'user1@zenwk.com'"
+        + " AND seccsrtokcodehash = '" + CryptoUtil.sha256Hex("c1") + "'");
+
+    assertTrue(plan.contains("IDX_SEC_CSRF_TOKEN_EMAIL_HASH"), plan);
+  }
+
+  @Test
+  @DisplayName("La búsqueda de la fila de la sesión usa el índice único (email, jti)")
+  void findByEmailAndSessionId_usesIndex() throws SQLException {
+    String plan = explain("SELECT * FROM sec_csrf_token WHERE seccsrtokemail = 'user1@zenwk.com'"
+        + " AND seccsrtoksessionid = 'jti-1'");
+
+    assertTrue(plan.contains("UK_SEC_CSRF_TOKEN_SESSION"), plan);
+  }
+
+  @Test
+  @DisplayName("La depuración de expirados usa el índice de la fecha de expiración")
+  void deleteExpired_usesIndex() throws SQLException {
+    String plan = explain(
+        "SELECT * FROM sec_csrf_token WHERE sectoexpirationdate < TIMESTAMP '2000-01-01 00:00:00'");
+
+    assertTrue(plan.contains("IDX_SEC_CSRF_TOKEN_EXP"), plan);
+  }
+
+  private String explain(String sql) throws SQLException {
+    try (Statement st = connection.createStatement();
+        ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+      StringBuilder plan = new StringBuilder();
+      while (rs.next()) {
+        plan.append(rs.getString(1));
+      }
+      return plan.toString().toUpperCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Sentencias CREATE INDEX de la migracion, el resto usa funciones propias de PostgreSQL
+   */
+  private static String[] migrationIndexes() throws IOException {
+    try (InputStream in =
+        CsrfTokenQueryPlanTest.class.getClassLoader().getResourceAsStream(MIGRATION)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+          .filter(line -> line.matches("CREATE (UNIQUE )?INDEX .*"))
+          .map(line -> line.replace(";", ""))
+          .toArray(String[]::new);
+    }
+  }
+}
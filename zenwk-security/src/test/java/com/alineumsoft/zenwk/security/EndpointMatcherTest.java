@@ -0,0 +1,110 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
+import com.alineumsoft.zenwk.security.common.helper.ApiRestSecurityHelper;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
+import com.alineumsoft.zenwk.security.config.route.RouteTrie;
+import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
+import com.alineumsoft.zenwk.security.enums.RouteAccessEnum;
+
+class EndpointMatcherTest {
+
+  private static boolean isPublic(String method, String uri) {
+    return EndpointMatcher.isPublic(new MockHttpServletRequest(method, uri));
+  }
+
+  private static HttpMethodResourceEnum resource(String method, String uri) {
+    return EndpointMatcher.match(method, uri).map(route -> route.getResource()).orElse(null);
+  }
+
+  @Test
+  @DisplayName("RouteTrie: el literal tiene prioridad sobre la variable y la variable sobre **")
+  void routeTrie_precedence() {
+    RouteTrie<String> trie = RouteTrie.<String>builder().add("GET", "/api/users/{id}", "get")
+        .add("GET", "/api/users/me", "me").add("GET", "/api/**", "all")
+        .add(null, "/actuator/**", "actuator").build();
+
+    assertEquals("me", trie.find("GET", "/api/users/me"));
+    assertEquals("get", trie.find("GET", "/api/users/7"));
+    assertEquals("all", trie.find("GET", "/api/users/7/roles"));
+    assertEquals("all", trie.find("GET", "/api/users/"));
+    assertEquals("actuator", trie.find("DELETE", "/actuator/health"));
+    assertEquals("actuator", trie.find("GET", "/actuator"));
+    assertNull(trie.find("POST", "/api/users/7"));
+    assertNull(trie.find("GET", "api/users/7"));
+    assertThrows(IllegalArgumentException.class,
+        () -> RouteTrie.<String>builder().add("GET", "/api/**/users", "x"));
+  }
+
+  @Test
+  @DisplayName("Los endpoints publicos dependen del metodo HTTP")
+  void isPublic_methodAware() {
+    assertTrue(isPublic("POST", "/api/users"));
+    // El listado de usuarios (admin) no es publico aunque comparte el path con la creacion
+    assertFalse(isPublic("GET", "/api/users"));
+    assertTrue(isPublic("POST", "/api/auth/login"));
+    assertFalse(isPublic("GET", "/api/auth/login"));
+    assertTrue(isPublic("GET", "/api/users/email/user@mail.com"));
+    assertTrue(isPublic("POST", "/api/auth/reset-password/user@mail.com"));
+    assertTrue(isPublic("POST", "/api/verification/token/send"));
+    assertTrue(isPublic("GET", "/actuator/health"));
+    assertTrue(isPublic("GET", "/.well-known/jwks.json"));
+    assertFalse(isPublic("GET", "/api/users/me"));
+    assertFalse(isPublic("GET", "/private/resource"));
+  }
+
+  @Test
+  @DisplayName("match() retorna el recurso y el nivel de acceso de la ruta")
+  void match_returnsRoute() {
+    assertEquals(HttpMethodResourceEnum.USER_GET_EMAIL, resource("GET", "/api/users/email/a@b.co"));
+    assertEquals(HttpMethodResourceEnum.USER_JWT_ME, resource("GET", "/api/users/me"));
+    assertEquals(HttpMethodResourceEnum.USER_GET, resource("GET", "/api/users/7"));
+    assertEquals(HttpMethodResourceEnum.USER_DELETE, resource("DELETE", "/api/users/7"));
+    assertEquals(HttpMethodResourceEnum.PERMISSION_GET, resource("GET", "/api/permissions/3"));
+    assertEquals(RouteAccessEnum.AUTHENTICATED,
+        EndpointMatcher.match("GET", "/api/users/me").orElseThrow().getAccess());
+    assertEquals(RouteAccessEnum.ROLE_BASED,
+        EndpointMatcher.match("GET", "/api/roles").orElseThrow().getAccess());
+    assertTrue(EndpointMatcher.match("GET", "/api/unknown").isEmpty());
+  }
+
+  @Test
+  @DisplayName("Resuelve el codigo de la accion de seguridad desde la URI")
+  void securityActionCode_fromUri() {
+    ApiRestSecurityHelper helper = new ApiRestSecurityHelper();
+
+    assertEquals("USER.GET",
+        helper.getSecurityActionCodeFromRequest(new MockHttpServletRequest("GET", "/api/users/7")));
+    assertEquals("USER_ME_JWT.GET", helper
+        .getSecurityActionCodeFromRequest(new MockHttpServletRequest("GET", "/api/users/me")));
+    assertEquals("PERMISSION.GET", helper
+        .getSecurityActionCodeFromRequest(new MockHttpServletRequest("GET", "/api/permissions/1")));
+    assertEquals(CommonMessageConstants.NOT_FOUND, helper
+        .getSecurityActionCodeFromRequest(new MockHttpServletRequest("GET", "/actuator/health")));
+    assertEquals(CommonMessageConstants.NOT_FOUND,
+        helper.getSecurityActionCodeFromRequest(new MockHttpServletRequest("PATCH", "/api/x")));
+  }
+
+  @Test
+  @DisplayName("Usa el patron resuelto por Spring MVC cuando esta disponible")
+  void securityActionCode_fromBestMatchingPattern() {
+    MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/api/roles/3");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/roles/{id}");
+
+    assertEquals("ROLE.UPDATE",
+        new ApiRestSecurityHelper().getSecurityActionCodeFromRequest(request));
+
+    // Un patron desconocido se resuelve con la URI
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/roles/{idRole}");
+    assertEquals(HttpMethodResourceEnum.ROLE_UPDATE, EndpointMatcher.find(request).getResource());
+  }
+}
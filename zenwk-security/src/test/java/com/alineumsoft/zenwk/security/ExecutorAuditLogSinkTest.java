@@ -0,0 +1,145 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import com.alineumsoft.zenwk.security.common.component.ExecutorAuditLogSink;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
+import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExecutorAuditLogSinkTest {
+
+  private LogSecurityRepository logSecRepo;
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * errorMessage de los logs guardados, en orden
+   */
+  private List<String> saved;
+  private CountDownLatch saveEntered;
+  private CountDownLatch releaseSave;
+
+  @BeforeEach
+  void setUp() {
+    logSecRepo = mock(LogSecurityRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    saved = new CopyOnWriteArrayList<>();
+    saveEntered = new CountDownLatch(1);
+    releaseSave = new CountDownLatch(1);
+    when(logSecRepo.save(any(LogSecurity.class))).thenAnswer(invocation -> {
+      saveEntered.countDown();
+      releaseSave.await(5, TimeUnit.SECONDS);
+      LogSecurity logSec = invocation.getArgument(0);
+      saved.add(logSec.getErrorMessage());
+      return logSec;
+    });
+  }
+
+  private ExecutorAuditLogSink sink(int queueCapacity) {
+    return new ExecutorAuditLogSink(logSecRepo, meterRegistry, 1, queueCapacity, 5000);
+  }
+
+  private static LogSecurity logSec(String errorMessage) {
+    LogSecurity logSec = new LogSecurity();
+    logSec.setServiceName("ROLE_CREATE");
+    logSec.setStatusCode(404);
+    logSec.setUserCreation("admin");
+    logSec.setErrorMessage(errorMessage);
+    return logSec;
+  }
+
+  private double count(String name) {
+    return meterRegistry.get(AuthConfigConstants.AUDIT_ERROR_METRIC_NAME + name).counter()
+        .count();
+  }
+
+  private double dropped(String reason) {
+    return meterRegistry.get(AuthConfigConstants.AUDIT_ERROR_METRIC_NAME + ".dropped")
+        .tag("reason", reason).counter().count();
+  }
+
+  @Test
+  @DisplayName("Agrupa los errores repetidos mientras el log espera en la cola")
+  void coalescesRepeatedErrors() throws InterruptedException {
+    ExecutorAuditLogSink sink = sink(10);
+    sink.submit(logSec("primero"));
+    assertTrue(saveEntered.await(5, TimeUnit.SECONDS));
+
+    sink.submit(logSec("rol no existe"));
+    sink.submit(logSec("rol no existe"));
+    sink.submit(logSec("rol no existe"));
+    releaseSave.countDown();
+    sink.shutdown();
+
+    assertEquals(List.of("primero", "rol no existe [repeticiones: 3]"), saved);
+    assertEquals(2.0, count(".queued"));
+    assertEquals(2.0, count(".coalesced"));
+    assertEquals(2.0, count(".written"));
+  }
+
+  @Test
+  @DisplayName("Con la cola llena descarta el log sin bloquear la solicitud")
+  void dropsWhenQueueIsFull() throws InterruptedException {
+    ExecutorAuditLogSink sink = sink(1);
+    sink.submit(logSec("a"));
+    assertTrue(saveEntered.await(5, TimeUnit.SECONDS));
+
+    long start = System.nanoTime();
+    sink.submit(logSec("b"));
+    sink.submit(logSec("c"));
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    releaseSave.countDown();
+    sink.shutdown();
+
+    assertTrue(elapsedMillis < 1000, "submit bloqueo " + elapsedMillis + " ms");
+    assertEquals(List.of("a", "b"), saved);
+    assertEquals(1.0, dropped("rejected"));
+  }
+
+  @Test
+  @DisplayName("Un error de la base de datos se cuenta y no llega a la solicitud")
+  void databaseFailure() {
+    when(logSecRepo.save(any(LogSecurity.class)))
+        .thenThrow(new DataAccessResourceFailureException("db caida"));
+    ExecutorAuditLogSink sink = sink(10);
+
+    sink.submit(logSec("a"));
+    sink.shutdown();
+
+    assertEquals(1.0, dropped("error"));
+    assertEquals(0.0, count(".written"));
+  }
+
+  @Test
+  @DisplayName("Sin sink registrado la excepción guarda el log con el repositorio")
+  void coreExceptionWithoutSink() {
+    releaseSave.countDown();
+    LogSecurity logSec = logSec(null);
+
+    FunctionalException exception =
+        new FunctionalException("usuario no existe", null, logSecRepo, logSec);
+
+    assertEquals("usuario no existe", exception.getMessage());
+    assertEquals("usuario no existe", logSec.getErrorMessage());
+    verify(logSecRepo).save(logSec);
+
+    when(logSecRepo.save(any(LogSecurity.class)))
+        .thenThrow(new DataAccessResourceFailureException("db caida"));
+    assertEquals("error", new TechnicalException("error", null, logSecRepo, logSec(null))
+        .getMessage());
+  }
+}
@@ -1,9 +1,9 @@
 package com.alineumsoft.zenwk.security;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -15,6 +15,9 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,20 +25,56 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.alineumsoft.zenwk.security.auth.dto.AuthResponseDTO;
+import com.alineumsoft.zenwk.security.auth.jwt.ActiveTokenRegistry;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationFilter;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationToken;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
-import com.alineumsoft.zenwk.security.config.util.ConfigUtils;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.TokenRevocationService;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwtCache;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
+import com.alineumsoft.zenwk.security.auth.service.AuthService;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
+import com.alineumsoft.zenwk.security.common.entity.CsrfToken;
+import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
+import com.alineumsoft.zenwk.security.config.CsrfValidationFilter;
+import com.alineumsoft.zenwk.security.config.route.EndpointMatcher;
+import com.alineumsoft.zenwk.security.config.util.CookieUtil;
+import com.alineumsoft.zenwk.security.controller.AuthController;
 import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
 import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
+import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 class JwtAuthenticationFilterTest {
 
+  private static final String SECRET = Base64.getEncoder()
+      .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+
   private JwtProvider jwtProvider;
   private JwtAuthenticationFilter filter;
   private HttpServletRequest request;
@@ -60,8 +99,8 @@ class JwtAuthenticationFilterTest {
   void doFilterInternal_publicEndpoint() throws Exception {
     when(request.getRequestURI()).thenReturn("/public/resource");
 
-    try (MockedStatic<ConfigUtils> mocked = mockStatic(ConfigUtils.class)) {
-      mocked.when(() -> ConfigUtils.isPublicEndpoint(anyString())).thenReturn(true);
+    try (MockedStatic<EndpointMatcher> mocked = mockStatic(EndpointMatcher.class)) {
+      mocked.when(() -> EndpointMatcher.isPublic(any())).thenReturn(true);
       filter.doFilterInternal(request, response, filterChain);
       verify(filterChain, times(1)).doFilter(request, response);
     }
@@ -71,7 +110,7 @@ class JwtAuthenticationFilterTest {
   @DisplayName("doFilterInternal() bloquea si token es null")
   void doFilterInternal_tokenNull() throws Exception {
     when(request.getRequestURI()).thenReturn("/private/resource");
-    mockStaticConfigUtils(false);
+    mockStaticEndpointMatcher(false);
     when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.empty());
 
     filter.doFilterInternal(request, response, filterChain);
@@ -87,9 +126,10 @@ class JwtAuthenticationFilterTest {
   void doFilterInternal_invalidToken() throws Exception {
     String token = "invalid-token";
     when(request.getRequestURI()).thenReturn("/private/resource");
-    mockStaticConfigUtils(false);
+    mockStaticEndpointMatcher(false);
     when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
-    when(jwtProvider.extractAllClaims(token)).thenThrow(new RuntimeException("Token inválido"));
+    when(jwtProvider.verifyRequest(request, token))
+        .thenThrow(new RuntimeException("Token inválido"));
 
     filter.doFilterInternal(request, response, filterChain);
 
@@ -98,22 +138,56 @@ class JwtAuthenticationFilterTest {
     verify(filterChain, never()).doFilter(request, response);
   }
 
-  private void mockStaticConfigUtils(boolean isPublic) {
-    try (var mocked = Mockito.mockStatic(ConfigUtils.class)) {
-      mocked.when(() -> ConfigUtils.isPublicEndpoint(anyString())).thenReturn(isPublic);
+  private void mockStaticEndpointMatcher(boolean isPublic) {
+    try (var mocked = Mockito.mockStatic(EndpointMatcher.class)) {
+      mocked.when(() -> EndpointMatcher.isPublic(any())).thenReturn(isPublic);
     }
   }
 
   // ---------------------- validateAuthenticate tests ----------------------
   @Test
-  @DisplayName("validateAuthenticate() llama a sendErrorResponse si userDetails es null")
-  void validateAuthenticate_userDetailsNull() throws Exception {
-    String token = "token1";
+  @DisplayName("validateAuthenticate() llama a sendErrorResponse si el token no es válido")
+  void validateAuthenticate_tokenInvalid() throws Exception {
     String username = "user1";
+    VerifiedJwt jwt = verifiedJwt("token1", username, List.of("USER"), List.of());
 
-    doReturn(Optional.empty()).when(jwtProvider).extractUserDetails(token);
+    doReturn(false).when(jwtProvider).validateToken(jwt, username);
 
-    boolean result = invokeValidateAuthenticate(token, username);
+    boolean result = invokeValidateAuthenticate(jwt);
+
+    assertFalse(result);
+    verify(jwtProvider).sendErrorResponse(eq(username), eq(request), eq(response),
+        eq(HttpServletResponse.SC_UNAUTHORIZED),
+        eq(SecurityExceptionEnum.FUNC_AUTH_TOKEN_JWT_INVALID));
+  }
+
+  @Test
+  @DisplayName("validateAuthenticate() rechaza el token reemplazado por uno más reciente")
+  void validateAuthenticate_supersededToken() throws Exception {
+    String username = "user1";
+    VerifiedJwt jwt = verifiedJwt("token1", username, List.of("USER"), List.of());
+
+    doReturn(true).when(jwtProvider).validateToken(jwt, username);
+    doReturn(true).when(jwtProvider).isSuperseded(jwt);
+
+    boolean result = invokeValidateAuthenticate(jwt);
+
+    assertFalse(result);
+    verify(jwtProvider).sendErrorResponse(eq(username), eq(request), eq(response),
+        eq(HttpServletResponse.SC_UNAUTHORIZED),
+        eq(SecurityExceptionEnum.FUNC_AUTH_TOKEN_JWT_INVALID));
+  }
+
+  @Test
+  @DisplayName("validateAuthenticate() rechaza el token revocado por logout")
+  void validateAuthenticate_revokedToken() throws Exception {
+    String username = "user1";
+    VerifiedJwt jwt = verifiedJwt("token1", username, List.of("USER"), List.of());
+
+    doReturn(true).when(jwtProvider).validateToken(jwt, username);
+    doReturn(true).when(jwtProvider).isRevoked(jwt);
+
+    boolean result = invokeValidateAuthenticate(jwt);
 
     assertFalse(result);
     verify(jwtProvider).sendErrorResponse(eq(username), eq(request), eq(response),
@@ -124,16 +198,14 @@ class JwtAuthenticationFilterTest {
   @Test
   @DisplayName("validateAuthenticate() llama a sendErrorResponse si rol no permitido")
   void validateAuthenticate_invalidRole() throws Exception {
-    String token = "token2";
     String username = "user2";
+    VerifiedJwt jwt = verifiedJwt("token2", username, List.of("USER"), List.of());
     filter = spy(new JwtAuthenticationFilter(jwtProvider));
 
-    UserDetails user = User.withUsername(username).password("pass").roles("USER").build();
-    doReturn(Optional.of(user)).when(jwtProvider).extractUserDetails(token);
-    doReturn(true).when(jwtProvider).validateToken(token, username);
-    doReturn(false).when(filter).validateRolUser(token, request);
+    doReturn(true).when(jwtProvider).validateToken(jwt, username);
+    doReturn(false).when(filter).validateRolUser(jwt, request);
 
-    boolean result = invokeValidateAuthenticate(token, username);
+    boolean result = invokeValidateAuthenticate(jwt);
 
     assertFalse(result);
     verify(jwtProvider).sendErrorResponse(eq(username), eq(request), eq(response),
@@ -143,37 +215,36 @@ class JwtAuthenticationFilterTest {
   @Test
   @DisplayName("validateAuthenticate() autentica correctamente si token y rol son válidos")
   void validateAuthenticate_validUser() throws Exception {
-    String token = "token3";
     String username = "user3";
+    VerifiedJwt jwt = verifiedJwt("token3", username, List.of("USER"), List.of());
     filter = spy(new JwtAuthenticationFilter(jwtProvider));
 
-    UserDetails user = User.withUsername(username).password("pass").roles("USER").build();
-    doReturn(Optional.of(user)).when(jwtProvider).extractUserDetails(token);
-    doReturn(true).when(jwtProvider).validateToken(token, username);
-    doReturn(true).when(filter).validateRolUser(token, request);
+    doReturn(true).when(jwtProvider).validateToken(jwt, username);
+    doReturn(true).when(filter).validateRolUser(jwt, request);
 
-    boolean result = invokeValidateAuthenticate(token, username);
+    boolean result = invokeValidateAuthenticate(jwt);
 
     assertTrue(result);
-    assertTrue(SecurityContextHolder.getContext().getAuthentication() != null);
+    assertTrue(SecurityContextHolder.getContext()
+        .getAuthentication() instanceof JwtAuthenticationToken authentication
+        && authentication.getRoleSetId() == jwt.getRoleSetId());
   }
 
-  private boolean invokeValidateAuthenticate(String token, String username) throws Exception {
+  private boolean invokeValidateAuthenticate(VerifiedJwt jwt) throws Exception {
     Method method = JwtAuthenticationFilter.class.getDeclaredMethod("validateAuthenticate",
-        HttpServletRequest.class, HttpServletResponse.class, String.class, String.class);
+        HttpServletRequest.class, HttpServletResponse.class, VerifiedJwt.class);
     method.setAccessible(true);
-    return (boolean) method.invoke(filter, request, response, token, username);
+    return (boolean) method.invoke(filter, request, response, jwt);
   }
 
   // ---------------------- validateRolUser tests ----------------------
   @Test
   @DisplayName("validateRolUser() permite acceso si rol no es USER o NEW_USER")
   void validateRolUser_roleNotUserOrNewUser() {
-    String token = "token1";
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of("ADMIN"));
+    VerifiedJwt jwt = verifiedJwt("token1", "user", List.of("ADMIN"), List.of());
     when(request.getRequestURI()).thenReturn("/private/resource");
 
-    boolean result = filter.validateRolUser(token, request);
+    boolean result = filter.validateRolUser(jwt, request);
 
     assertTrue(result);
   }
@@ -181,11 +252,10 @@ class JwtAuthenticationFilterTest {
   @Test
   @DisplayName("validateRolUser() permite acceso si rol USER y URI no restringida")
   void validateRolUser_userRoleUriNotRestricted() {
-    String token = "token2";
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of("USER"));
+    VerifiedJwt jwt = verifiedJwt("token2", "user", List.of("USER"), List.of());
     when(request.getRequestURI()).thenReturn("/some/other/uri");
 
-    boolean result = filter.validateRolUser(token, request);
+    boolean result = filter.validateRolUser(jwt, request);
 
     assertTrue(result);
   }
@@ -193,13 +263,11 @@ class JwtAuthenticationFilterTest {
   @Test
   @DisplayName("validateRolUser() permite acceso si rol USER y URI restringida y permitida en JWT")
   void validateRolUser_userRoleUriAllowed() {
-    String token = "token3";
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of("USER"));
+    VerifiedJwt jwt = verifiedJwt("token3", "user", List.of("USER"),
+        List.of(HttpMethodResourceEnum.USER_CREATE.getResource()));
     when(request.getRequestURI()).thenReturn(HttpMethodResourceEnum.USER_CREATE.getResource());
-    when(jwtProvider.extractUrlsAllowedRolUser(token))
-        .thenReturn(List.of(HttpMethodResourceEnum.USER_CREATE.getResource()));
 
-    boolean result = filter.validateRolUser(token, request);
+    boolean result = filter.validateRolUser(jwt, request);
 
     assertTrue(result);
   }
@@ -207,12 +275,10 @@ class JwtAuthenticationFilterTest {
   @Test
   @DisplayName("validateRolUser() bloquea acceso si rol USER y URI restringida no permitida en JWT")
   void validateRolUser_userRoleUriNotAllowed() {
-    String token = "token4";
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of("USER"));
+    VerifiedJwt jwt = verifiedJwt("token4", "user", List.of("USER"), List.of("/other/uri"));
     when(request.getRequestURI()).thenReturn(HttpMethodResourceEnum.USER_CREATE.getResource());
-    when(jwtProvider.extractUrlsAllowedRolUser(token)).thenReturn(List.of("/other/uri"));
 
-    boolean result = filter.validateRolUser(token, request);
+    boolean result = filter.validateRolUser(jwt, request);
 
     assertFalse(result);
   }
@@ -226,22 +292,126 @@ class JwtAuthenticationFilterTest {
 
     when(request.getRequestURI()).thenReturn("/private/resource");
 
-    try (MockedStatic<ConfigUtils> mocked = mockStatic(ConfigUtils.class)) {
-      mocked.when(() -> ConfigUtils.isPublicEndpoint(anyString())).thenReturn(false);
+    try (MockedStatic<EndpointMatcher> mocked = mockStatic(EndpointMatcher.class)) {
+      mocked.when(() -> EndpointMatcher.isPublic(any())).thenReturn(false);
       when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
 
-      var claims = mock(io.jsonwebtoken.Claims.class);
-      when(jwtProvider.extractAllClaims(token)).thenReturn(claims);
-      when(claims.getSubject()).thenReturn(username);
+      VerifiedJwt jwt = verifiedJwt(token, username, List.of("USER"), List.of());
+      when(jwtProvider.verifyRequest(request, token)).thenReturn(jwt);
 
       JwtAuthenticationFilter spyFilter = spy(filter);
-      doReturn(true).when(spyFilter).validateAuthenticate(request, response, token, username);
+      doReturn(true).when(spyFilter).validateAuthenticate(request, response, jwt);
 
       spyFilter.doFilterInternal(request, response, filterChain);
 
-      verify(jwtProvider).extractAllClaims(token);
-      verify(spyFilter).validateAuthenticate(request, response, token, username);
+      verify(jwtProvider).verifyRequest(request, token);
+      verify(spyFilter).validateAuthenticate(request, response, jwt);
       verify(filterChain, times(1)).doFilter(request, response);
     }
   }
+
+  // ---------------------- verificación única del jwt por solicitud ----------------------
+  @Test
+  @DisplayName("La firma del jwt se verifica una sola vez entre filtros y servicios")
+  void verifiedJwt_parsedOncePerRequest() throws Exception {
+    JwtKeyHolder keyHolder = spy(new JwtKeyHolder(SECRET, new StandardEnvironment()));
+    JwtParser parser = spy(keyHolder.getParser());
+    doReturn(parser).when(keyHolder).getParser();
+    JwtProvider realProvider = realProvider(keyHolder);
+
+    UserDetails user = User.withUsername("user").password("pass").roles("ADMIN").build();
+    String token = realProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE,
+        "user@zenwk.com");
+
+    CsrfTokenCommonService csrfService = mock(CsrfTokenCommonService.class);
+    CsrfToken csrfToken = new CsrfToken();
+    csrfToken.setExpirationDate(LocalDateTime.now().plusHours(1));
+    when(csrfService.validateCsrfToken(any(TokenDTO.class))).thenReturn(csrfToken);
+    CsrfValidationFilter csrfFilter =
+        new CsrfValidationFilter(realProvider, csrfService,
+            mock(StatelessCsrfTokenService.class), mock(CookieUtil.class));
+    JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(realProvider);
+
+    MockHttpServletRequest httpRequest =
+        new MockHttpServletRequest("POST", HttpMethodResourceEnum.PERSON_CREATE.getResource());
+    httpRequest.setCookies(new Cookie(AuthConfigConstants.ZENWK_JWT, token),
+        new Cookie(AuthConfigConstants.XCSRF_TOKEN, "csrf"));
+    MockHttpServletResponse httpResponse = new MockHttpServletResponse();
+
+    csrfFilter.doFilter(httpRequest, httpResponse, new MockFilterChain());
+    jwtFilter.doFilter(httpRequest, httpResponse, new MockFilterChain());
+    Optional<VerifiedJwt> resolved = realProvider.resolveVerifiedJwt(httpRequest);
+
+    assertTrue(resolved.isPresent());
+    assertEquals(1L, resolved.get().getIdUser());
+    assertTrue(SecurityContextHolder.getContext().getAuthentication() != null);
+    verify(parser, times(1)).parseClaimsJws(token);
+  }
+
+  // ---------------------- csrf sin estado despues del refresh del jwt ----------------------
+  @Test
+  @DisplayName("En modo csrf sin estado la escritura despues del refresh del jwt es aceptada")
+  void refreshJwt_thenWrite_statelessCsrf() throws Exception {
+    JwtKeyHolder keyHolder = new JwtKeyHolder(SECRET, new StandardEnvironment());
+    JwtProvider realProvider = realProvider(keyHolder);
+    StatelessCsrfTokenService csrfTokens =
+        new StatelessCsrfTokenService("stateless", "", keyHolder);
+    CookieUtil cookieUtil = new CookieUtil();
+    UserDetails user = User.withUsername("user").password("pass").roles("ADMIN").build();
+    String oldJwt = realProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE,
+        "user@zenwk.com");
+    String oldCsrf = csrfTokens
+        .generateCsrfToken(realProvider.verify(oldJwt).getId(), "user@zenwk.com").getCode();
+    String newJwt = realProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE,
+        "user@zenwk.com");
+    AuthService authService = mock(AuthService.class);
+    when(authService.refreshJwt(any(HttpServletRequest.class), any(UserDetails.class)))
+        .thenReturn(new AuthResponseDTO(newJwt, 1L));
+    AuthController controller =
+        new AuthController(authService, cookieUtil, realProvider, csrfTokens);
+
+    MockHttpServletResponse refreshResponse = new MockHttpServletResponse();
+    controller.refreshJwt(new MockHttpServletRequest(), user, refreshResponse);
+    Cookie newCsrf = refreshResponse.getCookie(AuthConfigConstants.XCSRF_TOKEN);
+
+    CsrfValidationFilter csrfFilter = new CsrfValidationFilter(realProvider,
+        mock(CsrfTokenCommonService.class), csrfTokens, cookieUtil);
+    assertTrue(newCsrf != null && csrfTokens.isSigned(newCsrf.getValue()));
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+    csrfFilter.doFilter(write(newJwt, newCsrf.getValue()), writeResponse, chain);
+    assertEquals(HttpServletResponse.SC_OK, writeResponse.getStatus());
+    assertTrue(chain.getRequest() != null);
+
+    MockHttpServletResponse staleResponse = new MockHttpServletResponse();
+    csrfFilter.doFilter(write(newJwt, oldCsrf), staleResponse, new MockFilterChain());
+    assertEquals(HttpServletResponse.SC_FORBIDDEN, staleResponse.getStatus());
+  }
+
+  private static MockHttpServletRequest write(String jwt, String csrf) {
+    MockHttpServletRequest httpRequest =
+        new MockHttpServletRequest("POST", HttpMethodResourceEnum.PERSON_CREATE.getResource());
+    httpRequest.setCookies(new Cookie(AuthConfigConstants.ZENWK_JWT, jwt),
+        new Cookie(AuthConfigConstants.XCSRF_TOKEN, csrf));
+    return httpRequest;
+  }
+
+  private static JwtProvider realProvider(JwtKeyHolder keyHolder) {
+    JwtProvider realProvider = new JwtProvider(mock(LogSecurityRepository.class), keyHolder,
+        new VerifiedJwtCache(false, 100, keyHolder, new SimpleMeterRegistry()),
+        new ActiveTokenRegistry(100, true),
+        new TokenRevocationService(mock(RevokedTokenRepository.class), 1000, 0.01),
+        new PermissionSnapshotHolder(mock(RolePermissionRepository.class), 8));
+    ReflectionTestUtils.setField(realProvider, "expirationTime", 3600000L);
+    return realProvider;
+  }
+
+  private VerifiedJwt verifiedJwt(String token, String username, List<String> roles,
+      List<String> urlsAllowed) {
+    Claims claims = Jwts.claims().setSubject(username)
+        .setExpiration(new Date(System.currentTimeMillis() + 60000));
+    claims.put(AuthConfigConstants.JWT_ROLES, roles);
+    claims.put(AuthConfigConstants.JWT_URLS_ALLOWED_ROL_USER, urlsAllowed);
+    return VerifiedJwt.from(token, claims);
+  }
 }
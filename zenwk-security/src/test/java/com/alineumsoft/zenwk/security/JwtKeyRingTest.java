@@ -0,0 +1,202 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import com.alineumsoft.zenwk.security.controller.JwksController;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+
+class JwtKeyRingTest {
+
+  private static final String PREFIX = "security.jwt.signing.";
+
+  private String secret;
+
+  private Map<String, Object> properties;
+
+  private StandardEnvironment environment;
+
+  @BeforeEach
+  void setUp() {
+    Key key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    secret = Base64.getEncoder().encodeToString(key.getEncoded());
+    properties = new HashMap<>();
+    properties.put(PREFIX + "algorithm", "ES256");
+    environment = new StandardEnvironment();
+    environment.getPropertySources().addFirst(new MapPropertySource("signing", properties));
+  }
+
+  private void addKey(int index, String kid, KeyPair keyPair, Instant notBefore,
+      Instant notAfter) {
+    String key = PREFIX + "keys[" + index + "].";
+    properties.put(key + "kid", kid);
+    properties.put(key + "private-key",
+        Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+    properties.put(key + "public-key",
+        Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+    if (notBefore != null) {
+      properties.put(key + "not-before", notBefore.toString());
+    }
+    if (notAfter != null) {
+      properties.put(key + "not-after", notAfter.toString());
+    }
+  }
+
+  private static String sign(JwtKeyHolder holder, String subject) {
+    return holder.sign(Jwts.builder().setSubject(subject)).compact();
+  }
+
+  private static List<String> kids(JwtKeyHolder holder) {
+    return holder.getJwks().stream().map(jwk -> (String) jwk.get("kid")).toList();
+  }
+
+  @Test
+  @DisplayName("ES256 firma con el header kid y el parser verifica con la clave publica")
+  void es256_signsWithKid() {
+    addKey(0, "k1", Keys.keyPairFor(SignatureAlgorithm.ES256), null, null);
+    JwtKeyHolder holder = new JwtKeyHolder(secret, environment);
+
+    Jws<Claims> jws = holder.getParser().parseClaimsJws(sign(holder, "es256"));
+
+    assertEquals("k1", jws.getHeader().getKeyId());
+    assertEquals("ES256", jws.getHeader().getAlgorithm());
+    assertEquals("es256", jws.getBody().getSubject());
+  }
+
+  @Test
+  @DisplayName("Una clave con notBefore futuro se publica pero aun no firma")
+  void futureKey_publishedButNotSigning() {
+    Instant now = Instant.now();
+    addKey(0, "current", Keys.keyPairFor(SignatureAlgorithm.ES256),
+        now.minus(1, ChronoUnit.DAYS), null);
+    addKey(1, "next", Keys.keyPairFor(SignatureAlgorithm.ES256), now.plus(1, ChronoUnit.DAYS),
+        null);
+    JwtKeyHolder holder = new JwtKeyHolder(secret, environment);
+
+    assertEquals(List.of("current", "next"), kids(holder));
+    assertEquals("current",
+        holder.getParser().parseClaimsJws(sign(holder, "u")).getHeader().getKeyId());
+  }
+
+  @Test
+  @DisplayName("La clave retirada sigue verificando hasta su notAfter")
+  void retiredKey_verifiesUntilNotAfter() {
+    Instant now = Instant.now();
+    addKey(0, "old", Keys.keyPairFor(SignatureAlgorithm.ES256), now.minus(2, ChronoUnit.DAYS),
+        null);
+    JwtKeyHolder holder = new JwtKeyHolder(secret, environment);
+    String oldToken = sign(holder, "u");
+
+    // Rotacion: la nueva clave pasa a firmar, la anterior solo verifica
+    addKey(1, "new", Keys.keyPairFor(SignatureAlgorithm.ES256), now.minus(1, ChronoUnit.DAYS),
+        null);
+    properties.put(PREFIX + "keys[0].not-after", now.plus(1, ChronoUnit.DAYS).toString());
+    holder.onEnvironmentChange(new EnvironmentChangeEvent(Set.of(PREFIX + "keys[1].kid")));
+
+    assertEquals("old", holder.getParser().parseClaimsJws(oldToken).getHeader().getKeyId());
+    assertEquals("new",
+        holder.getParser().parseClaimsJws(sign(holder, "u")).getHeader().getKeyId());
+
+    // Fin de la validez de la clave anterior
+    properties.put(PREFIX + "keys[0].not-after", now.minus(1, ChronoUnit.MINUTES).toString());
+    holder.reloadSigningKeys();
+
+    assertEquals(List.of("new"), kids(holder));
+    assertThrows(UnsupportedJwtException.class, () -> holder.getParser().parseClaimsJws(oldToken));
+  }
+
+  @Test
+  @DisplayName("Sin claves configuradas, recargar la configuracion conserva la clave en memoria")
+  void ephemeralKey_keptAcrossReload() {
+    JwtKeyHolder holder = new JwtKeyHolder(secret, environment);
+    String token = sign(holder, "u");
+    List<String> kids = kids(holder);
+
+    properties.put(PREFIX + "jwks-max-age", "600");
+    holder.onEnvironmentChange(new EnvironmentChangeEvent(Set.of(PREFIX + "jwks-max-age")));
+    holder.rotate(secret);
+
+    assertEquals(kids, kids(holder));
+    assertEquals("u", holder.getParser().parseClaimsJws(token).getBody().getSubject());
+
+    // Al configurar claves se deja de usar la generada
+    addKey(0, "k1", Keys.keyPairFor(SignatureAlgorithm.ES256), null, null);
+    holder.reloadSigningKeys();
+
+    assertEquals(List.of("k1"), kids(holder));
+    assertThrows(UnsupportedJwtException.class, () -> holder.getParser().parseClaimsJws(token));
+  }
+
+  @Test
+  @DisplayName("HS256 se mantiene como modo de compatibilidad")
+  void hs256_compatibility() {
+    JwtKeyHolder hsHolder = new JwtKeyHolder(secret, new StandardEnvironment());
+    String hsToken = sign(hsHolder, "legacy");
+    assertNull(hsHolder.getParser().parseClaimsJws(hsToken).getHeader().getKeyId());
+    assertTrue(hsHolder.getJwks().isEmpty());
+
+    addKey(0, "k1", Keys.keyPairFor(SignatureAlgorithm.ES256), null, null);
+    JwtKeyHolder esHolder = new JwtKeyHolder(secret, environment);
+    assertEquals("legacy", esHolder.getParser().parseClaimsJws(hsToken).getBody().getSubject());
+
+    properties.put(PREFIX + "accept-hs256", "false");
+    esHolder.reloadSigningKeys();
+    assertThrows(UnsupportedJwtException.class,
+        () -> esHolder.getParser().parseClaimsJws(hsToken));
+  }
+
+  @Test
+  @DisplayName("El JWKS usa el formato EC P-256 y es cacheable con ETag")
+  void jwks_formatAndCacheHeaders() {
+    addKey(0, "k1", Keys.keyPairFor(SignatureAlgorithm.ES256), null, null);
+    properties.put(PREFIX + "jwks-max-age", "600");
+    JwksController controller = new JwksController(new JwtKeyHolder(secret, environment));
+
+    ResponseEntity<Map<String, Object>> response = controller.getJwks(
+        new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse()));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("max-age=600, public", response.getHeaders().getCacheControl());
+    @SuppressWarnings("unchecked")
+    Map<String, Object> jwk = ((List<Map<String, Object>>) response.getBody().get("keys")).get(0);
+    assertEquals("EC", jwk.get("kty"));
+    assertEquals("P-256", jwk.get("crv"));
+    assertEquals("ES256", jwk.get("alg"));
+    assertEquals(43, ((String) jwk.get("x")).length());
+    assertEquals(43, ((String) jwk.get("y")).length());
+
+    MockHttpServletRequest revalidate = new MockHttpServletRequest();
+    revalidate.addHeader(HttpHeaders.IF_NONE_MATCH, response.getHeaders().getETag());
+    ResponseEntity<Map<String, Object>> notModified = controller
+        .getJwks(new ServletWebRequest(revalidate, new MockHttpServletResponse()));
+    assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+  }
+}
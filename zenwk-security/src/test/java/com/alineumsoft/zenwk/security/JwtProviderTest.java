@@ -1,11 +1,16 @@
 package com.alineumsoft.zenwk.security;
 
 
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_PERMISSION_VERSION;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ROLES;
+import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_ROLE_IDS;
 import static com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants.JWT_URLS_ALLOWED_ROL_USER;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,6 +27,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.security.Key;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
@@ -29,16 +35,24 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.env.StandardEnvironment;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
+import com.alineumsoft.zenwk.security.auth.entity.RevokedToken;
+import com.alineumsoft.zenwk.security.auth.jwt.ActiveTokenRegistry;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.TokenRevocationService;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwtCache;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
 import com.alineumsoft.zenwk.security.common.constants.CommonMessageConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
@@ -46,10 +60,12 @@ import com.alineumsoft.zenwk.security.common.exception.dto.ErrorResponseDTO;
 import com.alineumsoft.zenwk.security.entity.LogSecurity;
 import com.alineumsoft.zenwk.security.enums.SecurityExceptionEnum;
 import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
 import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -60,13 +76,22 @@ class JwtProviderTest {
   @Mock
   private LogSecurityRepository logSecRepo;
 
+  @Mock
+  private RevokedTokenRepository revokedTokenRepo;
+
+  @Mock
+  private RolePermissionRepository rolePermRepo;
+
   @Mock
   private HttpServletRequest request;
 
   @Mock
   private HttpServletResponse response;
 
-  @InjectMocks
+  private JwtKeyHolder keyHolder;
+
+  private PermissionSnapshotHolder permissionSnapshotHolder;
+
   private JwtProvider jwtProvider;
 
   @BeforeEach
@@ -77,10 +102,260 @@ class JwtProviderTest {
     Key key = Keys.secretKeyFor(io.jsonwebtoken.SignatureAlgorithm.HS256);
     String strongSecretKey = Base64.getEncoder().encodeToString(key.getEncoded());
 
-    ReflectionTestUtils.setField(jwtProvider, "secretKey", strongSecretKey);
+    keyHolder = new JwtKeyHolder(strongSecretKey, new StandardEnvironment());
+    permissionSnapshotHolder = new PermissionSnapshotHolder(rolePermRepo, 8);
+    jwtProvider = new JwtProvider(logSecRepo, keyHolder,
+        new VerifiedJwtCache(false, 100, keyHolder, new SimpleMeterRegistry()),
+        new ActiveTokenRegistry(100, true),
+        new TokenRevocationService(revokedTokenRepo, 1000, 0.01), permissionSnapshotHolder);
     ReflectionTestUtils.setField(jwtProvider, "expirationTime", 3600000L);
   }
 
+  // --------------------------------------------
+  // JwtKeyHolder
+  // --------------------------------------------
+  @Test
+  @DisplayName("JwtKeyHolder reutiliza la misma clave y parser entre llamadas")
+  void keyHolder_reusesKeyAndParser() {
+    assertSame(keyHolder.getSignInKey(), keyHolder.getSignInKey());
+    assertSame(keyHolder.getParser(), keyHolder.getParser());
+  }
+
+  @Test
+  @DisplayName("JwtKeyHolder.rotate() invalida los tokens firmados con la clave anterior")
+  void keyHolder_rotate_rejectsOldTokens() {
+    UserDetails user = new User("rotate", "", List.of());
+    String token =
+        jwtProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "rotate@mail.com");
+
+    Key newKey = Keys.secretKeyFor(io.jsonwebtoken.SignatureAlgorithm.HS256);
+    keyHolder.rotate(Base64.getEncoder().encodeToString(newKey.getEncoded()));
+
+    assertFalse(jwtProvider.validateToken(token, "rotate"));
+    String newToken =
+        jwtProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "rotate@mail.com");
+    assertTrue(jwtProvider.validateToken(newToken, "rotate"));
+  }
+
+  // --------------------------------------------
+  // VerifiedJwtCache
+  // --------------------------------------------
+  @Test
+  @DisplayName("verify() con cache habilitada verifica la firma una sola vez por token")
+  void verify_cacheEnabled_parsesOnce() {
+    JwtProvider cachedProvider = newCachedProvider();
+    JwtProvider spyProvider = Mockito.spy(cachedProvider);
+    UserDetails user = new User("cache", "", List.of());
+    String token =
+        spyProvider.generateToken(user, List.of(), 7L, UserStateEnum.ACTIVE, "cache@mail.com");
+
+    assertEquals(7L, spyProvider.verify(token).getIdUser());
+    assertEquals(7L, spyProvider.verify(token).getIdUser());
+
+    verify(spyProvider, times(1)).extractAllClaims(token);
+  }
+
+  @Test
+  @DisplayName("invalidateToken() elimina el token de la cache de verificados")
+  void verify_cacheEnabled_invalidateEvicts() {
+    JwtProvider spyProvider = Mockito.spy(newCachedProvider());
+    UserDetails user = new User("cache", "", List.of());
+    String token =
+        spyProvider.generateToken(user, List.of(), 7L, UserStateEnum.ACTIVE, "cache@mail.com");
+
+    spyProvider.invalidateToken(spyProvider.verify(token));
+    spyProvider.verify(token);
+
+    verify(spyProvider, times(2)).extractAllClaims(token);
+  }
+
+  @Test
+  @DisplayName("La rotación de la clave limpia la cache de tokens verificados")
+  void verify_cacheEnabled_rotateClears() {
+    JwtProvider cachedProvider = newCachedProvider();
+    UserDetails user = new User("cache", "", List.of());
+    String token =
+        cachedProvider.generateToken(user, List.of(), 7L, UserStateEnum.ACTIVE, "cache@mail.com");
+    assertTrue(cachedProvider.validateToken(token, "cache"));
+
+    Key newKey = Keys.secretKeyFor(io.jsonwebtoken.SignatureAlgorithm.HS256);
+    keyHolder.rotate(Base64.getEncoder().encodeToString(newKey.getEncoded()));
+
+    assertFalse(cachedProvider.validateToken(token, "cache"));
+  }
+
+  @Test
+  @DisplayName("La cache respeta el tamaño máximo configurado")
+  void verifiedJwtCache_boundedSize() {
+    VerifiedJwtCache cache = new VerifiedJwtCache(true, 10, keyHolder, new SimpleMeterRegistry());
+    UserDetails user = new User("cache", "", List.of());
+    for (long i = 0; i < 100; i++) {
+      String token =
+          jwtProvider.generateToken(user, List.of(), i, UserStateEnum.ACTIVE, "cache@mail.com");
+      cache.get(token, jwtProvider::verify);
+    }
+    assertTrue(cache.size() <= 10);
+  }
+
+  // --------------------------------------------
+  // ActiveTokenRegistry
+  // --------------------------------------------
+  @Test
+  @DisplayName("isSuperseded() detecta el token reemplazado por un nuevo login del usuario")
+  void isSuperseded_newTokenSupersedesPrevious() {
+    UserDetails user = new User("registry", "", List.of());
+    String first =
+        jwtProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "r@mail.com");
+    String second =
+        jwtProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "r@mail.com");
+
+    assertTrue(jwtProvider.isSuperseded(jwtProvider.verify(first)));
+    assertFalse(jwtProvider.isSuperseded(jwtProvider.verify(second)));
+  }
+
+  // --------------------------------------------
+  // Revocación por jti
+  // --------------------------------------------
+  @Test
+  @DisplayName("invalidateToken() revoca el token aunque siga en cache y lo persiste")
+  void invalidateToken_revokesJti() {
+    JwtProvider cachedProvider = newCachedProvider();
+    UserDetails user = new User("revoke", "", List.of());
+    String token =
+        cachedProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "r@mail.com");
+    VerifiedJwt jwt = cachedProvider.verify(token);
+    assertFalse(cachedProvider.isRevoked(jwt));
+
+    cachedProvider.invalidateToken(jwt);
+
+    assertTrue(cachedProvider.isRevoked(cachedProvider.verify(token)));
+    verify(revokedTokenRepo).save(any(RevokedToken.class));
+  }
+
+  // --------------------------------------------
+  // Perfil compact
+  // --------------------------------------------
+  @Test
+  @DisplayName("Perfil compact: roles y urls se resuelven desde el snapshot de permisos")
+  void compactProfile_resolvesFromSnapshot() {
+    loadSnapshot(List.of(new Object[] {1L, "USER", "/api/users/{id}"},
+        new Object[] {1L, "USER", "/api/persons/{id}"}, new Object[] {1L, "USER", "/api/users"},
+        new Object[] {2L, "ADMIN", "/api/roles"}));
+    ReflectionTestUtils.setField(jwtProvider, "claimsProfile", "compact");
+    UserDetails user = new User("compact", "", List.of(new SimpleGrantedAuthority("USER")));
+
+    String token = jwtProvider.generateToken(user, List.of("/api/users/7"), 7L, 9L,
+        UserStateEnum.ACTIVE, "c@mail.com");
+
+    Claims claims = jwtProvider.extractAllClaims(token);
+    assertNull(claims.get(JWT_URLS_ALLOWED_ROL_USER));
+    assertNull(claims.get(JWT_ROLES));
+    assertNotNull(claims.get(JWT_ROLE_IDS));
+    VerifiedJwt jwt = jwtProvider.verify(token);
+    assertTrue(jwt.isCompact());
+    assertEquals(List.of("USER"), jwt.getRoles());
+    assertEquals(List.of("/api/persons/9", "/api/users", "/api/users/7"),
+        jwt.getUrlsAllowedRolUser());
+  }
+
+  @Test
+  @DisplayName("Perfil compact: se resuelve con la version de snapshot con la que se emitio")
+  void compactProfile_resolvesIssuedVersion() {
+    loadSnapshot(List.<Object[]>of(new Object[] {1L, "USER", "/api/users/{id}"}));
+    ReflectionTestUtils.setField(jwtProvider, "claimsProfile", "compact");
+    UserDetails user = new User("compact", "", List.of(new SimpleGrantedAuthority("USER")));
+    String token = jwtProvider.generateToken(user, List.of(), 7L, null, UserStateEnum.ACTIVE,
+        "c@mail.com");
+
+    loadSnapshot(List.of(new Object[] {1L, "USER", "/api/users/{id}"},
+        new Object[] {1L, "USER", "/api/person-sex"}));
+
+    assertEquals(List.of("/api/users/7"), jwtProvider.verify(token).getUrlsAllowedRolUser());
+  }
+
+  @Test
+  @DisplayName("Perfil compact: si el rol no esta en el snapshot se emite el token completo")
+  void compactProfile_unknownRoleFallsBackToFull() {
+    ReflectionTestUtils.setField(jwtProvider, "claimsProfile", "compact");
+    UserDetails user = new User("compact", "", List.of(new SimpleGrantedAuthority("USER")));
+
+    String token = jwtProvider.generateToken(user, List.of("/api/users/7"), 7L, null,
+        UserStateEnum.ACTIVE, "c@mail.com");
+
+    VerifiedJwt jwt = jwtProvider.verify(token);
+    assertFalse(jwt.isCompact());
+    assertEquals(List.of("/api/users/7"), jwt.getUrlsAllowedRolUser());
+  }
+
+  @Test
+  @DisplayName("Perfil full: un usuario sin roles no se trata como token compact")
+  void fullProfile_userWithoutRolesIsNotCompact() {
+    loadSnapshot(List.<Object[]>of(new Object[] {1L, "USER", "/api/users/{id}"}));
+    UserDetails user = new User("norole", "", List.of());
+
+    String token = jwtProvider.generateToken(user, List.of("/api/users/7"), 7L, null,
+        UserStateEnum.ACTIVE, "n@mail.com");
+
+    assertNotNull(jwtProvider.extractAllClaims(token).get(JWT_PERMISSION_VERSION));
+    VerifiedJwt jwt = jwtProvider.verify(token);
+    assertFalse(jwt.isCompact());
+    assertEquals(List.of(), jwt.getRoles());
+    assertEquals(List.of("/api/users/7"), jwt.getUrlsAllowedRolUser());
+  }
+
+  @Test
+  @DisplayName("reissueToken() conserva roles, urls y la fecha de carga de los claims")
+  void reissueToken_keepsClaims() {
+    loadSnapshot(List.<Object[]>of(new Object[] {1L, "USER", "/api/users/{id}"}));
+    UserDetails user = new User("reissue", "", List.of(new SimpleGrantedAuthority("USER")));
+    VerifiedJwt jwt = jwtProvider.verify(jwtProvider.generateToken(user, List.of("/api/users/7"),
+        7L, 9L, UserStateEnum.ACTIVE, "r@mail.com"));
+
+    VerifiedJwt reissued = jwtProvider.verify(jwtProvider.reissueToken(user, jwt));
+
+    assertEquals(permissionSnapshotHolder.getCurrent().getVersion(),
+        reissued.getPermissionVersion());
+    assertEquals(jwt.getClaimsLoadedAt(), reissued.getClaimsLoadedAt());
+    assertEquals(List.of("USER"), reissued.getRoles());
+    assertEquals(List.of("/api/users/7"), reissued.getUrlsAllowedRolUser());
+    assertEquals(9L, reissued.getIdPerson());
+    assertEquals("r@mail.com", reissued.getEmail());
+  }
+
+  @Test
+  @DisplayName("Perfil compact: el token ocupa menos de un tercio del perfil full")
+  void compactProfile_tokenSize() {
+    List<Object[]> rows = new ArrayList<>();
+    List<String> urls = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      rows.add(new Object[] {1L, "USER", "/api/resource-" + i + "/{id}/user"});
+      urls.add("/api/resource-" + i + "/7/user");
+    }
+    loadSnapshot(rows);
+    UserDetails user = new User("compact", "", List.of(new SimpleGrantedAuthority("USER")));
+    String full = jwtProvider.generateToken(user, urls, 7L, null, UserStateEnum.ACTIVE,
+        "c@mail.com");
+    ReflectionTestUtils.setField(jwtProvider, "claimsProfile", "compact");
+    String compact = jwtProvider.generateToken(user, urls, 7L, null, UserStateEnum.ACTIVE,
+        "c@mail.com");
+
+    assertEquals(urls.size(), jwtProvider.verify(compact).getUrlsAllowedRolUser().size());
+    assertTrue(compact.length() * 3 < full.length());
+  }
+
+  private void loadSnapshot(List<Object[]> rows) {
+    when(rolePermRepo.findAllRoleResources()).thenReturn(rows);
+    permissionSnapshotHolder.refresh();
+  }
+
+  private JwtProvider newCachedProvider() {
+    JwtProvider provider = new JwtProvider(logSecRepo, keyHolder,
+        new VerifiedJwtCache(true, 100, keyHolder, new SimpleMeterRegistry()),
+        new ActiveTokenRegistry(100, true),
+        new TokenRevocationService(revokedTokenRepo, 1000, 0.01), permissionSnapshotHolder);
+    ReflectionTestUtils.setField(provider, "expirationTime", 3600000L);
+    return provider;
+  }
 
   // @Test
   // @DisplayName("generateToken() debe generar un token válido y almacenarlo en cache")
@@ -0,0 +1,93 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import com.alineumsoft.zenwk.security.common.component.MaskingJsonMapper;
+import com.alineumsoft.zenwk.security.common.constants.GeneralConstants;
+import com.alineumsoft.zenwk.security.common.helper.ApiRestHelper;
+import com.alineumsoft.zenwk.security.user.dto.UserDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+class MaskingJsonMapperTest {
+  private static final String MASK = "\"" + GeneralConstants.VALUE_SENSITY_MASK + "\"";
+
+  private final MaskingJsonMapper mapper = MaskingJsonMapper.of(List.of("password", "token"), 10);
+
+  @Test
+  @DisplayName("Enmascara los campos sensibles a cualquier profundidad sin distinguir mayúsculas")
+  void masksAtAnyDepth() throws JsonProcessingException {
+    Map<String, Object> inner = new LinkedHashMap<>();
+    inner.put("PassWord", "secreta");
+    inner.put("name", "ana");
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("user", inner);
+    body.put("items", List.of(Map.of("token", 123)));
+    body.put("password", null);
+
+    assertEquals("{\"user\":{\"PassWord\":" + MASK + ",\"name\":\"ana\"},\"items\":[{\"token\":"
+        + MASK + "}],\"password\":" + MASK + "}", mapper.write(body));
+  }
+
+  @Test
+  @DisplayName("Un objeto o arreglo bajo un campo sensible se reemplaza completo por la máscara")
+  void masksStructuredValues() throws JsonProcessingException {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("token", Map.of("value", "abc", "parts", List.of(1, 2)));
+    body.put("password", List.of("a", List.of("b")));
+    body.put("after", true);
+
+    assertEquals("{\"token\":" + MASK + ",\"password\":" + MASK + ",\"after\":true}",
+        mapper.write(body));
+  }
+
+  @Test
+  @DisplayName("Recorta los textos largos e indica su longitud original")
+  void truncatesLongValues() throws JsonProcessingException {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("note", "0123456789abcde");
+    body.put("short", "abc");
+
+    assertEquals("{\"note\":\"0123456789...[15]\",\"short\":\"abc\"}", mapper.write(body));
+  }
+
+  @Test
+  @DisplayName("Serializa fechas y mantiene el comportamiento de ApiRestHelper.getJson")
+  void datesAndHelper() throws JsonProcessingException {
+    assertEquals("{\"at\":\"2024-05-01T10:15:30\"}", MaskingJsonMapper.getDefault()
+        .write(Map.of("at", LocalDateTime.of(2024, 5, 1, 10, 15, 30))));
+
+    UserDTO user = new UserDTO();
+    user.setUsername("ana");
+    user.setPassword("Secreta#2024");
+    user.setEmail("ana@zenwk.com");
+    String json = new ApiRestHelper().getJson(user);
+
+    assertFalse(json.contains("Secreta#2024"));
+    assertTrue(json.contains("\"password\":" + MASK));
+  }
+
+  @Test
+  @DisplayName("El bean configurado se inyecta en el helper sin cambiar la instancia por defecto")
+  void configuredBeanIsInjected() {
+    MaskingJsonMapper bean = new MaskingJsonMapper("email", 0);
+    ApiRestHelper helper = new ApiRestHelper();
+    helper.setMaskingJsonMapper(bean);
+    UserDTO user = new UserDTO();
+    user.setPassword("Secreta#2024");
+    user.setEmail("ana@zenwk.com");
+
+    String json = helper.getJson(user);
+
+    assertFalse(json.contains("ana@zenwk.com"));
+    assertTrue(json.contains("Secreta#2024"));
+    assertTrue(new ApiRestHelper().getJson(user).contains("ana@zenwk.com"));
+    assertFalse(new ApiRestHelper().getJson(user).contains("Secreta#2024"));
+  }
+}
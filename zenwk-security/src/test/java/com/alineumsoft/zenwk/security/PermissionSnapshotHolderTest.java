@@ -0,0 +1,106 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshot;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+
+class PermissionSnapshotHolderTest {
+
+  @Mock
+  private RolePermissionRepository rolePermRepo;
+
+  private PermissionSnapshotHolder holder;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    holder = new PermissionSnapshotHolder(rolePermRepo, 2);
+  }
+
+  private static List<Object[]> rows(String... userResources) {
+    List<Object[]> rows = new ArrayList<>();
+    rows.add(new Object[] {2L, "ADMIN", "/api/roles"});
+    for (String resource : userResources) {
+      rows.add(new Object[] {1L, "USER", resource});
+    }
+    rows.add(new Object[] {3L, "NEW_USER", null});
+    return rows;
+  }
+
+  @Test
+  @DisplayName("La version depende del contenido y no del orden de las filas")
+  void version_deterministic() {
+    List<Object[]> rows = rows("/api/users/{id}", "/api/person-sex");
+    List<Object[]> reversed = new ArrayList<>(rows);
+    Collections.reverse(reversed);
+
+    assertEquals(new PermissionSnapshot(rows).getVersion(),
+        new PermissionSnapshot(reversed).getVersion());
+    assertNotEquals(new PermissionSnapshot(rows).getVersion(),
+        new PermissionSnapshot(rows("/api/users/{id}")).getVersion());
+  }
+
+  @Test
+  @DisplayName("El snapshot resuelve ids de rol y los roles sin permisos")
+  void snapshot_roleIds() {
+    PermissionSnapshot snapshot = new PermissionSnapshot(rows("/api/users/{id}"));
+
+    assertEquals(Optional.of(List.of(1L, 3L)), snapshot.findRoleIds(List.of("USER", "NEW_USER")));
+    assertTrue(snapshot.findRoleIds(List.of("UNKNOWN")).isEmpty());
+    assertEquals(List.of("/api/users/5"), snapshot.getAllowedUrls(List.of(1L), 5L, null));
+    assertEquals(List.of("/api/roles"), snapshot.getAllowedUrls(List.of(2L), 5L, null));
+  }
+
+  @Test
+  @DisplayName("refresh() conserva las versiones anteriores hasta el limite configurado")
+  void refresh_keepsBoundedHistory() {
+    when(rolePermRepo.findAllRoleResources()).thenReturn(rows("/a"));
+    holder.refresh();
+    long first = holder.getCurrent().getVersion();
+    when(rolePermRepo.findAllRoleResources()).thenReturn(rows("/a", "/b"));
+    holder.onPermissionChanged(new PermissionChangedEvent(this));
+    long second = holder.getCurrent().getVersion();
+
+    assertTrue(holder.find(first).isPresent());
+    assertTrue(holder.find(second).isPresent());
+
+    when(rolePermRepo.findAllRoleResources()).thenReturn(rows("/a", "/b", "/c"));
+    holder.refresh();
+
+    assertFalse(holder.find(first).isPresent());
+    assertTrue(holder.find(second).isPresent());
+  }
+
+  @Test
+  @DisplayName("refresh() conserva el snapshot vigente si la consulta falla o no hay cambios")
+  void refresh_keepsCurrentOnFailure() {
+    when(rolePermRepo.findAllRoleResources()).thenReturn(rows("/a"));
+    holder.refresh();
+    PermissionSnapshot current = holder.getCurrent();
+
+    holder.refresh();
+    assertSame(current, holder.getCurrent());
+
+    when(rolePermRepo.findAllRoleResources())
+        .thenThrow(new DataAccessResourceFailureException("sin conexion"));
+    holder.refresh();
+    assertSame(current, holder.getCurrent());
+  }
+}
@@ -39,6 +39,8 @@ import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
 import com.alineumsoft.zenwk.security.common.util.HistoricalUtil;
@@ -58,6 +60,8 @@ import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
 import com.alineumsoft.zenwk.security.user.event.DeleteUserEvent;
 import com.alineumsoft.zenwk.security.user.event.UpdateUserEvent;
 import com.alineumsoft.zenwk.security.user.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -140,8 +144,8 @@ class PersonServiceTest {
   void createPerson_ok() {
     CreatePersonDTO dto = new CreatePersonDTO();
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token"));
-    when(jwtProvider.extractIdUser("token")).thenReturn(10L);
+    when(jwtProvider.resolveVerifiedJwt(request))
+        .thenReturn(Optional.of(verifiedJwt("token", 10L, List.of(), null)));
 
     Person savedPerson = new Person();
     savedPerson.setId(99L);
@@ -159,8 +163,8 @@ class PersonServiceTest {
     CreatePersonDTO dto = new CreatePersonDTO();
 
     // Mock JWT
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token"));
-    when(jwtProvider.extractIdUser("token")).thenReturn(10L);
+    when(jwtProvider.resolveVerifiedJwt(request))
+        .thenReturn(Optional.of(verifiedJwt("token", 10L, List.of(), null)));
 
     // Mock getPersonSource()
     Person personMock = new Person();
@@ -187,7 +191,7 @@ class PersonServiceTest {
   @Test
   @DisplayName("createPerson() debe lanzar excepción si no hay token en cookies")
   void createPerson_sinToken() {
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.empty());
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.empty());
     CreatePersonDTO dto = new CreatePersonDTO();
 
     assertThrows(RuntimeException.class,
@@ -201,21 +205,17 @@ class PersonServiceTest {
     // Spy del servicio
     PersonService spyService = Mockito.spy(personService);
     CreatePersonDTO dto = new CreatePersonDTO();
-    // 1. Mock del token OK
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token"));
-    when(jwtProvider.extractIdUser("token")).thenReturn(10L);
-
-    // 2. Simular EXCEPCIÓN antes de métodos private
-    when(jwtProvider.extractAuthorities("token"))
+    // 1. Simular EXCEPCIÓN al resolver el token antes de métodos private
+    when(jwtProvider.resolveVerifiedJwt(request))
         .thenThrow(new RuntimeException("Error inesperado en JWT"));
 
-    // 3. decir que NO es functional => debe caer en TechnicalException
+    // 2. decir que NO es functional => debe caer en TechnicalException
     doReturn(false).when(spyService).isFunctionalException(any(RuntimeException.class));
 
-    // 4. Validación final
+    // 3. Validación final
     assertThrows(TechnicalException.class,
         () -> spyService.createPerson(dto, request, userDetails));
-    verify(jwtProvider).extractAuthorities("token");
+    verify(jwtProvider).resolveVerifiedJwt(request);
   }
 
 
@@ -224,12 +224,9 @@ class PersonServiceTest {
     String token = "token";
     CreatePersonDTO dto = new CreatePersonDTO();
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
-    when(jwtProvider.extractIdUser(token)).thenReturn(10L);
-
-    // Mock roles y estado del usuario
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of(RoleEnum.NEW_USER.name()));
-    when(jwtProvider.extractUserState(token)).thenReturn(UserStateEnum.INCOMPLETE_PERFIL);
+    // Token verificado con roles y estado del usuario
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(verifiedJwt(token, 10L,
+        List.of(RoleEnum.NEW_USER.name()), UserStateEnum.INCOMPLETE_PERFIL)));
 
     doReturn(true).when(personService).isFunctionalException(any(RuntimeException.class));
 
@@ -247,12 +244,9 @@ class PersonServiceTest {
     CreatePersonDTO dto = new CreatePersonDTO();
     dto.setIdUser(999L);
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
-    when(jwtProvider.extractIdUser(token)).thenReturn(999L);
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of(RoleEnum.USER.name())); // No
-                                                                                           // NEW_USER
-    when(jwtProvider.extractUserState(token)).thenReturn(UserStateEnum.ACTIVE); // Estado activo =
-                                                                                // ya está asociado
+    // Token verificado con roles y estado del usuario
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional
+        .of(verifiedJwt(token, 999L, List.of(RoleEnum.USER.name()), UserStateEnum.ACTIVE)));
 
     // Simula que es una excepción funcional
     doReturn(true).when(spyService).isFunctionalException(any(RuntimeException.class));
@@ -275,10 +269,9 @@ class PersonServiceTest {
     CreatePersonDTO dto = new CreatePersonDTO();
     dto.setIdUser(20L);
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
-    when(jwtProvider.extractIdUser(token)).thenReturn(10L); // otro id
-    when(jwtProvider.extractAuthorities(token)).thenReturn(List.of(RoleEnum.NEW_USER.name()));
-    when(jwtProvider.extractUserState(token)).thenReturn(UserStateEnum.INCOMPLETE_PERFIL);
+    // Token verificado con roles y estado del usuario (otro id)
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(verifiedJwt(token, 10L,
+        List.of(RoleEnum.NEW_USER.name()), UserStateEnum.INCOMPLETE_PERFIL)));
 
     assertThrows(IllegalArgumentException.class,
         () -> ReflectionTestUtils.invokeMethod(personService, "validateUser", dto, request));
@@ -427,8 +420,8 @@ class PersonServiceTest {
     Person person = new Person();
     person.setId(10L);
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token"));
-    when(jwtProvider.extractIdUser("token")).thenReturn(10L);
+    when(jwtProvider.resolveVerifiedJwt(request))
+        .thenReturn(Optional.of(verifiedJwt("token", 10L, List.of(), null)));
     when(personRepo.findPersonFromUserId(10L)).thenReturn(Optional.of(person));
 
     assertDoesNotThrow(() -> personService.uploadPhotoProfile(request, userDetails, multipartFile));
@@ -439,8 +432,8 @@ class PersonServiceTest {
   void uploadPhotoProfile_personNotFound() {
     PersonService spyService = Mockito.spy(personService);
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token"));
-    when(jwtProvider.extractIdUser("token")).thenReturn(99L);
+    when(jwtProvider.resolveVerifiedJwt(request))
+        .thenReturn(Optional.of(verifiedJwt("token", 99L, List.of(), null)));
     when(personRepo.findPersonFromUserId(99L)).thenReturn(Optional.empty());
 
     doReturn(true).when(spyService).isFunctionalException(any(RuntimeException.class));
@@ -454,8 +447,8 @@ class PersonServiceTest {
   @Test
   @DisplayName("uploadPhotoProfile() debe lanzar TechnicalException ante error inesperado")
   void uploadPhotoProfile_unexpectedException() {
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of("token"));
-    when(jwtProvider.extractIdUser("token")).thenReturn(10L);
+    when(jwtProvider.resolveVerifiedJwt(request))
+        .thenReturn(Optional.of(verifiedJwt("token", 10L, List.of(), null)));
     when(personRepo.findPersonFromUserId(10L)).thenThrow(new RuntimeException("DB error"));
 
     assertThrows(TechnicalException.class,
@@ -595,4 +588,16 @@ class PersonServiceTest {
     assertEquals(5L, person.getPersonSex().getId());
     verify(personSexService).findPersonSexById(5L);
   }
+
+  /**
+   * Construye un token verificado con los claims usados por el servicio
+   */
+  private VerifiedJwt verifiedJwt(String token, Long idUser, List<String> roles,
+      UserStateEnum userState) {
+    Claims claims = Jwts.claims().setSubject("user");
+    claims.put(AuthConfigConstants.JWT_ID_USER, idUser);
+    claims.put(AuthConfigConstants.JWT_ROLES, roles);
+    claims.put(AuthConfigConstants.JWT_USER_STATE, userState);
+    return VerifiedJwt.from(token, claims);
+  }
 }
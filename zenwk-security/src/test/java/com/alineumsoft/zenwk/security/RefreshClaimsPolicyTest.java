@@ -0,0 +1,105 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import com.alineumsoft.zenwk.security.auth.event.UserRolesChangedEvent;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.RefreshClaimsPolicy;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RefreshClaimsPolicyTest {
+
+  @Mock
+  private RolePermissionRepository rolePermRepo;
+
+  private PermissionSnapshotHolder permissionSnapshotHolder;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private RefreshClaimsPolicy policy;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    permissionSnapshotHolder = new PermissionSnapshotHolder(rolePermRepo, 8);
+    loadSnapshot("/api/users/{id}");
+    meterRegistry = new SimpleMeterRegistry();
+    policy = new RefreshClaimsPolicy(permissionSnapshotHolder, 60000, meterRegistry);
+  }
+
+  private void loadSnapshot(String... resources) {
+    when(rolePermRepo.findAllRoleResources()).thenReturn(
+        List.of(resources).stream().map(r -> new Object[] {1L, "USER", r}).toList());
+    permissionSnapshotHolder.refresh();
+  }
+
+  private VerifiedJwt jwt(Long idPerson, long version, long loadedAt) {
+    Claims claims = Jwts.claims().setSubject("user");
+    claims.put(AuthConfigConstants.JWT_ID_USER, 5L);
+    claims.put(AuthConfigConstants.JWT_ID_PERSON, idPerson);
+    claims.put(AuthConfigConstants.JWT_ROLES, List.of("USER"));
+    claims.put(AuthConfigConstants.JWT_PERMISSION_VERSION, Long.toHexString(version));
+    claims.put(AuthConfigConstants.JWT_CLAIMS_LOADED_AT, loadedAt);
+    return VerifiedJwt.from("token", claims);
+  }
+
+  @Test
+  @DisplayName("Reutiliza los claims si la version de permisos es la vigente")
+  void canReuse_sameVersion() {
+    long version = permissionSnapshotHolder.getCurrent().getVersion();
+
+    assertTrue(policy.canReuseClaims(jwt(9L, version, System.currentTimeMillis())));
+  }
+
+  @Test
+  @DisplayName("Consulta la base de datos si cambio la version o no hay persona")
+  void cannotReuse_staleVersionOrNoPerson() {
+    long version = permissionSnapshotHolder.getCurrent().getVersion();
+    long now = System.currentTimeMillis();
+
+    assertFalse(policy.canReuseClaims(jwt(null, version, now)));
+    assertFalse(policy.canReuseClaims(jwt(9L, version, now - 120000)));
+
+    loadSnapshot("/api/users/{id}", "/api/person-sex");
+    assertFalse(policy.canReuseClaims(jwt(9L, version, now)));
+  }
+
+  @Test
+  @DisplayName("Consulta la base de datos si los roles del usuario cambiaron despues de cargarlos")
+  void cannotReuse_userRolesChanged() throws InterruptedException {
+    long version = permissionSnapshotHolder.getCurrent().getVersion();
+    VerifiedJwt before = jwt(9L, version, System.currentTimeMillis() - 1000);
+
+    policy.onUserRolesChanged(new UserRolesChangedEvent(this, 5L));
+    Thread.sleep(5);
+
+    assertFalse(policy.canReuseClaims(before));
+    assertTrue(policy.canReuseClaims(jwt(9L, version, System.currentTimeMillis())));
+  }
+
+  @Test
+  @DisplayName("Registra los refresh por origen de los claims")
+  void recordRefresh_countsBySource() {
+    policy.recordRefresh(true);
+    policy.recordRefresh(true);
+    policy.recordRefresh(false);
+
+    assertEquals(2.0, meterRegistry.get(AuthConfigConstants.JWT_REFRESH_METRIC_NAME)
+        .tag("source", "token").counter().count());
+    assertEquals(1.0, meterRegistry.get(AuthConfigConstants.JWT_REFRESH_METRIC_NAME)
+        .tag("source", "database").counter().count());
+  }
+}
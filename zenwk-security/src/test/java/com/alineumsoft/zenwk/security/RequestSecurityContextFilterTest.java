@@ -0,0 +1,166 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import com.alineumsoft.zenwk.security.auth.jwt.ActiveTokenRegistry;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationFilter;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.TokenRevocationService;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwtCache;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
+import com.alineumsoft.zenwk.security.common.entity.CsrfToken;
+import com.alineumsoft.zenwk.security.common.helper.ApiRestSecurityHelper;
+import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
+import com.alineumsoft.zenwk.security.config.CsrfValidationFilter;
+import com.alineumsoft.zenwk.security.config.SecurityFilterChainConfiguration;
+import com.alineumsoft.zenwk.security.config.authorization.RoleMatrixAuthorizationManager;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContext;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContextFilter;
+import com.alineumsoft.zenwk.security.config.util.CookieUtil;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
+import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.Cookie;
+
+class RequestSecurityContextFilterTest {
+
+  private static final String SECRET = Base64.getEncoder()
+      .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+
+  private JwtProvider jwtProvider;
+
+  private CsrfValidationFilter csrfFilter;
+
+  private JwtAuthenticationFilter jwtFilter;
+
+  @BeforeEach
+  void setUp() {
+    JwtKeyHolder keyHolder = new JwtKeyHolder(SECRET, new StandardEnvironment());
+    jwtProvider = new JwtProvider(mock(LogSecurityRepository.class), keyHolder,
+        new VerifiedJwtCache(false, 100, keyHolder, new SimpleMeterRegistry()),
+        new ActiveTokenRegistry(100, true),
+        new TokenRevocationService(mock(RevokedTokenRepository.class), 1000, 0.01),
+        new PermissionSnapshotHolder(mock(RolePermissionRepository.class), 8));
+    ReflectionTestUtils.setField(jwtProvider, "expirationTime", 3600000L);
+
+    CsrfTokenCommonService csrfService = mock(CsrfTokenCommonService.class);
+    CsrfToken csrfToken = new CsrfToken();
+    csrfToken.setExpirationDate(LocalDateTime.now().plusHours(1));
+    when(csrfService.validateCsrfToken(any(TokenDTO.class))).thenReturn(csrfToken);
+    csrfFilter = new CsrfValidationFilter(jwtProvider, csrfService,
+        mock(StatelessCsrfTokenService.class), mock(CookieUtil.class));
+    jwtFilter = new JwtAuthenticationFilter(jwtProvider);
+    SecurityContextHolder.clearContext();
+  }
+
+  @AfterEach
+  void tearDown() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static Filter counting(Filter filter, AtomicInteger executions) {
+    return (request, response, chain) -> {
+      executions.incrementAndGet();
+      filter.doFilter(request, response, chain);
+    };
+  }
+
+  @Test
+  @DisplayName("Los filtros JWT y CSRF no se registran como filtros del servlet")
+  void securityFilters_notRegisteredAsServletFilters() {
+    SecurityFilterChainConfiguration configuration = new SecurityFilterChainConfiguration(
+        jwtFilter, mock(AuthenticationProvider.class), mock(RoleMatrixAuthorizationManager.class),
+        mock(AccessDeniedHandler.class), csrfFilter);
+
+    assertFalse(configuration.jwtAuthFilterRegistration(jwtFilter).isEnabled());
+    assertFalse(configuration.csrfValidationFilterRegistration(csrfFilter).isEnabled());
+  }
+
+  @Test
+  @DisplayName("Las cookies se leen una sola vez entre los filtros de la solicitud")
+  void filters_parseCookiesOnce() throws Exception {
+    UserDetails user = User.withUsername("user").password("pass").roles("ADMIN").build();
+    String token =
+        jwtProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "user@zenwk.com");
+    MockHttpServletRequest request = spy(
+        new MockHttpServletRequest("POST", HttpMethodResourceEnum.PERSON_CREATE.getResource()));
+    request.setCookies(new Cookie(AuthConfigConstants.ZENWK_JWT, token),
+        new Cookie(AuthConfigConstants.XCSRF_TOKEN, "csrf"));
+    request.addHeader("User-Agent", "junit");
+    AtomicInteger contextRuns = new AtomicInteger();
+    AtomicInteger csrfRuns = new AtomicInteger();
+    AtomicInteger jwtRuns = new AtomicInteger();
+    MockFilterChain chain = new MockFilterChain(mock(Servlet.class),
+        counting(new RequestSecurityContextFilter(), contextRuns), counting(csrfFilter, csrfRuns),
+        counting(jwtFilter, jwtRuns));
+
+    chain.doFilter(request, new MockHttpServletResponse());
+    LogSecurity log =
+        new ApiRestSecurityHelper().initializeLog(request, "user", null, null, "test");
+
+    assertEquals(1, contextRuns.get());
+    assertEquals(1, csrfRuns.get());
+    assertEquals(1, jwtRuns.get());
+    assertNotNull(chain.getRequest());
+    assertTrue(SecurityContextHolder.getContext().getAuthentication() != null);
+    assertEquals("junit", log.getUserAgent());
+    assertEquals("127.0.0.1", log.getIpAddress());
+    verify(request, times(1)).getCookies();
+  }
+
+  @Test
+  @DisplayName("El contexto se crea una vez y resuelve la ruta de la solicitud")
+  void from_createsContextOnce() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/me");
+    request.addHeader("X-Forwarded-For", "10.0.0.1");
+    request.setCookies(new Cookie(AuthConfigConstants.XCSRF_TOKEN, "a"),
+        new Cookie(AuthConfigConstants.XCSRF_TOKEN, "b"));
+
+    RequestSecurityContext context = RequestSecurityContext.from(request);
+
+    assertSame(context, RequestSecurityContext.from(request));
+    assertEquals(HttpMethodResourceEnum.USER_JWT_ME, context.getRoute().getResource());
+    assertFalse(context.isPublic());
+    assertEquals("10.0.0.1", context.getClientIp());
+    assertEquals("a", context.getCsrfToken());
+  }
+}
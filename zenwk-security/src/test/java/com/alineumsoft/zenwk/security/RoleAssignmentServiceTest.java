@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -31,6 +32,7 @@ import com.alineumsoft.zenwk.security.auth.dto.PagePermissionDTO;
 import com.alineumsoft.zenwk.security.auth.dto.PageRoleDTO;
 import com.alineumsoft.zenwk.security.auth.dto.RoleDTO;
 import com.alineumsoft.zenwk.security.auth.dto.RoleUserDTO;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
 import com.alineumsoft.zenwk.security.auth.service.PermissionService;
 import com.alineumsoft.zenwk.security.auth.service.RoleAssignmentService;
 import com.alineumsoft.zenwk.security.auth.service.RoleService;
@@ -71,6 +73,9 @@ class RoleAssignmentServiceTest {
   @Mock
   private UserDetails userDetails;
 
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
   @InjectMocks
   private RoleAssignmentService roleAssignmentService;
 
@@ -118,6 +123,7 @@ class RoleAssignmentServiceTest {
 
     verify(rolPermissionRepo, times(1)).save(any(RolePermission.class));
     verify(logSecRepo, times(1)).save(any(LogSecurity.class));
+    verify(eventPublisher).publishEvent(any(PermissionChangedEvent.class));
   }
 
   @Test
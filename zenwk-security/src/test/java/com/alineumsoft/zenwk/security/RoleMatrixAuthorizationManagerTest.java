@@ -0,0 +1,190 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import com.alineumsoft.zenwk.security.auth.event.PermissionChangedEvent;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationToken;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.config.authorization.AuthorizationDecisionCache;
+import com.alineumsoft.zenwk.security.config.authorization.AuthorizationMatrixHolder;
+import com.alineumsoft.zenwk.security.config.authorization.RoleMatrixAuthorizationManager;
+import com.alineumsoft.zenwk.security.config.authorization.RoleSetIds;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RoleMatrixAuthorizationManagerTest {
+
+  @Mock
+  private RolePermissionRepository rolePermRepo;
+
+  private AuthorizationMatrixHolder matrixHolder;
+
+  private RoleMatrixAuthorizationManager manager;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    meterRegistry = new SimpleMeterRegistry();
+    loadPermissions(new Object[] {"GET", "USER", "get", "/api/users/{id}"},
+        new Object[] {"LIST", "ADMIN", "get", "/api/users"},
+        new Object[] {"DELETE", "ADMIN", "delete", "/api/users/{id}"});
+  }
+
+  private void loadPermissions(Object[]... rows) {
+    when(rolePermRepo.findAllRolePermissions()).thenReturn(List.of(rows));
+    if (matrixHolder == null) {
+      matrixHolder = new AuthorizationMatrixHolder(rolePermRepo);
+      manager = new RoleMatrixAuthorizationManager(matrixHolder,
+          new AuthorizationDecisionCache(100, meterRegistry));
+    }
+    matrixHolder.onPermissionChanged(new PermissionChangedEvent(this));
+  }
+
+  private boolean isGranted(Authentication auth, String method, String uri) {
+    RequestAuthorizationContext context =
+        new RequestAuthorizationContext(new MockHttpServletRequest(method, uri));
+    return manager.check(() -> auth, context).isGranted();
+  }
+
+  private double cacheGets(String result) {
+    return meterRegistry.get("cache.gets")
+        .tag("cache", AuthConfigConstants.AUTHORIZATION_DECISION_METRIC_NAME).tag("result", result)
+        .functionCounter().count();
+  }
+
+  private static Authentication user(String... roles) {
+    return new UsernamePasswordAuthenticationToken("user", null,
+        AuthorityUtils.createAuthorityList(roles));
+  }
+
+  private static JwtAuthenticationToken jwtUser(String... roles) {
+    return new JwtAuthenticationToken("user", AuthorityUtils.createAuthorityList(roles),
+        RoleSetIds.of(List.of(roles)));
+  }
+
+  @Test
+  @DisplayName("Autoriza por rol, metodo y ruta")
+  void check_byRoleMethodAndRoute() {
+    assertTrue(isGranted(user("USER"), "GET", "/api/users/7"));
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/users/7"));
+    assertFalse(isGranted(user("USER"), "GET", "/api/users"));
+    assertTrue(isGranted(user("ADMIN"), "DELETE", "/api/users/7"));
+    assertTrue(isGranted(user("USER", "ADMIN"), "GET", "/api/users"));
+  }
+
+  @Test
+  @DisplayName("Las rutas que no exigen permisos del rol solo requieren autenticacion")
+  void check_unprotectedRouteRequiresAuthentication() {
+    assertTrue(isGranted(user("USER"), "GET", "/api/reports"));
+    assertFalse(isGranted(new AnonymousAuthenticationToken("key", "anonymous",
+        AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")), "GET", "/api/reports"));
+    assertFalse(isGranted(null, "GET", "/api/reports"));
+  }
+
+  @Test
+  @DisplayName("Una ruta ROLE_BASED sin permisos se niega aunque el usuario este autenticado")
+  void check_roleBasedRouteWithoutPermissionIsDenied() {
+    assertFalse(isGranted(user(), "GET", "/api/audit/logs"));
+    assertFalse(isGranted(user("NEW_USER"), "GET", "/api/audit/logs"));
+    assertFalse(isGranted(user("USER"), "GET", "/api/persons"));
+
+    loadPermissions(new Object[] {"LIST", "AUDITOR", "get", "/api/audit/logs"},
+        new Object[] {"LIST", "SECURITY_ADMIN", "get", "/api/audit/logs"});
+
+    assertTrue(isGranted(user("AUDITOR"), "GET", "/api/audit/logs"));
+    assertTrue(isGranted(user("SECURITY_ADMIN"), "GET", "/api/audit/logs"));
+    assertFalse(isGranted(user("NEW_USER"), "GET", "/api/audit/logs"));
+  }
+
+  @Test
+  @DisplayName("Los cambios de permisos aplican sin reiniciar")
+  void check_reloadsOnPermissionChanged() {
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/users/7"));
+
+    loadPermissions(new Object[] {"DELETE", "USER", "delete", "/api/users/{id}"});
+
+    assertTrue(isGranted(user("USER"), "DELETE", "/api/users/7"));
+    assertFalse(isGranted(user("ADMIN"), "DELETE", "/api/users/7"));
+    assertEquals(1, matrixHolder.getCurrent().getSize());
+  }
+
+  @Test
+  @DisplayName("Una URI codificada se resuelve como la despacha Spring MVC")
+  void check_encodedPathResolvesLikeMvc() {
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/%75sers/7"));
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/users;jsessionid=1/7"));
+    assertFalse(isGranted(user("USER"), "DELETE", "/api//users/7"));
+    assertTrue(isGranted(user("ADMIN"), "DELETE", "/api/%75sers/7"));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("DELETE", "/zenwk/api/users/7");
+    request.setContextPath("/zenwk");
+    assertFalse(
+        manager.check(() -> user("USER"), new RequestAuthorizationContext(request)).isGranted());
+  }
+
+  @Test
+  @DisplayName("Conserva la matriz vigente si falla la consulta")
+  void refresh_keepsCurrentOnError() {
+    when(rolePermRepo.findAllRolePermissions())
+        .thenThrow(new DataAccessResourceFailureException("db"));
+
+    matrixHolder.refresh();
+
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/users/7"));
+    assertEquals(3, matrixHolder.getCurrent().getSize());
+  }
+
+  @Test
+  @DisplayName("Memoriza la decision por roles, metodo y plantilla de la ruta")
+  void check_memoizesDecisionByRoute() {
+    assertTrue(isGranted(user("USER"), "GET", "/api/users/7"));
+    assertTrue(isGranted(user("USER"), "GET", "/api/users/8"));
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/users/8"));
+    assertFalse(isGranted(user("USER"), "DELETE", "/api/users/9"));
+
+    assertEquals(2.0, cacheGets("hit"));
+    assertEquals(2.0, cacheGets("miss"));
+  }
+
+  @Test
+  @DisplayName("Con un JWT usa el id del conjunto de roles calculado al verificar el token")
+  void check_usesRoleSetIdFromJwt() {
+    JwtAuthenticationToken first = jwtUser("USER", "ADMIN");
+    JwtAuthenticationToken second = jwtUser("ADMIN", "USER");
+
+    assertEquals(first.getRoleSetId(), second.getRoleSetId());
+    assertTrue(isGranted(first, "DELETE", "/api/users/7"));
+    assertTrue(isGranted(second, "DELETE", "/api/users/8"));
+    assertFalse(isGranted(jwtUser("USER"), "DELETE", "/api/users/9"));
+    assertEquals(1.0, cacheGets("hit"));
+    assertEquals(2.0, cacheGets("miss"));
+  }
+
+  @Test
+  @DisplayName("Un permiso con variable cubre la ruta literal mas especifica de otro rol")
+  void check_generalPermissionCoversSpecificRoute() {
+    loadPermissions(new Object[] {"GET", "USER", "get", "/api/users/{id}"},
+        new Object[] {"GET", "ADMIN", "get", "/api/users/me"});
+
+    assertTrue(isGranted(user("USER"), "GET", "/api/users/me"));
+    assertTrue(isGranted(user("ADMIN"), "GET", "/api/users/me"));
+    assertFalse(isGranted(user("ADMIN"), "GET", "/api/users/7"));
+  }
+}
@@ -0,0 +1,169 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.SpringBootMockMvcBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import com.alineumsoft.zenwk.security.auth.jwt.ActiveTokenRegistry;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtAuthenticationFilter;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.PermissionSnapshotHolder;
+import com.alineumsoft.zenwk.security.auth.jwt.TokenRevocationService;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwtCache;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.common.service.CsrfTokenCommonService;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
+import com.alineumsoft.zenwk.security.config.CsrfValidationFilter;
+import com.alineumsoft.zenwk.security.config.SecurityFilterChainConfiguration;
+import com.alineumsoft.zenwk.security.config.XSSFilter;
+import com.alineumsoft.zenwk.security.config.authorization.RoleMatrixAuthorizationManager;
+import com.alineumsoft.zenwk.security.config.request.RequestSecurityContextFilter;
+import com.alineumsoft.zenwk.security.config.util.CookieUtil;
+import com.alineumsoft.zenwk.security.enums.HttpMethodResourceEnum;
+import com.alineumsoft.zenwk.security.enums.UserStateEnum;
+import com.alineumsoft.zenwk.security.person.repository.RolePermissionRepository;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+
+@SpringJUnitWebConfig(SecurityFilterChainRegistrationTest.FilterChainTestConfig.class)
+@TestPropertySource(
+    properties = {"cors.allowed-origins=http://localhost", "security.jwt.expiration-time=3600000"})
+class SecurityFilterChainRegistrationTest {
+
+  private static final String SECRET = Base64.getEncoder()
+      .encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private JwtProvider jwtProvider;
+
+  @Autowired
+  private XSSFilter xssFilter;
+
+  @Autowired
+  private RequestSecurityContextFilter contextFilter;
+
+  @Autowired
+  private CsrfValidationFilter csrfFilter;
+
+  @Autowired
+  private JwtAuthenticationFilter jwtFilter;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  void setUp() {
+    DefaultMockMvcBuilder builder = MockMvcBuilders.webAppContextSetup(context);
+    // Mismos filtros que Spring Boot registraria en el contenedor de servlets: un filtro que
+    // tambien quede como filtro del servlet se ejecutaria dos veces
+    new SpringBootMockMvcBuilderCustomizer(context).customize(builder);
+    mockMvc = builder.build();
+    clearInvocations(xssFilter, contextFilter, csrfFilter, jwtFilter);
+  }
+
+  @Test
+  @DisplayName("Con los registros reales cada filtro se ejecuta una sola vez por solicitud")
+  void registeredFilters_runOncePerRequest() throws Exception {
+    UserDetails user = User.withUsername("user").password("pass").roles("ADMIN").build();
+    String token =
+        jwtProvider.generateToken(user, List.of(), 1L, UserStateEnum.ACTIVE, "user@zenwk.com");
+
+    mockMvc.perform(get(HttpMethodResourceEnum.USER_JWT_ME.getResource())
+        .cookie(new Cookie(AuthConfigConstants.ZENWK_JWT, token)));
+
+    verify(xssFilter, times(1)).doFilter(any(), any(), any());
+    verify(contextFilter, times(1)).doFilter(any(), any(), any());
+    verify(csrfFilter, times(1)).doFilter(any(), any(), any());
+    verify(jwtFilter, times(1)).doFilter(any(), any(), any());
+  }
+
+  /**
+   * Beans minimos para construir la cadena de seguridad real
+   */
+  @Configuration
+  @EnableWebMvc
+  @EnableWebSecurity
+  @Import(SecurityFilterChainConfiguration.class)
+  static class FilterChainTestConfig {
+
+    @Bean
+    JwtProvider jwtProvider() {
+      JwtKeyHolder keyHolder = new JwtKeyHolder(SECRET, new StandardEnvironment());
+      // expirationTime se inyecta desde @TestPropertySource
+      return new JwtProvider(mock(LogSecurityRepository.class), keyHolder,
+          new VerifiedJwtCache(false, 100, keyHolder, new SimpleMeterRegistry()),
+          new ActiveTokenRegistry(100, true),
+          new TokenRevocationService(mock(RevokedTokenRepository.class), 1000, 0.01),
+          new PermissionSnapshotHolder(mock(RolePermissionRepository.class), 8));
+    }
+
+    @Bean
+    XSSFilter xssFilter() {
+      return spy(new XSSFilter());
+    }
+
+    @Bean
+    RequestSecurityContextFilter requestSecurityContextFilter() {
+      return spy(new RequestSecurityContextFilter());
+    }
+
+    @Bean
+    CsrfValidationFilter csrfValidationFilter(JwtProvider jwtProvider) {
+      return spy(new CsrfValidationFilter(jwtProvider, mock(CsrfTokenCommonService.class),
+          mock(StatelessCsrfTokenService.class), mock(CookieUtil.class)));
+    }
+
+    @Bean
+    JwtAuthenticationFilter jwtAuthenticationFilter(JwtProvider jwtProvider) {
+      return spy(new JwtAuthenticationFilter(jwtProvider));
+    }
+
+    @Bean
+    AuthenticationProvider authenticationProvider() {
+      return mock(AuthenticationProvider.class);
+    }
+
+    @Bean
+    RoleMatrixAuthorizationManager roleMatrixAuthorizationManager() {
+      return mock(RoleMatrixAuthorizationManager.class);
+    }
+
+    @Bean
+    AccessDeniedHandler accessDeniedHandler() {
+      return mock(AccessDeniedHandler.class);
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.alineumsoft.zenwk.security.common.component.SegmentAuditLogSink;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
+import com.alineumsoft.zenwk.security.common.util.AuditSegmentReader;
+import com.alineumsoft.zenwk.security.common.util.AuditSegmentUtil;
+import com.alineumsoft.zenwk.security.entity.LogSecurity;
+import com.alineumsoft.zenwk.security.repository.LogSecurityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SegmentAuditLogSinkTest {
+  private static final LocalDateTime START = LocalDateTime.of(2025, 3, 1, 8, 0, 0);
+  private static final String POISON = "poison";
+  private static final int MAX_ATTEMPTS = 3;
+
+  @TempDir
+  Path directory;
+
+  private JdbcTemplate jdbcTemplate;
+  private LogSecurityRepository logSecRepo;
+  private SimpleMeterRegistry meterRegistry;
+  /**
+   * serviceName de los logs cargados en log_sec, en orden
+   */
+  private List<String> inserted;
+  /**
+   * serviceName de los logs del lote en curso
+   */
+  private List<String> batch;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    logSecRepo = mock(LogSecurityRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+    inserted = new CopyOnWriteArrayList<>();
+    batch = new ArrayList<>();
+    PreparedStatement ps = mock(PreparedStatement.class, invocation -> {
+      if ("setString".equals(invocation.getMethod().getName())
+          && invocation.<Integer>getArgument(0) == 12) {
+        batch.add(invocation.getArgument(1));
+      }
+      return null;
+    });
+    when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+        any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+          Collection<Object> rows = invocation.getArgument(1);
+          ParameterizedPreparedStatementSetter<Object> setter = invocation.getArgument(3);
+          batch.clear();
+          for (Object row : rows) {
+            setter.setValues(ps, row);
+          }
+          // La base de datos siempre rechaza el log "poison"
+          if (batch.contains(POISON)) {
+            throw new DataIntegrityViolationException("log_sec rechaza " + POISON);
+          }
+          inserted.addAll(batch);
+          return new int[0][0];
+        });
+  }
+
+  private SegmentAuditLogSink sink(String shipMode) {
+    return new SegmentAuditLogSink(jdbcTemplate,
+        new TransactionTemplate(mock(PlatformTransactionManager.class)), logSecRepo,
+        meterRegistry, directory.toString(), 4096, shipMode,
+        directory.resolve("export").toString(), 60000, 10, 5000, MAX_ATTEMPTS,
+        directory.resolve("dead-letter").toString());
+  }
+
+  private static LogSecurity logSec(String serviceName, int minute) {
+    LogSecurity logSec = new LogSecurity();
+    logSec.setServiceName(serviceName);
+    logSec.setStatusCode(200);
+    logSec.setMethod("POST");
+    logSec.setUrl("/api/users");
+    logSec.setRequest("{\"username\":\"jperez\"}");
+    logSec.setCreationDate(START.plusMinutes(minute));
+    return logSec;
+  }
+
+  private double count(String name) {
+    return meterRegistry.get(AuthConfigConstants.AUDIT_SEGMENT_METRIC_NAME + name).counter()
+        .count();
+  }
+
+  @Test
+  @DisplayName("Rota los segmentos llenos y al detenerse carga todos los logs en log_sec")
+  void rotatesAndShipsOnStop() throws IOException {
+    SegmentAuditLogSink sink = sink("database");
+    sink.start();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      sink.submit(logSec("log-" + i, i));
+      expected.add("log-" + i);
+    }
+    sink.stop();
+
+    assertEquals(expected, inserted);
+    assertTrue(count(".rotated") > 0);
+    assertEquals(100.0, count(".shipped"));
+    assertEquals(List.of(), AuditSegmentUtil.segments(directory));
+    verify(logSecRepo, never()).save(any(LogSecurity.class));
+  }
+
+  @Test
+  @DisplayName("Recorta el último segmento en el registro incompleto de una caída")
+  void recoversTornSegment() throws IOException {
+    byte[] first = AuditSegmentUtil.encode(logSec("a", 0));
+    byte[] second = AuditSegmentUtil.encode(logSec("b", 1));
+    byte[] torn = AuditSegmentUtil.encode(logSec("c", 2));
+    byte[] content = new byte[first.length + second.length + torn.length / 2];
+    System.arraycopy(first, 0, content, 0, first.length);
+    System.arraycopy(second, 0, content, first.length, second.length);
+    System.arraycopy(torn, 0, content, first.length + second.length, torn.length / 2);
+    Path segment = directory.resolve(AuditSegmentUtil.segmentName(7));
+    Files.write(segment, content);
+
+    SegmentAuditLogSink sink = sink("database");
+    sink.start();
+    sink.submit(logSec("d", 3));
+    sink.stop();
+
+    assertEquals(List.of("a", "b", "d"), inserted);
+  }
+
+  @Test
+  @DisplayName("En modo export mueve los segmentos y el lector los consulta por rango de fechas")
+  void exportsAndReadsByTimeRange() throws IOException {
+    SegmentAuditLogSink sink = sink("export");
+    sink.start();
+    for (int i = 0; i < 60; i++) {
+      sink.submit(logSec("log-" + i, i));
+    }
+    sink.stop();
+
+    List<LogSecurity> logs = AuditSegmentReader.read(directory.resolve("export"),
+        START.plusMinutes(10), START.plusMinutes(13));
+
+    assertEquals(List.of("log-10", "log-11", "log-12"),
+        logs.stream().map(LogSecurity::getServiceName).toList());
+    assertEquals(START.plusMinutes(10), logs.get(0).getCreationDate());
+    assertEquals("{\"username\":\"jperez\"}", logs.get(0).getRequest());
+    assertEquals(200, logs.get(0).getStatusCode());
+    assertNull(logs.get(0).getErrorMessage());
+    assertTrue(count(".exported") > 1);
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyCollection(), anyInt(),
+        any(ParameterizedPreparedStatementSetter.class));
+  }
+
+  @Test
+  @DisplayName("Un segmento que la base de datos siempre rechaza pasa a dead-letter y no bloquea")
+  void poisonSegmentIsDeadLettered() throws IOException {
+    Files.write(directory.resolve(AuditSegmentUtil.segmentName(1)),
+        AuditSegmentUtil.encode(logSec(POISON, 0)));
+    Files.write(directory.resolve(AuditSegmentUtil.segmentName(2)),
+        AuditSegmentUtil.encode(logSec("ok", 1)));
+    SegmentAuditLogSink sink = sink("database");
+
+    // Cada stop ejecuta un ciclo de envio
+    for (int i = 0; i < MAX_ATTEMPTS; i++) {
+      sink.start();
+      sink.submit(logSec("late-" + i, 2 + i));
+      sink.stop();
+      if (i < MAX_ATTEMPTS - 1) {
+        assertEquals(List.of(), inserted);
+      }
+    }
+
+    assertEquals(List.of("ok", "late-0", "late-1", "late-2"), inserted);
+    assertEquals(List.of(directory.resolve("dead-letter")
+        .resolve(AuditSegmentUtil.segmentName(1))),
+        AuditSegmentUtil.segments(directory.resolve("dead-letter")));
+    assertEquals(List.of(), AuditSegmentUtil.segments(directory));
+    assertEquals(1.0, count(".dead-lettered"));
+    assertEquals(0.0, meterRegistry.get(AuthConfigConstants.AUDIT_SEGMENT_METRIC_NAME + ".sealed")
+        .gauge().value());
+  }
+
+  @Test
+  @DisplayName("Sin iniciar, o con un log mayor al segmento, guarda con el repositorio")
+  void savesInlineWhenNotRunning() {
+    SegmentAuditLogSink sink = sink("database");
+    LogSecurity before = logSec("before", 0);
+    sink.submit(before);
+    verify(logSecRepo).save(before);
+
+    sink.start();
+    LogSecurity large = logSec("large", 1);
+    char[] request = new char[5000];
+    Arrays.fill(request, 'x');
+    large.setRequest(new String(request));
+    sink.submit(large);
+    sink.stop();
+
+    verify(logSecRepo).save(large);
+    assertEquals(2.0, count(".inline"));
+  }
+}
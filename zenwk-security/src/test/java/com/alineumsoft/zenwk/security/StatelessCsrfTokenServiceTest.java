@@ -0,0 +1,104 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import com.alineumsoft.zenwk.security.auth.jwt.JwtKeyHolder;
+import com.alineumsoft.zenwk.security.common.dto.TokenDTO;
+import com.alineumsoft.zenwk.security.common.service.StatelessCsrfTokenService;
+
+class StatelessCsrfTokenServiceTest {
+
+  private static final String JWT_SECRET = "c2VjcmV0LWRlLXBydWViYXMtcGFyYS1lbC1qd3QtenVud2s=";
+  private static final String JTI = "3f1c6c9e-jti";
+  private static final String EMAIL = "user@zenwk.com";
+
+  private JwtKeyHolder keyHolder;
+  private StatelessCsrfTokenService service;
+
+  @BeforeEach
+  void setUp() {
+    keyHolder = new JwtKeyHolder(JWT_SECRET, new StandardEnvironment());
+    service = new StatelessCsrfTokenService("stateless", "", keyHolder);
+  }
+
+  @Test
+  @DisplayName("Genera un token firmado que se valida con el mismo jti y email")
+  void generateAndValidate() {
+    TokenDTO token = service.generateCsrfToken(JTI, EMAIL);
+
+    assertTrue(service.isStateless());
+    assertTrue(service.isSigned(token.getCode()));
+    assertFalse(service.isSigned("persisted-random-code"));
+    LocalDateTime expiration = service.validateCsrfToken(token.getCode(), JTI, EMAIL);
+    assertNotNull(expiration);
+    assertTrue(expiration.isAfter(LocalDateTime.now()));
+    assertNotEquals(token.getCode(), service.generateCsrfToken(JTI, EMAIL).getCode());
+  }
+
+  @Test
+  @DisplayName("Rechaza el token de otro JWT, otro email, otra clave o modificado")
+  void rejectsForeignOrTampered() {
+    String code = service.generateCsrfToken(JTI, EMAIL).getCode();
+
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken(code, "otro-jti", EMAIL));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken(code, JTI, "otro@zenwk.com"));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken(code, null, EMAIL));
+    StatelessCsrfTokenService otherKey = new StatelessCsrfTokenService("stateless",
+        Base64.getEncoder().encodeToString("otra-clave-hmac".getBytes()), keyHolder);
+    assertThrows(IllegalArgumentException.class,
+        () -> otherKey.validateCsrfToken(code, JTI, EMAIL));
+
+    // Se extiende la expiracion sin volver a firmar
+    String[] parts = code.split("\\.");
+    String extended = parts[0] + "." + (Long.parseLong(parts[1]) + 3600) + "." + parts[2] + "."
+        + parts[3];
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken(extended, JTI, EMAIL));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken("v1.x.y", JTI, EMAIL));
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken("v1.abc.nonce.%%%", JTI, EMAIL));
+  }
+
+  @Test
+  @DisplayName("En modo persistido los tokens firmados se siguen validando")
+  void persistedMode_stillValidatesSignedTokens() {
+    StatelessCsrfTokenService persisted =
+        new StatelessCsrfTokenService("persisted", "", keyHolder);
+    String code = service.generateCsrfToken(JTI, EMAIL).getCode();
+
+    assertFalse(persisted.isStateless());
+    assertNotNull(persisted.validateCsrfToken(code, JTI, EMAIL));
+  }
+
+  @Test
+  @DisplayName("Al rotar el secreto del JWT la clave derivada cambia y el token anterior no valida")
+  void jwtSecretRotation_rederivesKey() {
+    String code = service.generateCsrfToken(JTI, EMAIL).getCode();
+    StatelessCsrfTokenService fixedKey = new StatelessCsrfTokenService("stateless",
+        Base64.getEncoder().encodeToString("clave-hmac-fija".getBytes()), keyHolder);
+    String fixedCode = fixedKey.generateCsrfToken(JTI, EMAIL).getCode();
+
+    keyHolder.rotate(Base64.getEncoder()
+        .encodeToString("otro-secreto-de-pruebas-para-el-jwt".getBytes()));
+
+    assertThrows(IllegalArgumentException.class,
+        () -> service.validateCsrfToken(code, JTI, EMAIL));
+    String rotated = service.generateCsrfToken(JTI, EMAIL).getCode();
+    assertNotNull(service.validateCsrfToken(rotated, JTI, EMAIL));
+    // Con security.csrf.signing-key la clave no depende del secreto del JWT
+    assertNotNull(fixedKey.validateCsrfToken(fixedCode, JTI, EMAIL));
+  }
+}
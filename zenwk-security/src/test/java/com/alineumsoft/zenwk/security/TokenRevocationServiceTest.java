@@ -0,0 +1,132 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import com.alineumsoft.zenwk.security.auth.entity.RevokedToken;
+import com.alineumsoft.zenwk.security.auth.jwt.JtiBloomFilter;
+import com.alineumsoft.zenwk.security.auth.jwt.TokenRevocationService;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
+import com.alineumsoft.zenwk.security.auth.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+class TokenRevocationServiceTest {
+
+  @Mock
+  private RevokedTokenRepository revokedTokenRepo;
+
+  private TokenRevocationService service;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    service = new TokenRevocationService(revokedTokenRepo, 1000, 0.01);
+  }
+
+  private VerifiedJwt verifiedJwt(String jti, long expiresInMillis) {
+    Claims claims = Jwts.claims().setSubject("user").setId(jti)
+        .setExpiration(new Date(System.currentTimeMillis() + expiresInMillis));
+    return VerifiedJwt.from("token-" + jti, claims);
+  }
+
+  @Test
+  @DisplayName("revoke() marca el jti como revocado y lo persiste")
+  void revoke_marksAndPersists() {
+    VerifiedJwt jwt = verifiedJwt("jti-1", 60000);
+
+    service.revoke(jwt);
+
+    assertTrue(service.isRevoked("jti-1"));
+    assertFalse(service.isRevoked("jti-2"));
+    verify(revokedTokenRepo).save(any(RevokedToken.class));
+  }
+
+  @Test
+  @DisplayName("revoke() ignora tokens sin jti o ya expirados")
+  void revoke_ignoresWithoutJtiOrExpired() {
+    service.revoke(verifiedJwt(null, 60000));
+    service.revoke(verifiedJwt("expired", -1000));
+
+    assertEquals(0, service.size());
+    assertFalse(service.isRevoked(null));
+    verify(revokedTokenRepo, never()).save(any(RevokedToken.class));
+  }
+
+  @Test
+  @DisplayName("revoke() tolera que otro nodo ya haya persistido el mismo jti")
+  void revoke_duplicateInDatabase() {
+    when(revokedTokenRepo.save(any(RevokedToken.class)))
+        .thenThrow(new DataIntegrityViolationException("duplicado"));
+
+    service.revoke(verifiedJwt("jti-dup", 60000));
+
+    assertTrue(service.isRevoked("jti-dup"));
+  }
+
+  @Test
+  @DisplayName("sweep() elimina los jti expirados y depura la tabla")
+  void sweep_dropsExpired() throws Exception {
+    service.revoke(verifiedJwt("short", 50));
+    service.revoke(verifiedJwt("long", 60000));
+    Thread.sleep(100);
+
+    service.sweep();
+
+    assertFalse(service.isRevoked("short"));
+    assertTrue(service.isRevoked("long"));
+    assertEquals(1, service.size());
+    verify(revokedTokenRepo).deleteExpired(any(LocalDateTime.class));
+  }
+
+  @Test
+  @DisplayName("sync() carga las revocaciones registradas por otros nodos")
+  void sync_loadsFromDatabase() {
+    RevokedToken other =
+        new RevokedToken("jti-other-node", "user", LocalDateTime.now().plusHours(1));
+    when(revokedTokenRepo.findByCreationDateAfterAndExpirationDateAfter(any(), any()))
+        .thenReturn(List.of(other));
+
+    service.sync();
+
+    assertTrue(service.isRevoked("jti-other-node"));
+  }
+
+  @Test
+  @DisplayName("El filtro de Bloom no tiene falsos negativos y respeta la tasa de falsos positivos")
+  void bloomFilter_falsePositiveRate() {
+    int insertions = 10000;
+    JtiBloomFilter filter = new JtiBloomFilter(insertions, 0.01);
+    List<String> added = new ArrayList<>();
+    for (int i = 0; i < insertions; i++) {
+      String jti = UUID.randomUUID().toString();
+      added.add(jti);
+      filter.put(jti);
+    }
+    added.forEach(jti -> assertTrue(filter.mightContain(jti)));
+
+    int falsePositives = 0;
+    int probes = 100000;
+    for (int i = 0; i < probes; i++) {
+      if (filter.mightContain(UUID.randomUUID().toString())) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < probes * 0.02, "falsos positivos: " + falsePositives);
+  }
+}
@@ -32,7 +32,9 @@ import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 import com.alineumsoft.zenwk.security.auth.dto.RoleUserDTO;
 import com.alineumsoft.zenwk.security.auth.jwt.JwtProvider;
+import com.alineumsoft.zenwk.security.auth.jwt.VerifiedJwt;
 import com.alineumsoft.zenwk.security.auth.service.RoleAssignmentService;
+import com.alineumsoft.zenwk.security.common.constants.AuthConfigConstants;
 import com.alineumsoft.zenwk.security.common.exception.FunctionalException;
 import com.alineumsoft.zenwk.security.common.exception.TechnicalException;
 import com.alineumsoft.zenwk.security.common.util.HistoricalUtil;
@@ -47,6 +49,8 @@ import com.alineumsoft.zenwk.security.user.dto.UserDTO;
 import com.alineumsoft.zenwk.security.user.entity.User;
 import com.alineumsoft.zenwk.security.user.repository.UserRepository;
 import com.alineumsoft.zenwk.security.user.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -191,8 +195,8 @@ class UserServiceTest {
     user.setId(idUser);
     user.setPassword("secret");
 
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
-    when(jwtProvider.extractIdUser(token)).thenReturn(idUser);
+    when(jwtProvider.resolveVerifiedJwt(request))
+        .thenReturn(Optional.of(verifiedJwt(token, idUser)));
     when(userRepository.findById(idUser)).thenReturn(Optional.of(user));
 
     UserDTO dto = userService.getCurrentUser(request, userDetails);
@@ -324,7 +328,7 @@ class UserServiceTest {
     // Simula que no hay cookies
     when(request.getCookies()).thenReturn(null);
     // Simula que jwtProvider no encuentra token
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.empty());
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.empty());
 
     // Verifica que se lance la excepción funcional
     assertThrows(FunctionalException.class, () -> userService.getCurrentUser(request, userDetails));
@@ -334,8 +338,7 @@ class UserServiceTest {
   @DisplayName("Obtener usuario actual falla si usuario no encontrado")
   void testGetCurrentUserNotFound() {
     String token = "token";
-    when(jwtProvider.extractJwtFromCookie(request)).thenReturn(Optional.of(token));
-    when(jwtProvider.extractIdUser(token)).thenReturn(999L);
+    when(jwtProvider.resolveVerifiedJwt(request)).thenReturn(Optional.of(verifiedJwt(token, 999L)));
     when(userRepository.findById(999L)).thenReturn(Optional.empty());
 
     assertThrows(FunctionalException.class, () -> userService.getCurrentUser(request, userDetails));
@@ -524,4 +527,12 @@ class UserServiceTest {
     assertThrows(TechnicalException.class, () -> userService.createUser(dto, request));
   }
 
+  /**
+   * Construye un token verificado con el id del usuario
+   */
+  private VerifiedJwt verifiedJwt(String token, Long idUser) {
+    Claims claims = Jwts.claims().setSubject("user");
+    claims.put(AuthConfigConstants.JWT_ID_USER, idUser);
+    return VerifiedJwt.from(token, claims);
+  }
 }
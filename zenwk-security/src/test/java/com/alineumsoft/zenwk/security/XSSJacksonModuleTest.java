@@ -0,0 +1,56 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import com.alineumsoft.zenwk.security.auth.dto.AuthRequestDTO;
+import com.alineumsoft.zenwk.security.config.XSSJacksonModule;
+import com.alineumsoft.zenwk.security.config.XSSSanitizer;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class XSSJacksonModuleTest {
+
+  private ObjectMapper mapper;
+
+  @BeforeEach
+  void setUp() {
+    mapper = new ObjectMapper().registerModule(new XSSJacksonModule());
+  }
+
+  @Test
+  @DisplayName("Sin caracteres a escapar retorna la misma instancia")
+  void sanitize_fastPathReturnsSameInstance() {
+    String plain = "José Peña, calle 10 # 20-30";
+
+    assertSame(plain, XSSSanitizer.sanitize(plain));
+    assertNull(XSSSanitizer.sanitize(null));
+    assertEquals("a &amp; b &lt;i&gt; &quot;c&quot;", XSSSanitizer.sanitize("a & b <i> \"c\""));
+  }
+
+  @Test
+  @DisplayName("Escapa los textos del body JSON al deserializar y conserva los acentos")
+  void deserialize_escapesBodyStrings() throws Exception {
+    AuthRequestDTO dto = mapper.readValue(
+        "{\"username\":\"<script>alert('x')</script>Ñandú\",\"password\":\"p<ss>&\\\"1\"}",
+        AuthRequestDTO.class);
+
+    assertEquals("&lt;script&gt;alert('x')&lt;/script&gt;Ñandú", dto.getUsername());
+    // El password tiene @XSSExempt
+    assertEquals("p<ss>&\"1", dto.getPassword());
+  }
+
+  @Test
+  @DisplayName("Escapa los textos de listas y mapas")
+  void deserialize_escapesCollections() throws Exception {
+    Map<String, List<String>> values = mapper.readValue("{\"names\":[\"<b>\",\"ok\",7]}",
+        new TypeReference<Map<String, List<String>>>() {});
+
+    assertEquals(List.of("&lt;b&gt;", "ok", "7"), values.get("names"));
+  }
+}
@@ -0,0 +1,85 @@
+package com.alineumsoft.zenwk.security;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import com.alineumsoft.zenwk.security.config.XSSRequestWrapper;
+import com.alineumsoft.zenwk.security.config.XSSSanitizer;
+
+class XSSRequestWrapperTest {
+
+  private MockHttpServletRequest request;
+
+  @BeforeEach
+  void setUp() {
+    request = spy(new MockHttpServletRequest("GET", "/api/users"));
+    request.addParameter("page", "0");
+    request.addParameter("name", "<b>José</b>");
+    request.addParameter("tags", "a", "b&c");
+    request.addParameter("password", "p<ss>");
+  }
+
+  @Test
+  @DisplayName("Los valores sin caracteres a escapar se retornan sin copiar")
+  void cleanValues_sameInstance() {
+    XSSRequestWrapper wrapper = new XSSRequestWrapper(request);
+
+    assertSame(request.getParameterValues("page"), wrapper.getParameterValues("page"));
+    assertSame(request.getParameter("page"), wrapper.getParameter("page"));
+  }
+
+  @Test
+  @DisplayName("Escapa los valores una sola vez por solicitud")
+  void escapedValues_memoized() {
+    XSSRequestWrapper wrapper = new XSSRequestWrapper(request);
+
+    String name = wrapper.getParameter("name");
+    assertEquals("&lt;b&gt;José&lt;/b&gt;", name);
+    assertSame(name, wrapper.getParameter("name"));
+    assertSame(name, wrapper.getParameterValues("name")[0]);
+    assertArrayEquals(new String[] {"a", "b&amp;c"}, wrapper.getParameterValues("tags"));
+    verify(request, times(1)).getParameterValues("name");
+  }
+
+  @Test
+  @DisplayName("Los parametros se escapan igual que los textos del body JSON")
+  void sameEscapeAsJsonBody() {
+    XSSRequestWrapper wrapper = new XSSRequestWrapper(request);
+
+    assertEquals(XSSSanitizer.sanitize("<b>José</b>"), wrapper.getParameter("name"));
+    assertEquals(XSSSanitizer.sanitize("b&c"), wrapper.getParameterValues("tags")[1]);
+  }
+
+  @Test
+  @DisplayName("No sanitiza el password y un parametro inexistente no tiene valores")
+  void password_andMissing() {
+    XSSRequestWrapper wrapper = new XSSRequestWrapper(request);
+
+    assertEquals("p<ss>", wrapper.getParameter("password"));
+    assertNull(wrapper.getParameter("missing"));
+    assertEquals(0, wrapper.getParameterValues("missing").length);
+  }
+
+  @Test
+  @DisplayName("getParameterMap retorna los valores sanitizados y no es modificable")
+  void parameterMap_sanitized() {
+    XSSRequestWrapper wrapper = new XSSRequestWrapper(request);
+
+    Map<String, String[]> parameters = wrapper.getParameterMap();
+    assertEquals("&lt;b&gt;José&lt;/b&gt;", parameters.get("name")[0]);
+    assertEquals("p<ss>", parameters.get("password")[0]);
+    assertSame(parameters, wrapper.getParameterMap());
+    assertSame(parameters.get("name"), wrapper.getParameterValues("name"));
+    assertThrows(UnsupportedOperationException.class, () -> parameters.remove("page"));
+  }
+}